@@ -0,0 +1,78 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.SixStoneKalahApplication;
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.exceptions.InvalidGameCountException;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.service.KalahGameService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of {@link #GAMES} games against a Redis server on localhost:6379: the bulk create pipelined in a single
+ * round trip, against one create per game as {@code POST /games} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BulkCreateBenchmark {
+
+    private static final int GAMES = 10_000;
+
+    @Param({"hash", "packed", "events"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+    private KalahGameService kalahGameService;
+    private GameRepository gameStore;
+    private final List<String> created = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SixStoneKalahApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--games.storage=" + storage, "--logging.level.root=WARN");
+        kalahGameService = context.getBean(KalahGameService.class);
+        gameStore = context.getBean(GameRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteGames() {
+        gameStore.deleteAllById(created);
+        created.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Game> createAll() throws InvalidGameCountException {
+        List<Game> games = kalahGameService.creteNewGames(GAMES, id -> "http://localhost:8080/games/" + id, BoardVariant.STANDARD);
+        games.forEach(game -> created.add(game.getId()));
+        return games;
+    }
+
+    @Benchmark
+    public Game createOneByOne() {
+        Game game = null;
+        for (int i = 0; i < GAMES; i++) {
+            String id = UUID.randomUUID().toString();
+            game = kalahGameService.creteNewGame(id, "http://localhost:8080/games/" + id);
+            created.add(id);
+        }
+        return game;
+    }
+}
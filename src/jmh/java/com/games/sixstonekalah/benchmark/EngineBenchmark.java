@@ -0,0 +1,59 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+
+/**
+ * Pure board engine: a single sow over random legal positions and full random playouts from the initial board.
+ * {@link #variantSow()} plays the same positions through the tables of {@link BoardVariant#STANDARD}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    private static final int POSITIONS = 1 << 12;
+
+    private RandomPositions positions;
+    private int[] board;
+    private int[] moves;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        positions = new RandomPositions(POSITIONS, 42L);
+        board = new int[KalahBoard.SIZE];
+        moves = new int[NUMBER_OF_PITS];
+        random = new SplittableRandom(7L);
+    }
+
+    @Benchmark
+    public int sow() {
+        int position = next++ & (POSITIONS - 1);
+        System.arraycopy(positions.pits[position], 0, board, 0, KalahBoard.SIZE);
+        return KalahBoard.sow(board, positions.players[position], positions.pitIds[position]);
+    }
+
+    @Benchmark
+    public int variantSow() {
+        int position = next++ & (POSITIONS - 1);
+        System.arraycopy(positions.pits[position], 0, board, 0, KalahBoard.SIZE);
+        return BoardVariant.STANDARD.sow(board, positions.players[position], positions.pitIds[position]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int randomPlayout() {
+        return RandomPositions.playout(board, random, moves);
+    }
+}
@@ -0,0 +1,63 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.PathIndexResolver;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a game into its stored form and back: the Spring Data Redis hash mapping against {@link GameCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameEncodingBenchmark {
+
+    private MappingRedisConverter redisConverter;
+    private Game game;
+    private RedisData hash;
+    private byte[] packed;
+
+    @Setup
+    public void setUp() {
+        RedisMappingContext mappingContext = new RedisMappingContext();
+        redisConverter = new MappingRedisConverter(mappingContext, new PathIndexResolver(mappingContext), null);
+        redisConverter.afterPropertiesSet();
+        game = StoredGames.newGame();
+        hash = new RedisData();
+        redisConverter.write(game, hash);
+        packed = GameCodec.encode(game);
+        StoredGames.printSize("hash", hash);
+        System.out.printf("packed layout: 1 value, %d bytes per game%n", packed.length);
+    }
+
+    @Benchmark
+    public RedisData hashWrite() {
+        RedisData redisData = new RedisData();
+        redisConverter.write(game, redisData);
+        return redisData;
+    }
+
+    @Benchmark
+    public Game hashRead() {
+        return redisConverter.read(Game.class, hash);
+    }
+
+    @Benchmark
+    public byte[] packedWrite() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public Game packedRead() {
+        return GameCodec.decode(packed);
+    }
+}
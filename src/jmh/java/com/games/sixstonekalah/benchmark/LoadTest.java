@@ -0,0 +1,160 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.SixStoneKalahApplication;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.model.GameResponseDto;
+import com.games.sixstonekalah.model.GameStatusResponseDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop load test of the HTTP API, every client creates a game and plays random legal moves until it is over.
+ * Starts the application in the given deployment mode against the Redis server on localhost:6379, with the
+ * in-process cache turned off and the packed layout on both stacks so every request reaches Redis.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.games.sixstonekalah.benchmark.LoadTest -Djmh.args="reactive 512 30"
+ * </pre>
+ * Arguments: servlet (platform threads), virtual (servlet on virtual threads) or reactive, concurrent clients,
+ * seconds to run after a 5 second warm up.
+ * Besides throughput and latency it reports the peak number of requests the server held open at once.
+ */
+public final class LoadTest {
+
+    private static final int MAX_SAMPLES = 1 << 24;
+    private static final int WARM_UP_SECONDS = 5;
+
+    private final WebClient client;
+    private final long[] latencies = new long[MAX_SAMPLES];
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile boolean recording;
+    private volatile long deadline;
+
+    private LoadTest(String baseUrl, int concurrency) {
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.create("load-test", concurrency));
+        client = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(baseUrl)
+                .build();
+    }
+
+    public static void main(String[] args) {
+        final String mode = args.length > 0 ? args[0] : "virtual";
+        final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        SpringApplicationBuilder application = new SpringApplicationBuilder(SixStoneKalahApplication.class);
+        if ("reactive".equals(mode)) {
+            application.profiles("reactive");
+        }
+        try (ConfigurableApplicationContext context = application.run("--server.port=0",
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--games.storage=packed", "--games.cache.enabled=false", "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new LoadTest("http://localhost:" + port, concurrency).run(mode, concurrency, seconds);
+        }
+    }
+
+    private void run(String mode, int concurrency, int seconds) {
+        final long start = System.nanoTime();
+        deadline = start + TimeUnit.SECONDS.toNanos(WARM_UP_SECONDS + seconds);
+        Flux.range(0, concurrency)
+                .flatMap(clientId -> playGames(), concurrency)
+                .subscribe();
+        sleep(TimeUnit.SECONDS.toMillis(WARM_UP_SECONDS));
+        recording = true;
+        sleep(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        recording = false;
+        sleep(TimeUnit.SECONDS.toMillis(1));
+        report(mode, concurrency, seconds);
+    }
+
+    private Mono<Void> playGames() {
+        return Mono.defer(this::playGame)
+                .onErrorResume(e -> {
+                    errors.incrementAndGet();
+                    return Mono.empty();
+                })
+                .repeat(() -> System.nanoTime() < deadline)
+                .then();
+    }
+
+    private Mono<Void> playGame() {
+        return timed(client.post().uri("/games").retrieve().bodyToMono(GameResponseDto.class))
+                .flatMap(game -> timed(move(game.getId(), KalahBoard.FIRST_PIT_INDEX + ThreadLocalRandom.current().nextInt(KalahBoard.NUMBER_OF_PITS)))
+                        .expand(status -> status.getPlayerWon().isEmpty() && System.nanoTime() < deadline
+                                ? timed(move(game.getId(), randomLegalMove(status)))
+                                : Mono.empty())
+                        .then());
+    }
+
+    private Mono<GameStatusResponseDto> move(String gameId, int pitId) {
+        return client.put().uri("/games/{gameId}/pits/{pitId}", gameId, pitId)
+                .retrieve().bodyToMono(GameStatusResponseDto.class);
+    }
+
+    private <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return request.doOnTerminate(inFlight::decrementAndGet).doOnCancel(inFlight::decrementAndGet).doOnSuccess(response -> {
+                if (recording) {
+                    int sample = samples.getAndIncrement();
+                    if (sample < MAX_SAMPLES) {
+                        latencies[sample] = System.nanoTime() - start;
+                    }
+                }
+            });
+        });
+    }
+
+    private static int randomLegalMove(GameStatusResponseDto status) {
+        int[] pits = KalahBoard.fromPitsSeedsMap(status.getStatus());
+        int player = Integer.parseInt(status.getNextHand().substring("Player ".length()));
+        int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        int count = KalahBoard.getLegalMoves(pits, player, moves);
+        // an empty side settles the game, any pit of the player does
+        return count == 0 ? KalahBoard.getFirstPitIndex(player) : moves[ThreadLocalRandom.current().nextInt(count)];
+    }
+
+    private void report(String mode, int concurrency, int seconds) {
+        int count = Math.min(samples.get(), MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%s, %d clients: %d held at peak, %d requests, %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms, %d errors%n",
+                mode, concurrency, peakInFlight.get(), count, count / (double) seconds,
+                millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 0.999), millis(sorted, 1.0), errors.get());
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
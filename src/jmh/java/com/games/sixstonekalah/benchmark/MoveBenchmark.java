@@ -0,0 +1,152 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.events.GameEventPublisher;
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.repository.Leaderboard;
+import com.games.sixstonekalah.service.KalahGameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link KalahGameService#move(String, int)} against an in memory repository holding a single game,
+ * which is reset to one of the random legal positions before every move.
+ * {@link #invalidMove()} plays the kalah of the player instead, the move is always rejected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    private static final int POSITIONS = 1 << 12;
+    private static final String GAME_ID = "benchmark";
+
+    private RandomPositions positions;
+    private Game game;
+    private KalahGameService kalahGameService;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        positions = new RandomPositions(POSITIONS, 42L);
+        game = Game.builder().id(GAME_ID).uri("URI").pits(new int[positions.pits[0].length]).build();
+        kalahGameService = new KalahGameService(new SingleGameRepository(game), new GameMetrics(new SimpleMeterRegistry()), GameEventPublisher.NONE,
+                GameArchive.NONE, Leaderboard.NONE);
+    }
+
+    @Benchmark
+    public Game move() throws InvalidMoveException, GameNotFoundException {
+        int position = next++ & (POSITIONS - 1);
+        System.arraycopy(positions.pits[position], 0, game.getPits(), 0, game.getPits().length);
+        game.setNextToPlay(positions.players[position]);
+        return kalahGameService.move(GAME_ID, positions.pitIds[position]);
+    }
+
+    @Benchmark
+    public Object invalidMove() throws GameNotFoundException {
+        int position = next++ & (POSITIONS - 1);
+        System.arraycopy(positions.pits[position], 0, game.getPits(), 0, game.getPits().length);
+        game.setNextToPlay(positions.players[position]);
+        try {
+            return kalahGameService.move(GAME_ID, KalahBoard.getKalahIndex(positions.players[position]));
+        } catch (InvalidMoveException e) {
+            return e;
+        }
+    }
+
+    private static final class SingleGameRepository implements GameRepository {
+
+        private final Game game;
+
+        private SingleGameRepository(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public <S extends Game> S save(S entity) {
+            return entity;
+        }
+
+        @Override
+        public void saveIfUnchanged(Game entity, Long expectedVersion) {
+        }
+
+        @Override
+        public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+            return entities;
+        }
+
+        @Override
+        public void createAll(List<Game> games) {
+        }
+
+        @Override
+        public Optional<Game> findById(String id) {
+            return Optional.of(game);
+        }
+
+        @Override
+        public boolean existsById(String id) {
+            return true;
+        }
+
+        @Override
+        public Iterable<Game> findAll() {
+            return Collections.singletonList(game);
+        }
+
+        @Override
+        public Iterable<Game> findAllById(Iterable<String> ids) {
+            return findAll();
+        }
+
+        @Override
+        public long count() {
+            return 1;
+        }
+
+        @Override
+        public void deleteById(String id) {
+        }
+
+        @Override
+        public boolean deleteIfUnchanged(String id, Long version) {
+            return false;
+        }
+
+        @Override
+        public void scanIds(int batchSize, Consumer<List<String>> batches) {
+            batches.accept(Collections.singletonList(game.getId()));
+        }
+
+        @Override
+        public void delete(Game entity) {
+        }
+
+        @Override
+        public void deleteAllById(Iterable<? extends String> ids) {
+        }
+
+        @Override
+        public void deleteAll(Iterable<? extends Game> entities) {
+        }
+
+        @Override
+        public void deleteAll() {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.SixStoneKalahApplication;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.service.KalahGameRules;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves after a single move against a Redis server on localhost:6379: the whole game for the hash and packed
+ * layouts, one logged pit id plus a snapshot every so often for the event log.
+ * The bytes Redis received and the commands it ran per save are printed at the end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveLogBenchmark {
+
+    @Param({"hash", "packed", "events"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+    private RedisTemplate<String, Object> redisTemplate;
+    private GameRepository gameStore;
+    private final int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+    private Game game;
+    private long saves;
+    private long inputBytes;
+    private long commands;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new SpringApplicationBuilder(SixStoneKalahApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--games.storage=" + storage, "--games.cache.enabled=false", "--logging.level.root=WARN");
+        redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+        gameStore = context.getBean(GameRepository.class);
+        newGame();
+        Properties stats = stats();
+        inputBytes = Long.parseLong(stats.getProperty("total_net_input_bytes"));
+        commands = Long.parseLong(stats.getProperty("total_commands_processed"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Properties stats = stats();
+        System.out.printf("%n%s: %d bytes sent and %.1f commands run per save%n", storage,
+                (Long.parseLong(stats.getProperty("total_net_input_bytes")) - inputBytes) / saves,
+                (Long.parseLong(stats.getProperty("total_commands_processed")) - commands) / (double) saves);
+        gameStore.deleteById(game.getId());
+        context.close();
+    }
+
+    @Benchmark
+    public Game saveMove() {
+        if (game.isGameOver()) {
+            newGame();
+        }
+        KalahBoard.getLegalMoves(game.getPits(), game.getNextToPlay(), moves);
+        final int pitId = moves[0];
+        KalahGameRules.replay(game, pitId);
+        final Long expectedVersion = game.getVersion();
+        game.setVersion(expectedVersion + 1);
+        gameStore.saveIfUnchanged(game, expectedVersion, Collections.singletonList(pitId));
+        saves++;
+        return game;
+    }
+
+    private void newGame() {
+        game = StoredGames.newGame();
+        game.setPits(KalahBoard.newBoard());
+        game.setLastPlayedBy(null);
+        game.setNextToPlay(KalahBoard.PLAYER_1);
+        game.setVersion(0L);
+        gameStore.save(game);
+        saves++;
+    }
+
+    private Properties stats() {
+        return redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("stats"));
+    }
+}
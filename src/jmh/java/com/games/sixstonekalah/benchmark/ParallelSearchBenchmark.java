@@ -0,0 +1,71 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches to a fixed depth from random midgame positions with 1..n search threads, starting from an empty table.
+ * The speedup against the sequential search is the score of the row divided by the score of {@code parallelism=1},
+ * the {@code nodes} counter is the nodes/sec summed over all threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    private static final int POSITIONS = 16;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"12"})
+    public int depth;
+
+    private ForkJoinPool pool;
+    private TranspositionTable transpositionTable;
+    private ParallelSearch search;
+    private RandomPositions positions;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Math.max(1, parallelism - 1));
+        transpositionTable = new TranspositionTable(1 << 20);
+        search = new ParallelSearch(transpositionTable, new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS), pool, parallelism);
+        positions = new RandomPositions(POSITIONS * 20, 3L);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        transpositionTable.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public SearchResult searchToDepth(Nodes nodes) {
+        int position = (next++ % POSITIONS) * 20 + 10;
+        SearchResult result = search.search(positions.pits[position], positions.players[position], Long.MAX_VALUE, depth);
+        nodes.nodes += result.getNodes();
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.util.SplittableRandom;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+
+/**
+ * Legal positions reached by random play from the initial board, each one with the side to move and a legal pit.
+ */
+final class RandomPositions {
+
+    final int[][] pits;
+    final int[] players;
+    final int[] pitIds;
+
+    RandomPositions(int size, long seed) {
+        pits = new int[size][];
+        players = new int[size];
+        pitIds = new int[size];
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] moves = new int[NUMBER_OF_PITS];
+        int filled = 0;
+        while (filled < size) {
+            int[] board = KalahBoard.newBoard();
+            int player = PLAYER_1;
+            while (!KalahBoard.isGameOver(board) && filled < size) {
+                int count = KalahBoard.getLegalMoves(board, player, moves);
+                int pitId = moves[random.nextInt(count)];
+                pits[filled] = board.clone();
+                players[filled] = player;
+                pitIds[filled] = pitId;
+                filled++;
+                if ((KalahBoard.sow(board, player, pitId) & BONUS_MOVE) == 0) {
+                    player = KalahBoard.opponent(player);
+                }
+            }
+        }
+    }
+
+    static int playout(int[] board, SplittableRandom random, int[] moves) {
+        KalahBoard.reset(board);
+        int player = PLAYER_1;
+        int plies = 0;
+        while (!KalahBoard.isGameOver(board)) {
+            int count = KalahBoard.getLegalMoves(board, player, moves);
+            if ((KalahBoard.sow(board, player, moves[random.nextInt(count)]) & BONUS_MOVE) == 0) {
+                player = KalahBoard.opponent(player);
+            }
+            plies++;
+        }
+        KalahBoard.collectRemainingSeeds(board);
+        return plies;
+    }
+}
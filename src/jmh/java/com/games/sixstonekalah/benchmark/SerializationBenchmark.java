@@ -0,0 +1,43 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.model.GameStatusResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON rendering of the move response, including building the pit id keyed status map from the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private int[] pits;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        pits = new int[]{7, 6, 6, 6, 0, 0, 2, 1, 9, 9, 9, 8, 8, 1};
+    }
+
+    @Benchmark
+    public byte[] gameStatusResponse() throws JsonProcessingException {
+        GameStatusResponseDto response = GameStatusResponseDto.builder()
+                .status(KalahBoard.toPitsSeedsMap(pits))
+                .id("0f5b8a4e-3d4c-4a8e-9d3e-2b1f6c7a8d90")
+                .uri("http://localhost:8080/games/0f5b8a4e-3d4c-4a8e-9d3e-2b1f6c7a8d90")
+                .lastHand("Player 1")
+                .nextHand("Player 2")
+                .playerWon("")
+                .build();
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,46 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.simulation.GameSimulator;
+import com.games.sixstonekalah.simulation.Policies;
+import com.games.sixstonekalah.simulation.Policy;
+import com.games.sixstonekalah.simulation.SimulationStatistics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated self-play game per operation, run with {@code -prof gc} to check that games do not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"random", "greedy"})
+    public String policy;
+
+    private GameSimulator simulator;
+    private Policy player1;
+    private Policy player2;
+    private SplittableRandom random;
+    private SimulationStatistics statistics;
+
+    @Setup
+    public void setUp() {
+        simulator = new GameSimulator();
+        player1 = Policies.named(policy).get();
+        player2 = Policies.random();
+        random = new SplittableRandom(7L);
+        statistics = new SimulationStatistics();
+    }
+
+    @Benchmark
+    public SimulationStatistics playGame() {
+        simulator.play(player1, player2, random, statistics);
+        return statistics;
+    }
+}
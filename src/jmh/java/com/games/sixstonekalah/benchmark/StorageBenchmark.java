@@ -0,0 +1,58 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.SixStoneKalahApplication;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save and load round trips of a game against a Redis server on localhost:6379, for both storage layouts.
+ * The in-process cache is turned off so every operation reaches Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"hash", "packed"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+    private GameRepository gameStore;
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SixStoneKalahApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--games.storage=" + storage, "--games.cache.enabled=false", "--logging.level.root=WARN");
+        gameStore = context.getBean(GameRepository.class);
+        game = StoredGames.newGame();
+        gameStore.save(game);
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameStore.deleteById(game.getId());
+        context.close();
+    }
+
+    @Benchmark
+    public Game save() {
+        return gameStore.save(game);
+    }
+
+    @Benchmark
+    public Optional<Game> findById() {
+        return gameStore.findById(game.getId());
+    }
+}
@@ -0,0 +1,33 @@
+package com.games.sixstonekalah.benchmark;
+
+import com.games.sixstonekalah.model.Game;
+import org.springframework.data.redis.core.convert.RedisData;
+
+import java.util.Map;
+
+final class StoredGames {
+
+    private StoredGames() {
+    }
+
+    static Game newGame() {
+        String id = "0f5b8a4e-3d4c-4a8e-9d3e-2b1f6c7a8d90";
+        return Game.builder()
+                .id(id)
+                .uri("http://localhost:8080/games/" + id)
+                .pits(new int[]{7, 6, 6, 6, 0, 0, 2, 1, 9, 9, 9, 8, 8, 1})
+                .lastPlayedBy(1)
+                .nextToPlay(2)
+                .version(4L)
+                .build();
+    }
+
+    static void printSize(String layout, RedisData redisData) {
+        Map<byte[], byte[]> fields = redisData.getBucket().rawMap();
+        int bytes = 0;
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            bytes += field.getKey().length + field.getValue().length;
+        }
+        System.out.printf("%s layout: %d fields, %d bytes per game%n", layout, fields.size(), bytes);
+    }
+}
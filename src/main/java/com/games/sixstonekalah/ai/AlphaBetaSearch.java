@@ -0,0 +1,250 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.endgame.EndgameDatabase;
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.springframework.lang.Nullable;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Iterative deepening negamax with alpha-beta pruning.
+ * <p>
+ * A move that ends in the own kalah keeps the turn, so its child is searched without switching sides.
+ * Scores are store differences from the point of view of the side to move.
+ * Moves are ordered transposition table move first, then moves giving an extra turn.
+ * Positions covered by the endgame database, when there is one, are scored exactly without searching further.
+ * The search horizon is scored by the {@link EvaluationWeights}, the store difference unless others are given.
+ * One instance searches one position at a time, the boards of every ply are preallocated.
+ */
+public class AlphaBetaSearch {
+
+    public static final int MAX_DEPTH = 64;
+
+    private static final int INFINITY = Short.MAX_VALUE;
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 1024;
+
+    private final TranspositionTable transpositionTable;
+    private final Zobrist zobrist;
+    @Nullable
+    private final EndgameDatabase endgameDatabase;
+    private final EvaluationWeights weights;
+
+    private final int[][] boards = new int[MAX_DEPTH + 1][SIZE];
+    private final int[][] moves = new int[MAX_DEPTH + 1][NUMBER_OF_PITS];
+
+    private long nodes;
+    private int rootBestMove;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopped;
+
+    public AlphaBetaSearch(TranspositionTable transpositionTable, Zobrist zobrist) {
+        this(transpositionTable, zobrist, null);
+    }
+
+    public AlphaBetaSearch(TranspositionTable transpositionTable, Zobrist zobrist, @Nullable EndgameDatabase endgameDatabase) {
+        this(transpositionTable, zobrist, endgameDatabase, EvaluationWeights.STORES);
+    }
+
+    /**
+     * @param weights scores of the positions at the search horizon, the transposition table must not be shared with
+     *                searches weighting them differently
+     */
+    public AlphaBetaSearch(TranspositionTable transpositionTable, Zobrist zobrist, @Nullable EndgameDatabase endgameDatabase,
+                           EvaluationWeights weights) {
+        this.transpositionTable = transpositionTable;
+        this.zobrist = zobrist;
+        this.endgameDatabase = endgameDatabase;
+        this.weights = weights;
+    }
+
+    /**
+     * Searches until the budget is used up or {@code maxDepth} is reached.
+     * The first iteration always completes, so a legal move is returned even with a zero budget.
+     *
+     * @param pits   board, not modified
+     * @param player side to move, must have a legal move
+     */
+    public SearchResult search(int[] pits, int player, long budgetNanos, int maxDepth) {
+        return search(pits, player, budgetNanos, 1, maxDepth, true);
+    }
+
+    /**
+     * @param firstDepth             depth of the first iteration
+     * @param completeFirstIteration when false even the first iteration can be stopped
+     */
+    SearchResult search(int[] pits, int player, long budgetNanos, int firstDepth, int maxDepth, boolean completeFirstIteration) {
+        final long start = System.nanoTime();
+        deadline = budgetNanos > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + budgetNanos;
+        nodes = 0;
+        aborted = false;
+        rootBestMove = 0;
+        transpositionTable.nextGeneration();
+
+        int bestMove = 0;
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = firstDepth; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            System.arraycopy(pits, 0, boards[0], 0, SIZE);
+            final int score = negamax(0, player, depth, -INFINITY, INFINITY, depth > firstDepth || !completeFirstIteration);
+            if (aborted) {
+                break;
+            }
+            bestScore = score;
+            bestMove = rootBestMove;
+            completedDepth = depth;
+        }
+        if (bestMove == 0) {
+            bestMove = firstLegalMove(pits, player);
+        }
+        return SearchResult.builder()
+                .bestMove(bestMove)
+                .score(bestScore)
+                .depth(completedDepth)
+                .nodes(nodes)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    /**
+     * Asks a running search to return at its next clock check, the result is the last completed iteration.
+     * A stopped instance stays stopped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return nodes visited so far, only approximate while the search runs on another thread
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    private int negamax(int ply, int player, int depth, int alpha, int beta, boolean abortable) {
+        final int[] board = boards[ply];
+        if ((++nodes & (NODES_BETWEEN_CLOCK_CHECKS - 1)) == 0 && abortable && (stopped || System.nanoTime() > deadline)) {
+            aborted = true;
+            return 0;
+        }
+        if (KalahBoard.isGameOver(board)) {
+            return finalScore(board, player);
+        }
+        if (endgameDatabase != null && ply > 0) {
+            final int remaining = endgameDatabase.value(board, player);
+            if (remaining != EndgameDatabase.NOT_COVERED) {
+                return evaluate(board, player) + remaining;
+            }
+        }
+        if (depth == 0 || ply == MAX_DEPTH) {
+            return weights == EvaluationWeights.STORES ? evaluate(board, player) : weights.evaluate(board, player);
+        }
+
+        final int originalAlpha = alpha;
+        final long key = zobrist.hash(board, player == PLAYER_2);
+        final long entry = transpositionTable.probe(key);
+        int ttMove = 0;
+        if (entry != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth && ply > 0) {
+                final int score = TranspositionTable.score(entry);
+                final int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                        || bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        final int[] plyMoves = moves[ply];
+        final int count = orderMoves(board, player, ttMove, plyMoves);
+        final int[] child = boards[ply + 1];
+        int bestScore = -INFINITY;
+        int bestMove = plyMoves[0];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(board, 0, child, 0, SIZE);
+            final int score;
+            if ((KalahBoard.sow(child, player, plyMoves[i]) & BONUS_MOVE) != 0) {
+                score = negamax(ply + 1, player, depth - 1, alpha, beta, abortable);
+            } else {
+                score = -negamax(ply + 1, KalahBoard.opponent(player), depth - 1, -beta, -alpha, abortable);
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = plyMoves[i];
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        final int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        transpositionTable.store(key, depth, bound, bestScore, bestMove);
+        if (ply == 0) {
+            rootBestMove = bestMove;
+        }
+        return bestScore;
+    }
+
+    /**
+     * Legal moves with the transposition table move first and extra turn moves next.
+     *
+     * @return number of legal moves
+     */
+    static int orderMoves(int[] board, int player, int ttMove, int[] moves) {
+        final int count = KalahBoard.getLegalMoves(board, player, moves);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == ttMove) {
+                swap(moves, i, next++);
+                break;
+            }
+        }
+        final int kalah = KalahBoard.getKalahIndex(player);
+        for (int i = next; i < count; i++) {
+            if (moves[i] + KalahBoard.getSeeds(board, moves[i]) == kalah) {
+                swap(moves, i, next++);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Store difference, the seeds still in the pits are not counted.
+     */
+    static int evaluate(int[] board, int player) {
+        return KalahBoard.getStoreValue(board, player) - KalahBoard.getStoreValue(board, KalahBoard.opponent(player));
+    }
+
+    /**
+     * Store difference once the remaining seeds are collected by the owner of the pits.
+     */
+    static int finalScore(int[] board, int player) {
+        final int opponent = KalahBoard.opponent(player);
+        return KalahBoard.getStoreValue(board, player) + KalahBoard.getSumOfSeedsInPits(board, player)
+                - KalahBoard.getStoreValue(board, opponent) - KalahBoard.getSumOfSeedsInPits(board, opponent);
+    }
+
+    private static int firstLegalMove(int[] pits, int player) {
+        final int[] legalMoves = new int[NUMBER_OF_PITS];
+        return KalahBoard.getLegalMoves(pits, player, legalMoves) > 0 ? legalMoves[0] : 0;
+    }
+
+    private static void swap(int[] moves, int i, int j) {
+        final int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+}
@@ -0,0 +1,78 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import lombok.Getter;
+
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+
+/**
+ * Score of a position the search stops at without reaching the end of the game, from the point of view of the side
+ * to move: weighted differences of the stores, of the seeds still in the pits of each side and of the legal moves.
+ * Game ends and endgame database positions are always scored by their exact store difference.
+ */
+@Getter
+public final class EvaluationWeights {
+
+    /**
+     * Keeps weighted scores well within the range of the transposition table.
+     */
+    public static final int MAX_WEIGHT = 100;
+
+    /**
+     * The store difference alone, the evaluation of the AI.
+     */
+    public static final EvaluationWeights STORES = new EvaluationWeights(1, 0, 0);
+
+    private final int store;
+    private final int seeds;
+    private final int mobility;
+
+    public EvaluationWeights(int store, int seeds, int mobility) {
+        if (Math.abs(store) > MAX_WEIGHT || Math.abs(seeds) > MAX_WEIGHT || Math.abs(mobility) > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Evaluation weights must be between -" + MAX_WEIGHT + " and " + MAX_WEIGHT);
+        }
+        this.store = store;
+        this.seeds = seeds;
+        this.mobility = mobility;
+    }
+
+    /**
+     * @param weights {@code <store>,<seeds>,<mobility>}
+     */
+    public static EvaluationWeights parse(String weights) {
+        final String[] values = weights.split(",");
+        if (values.length != 3) {
+            throw new IllegalArgumentException("Expected <store>,<seeds>,<mobility> weights, got " + weights);
+        }
+        return new EvaluationWeights(Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()),
+                Integer.parseInt(values[2].trim()));
+    }
+
+    int evaluate(int[] board, int player) {
+        final int opponent = KalahBoard.opponent(player);
+        int score = store * (KalahBoard.getStoreValue(board, player) - KalahBoard.getStoreValue(board, opponent));
+        if (seeds != 0) {
+            score += seeds * (KalahBoard.getSumOfSeedsInPits(board, player) - KalahBoard.getSumOfSeedsInPits(board, opponent));
+        }
+        if (mobility != 0) {
+            score += mobility * (legalMoves(board, player) - legalMoves(board, opponent));
+        }
+        return score;
+    }
+
+    private static int legalMoves(int[] board, int player) {
+        final int first = KalahBoard.getFirstPitIndex(player);
+        int count = 0;
+        for (int pitId = first; pitId < first + NUMBER_OF_PITS; pitId++) {
+            if (KalahBoard.getSeeds(board, pitId) > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return store + "," + seeds + "," + mobility;
+    }
+}
@@ -0,0 +1,135 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+
+/**
+ * Evaluations of the positions every game goes through first, searched offline by {@link OpeningBookGenerator}
+ * and loaded into the {@link PositionCache} at startup.
+ * <pre>
+ * int     magic "KLHB"
+ * int     format (1)
+ * int     pits per side
+ * int     seeds per pit
+ * int     number of positions
+ * n * (long key low, long key high, byte best move, short score relative to the stores, byte depth)
+ * </pre>
+ */
+public final class OpeningBook {
+
+    private static final int MAGIC = 0x4B4C4842;
+    private static final int FORMAT = 1;
+
+    private final Map<PositionKey, PositionCache.Evaluation> positions;
+
+    private OpeningBook(Map<PositionKey, PositionCache.Evaluation> positions) {
+        this.positions = Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * Searches every position reached within {@code plies} sowings of the initial board, player 1 moving first,
+     * {@code depth} plies deep.
+     */
+    public static OpeningBook generate(int plies, int depth, TranspositionTable transpositionTable, Zobrist zobrist) {
+        final AlphaBetaSearch search = new AlphaBetaSearch(transpositionTable, zobrist);
+        final Map<PositionKey, PositionCache.Evaluation> positions = new LinkedHashMap<>();
+        final Set<PositionKey> seen = new HashSet<>();
+        final int[] moves = new int[NUMBER_OF_PITS];
+        Deque<Position> frontier = new ArrayDeque<>();
+        frontier.add(new Position(KalahBoard.newBoard(), PLAYER_1));
+        for (int ply = 0; ply <= plies && !frontier.isEmpty(); ply++) {
+            final Deque<Position> next = new ArrayDeque<>();
+            for (Position position : frontier) {
+                if (KalahBoard.isGameOver(position.pits) || !seen.add(PositionKey.of(position.pits, position.player))) {
+                    continue;
+                }
+                SearchResult result = search.search(position.pits, position.player, Long.MAX_VALUE, depth);
+                positions.put(PositionKey.of(position.pits, position.player), new PositionCache.Evaluation(result.getBestMove(),
+                        result.getScore() - AlphaBetaSearch.evaluate(position.pits, position.player), result.getDepth()));
+                final int count = KalahBoard.getLegalMoves(position.pits, position.player, moves);
+                for (int i = 0; i < count; i++) {
+                    final int[] child = position.pits.clone();
+                    final boolean bonus = (KalahBoard.sow(child, position.player, moves[i]) & BONUS_MOVE) != 0;
+                    next.add(new Position(child, bonus ? position.player : KalahBoard.opponent(position.player)));
+                }
+            }
+            frontier = next;
+        }
+        return new OpeningBook(positions);
+    }
+
+    public static OpeningBook read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException(file + " is not an opening book");
+            }
+            if (in.readInt() != NUMBER_OF_PITS || in.readInt() != KalahBoard.NUMBER_OF_SEEDS_PER_PIT) {
+                throw new IOException(file + " was built for another board");
+            }
+            final int count = in.readInt();
+            final Map<PositionKey, PositionCache.Evaluation> positions = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                final PositionKey key = new PositionKey(in.readLong(), in.readLong());
+                positions.put(key, new PositionCache.Evaluation(in.readByte(), in.readShort(), in.readByte()));
+            }
+            return new OpeningBook(positions);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeInt(NUMBER_OF_PITS);
+        out.writeInt(KalahBoard.NUMBER_OF_SEEDS_PER_PIT);
+        out.writeInt(positions.size());
+        for (Map.Entry<PositionKey, PositionCache.Evaluation> position : positions.entrySet()) {
+            out.writeLong(position.getKey().getLow());
+            out.writeLong(position.getKey().getHigh());
+            out.writeByte(position.getValue().getBestMove());
+            out.writeShort(position.getValue().getScore());
+            out.writeByte(position.getValue().getDepth());
+        }
+        out.flush();
+    }
+
+    public Map<PositionKey, PositionCache.Evaluation> getPositions() {
+        return positions;
+    }
+
+    private static final class Position {
+        private final int[] pits;
+        private final int player;
+
+        private Position(int[] pits, int player) {
+            this.pits = pits;
+            this.player = player;
+        }
+    }
+}
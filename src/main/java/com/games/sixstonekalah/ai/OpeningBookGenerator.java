@@ -0,0 +1,41 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Offline generator of the opening book file.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.games.sixstonekalah.ai.OpeningBookGenerator \
+ *     -Dexec.args="opening.book 4 14"
+ * </pre>
+ * Each position takes 20 bytes, the 1288 positions within 4 sowings of the initial board make a 25 kB book.
+ * Search them at least {@code games.ai.position-cache-min-depth} deep, the book is no use otherwise.
+ */
+public final class OpeningBookGenerator {
+
+    private static final int TRANSPOSITION_TABLE_SIZE = 1 << 22;
+
+    private OpeningBookGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: OpeningBookGenerator <file> <plies from the initial board> <search depth>");
+            System.exit(1);
+        }
+        final Path file = Paths.get(args[0]);
+        final int plies = Integer.parseInt(args[1]);
+        final int depth = Integer.parseInt(args[2]);
+
+        final long start = System.nanoTime();
+        OpeningBook book = OpeningBook.generate(plies, depth, new TranspositionTable(TRANSPOSITION_TABLE_SIZE),
+                new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS));
+        book.write(file);
+        System.out.printf("%d positions within %d plies searched %d deep in %d ms, written to %s%n",
+                book.getPositions().size(), plies, depth, (System.nanoTime() - start) / 1_000_000, file);
+    }
+}
@@ -0,0 +1,132 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.endgame.EndgameDatabase;
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+
+/**
+ * Lazy SMP: helper searches run the same iterative deepening on the pool and share the transposition table
+ * with the main search, which runs on the calling thread and decides the move.
+ * <p>
+ * Every other helper starts one ply deeper so the threads spread over different depths. Helpers are stopped as soon
+ * as the main search returns, a helper still queued behind other requests then returns at once,
+ * so a busy pool only costs the speedup and never delays the answer.
+ * Positions covered by the endgame database are answered from it without searching.
+ */
+public class ParallelSearch {
+
+    private final TranspositionTable transpositionTable;
+    private final Zobrist zobrist;
+    @Nullable
+    private final EndgameDatabase endgameDatabase;
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    /**
+     * @param parallelism number of threads searching a position, the calling thread included
+     */
+    public ParallelSearch(TranspositionTable transpositionTable, Zobrist zobrist, ForkJoinPool pool, int parallelism) {
+        this(transpositionTable, zobrist, null, pool, parallelism);
+    }
+
+    public ParallelSearch(TranspositionTable transpositionTable, Zobrist zobrist, @Nullable EndgameDatabase endgameDatabase,
+                          ForkJoinPool pool, int parallelism) {
+        this.transpositionTable = transpositionTable;
+        this.zobrist = zobrist;
+        this.endgameDatabase = endgameDatabase;
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Same contract as {@link AlphaBetaSearch#search(int[], int, long, int)}, nodes are summed over all threads.
+     */
+    public SearchResult search(int[] pits, int player, long budgetNanos, int maxDepth) {
+        if (endgameDatabase != null && endgameDatabase.covers(pits) && !KalahBoard.isGameOver(pits)) {
+            final long start = System.nanoTime();
+            return SearchResult.builder()
+                    .bestMove(endgameDatabase.bestMove(pits, player))
+                    .score(AlphaBetaSearch.evaluate(pits, player) + endgameDatabase.value(pits, player))
+                    .nodes(1)
+                    .elapsedNanos(System.nanoTime() - start)
+                    .build();
+        }
+        final int helperCount = parallelism - 1;
+        final AlphaBetaSearch[] helpers = new AlphaBetaSearch[helperCount];
+        final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[helperCount];
+        for (int i = 0; i < helperCount; i++) {
+            final AlphaBetaSearch helper = new AlphaBetaSearch(transpositionTable, zobrist, endgameDatabase);
+            final int firstDepth = 1 + (i + 1) % 2;
+            helpers[i] = helper;
+            tasks[i] = pool.submit(() -> helper.search(pits, player, budgetNanos, firstDepth, maxDepth, false));
+        }
+
+        final SearchResult main = new AlphaBetaSearch(transpositionTable, zobrist, endgameDatabase).search(pits, player, budgetNanos, maxDepth);
+
+        long nodes = main.getNodes();
+        for (int i = 0; i < helperCount; i++) {
+            helpers[i].stop();
+            tasks[i].cancel(false);
+            nodes += helpers[i].nodes();
+        }
+        return SearchResult.builder()
+                .bestMove(main.getBestMove())
+                .score(main.getScore())
+                .depth(main.getDepth())
+                .nodes(nodes)
+                .elapsedNanos(main.getElapsedNanos())
+                .build();
+    }
+
+    /**
+     * Notes a result found before for the position in the transposition table, the next search of the position
+     * tries its best move first.
+     */
+    public void seed(int[] pits, int player, SearchResult known) {
+        transpositionTable.store(zobrist.hash(pits, player == PLAYER_2), known.getDepth(), TranspositionTable.EXACT,
+                known.getScore(), known.getBestMove());
+    }
+
+    /**
+     * Same table, endgame database and pool with another number of threads per search, 1 never uses the pool.
+     */
+    public ParallelSearch withParallelism(int threads) {
+        return new ParallelSearch(transpositionTable, zobrist, endgameDatabase, pool, threads);
+    }
+
+    /**
+     * Expected line of play from the position, the best move followed by the moves the transposition table holds
+     * for the positions it leads to. Stops at a missing or overwritten entry, the end of the game or
+     * {@code maxLength} moves, so it may be shorter than the search depth.
+     */
+    public int[] principalVariation(int[] pits, int player, int bestMove, int maxLength) {
+        final int[] line = new int[Math.max(1, maxLength)];
+        final int[] board = pits.clone();
+        int side = player;
+        int move = bestMove;
+        int length = 0;
+        while (length < line.length && move != 0 && KalahBoard.isLegalMove(board, side, move)) {
+            line[length++] = move;
+            if ((KalahBoard.sow(board, side, move) & BONUS_MOVE) == 0) {
+                side = KalahBoard.opponent(side);
+            }
+            if (KalahBoard.isGameOver(board)) {
+                break;
+            }
+            final long entry = transpositionTable.probe(zobrist.hash(board, side == PLAYER_2));
+            move = entry == TranspositionTable.MISS ? 0 : TranspositionTable.move(entry);
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
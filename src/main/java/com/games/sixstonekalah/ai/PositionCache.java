@@ -0,0 +1,88 @@
+package com.games.sixstonekalah.ai;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * Evaluated positions shared by every game, consulted before searching: the best move, score and depth of the
+ * deepest search of each position, bounded to the most recently used {@code maximumSize} positions.
+ * <p>
+ * Only searches at least {@code minDepth} deep are kept, so a hit is always as good as a search of the default
+ * budget. Scores are kept relative to the store difference, see {@link PositionKey}. The cache is pre-warmed with
+ * the {@link OpeningBook} when there is one. Hit, miss and eviction counts are published as the
+ * {@code positions} cache metrics, to size it.
+ */
+public class PositionCache {
+
+    private final Cache<PositionKey, Evaluation> positions;
+    private final int minDepth;
+
+    public PositionCache(MeterRegistry meterRegistry, long maximumSize, int minDepth) {
+        this.positions = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.minDepth = minDepth;
+        GuavaCacheMetrics.monitor(meterRegistry, positions, "positions");
+    }
+
+    /**
+     * @return the cached result for the position, with no nodes searched, null when it was not searched deep enough
+     */
+    @Nullable
+    public SearchResult get(int[] pits, int player) {
+        final Evaluation evaluation = positions.getIfPresent(PositionKey.of(pits, player));
+        if (evaluation == null) {
+            return null;
+        }
+        return SearchResult.builder()
+                .bestMove(evaluation.getBestMove())
+                .score(AlphaBetaSearch.evaluate(pits, player) + evaluation.getScore())
+                .depth(evaluation.getDepth())
+                .build();
+    }
+
+    /**
+     * Keeps the result when it is at least {@code minDepth} deep and deeper than the one cached.
+     */
+    public void put(int[] pits, int player, SearchResult result) {
+        if (result.getDepth() < minDepth) {
+            return;
+        }
+        final Evaluation evaluation = new Evaluation(result.getBestMove(),
+                result.getScore() - AlphaBetaSearch.evaluate(pits, player), result.getDepth());
+        positions.asMap().merge(PositionKey.of(pits, player), evaluation,
+                (cached, searched) -> searched.getDepth() > cached.getDepth() ? searched : cached);
+    }
+
+    /**
+     * Adds the book positions whatever their depth.
+     */
+    public void preload(Map<PositionKey, Evaluation> book) {
+        positions.putAll(book);
+    }
+
+    public long size() {
+        return positions.size();
+    }
+
+    /**
+     * Best move of a position and its score relative to the store difference.
+     */
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static final class Evaluation {
+        private final int bestMove;
+        private final int score;
+        private final int depth;
+    }
+}
@@ -0,0 +1,68 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+/**
+ * Canonical key of a standard board position: the seeds of the twelve pits, 7 bits each, and the side to move.
+ * <p>
+ * The stores are left out. Play from a position does not depend on them, they only add their difference to every
+ * score, so positions reached with different store counts share one key (see {@link PositionCache}).
+ */
+public final class PositionKey {
+
+    private static final int BITS_PER_PIT = 7;
+    private static final int PITS_IN_LOW = 9;
+    private static final int PLAYER_2_SHIFT = 63;
+
+    private final long low;
+    private final long high;
+
+    PositionKey(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    public static PositionKey of(int[] pits, int player) {
+        if (pits.length != KalahBoard.SIZE) {
+            throw new IllegalArgumentException("Only the standard board has a position key");
+        }
+        long low = 0;
+        long high = player == KalahBoard.PLAYER_2 ? 1L << PLAYER_2_SHIFT : 0L;
+        int pit = 0;
+        for (int index = 0; index < pits.length; index++) {
+            if (index == KalahBoard.PLAYER_1_KALAH_INDEX - 1 || index == KalahBoard.PLAYER_2_KALAH_INDEX - 1) {
+                continue;
+            }
+            if (pit < PITS_IN_LOW) {
+                low |= (long) pits[index] << (pit * BITS_PER_PIT);
+            } else {
+                high |= (long) pits[index] << ((pit - PITS_IN_LOW) * BITS_PER_PIT);
+            }
+            pit++;
+        }
+        return new PositionKey(low, high);
+    }
+
+    long getLow() {
+        return low;
+    }
+
+    long getHigh() {
+        return high;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PositionKey key && key.low == low && key.high == high;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(low * 0x9E3779B97F4A7C15L ^ high);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(high) + ":" + Long.toHexString(low);
+    }
+}
@@ -0,0 +1,29 @@
+package com.games.sixstonekalah.ai;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder
+@ToString
+public class SearchResult {
+    /**
+     * Pit id to move from
+     */
+    private int bestMove;
+    /**
+     * Final store difference expected for the side to move
+     */
+    private int score;
+    /**
+     * Deepest iteration that was completed within the budget
+     */
+    private int depth;
+    private long nodes;
+    private long elapsedNanos;
+
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+}
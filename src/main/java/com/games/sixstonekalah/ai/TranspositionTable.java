@@ -0,0 +1,105 @@
+package com.games.sixstonekalah.ai;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table shared by all searches, so memory stays bounded however many games are played.
+ * <p>
+ * Every slot is two longs, the key is stored xor-ed with the data so a slot torn by concurrent writers
+ * simply fails to match on probe, no locking is needed. A slot is replaced when it was written by an older
+ * search generation or when the new entry was searched at least as deep.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    public static final long MISS = 0L;
+
+    private static final int SCORE_BITS = 16;
+    private static final int DEPTH_SHIFT = 16;
+    private static final int BOUND_SHIFT = 24;
+    private static final int MOVE_SHIFT = 26;
+    private static final int GENERATION_SHIFT = 34;
+    private static final long BYTE = 0xFF;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private volatile int generation;
+
+    /**
+     * @param size number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        keys = new long[capacity];
+        data = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Starts a new search generation, entries of older generations are replaced first.
+     */
+    public int nextGeneration() {
+        return generation = (generation + 1) & (int) BYTE;
+    }
+
+    /**
+     * @return the entry data for the key, {@link #MISS} when there is none
+     */
+    public long probe(long key) {
+        final int index = (int) key & mask;
+        final long entry = data[index];
+        return entry != MISS && (keys[index] ^ entry) == key ? entry : MISS;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        final int index = (int) key & mask;
+        final long current = data[index];
+        final int currentGeneration = generation;
+        if (current != MISS
+                && (keys[index] ^ current) != key
+                && generation(current) == currentGeneration
+                && depth(current) > depth) {
+            return;
+        }
+        final long entry = (score & ((1L << SCORE_BITS) - 1))
+                | ((long) depth & BYTE) << DEPTH_SHIFT
+                | ((long) bound & 0b11) << BOUND_SHIFT
+                | ((long) move & BYTE) << MOVE_SHIFT
+                | ((long) currentGeneration & BYTE) << GENERATION_SHIFT;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    public void clear() {
+        Arrays.fill(data, MISS);
+        Arrays.fill(keys, 0L);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public static int score(long entry) {
+        return (short) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT & BYTE);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT & 0b11);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT & BYTE);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT & BYTE);
+    }
+}
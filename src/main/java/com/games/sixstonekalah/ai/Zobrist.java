@@ -0,0 +1,33 @@
+package com.games.sixstonekalah.ai;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys of a Kalah position: one random key per pit and seed count, plus one for the side to move.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED_CA1A_4L;
+
+    private final long[][] pitKeys;
+    private final long player2ToMove;
+
+    public Zobrist(int boardSize, int totalSeeds) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        pitKeys = new long[boardSize][totalSeeds + 1];
+        for (long[] keys : pitKeys) {
+            for (int seeds = 0; seeds < keys.length; seeds++) {
+                keys[seeds] = random.nextLong();
+            }
+        }
+        player2ToMove = random.nextLong();
+    }
+
+    public long hash(int[] pits, boolean player2) {
+        long hash = player2 ? player2ToMove : 0L;
+        for (int index = 0; index < pits.length; index++) {
+            hash ^= pitKeys[index][pits[index]];
+        }
+        return hash;
+    }
+}
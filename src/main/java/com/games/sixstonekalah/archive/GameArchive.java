@@ -0,0 +1,19 @@
+package com.games.sixstonekalah.archive;
+
+import com.games.sixstonekalah.model.Game;
+
+import java.util.Optional;
+
+/**
+ * Games evicted from Redis once expired, still readable by id.
+ */
+@FunctionalInterface
+public interface GameArchive {
+
+    GameArchive NONE = id -> Optional.empty();
+
+    /**
+     * @return the game as it was when archived, empty when it never was
+     */
+    Optional<Game> findById(String id);
+}
@@ -0,0 +1,178 @@
+package com.games.sixstonekalah.archive;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameExpiry;
+import com.games.sixstonekalah.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background eviction of expired games: flushes the deadlines noted by {@link GameExpiry} and moves the games due
+ * into the {@link SegmentGameArchive}, one segment per batch, before deleting them from Redis. Archived games are kept
+ * forever unless a retention is set, segments older than it are then deleted along with their entries of the archive
+ * index and their games can no longer be read.
+ * <p>
+ * Before its first run each node gives a deadline to the stored games that have none, the games stored before expiry
+ * was turned on and the ones whose deadline a node that went down still kept in memory. A game created on a node that
+ * goes down before the next flush so only expires once some node starts again.
+ * <p>
+ * One node at a time archives, the others skip the run while the {@code GameArchiver:lock} key is held.
+ * A game only leaves Redis once it is in a segment, and only at the version archived: a game saved again while
+ * being archived is kept, with a new deadline.
+ */
+public class GameArchiver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GameArchiver.class);
+
+    private static final byte[] LOCK = "GameArchiver:lock".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RELEASE_SCRIPT = ("if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0").getBytes(StandardCharsets.UTF_8);
+
+    private final GameRepository gameRepository;
+    private final GameExpiry gameExpiry;
+    private final SegmentGameArchive gameArchive;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int batchSize;
+    private final Duration lockTimeout;
+    private final Duration retention;
+    private final byte[] owner = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+    private final Counter archived;
+    private volatile boolean backfilled;
+
+    public GameArchiver(GameRepository gameRepository, GameExpiry gameExpiry, SegmentGameArchive gameArchive,
+                        RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry,
+                        int batchSize, Duration lockTimeout, @Nullable Duration retention) {
+        this.gameRepository = gameRepository;
+        this.gameExpiry = gameExpiry;
+        this.gameArchive = gameArchive;
+        this.redisTemplate = redisTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.lockTimeout = lockTimeout;
+        this.retention = retention == null ? Duration.ZERO : retention;
+        this.archived = Counter.builder("games.archived").description("Expired games moved to the archive").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${games.expiry.flush-interval:PT1S}")
+    public void flushDeadlines() {
+        gameExpiry.flush();
+    }
+
+    @Scheduled(initialDelayString = "${games.archive.interval:PT1M}", fixedDelayString = "${games.archive.interval:PT1M}")
+    public void archiveExpiredGames() {
+        try {
+            if (!backfilled) {
+                backfilled = backfillDeadlines() >= 0;
+            }
+            archiveGamesDueAt(gameExpiry.now());
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Archiving expired games failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Archives the games due at {@code now}, then deletes the segments older than the retention, if any.
+     *
+     * @return the number of games evicted, 0 when another node is archiving
+     */
+    public int archiveGamesDueAt(long now) throws IOException {
+        if (!lock()) {
+            return 0;
+        }
+        int evicted = 0;
+        int pruned = 0;
+        try {
+            gameExpiry.flush();
+            List<String> ids;
+            while (!(ids = gameExpiry.findExpired(now, batchSize)).isEmpty()) {
+                List<Game> games = new ArrayList<>(ids.size());
+                gameRepository.findAllById(ids).forEach(games::add);
+                if (!games.isEmpty()) {
+                    gameArchive.write(games);
+                }
+                Set<String> kept = new HashSet<>();
+                for (Game game : games) {
+                    if (!gameRepository.deleteIfUnchanged(game.getId(), game.getVersion())) {
+                        // saved again since it was read: the deadline of the game as saved, whether or not that save
+                        // was flushed yet, finished games expiring sooner
+                        Optional<Game> saved = gameRepository.findById(game.getId());
+                        if (saved.isPresent()) {
+                            kept.add(game.getId());
+                            gameExpiry.touch(saved.get());
+                        }
+                    }
+                }
+                if (!kept.isEmpty()) {
+                    gameExpiry.flush();
+                }
+                gameExpiry.removeExpired(ids.stream().filter(id -> !kept.contains(id)).toList(), now);
+                evicted += games.size() - kept.size();
+                archived.increment(games.size() - kept.size());
+            }
+            if (retention.isPositive()) {
+                pruned = gameArchive.prune(now - retention.toMillis());
+            }
+        } finally {
+            unlock();
+        }
+        if (evicted > 0) {
+            LOG.info("Archived {} expired games", evicted);
+        }
+        if (pruned > 0) {
+            LOG.info("Deleted {} archive segments older than {}", pruned, retention);
+        }
+        return evicted;
+    }
+
+    /**
+     * Gives every stored game without a deadline the idle time to live from now.
+     *
+     * @return the number of deadlines added, -1 when another node is archiving
+     */
+    public long backfillDeadlines() {
+        if (!lock()) {
+            return -1;
+        }
+        final AtomicLong added = new AtomicLong();
+        try {
+            gameExpiry.flush();
+            gameRepository.scanIds(batchSize, ids -> added.addAndGet(gameExpiry.backfill(ids)));
+        } finally {
+            unlock();
+        }
+        if (added.get() > 0) {
+            LOG.info("Added deadlines to {} stored games that had none", added.get());
+        }
+        return added.get();
+    }
+
+    private boolean lock() {
+        Boolean locked = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                .set(LOCK, owner, Expiration.from(lockTimeout), RedisStringCommands.SetOption.SET_IF_ABSENT));
+        return Boolean.TRUE.equals(locked);
+    }
+
+    private void unlock() {
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.scriptingCommands().eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, LOCK, owner));
+    }
+}
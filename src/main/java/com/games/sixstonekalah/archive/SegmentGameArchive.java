@@ -0,0 +1,196 @@
+package com.games.sixstonekalah.archive;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives games in gzip compressed segment files of a directory, one segment per batch of games.
+ * <pre>
+ * segment   int magic, int number of games, then per game: int length, {@link GameCodec} game
+ * GameArchive   Redis hash, game id to the name of the segment holding the game
+ * </pre>
+ * A segment is fsynced and renamed into place before its games are indexed, so an indexed game is always readable,
+ * and dropped from the index before it is deleted.
+ * Nodes sharing the archive need the directory on a shared volume.
+ */
+public class SegmentGameArchive implements GameArchive {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentGameArchive.class);
+
+    static final String INDEX = "GameArchive";
+    static final String SEGMENT_SUFFIX = ".seg.gz";
+    private static final int MAGIC = 0x4B414C48;
+    private static final byte[] INDEX_BYTES = bytes(INDEX);
+    private static final String SEGMENT_PREFIX = "games-";
+    /**
+     * KEYS[1] index, ARGV[1] segment name, ARGV[2..] ids of its games. Ids archived again in a newer segment are kept.
+     */
+    private static final byte[] UNINDEX_SCRIPT = bytes("local removed = 0\n" +
+            "for i = 2, #ARGV do\n" +
+            "  if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[1] then\n" +
+            "    removed = removed + redis.call('HDEL', KEYS[1], ARGV[i])\n" +
+            "  end\n" +
+            "end\n" +
+            "return removed");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Path directory;
+
+    public SegmentGameArchive(RedisTemplate<String, Object> redisTemplate, Path directory) {
+        this.redisTemplate = redisTemplate;
+        this.directory = directory;
+    }
+
+    /**
+     * Writes the games to a new segment and indexes them.
+     *
+     * @return the segment written
+     */
+    public Path write(List<Game> games) throws IOException {
+        Files.createDirectories(directory);
+        final String name = SEGMENT_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8) + SEGMENT_SUFFIX;
+        final Path segment = directory.resolve(name);
+        final Path partial = directory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            GZIPOutputStream compressed = new GZIPOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DataOutputStream out = new DataOutputStream(compressed);
+            out.writeInt(MAGIC);
+            out.writeInt(games.size());
+            for (Game game : games) {
+                byte[] encoded = GameCodec.encode(game);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            compressed.finish();
+            compressed.flush();
+            channel.force(true);
+        }
+        Files.move(partial, segment, StandardCopyOption.ATOMIC_MOVE);
+
+        final Map<byte[], byte[]> index = new HashMap<>();
+        final byte[] segmentName = bytes(name);
+        games.forEach(game -> index.put(bytes(game.getId()), segmentName));
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.hashCommands().hMSet(INDEX_BYTES, index);
+            return null;
+        });
+        return segment;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        byte[] name = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(INDEX_BYTES, bytes(id)));
+        if (name == null) {
+            return Optional.empty();
+        }
+        final Path segment = directory.resolve(new String(name, StandardCharsets.UTF_8));
+        try {
+            for (Game game : read(segment)) {
+                if (id.equals(game.getId())) {
+                    return Optional.of(game);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            LOG.warn("Archived game {} is indexed in missing segment {}", id, segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Deletes the segments written before {@code cutoffMillis}, each once its games are dropped from the index.
+     *
+     * @return the number of segments deleted
+     */
+    public int prune(long cutoffMillis) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        final List<Path> expired = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(directory)) {
+            segments.filter(segment -> writtenAt(segment.getFileName().toString()) < cutoffMillis).forEach(expired::add);
+        }
+        for (Path segment : expired) {
+            final List<Game> games = read(segment);
+            final byte[][] keysAndArgs = new byte[games.size() + 2][];
+            keysAndArgs[0] = INDEX_BYTES;
+            keysAndArgs[1] = bytes(segment.getFileName().toString());
+            for (int i = 0; i < games.size(); i++) {
+                keysAndArgs[i + 2] = bytes(games.get(i).getId());
+            }
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(UNINDEX_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+            Files.delete(segment);
+        }
+        return expired.size();
+    }
+
+    /**
+     * @return the time a segment was written from its name, {@link Long#MAX_VALUE} for any other file
+     */
+    static long writtenAt(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return Long.MAX_VALUE;
+        }
+        final int end = name.indexOf('-', SEGMENT_PREFIX.length());
+        try {
+            return end < 0 ? Long.MAX_VALUE : Long.parseLong(name.substring(SEGMENT_PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return the games of a segment, in the order they were written
+     */
+    public static List<Game> read(Path segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(segment))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a game archive segment: " + segment);
+            }
+            final int count = in.readInt();
+            List<Game> games = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                games.add(GameCodec.decode(encoded));
+            }
+            return games;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
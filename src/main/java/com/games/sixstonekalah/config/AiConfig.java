@@ -0,0 +1,87 @@
+package com.games.sixstonekalah.config;
+
+import com.games.sixstonekalah.ai.OpeningBook;
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.PositionCache;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.endgame.EndgameDatabase;
+import com.games.sixstonekalah.engine.KalahBoard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class AiConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AiConfig.class);
+
+    @Bean
+    public Zobrist zobrist() {
+        return new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS);
+    }
+
+    /**
+     * One table shared by every AI search, sized once so concurrent games cannot grow memory.
+     */
+    @Bean
+    public TranspositionTable transpositionTable(@Value("${games.ai.transposition-table-size:1048576}") int size) {
+        return new TranspositionTable(size);
+    }
+
+    /**
+     * Threads used by the helper searches, 0 means one per available processor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool searchPool(@Value("${games.ai.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Endgame database built offline by {@link com.games.sixstonekalah.endgame.EndgameDatabaseGenerator}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "games.endgame.database-file")
+    public EndgameDatabase endgameDatabase(@Value("${games.endgame.database-file}") String file) throws IOException {
+        return EndgameDatabase.open(Paths.get(file));
+    }
+
+    /**
+     * Opening book built offline by {@link com.games.sixstonekalah.ai.OpeningBookGenerator}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "games.ai.opening-book-file")
+    public OpeningBook openingBook(@Value("${games.ai.opening-book-file}") String file) throws IOException {
+        return OpeningBook.read(Paths.get(file));
+    }
+
+    /**
+     * Evaluated positions shared by all games, pre-warmed with the opening book when there is one.
+     */
+    @Bean
+    public PositionCache positionCache(MeterRegistry meterRegistry, ObjectProvider<OpeningBook> openingBook,
+                                       @Value("${games.ai.position-cache-size:100000}") long size,
+                                       @Value("${games.ai.position-cache-min-depth:12}") int minDepth) {
+        PositionCache positionCache = new PositionCache(meterRegistry, size, minDepth);
+        openingBook.ifAvailable(book -> {
+            positionCache.preload(book.getPositions());
+            LOG.info("Position cache pre-warmed with {} opening book positions", book.getPositions().size());
+        });
+        return positionCache;
+    }
+
+    @Bean
+    public ParallelSearch parallelSearch(TranspositionTable transpositionTable, Zobrist zobrist,
+                                         ObjectProvider<EndgameDatabase> endgameDatabase, ForkJoinPool searchPool) {
+        return new ParallelSearch(transpositionTable, zobrist, endgameDatabase.getIfAvailable(), searchPool, searchPool.getParallelism());
+    }
+}
@@ -0,0 +1,43 @@
+package com.games.sixstonekalah.config;
+
+import com.games.sixstonekalah.archive.GameArchiver;
+import com.games.sixstonekalah.archive.SegmentGameArchive;
+import com.games.sixstonekalah.repository.GameExpiry;
+import com.games.sixstonekalah.repository.GameRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Archive of expired games, readable whether or not this node runs the archiver.
+ */
+@Configuration
+@Profile("!" + EmbeddedStoreConfig.PROFILE)
+@EnableScheduling
+public class ArchiveConfig {
+
+    @Bean
+    public SegmentGameArchive gameArchive(RedisTemplate<String, Object> redisTemplate,
+                                          @Value("${games.archive.directory:archive}") String directory) {
+        return new SegmentGameArchive(redisTemplate, Paths.get(directory));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "games.expiry.enabled", matchIfMissing = true)
+    public GameArchiver gameArchiver(GameRepository gameRepository, GameExpiry gameExpiry, SegmentGameArchive gameArchive,
+                                     RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry,
+                                     @Value("${games.archive.batch-size:1000}") int batchSize,
+                                     @Value("${games.archive.lock-timeout:10m}") Duration lockTimeout,
+                                     @Value("${games.archive.retention:0}") Duration retention) {
+        return new GameArchiver(gameRepository, gameExpiry, gameArchive, redisTemplate, meterRegistry, batchSize, lockTimeout,
+                retention);
+    }
+}
@@ -0,0 +1,44 @@
+package com.games.sixstonekalah.config;
+
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.repository.EmbeddedGameRepository;
+import com.games.sixstonekalah.repository.Leaderboard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Games kept in this process by {@link EmbeddedGameRepository} instead of Redis, see
+ * {@code application-embedded.properties}. Takes the place of {@link RedisConfig}, {@link GameRepositoryConfig} and
+ * {@link ArchiveConfig}: a single node, without expiry, archive, move history or leaderboard.
+ */
+@Configuration
+@Profile(EmbeddedStoreConfig.PROFILE)
+@EnableScheduling
+public class EmbeddedStoreConfig {
+
+    public static final String PROFILE = "embedded";
+
+    @Bean
+    public EmbeddedGameRepository gameRepository(@Value("${games.embedded.directory:data}") String directory,
+                                                 @Value("${games.embedded.journal-region-size:16MB}") DataSize journalRegionSize)
+            throws IOException {
+        return new EmbeddedGameRepository(Paths.get(directory), Math.toIntExact(journalRegionSize.toBytes()));
+    }
+
+    @Bean
+    public GameArchive gameArchive() {
+        return GameArchive.NONE;
+    }
+
+    @Bean
+    public Leaderboard leaderboard() {
+        return Leaderboard.NONE;
+    }
+}
@@ -0,0 +1,141 @@
+package com.games.sixstonekalah.config;
+
+import com.games.sixstonekalah.repository.CachingGameRepository;
+import com.games.sixstonekalah.repository.EventSourcedGameRepository;
+import com.games.sixstonekalah.repository.ExpiringGameRepository;
+import com.games.sixstonekalah.repository.GameExpiry;
+import com.games.sixstonekalah.repository.GameHistoryRepository;
+import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.repository.GameShards;
+import com.games.sixstonekalah.repository.Leaderboard;
+import com.games.sixstonekalah.repository.PackedGameRepository;
+import com.games.sixstonekalah.repository.RedisLeaderboard;
+import com.games.sixstonekalah.repository.ShardedGameRepository;
+import com.games.sixstonekalah.service.KalahGameRules;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Builds the {@link GameRepository} the service works with:
+ * the Redis storage layout selected by {@code games.storage}, with the deadlines of {@link GameExpiry} moved on every save
+ * unless {@code games.expiry.enabled=false}, optionally behind the in-process cache.
+ * The move log layout also serves the history of the games.
+ * With {@code games.shards} the games are spread over those Redis nodes, the primary Redis keeping the expiry
+ * deadlines, the archive index, the game events, the leaderboard and the games created before sharding.
+ */
+@Configuration
+@Profile("!" + EmbeddedStoreConfig.PROFILE)
+public class GameRepositoryConfig {
+
+    public static final String HASH_STORAGE = "hash";
+    public static final String PACKED_STORAGE = "packed";
+    public static final String EVENTS_STORAGE = "events";
+
+    @Bean
+    @ConditionalOnProperty(name = "games.storage", havingValue = EVENTS_STORAGE)
+    public EventSourcedGameRepository eventSourcedGameRepository(RedisTemplate<String, Object> redisTemplate,
+                                                                 @Value("${games.events.snapshot-interval:32}") int snapshotInterval) {
+        return new EventSourcedGameRepository(redisTemplate, KalahGameRules::replay, snapshotInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "games.expiry.enabled", matchIfMissing = true)
+    public GameExpiry gameExpiry(RedisTemplate<String, Object> redisTemplate,
+                                 @Value("${games.expiry.idle-ttl:7d}") Duration idleTtl,
+                                 @Value("${games.expiry.finished-ttl:1d}") Duration finishedTtl) {
+        return new GameExpiry(redisTemplate, idleTtl, finishedTtl, Clock.systemUTC());
+    }
+
+    @Bean
+    public Leaderboard leaderboard(RedisTemplate<String, Object> redisTemplate,
+                                   @Value("${games.leaderboard.k-factor:32}") int kFactor,
+                                   @Value("${games.leaderboard.initial-rating:1500}") int initialRating) {
+        return new RedisLeaderboard(redisTemplate, kFactor, initialRating);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "games.shards")
+    public GameShards gameShards(@Value("${games.shards}") List<String> nodes) {
+        return new GameShards(nodes);
+    }
+
+    /**
+     * The same layout on every shard, the primary Redis keeps the games created before sharding.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "games.shards")
+    public ShardedGameRepository shardedGameRepository(@Qualifier("gameRepository") GameRepository gameRepository,
+                                                       ObjectProvider<EventSourcedGameRepository> eventSourcedGameRepository,
+                                                       RedisTemplate<String, Object> redisTemplate,
+                                                       GameShards gameShards,
+                                                       @Value("${games.storage:" + HASH_STORAGE + "}") String storage,
+                                                       @Value("${games.events.snapshot-interval:32}") int snapshotInterval) {
+        List<GameRepository> shards = new ArrayList<>(gameShards.size());
+        for (int shard = 0; shard < gameShards.size(); shard++) {
+            RedisTemplate<String, Object> shardTemplate = gameShards.template(shard);
+            shards.add(layout(storage, shardTemplate, gameShards.hashRepository(shard),
+                    () -> new EventSourcedGameRepository(shardTemplate, KalahGameRules::replay, snapshotInterval)));
+        }
+        return new ShardedGameRepository(layout(storage, redisTemplate, gameRepository, eventSourcedGameRepository::getObject), shards);
+    }
+
+    @Primary
+    @Bean
+    @ConditionalOnExpression("'${games.shards:}' != '' and '${games.storage:" + HASH_STORAGE + "}' == '" + EVENTS_STORAGE + "'")
+    public GameHistoryRepository shardedGameHistory(ShardedGameRepository shardedGameRepository) {
+        return shardedGameRepository.history();
+    }
+
+    @Primary
+    @Bean
+    public GameRepository gameStore(@Qualifier("gameRepository") GameRepository gameRepository,
+                                    ObjectProvider<EventSourcedGameRepository> eventSourcedGameRepository,
+                                    ObjectProvider<ShardedGameRepository> shardedGameRepository,
+                                    ObjectProvider<GameExpiry> gameExpiry,
+                                    RedisTemplate<String, Object> redisTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${games.storage:" + HASH_STORAGE + "}") String storage,
+                                    @Value("${games.cache.enabled:true}") boolean cacheEnabled,
+                                    @Value("${games.cache.maximum-size:10000}") long cacheMaximumSize,
+                                    @Value("${games.cache.expire-after-access:30m}") Duration cacheExpireAfterAccess,
+                                    @Value("${games.cache.shared:#{'${games.shards:}' != '' or '${games.routing.node-id:}' != ''}}")
+                                    boolean cacheShared) {
+        GameRepository store = shardedGameRepository.getIfAvailable();
+        if (store == null) {
+            store = layout(storage, redisTemplate, gameRepository, eventSourcedGameRepository::getObject);
+        }
+        GameExpiry expiry = gameExpiry.getIfAvailable();
+        if (expiry != null) {
+            store = new ExpiringGameRepository(store, expiry);
+        }
+        return cacheEnabled
+                ? new CachingGameRepository(store, meterRegistry, cacheMaximumSize, cacheExpireAfterAccess, cacheShared)
+                : store;
+    }
+
+    private static GameRepository layout(String storage, RedisTemplate<String, Object> redisTemplate,
+                                         GameRepository hashGameRepository,
+                                         Supplier<EventSourcedGameRepository> eventSourcedGameRepository) {
+        if (PACKED_STORAGE.equalsIgnoreCase(storage)) {
+            return new PackedGameRepository(redisTemplate, hashGameRepository);
+        } else if (EVENTS_STORAGE.equalsIgnoreCase(storage)) {
+            return eventSourcedGameRepository.get();
+        }
+        return hashGameRepository;
+    }
+}
@@ -0,0 +1,33 @@
+package com.games.sixstonekalah.config;
+
+import com.games.sixstonekalah.repository.GameExpiry;
+import com.games.sixstonekalah.repository.ReactiveGameRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+
+/**
+ * Lettuce connection and game store used when the application runs on WebFlux,
+ * see {@code application-reactive.properties}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRedisConfig {
+
+    @Bean
+    LettuceConnectionFactory reactiveRedisConnectionFactory() {
+        return new LettuceConnectionFactory();
+    }
+
+    @Bean
+    public ReactiveGameRepository reactiveGameRepository(ReactiveRedisTemplate<?, ?> reactiveRedisTemplate,
+                                                         @Qualifier("redisConverter") RedisConverter redisConverter,
+                                                         ObjectProvider<GameExpiry> gameExpiry) {
+        return new ReactiveGameRepository(reactiveRedisTemplate, redisConverter, gameExpiry.getIfAvailable());
+    }
+}
@@ -2,13 +2,23 @@ package com.games.sixstonekalah.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 
 @EnableRedisRepositories
 @Configuration
+@Profile("!" + EmbeddedStoreConfig.PROFILE)
 public class RedisConfig {
+    /**
+     * Primary over the reactive Lettuce factory of {@link ReactiveRedisConfig}.
+     */
+    @Primary
     @Bean
     JedisConnectionFactory jedisConnectionFactory() {
         return new JedisConnectionFactory();
@@ -20,4 +30,17 @@ public class RedisConfig {
         template.setConnectionFactory(jedisConnectionFactory());
         return template;
     }
+
+    /**
+     * Subscriptions of {@code GameEventBus}, held by one thread of their own. Messages are handed to the listeners
+     * on that thread, so the changes of a game reach them in the order they were published.
+     */
+    @Bean
+    RedisMessageListenerContainer redisMessageListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory());
+        container.setSubscriptionExecutor(new SimpleAsyncTaskExecutor("game-events-"));
+        container.setTaskExecutor(new SyncTaskExecutor());
+        return container;
+    }
 }
@@ -0,0 +1,97 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.model.Game;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Server-sent events of one client: the game as it was when the client connected, then every newer version of it.
+ * <p>
+ * The client is subscribed before the game is read, so a change can arrive before the initial state,
+ * versions that are not newer than the last one sent are dropped. The stream ends with the game.
+ * <p>
+ * {@link #send} only keeps the game and returns, the events are written to the client by a task of the executor,
+ * so a slow client never holds up the thread that delivers the changes of every game. A client that falls behind
+ * skips to the newest version, each event carries the whole game.
+ */
+final class GameEventStream {
+
+    static final String EVENT_NAME = "game";
+
+    private final SseEmitter emitter;
+    private final Executor sender;
+    private final AtomicReference<Game> pending = new AtomicReference<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean done;
+    /**
+     * Only used by the sending task, the flag hands it over from one task to the next.
+     */
+    private long lastSentVersion = -1;
+
+    GameEventStream(SseEmitter emitter, Executor sender) {
+        this.emitter = emitter;
+        this.sender = sender;
+    }
+
+    void send(Game game) {
+        if (done) {
+            return;
+        }
+        pending.accumulateAndGet(game, (current, next) -> current == null || version(next) > version(current) ? next : current);
+        scheduleSend();
+    }
+
+    private void scheduleSend() {
+        if (pending.get() != null && sending.compareAndSet(false, true)) {
+            sender.execute(this::sendPending);
+        }
+    }
+
+    private void sendPending() {
+        try {
+            Game game;
+            while (!done && (game = pending.getAndSet(null)) != null) {
+                write(game);
+            }
+        } finally {
+            sending.set(false);
+        }
+        if (!done) {
+            // a game kept after the loop ended and before the flag was cleared
+            scheduleSend();
+        }
+    }
+
+    private void write(Game game) {
+        final long version = version(game);
+        if (version <= lastSentVersion) {
+            return;
+        }
+        lastSentVersion = version;
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(String.valueOf(version))
+                    .data(GamesController.toGameStatusResponse(game), MediaType.APPLICATION_JSON));
+            if (game.isGameOver()) {
+                done = true;
+                emitter.complete();
+            }
+        } catch (IOException e) {
+            done = true;
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // completed already, on timeout or when the client went away
+            done = true;
+        }
+    }
+
+    private static long version(Game game) {
+        return game.getVersion() == null ? 0 : game.getVersion();
+    }
+}
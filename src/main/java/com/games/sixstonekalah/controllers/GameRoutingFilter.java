@@ -0,0 +1,44 @@
+package com.games.sixstonekalah.controllers;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Names the node that served a game request in the {@value #NODE_HEADER} response header, set with
+ * {@code games.routing.node-id}. Clients send it back on the next requests of the game, so a load balancer
+ * can keep routing the game to the node holding it in its in-process cache while that node is up.
+ */
+@Component
+@ConditionalOnProperty(name = "games.routing.node-id")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class GameRoutingFilter extends OncePerRequestFilter {
+
+    public static final String NODE_HEADER = "X-Game-Node";
+
+    private final String nodeId;
+
+    public GameRoutingFilter(@Value("${games.routing.node-id}") String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/games");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.setHeader(NODE_HEADER, nodeId);
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,48 +1,243 @@
 package com.games.sixstonekalah.controllers;
 
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.engine.SeedCollection;
+import com.games.sixstonekalah.events.GameEventBus;
 import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.HintUnavailableException;
+import com.games.sixstonekalah.exceptions.InvalidGameCountException;
+import com.games.sixstonekalah.exceptions.InvalidGameVariantException;
 import com.games.sixstonekalah.model.Game;
 import com.games.sixstonekalah.model.GameResponseDto;
 import com.games.sixstonekalah.model.GameStatusResponseDto;
+import com.games.sixstonekalah.model.HintResponseDto;
+import com.games.sixstonekalah.model.LegalMoveDto;
+import com.games.sixstonekalah.model.LegalMovesResponseDto;
+import com.games.sixstonekalah.service.GameHistoryService;
+import com.games.sixstonekalah.service.Hint;
+import com.games.sixstonekalah.service.KalahAiService;
+import com.games.sixstonekalah.service.KalahGameRules;
 import com.games.sixstonekalah.service.KalahGameService;
+import com.games.sixstonekalah.service.KalahHintService;
+import com.games.sixstonekalah.service.LegalMove;
+import com.games.sixstonekalah.service.MovesResult;
 import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.validation.constraints.NotBlank;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.NotBlank;
 import java.net.URI;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RestController
 @RequestMapping("/games")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GamesController {
 
     private KalahGameService kalahGameService;
+    private KalahAiService kalahAiService;
+    private KalahHintService kalahHintService;
+    private GameHistoryService gameHistoryService;
+    private GameEventBus gameEventBus;
+    /**
+     * Writes the events of {@code /events} streams, a virtual thread per stream with events to send.
+     */
+    private final ExecutorService eventSender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-events-", 0).factory());
 
-    public GamesController(KalahGameService kalahGameService) {
+    public GamesController(KalahGameService kalahGameService, KalahAiService kalahAiService, KalahHintService kalahHintService,
+                           GameHistoryService gameHistoryService, GameEventBus gameEventBus) {
         this.kalahGameService = kalahGameService;
+        this.kalahAiService = kalahAiService;
+        this.kalahHintService = kalahHintService;
+        this.gameHistoryService = gameHistoryService;
+        this.gameEventBus = gameEventBus;
     }
 
     @GetMapping(path = "/{gameId}", produces = "application/json")
     public GameResponseDto getGame(@PathVariable("gameId") @NotBlank String gameId) throws GameNotFoundException {
-        Game game = kalahGameService.getGame(gameId);
-        return GameResponseDto.builder().id(game.getId()).uri(game.getUri()).build();
+        return toGameResponse(kalahGameService.getGame(gameId));
     }
 
+    /**
+     * Creates a game on the standard board unless the board size or the rules are given.
+     * Games given both players count on the leaderboard once finished.
+     */
     @PostMapping(produces = "application/json")
-    public GameResponseDto createGame() {
-        String gameId = UUID.randomUUID().toString();
+    public GameResponseDto createGame(@RequestParam(value = "pitsPerSide", required = false) Integer pitsPerSide,
+                                      @RequestParam(value = "seedsPerPit", required = false) Integer seedsPerPit,
+                                      @RequestParam(value = "captureRule", required = false) CaptureRule captureRule,
+                                      @RequestParam(value = "seedCollection", required = false) SeedCollection seedCollection,
+                                      @RequestParam(value = "player1", required = false) String player1Id,
+                                      @RequestParam(value = "player2", required = false) String player2Id) throws InvalidGameVariantException {
+        BoardVariant variant = KalahGameRules.variant(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+        String gameId = kalahGameService.newGameId();
         URI location = ServletUriComponentsBuilder
-                .fromCurrentRequest().path("/{gameId}")
+                .fromCurrentRequest().replaceQuery(null).path("/{gameId}")
                 .buildAndExpand(gameId).toUri();
-        Game newGame = kalahGameService.creteNewGame(gameId, location.toString());
-        return GameResponseDto.builder().id(gameId).uri(location.toASCIIString()).build();
+        Game newGame = kalahGameService.creteNewGame(gameId, location.toString(), variant, player1Id, player2Id);
+        return toGameResponse(newGame);
+    }
+
+    /**
+     * Creates up to {@link KalahGameService#MAX_GAMES_PER_BULK} games at once, stored in a single Redis round trip.
+     */
+    @PostMapping(path = "/bulk", produces = "application/json")
+    public List<GameResponseDto> createGames(@RequestParam("count") int count,
+                                             @RequestParam(value = "pitsPerSide", required = false) Integer pitsPerSide,
+                                             @RequestParam(value = "seedsPerPit", required = false) Integer seedsPerPit,
+                                             @RequestParam(value = "captureRule", required = false) CaptureRule captureRule,
+                                             @RequestParam(value = "seedCollection", required = false) SeedCollection seedCollection)
+            throws InvalidGameVariantException, InvalidGameCountException {
+        BoardVariant variant = KalahGameRules.variant(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+        String games = ServletUriComponentsBuilder.fromCurrentContextPath().path("/games/").toUriString();
+        return toGameResponses(kalahGameService.creteNewGames(count, gameId -> games + gameId, variant));
     }
 
     @PutMapping(path = "/{gameId}/pits/{pitId}")
     public GameStatusResponseDto makeAMove(@PathVariable("gameId") @NotBlank String gameId,
                                            @PathVariable("pitId") int pitId) throws InvalidMoveException, GameNotFoundException {
         Game game = kalahGameService.move(gameId, pitId);
+        return toGameStatusResponse(game);
+    }
+
+    /**
+     * Plays the pit ids in order and saves the game once, stopping at the first invalid move.
+     */
+    @PostMapping(path = "/{gameId}/moves", consumes = "application/json", produces = "application/json")
+    public GameStatusResponseDto makeMoves(@PathVariable("gameId") @NotBlank String gameId,
+                                           @RequestBody List<Integer> pitIds) throws InvalidMoveException, GameNotFoundException {
+        return toGameStatusResponse(kalahGameService.move(gameId, pitIds));
+    }
+
+    @PostMapping(path = "/{gameId}/ai-move", produces = "application/json")
+    public GameStatusResponseDto makeAnAiMove(@PathVariable("gameId") @NotBlank String gameId,
+                                              @RequestParam(value = "budgetMs", required = false) Long budgetMs) throws InvalidMoveException, GameNotFoundException {
+        Game game = kalahAiService.move(gameId, budgetMs);
+        return toGameStatusResponse(game);
+    }
+
+    /**
+     * Best move found for the player whose turn it is within the hint deadline, with the line of play it expects
+     * and its score. 503 while the hint pool is full. Answered asynchronously, no request thread waits for the search.
+     */
+    @GetMapping(path = "/{gameId}/hint", produces = "application/json")
+    public CompletableFuture<HintResponseDto> getHint(@PathVariable("gameId") @NotBlank String gameId)
+            throws GameNotFoundException, InvalidMoveException, HintUnavailableException {
+        Game game = kalahGameService.getGame(gameId);
+        return kalahHintService.hint(game).thenApply(hint -> toHintResponse(game, hint));
+    }
+
+    /**
+     * Pits the player whose turn it is can play and the board each of them leads to,
+     * worked out on the game as read through the in-process cache.
+     */
+    @GetMapping(path = "/{gameId}/legal-moves", produces = "application/json")
+    public LegalMovesResponseDto getLegalMoves(@PathVariable("gameId") @NotBlank String gameId) throws GameNotFoundException {
+        return toLegalMovesResponse(kalahGameService.getGame(gameId));
+    }
+
+    /**
+     * State of the game after its first {@code moves} moves, replayed from the move log.
+     */
+    @GetMapping(path = "/{gameId}/history/{moves}", produces = "application/json")
+    public GameStatusResponseDto getGameAfterMoves(@PathVariable("gameId") @NotBlank String gameId,
+                                                   @PathVariable("moves") int moves) throws GameNotFoundException {
+        return toGameStatusResponse(gameHistoryService.getGameAfterMoves(gameId, moves));
+    }
+
+    /**
+     * Streams the game as server-sent events, the current state first and then the state after every move
+     * made on any node. Completes when the game is over or after {@code spring.mvc.async.request-timeout}.
+     */
+    @GetMapping(path = "/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGameEvents(@PathVariable("gameId") @NotBlank String gameId) throws GameNotFoundException {
+        SseEmitter emitter = new SseEmitter();
+        GameEventStream stream = new GameEventStream(emitter, eventSender);
+        GameEventBus.Subscription subscription = gameEventBus.subscribe(gameId, stream::send);
+        emitter.onCompletion(subscription::close);
+        try {
+            stream.send(kalahGameService.getGame(gameId));
+        } catch (GameNotFoundException e) {
+            subscription.close();
+            throw e;
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    void stopEventSender() {
+        eventSender.shutdownNow();
+    }
+
+    static GameStatusResponseDto toGameStatusResponse(MovesResult result) {
+        GameStatusResponseDto response = toGameStatusResponse(result.getGame());
+        response.setMovesApplied(result.getMovesApplied());
+        response.setFailedMoveIndex(result.getFailedMoveIndex());
+        response.setFailureReason(result.getFailureReason());
+        return response;
+    }
+
+    static List<GameResponseDto> toGameResponses(List<Game> games) {
+        List<GameResponseDto> responses = new ArrayList<>(games.size());
+        for (Game game : games) {
+            responses.add(toGameResponse(game));
+        }
+        return responses;
+    }
+
+    static GameResponseDto toGameResponse(Game game) {
+        return GameResponseDto.builder()
+                .id(game.getId())
+                .uri(game.getUri())
+                .player1Id(game.getPlayer1Id())
+                .player2Id(game.getPlayer2Id())
+                .build();
+    }
+
+    static LegalMovesResponseDto toLegalMovesResponse(Game game) {
+        List<LegalMoveDto> moves = new ArrayList<>();
+        for (LegalMove move : KalahGameRules.legalMoves(game)) {
+            moves.add(LegalMoveDto.builder()
+                    .pitId(move.getPitId())
+                    .bonusMove(move.isBonusMove())
+                    .capture(move.isCapture())
+                    .status(KalahBoard.toPitsSeedsMap(move.getPits()))
+                    .nextHand("Player " + move.getNextToPlay())
+                    .build());
+        }
+        return LegalMovesResponseDto.builder()
+                .id(game.getId())
+                .uri(game.getUri())
+                .nextHand(game.isGameOver() ? "" : "Player " + game.getNextToPlay())
+                .moves(moves)
+                .build();
+    }
+
+    static HintResponseDto toHintResponse(Game game, Hint hint) {
+        return HintResponseDto.builder()
+                .id(game.getId())
+                .uri(game.getUri())
+                .nextHand("Player " + game.getNextToPlay())
+                .pitId(hint.getPitId())
+                .score(hint.getScore())
+                .depth(hint.getDepth())
+                .principalVariation(Arrays.stream(hint.getPrincipalVariation()).boxed().toList())
+                .cached(hint.isCached())
+                .build();
+    }
+
+    static GameStatusResponseDto toGameStatusResponse(Game game) {
         return GameStatusResponseDto.builder()
                 .status(game.getPitsSeedsMap())
                 .id(game.getId())
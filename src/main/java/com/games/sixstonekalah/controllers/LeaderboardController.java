@@ -0,0 +1,43 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.exceptions.PlayerNotFoundException;
+import com.games.sixstonekalah.model.PlayerStatsDto;
+import com.games.sixstonekalah.repository.Leaderboard;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+
+/**
+ * Players of the finished games that were created with both of them, ranked by rating.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LeaderboardController {
+
+    public static final int MAX_LEADERBOARD_SIZE = 100;
+
+    private Leaderboard leaderboard;
+
+    public LeaderboardController(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Highest rated players first, at most {@link #MAX_LEADERBOARD_SIZE}.
+     */
+    @GetMapping(path = "/leaderboard", produces = "application/json")
+    public List<PlayerStatsDto> getLeaderboard(@RequestParam(value = "count", defaultValue = "10") int count) {
+        return leaderboard.top(Math.min(count, MAX_LEADERBOARD_SIZE));
+    }
+
+    @GetMapping(path = "/players/{playerId}", produces = "application/json")
+    public PlayerStatsDto getPlayer(@PathVariable("playerId") @NotBlank String playerId) throws PlayerNotFoundException {
+        return leaderboard.findPlayer(playerId).orElseThrow(LeaderboardController::playerNotFound);
+    }
+
+    static PlayerNotFoundException playerNotFound() {
+        return new PlayerNotFoundException("Player has no finished game");
+    }
+}
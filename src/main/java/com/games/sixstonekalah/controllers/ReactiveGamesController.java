@@ -0,0 +1,171 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.SeedCollection;
+import com.games.sixstonekalah.events.GameEventBus;
+import com.games.sixstonekalah.exceptions.HintUnavailableException;
+import com.games.sixstonekalah.exceptions.InvalidGameVariantException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.model.GameResponseDto;
+import com.games.sixstonekalah.model.GameStatusResponseDto;
+import com.games.sixstonekalah.model.HintResponseDto;
+import com.games.sixstonekalah.model.LegalMovesResponseDto;
+import com.games.sixstonekalah.service.KalahGameRules;
+import com.games.sixstonekalah.service.KalahHintService;
+import com.games.sixstonekalah.service.ReactiveKalahGameService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Same endpoints as {@link GamesController} served by WebFlux, active with the reactive profile.
+ * There is no {@code /history/{moves}}: the reactive store writes the packed layout, which keeps no log of the moves.
+ */
+@RestController
+@RequestMapping("/games")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveGamesController {
+
+    private ReactiveKalahGameService kalahGameService;
+    private KalahHintService kalahHintService;
+    private GameEventBus gameEventBus;
+
+    public ReactiveGamesController(ReactiveKalahGameService kalahGameService, KalahHintService kalahHintService,
+                                   GameEventBus gameEventBus) {
+        this.kalahGameService = kalahGameService;
+        this.kalahHintService = kalahHintService;
+        this.gameEventBus = gameEventBus;
+    }
+
+    @GetMapping(path = "/{gameId}", produces = "application/json")
+    public Mono<GameResponseDto> getGame(@PathVariable("gameId") @NotBlank String gameId) {
+        return kalahGameService.getGame(gameId).map(GamesController::toGameResponse);
+    }
+
+    @PostMapping(produces = "application/json")
+    public Mono<GameResponseDto> createGame(ServerHttpRequest request,
+                                            @RequestParam(value = "pitsPerSide", required = false) Integer pitsPerSide,
+                                            @RequestParam(value = "seedsPerPit", required = false) Integer seedsPerPit,
+                                            @RequestParam(value = "captureRule", required = false) CaptureRule captureRule,
+                                            @RequestParam(value = "seedCollection", required = false) SeedCollection seedCollection,
+                                            @RequestParam(value = "player1", required = false) String player1Id,
+                                            @RequestParam(value = "player2", required = false) String player2Id) {
+        BoardVariant variant;
+        try {
+            variant = KalahGameRules.variant(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+        } catch (InvalidGameVariantException e) {
+            return Mono.error(e);
+        }
+        String gameId = UUID.randomUUID().toString();
+        String location = UriComponentsBuilder.fromUri(request.getURI())
+                .replaceQuery(null).path("/{gameId}")
+                .buildAndExpand(gameId).toUri().toASCIIString();
+        return kalahGameService.creteNewGame(gameId, location, variant, player1Id, player2Id)
+                .map(GamesController::toGameResponse);
+    }
+
+    @PostMapping(path = "/bulk", produces = "application/json")
+    public Mono<List<GameResponseDto>> createGames(ServerHttpRequest request,
+                                                   @RequestParam("count") int count,
+                                                   @RequestParam(value = "pitsPerSide", required = false) Integer pitsPerSide,
+                                                   @RequestParam(value = "seedsPerPit", required = false) Integer seedsPerPit,
+                                                   @RequestParam(value = "captureRule", required = false) CaptureRule captureRule,
+                                                   @RequestParam(value = "seedCollection", required = false) SeedCollection seedCollection) {
+        BoardVariant variant;
+        try {
+            variant = KalahGameRules.variant(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+        } catch (InvalidGameVariantException e) {
+            return Mono.error(e);
+        }
+        String games = UriComponentsBuilder.fromUri(request.getURI())
+                .replaceQuery(null).replacePath("/games/")
+                .toUriString();
+        return kalahGameService.creteNewGames(count, gameId -> games + gameId, variant)
+                .map(GamesController::toGameResponses);
+    }
+
+    @PutMapping(path = "/{gameId}/pits/{pitId}")
+    public Mono<GameStatusResponseDto> makeAMove(@PathVariable("gameId") @NotBlank String gameId,
+                                                 @PathVariable("pitId") int pitId) {
+        return kalahGameService.move(gameId, pitId).map(GamesController::toGameStatusResponse);
+    }
+
+    @PostMapping(path = "/{gameId}/moves", consumes = "application/json", produces = "application/json")
+    public Mono<GameStatusResponseDto> makeMoves(@PathVariable("gameId") @NotBlank String gameId,
+                                                 @RequestBody List<Integer> pitIds) {
+        return kalahGameService.move(gameId, pitIds).map(GamesController::toGameStatusResponse);
+    }
+
+    @PostMapping(path = "/{gameId}/ai-move", produces = "application/json")
+    public Mono<GameStatusResponseDto> makeAnAiMove(@PathVariable("gameId") @NotBlank String gameId,
+                                                    @RequestParam(value = "budgetMs", required = false) Long budgetMs) {
+        return kalahGameService.aiMove(gameId, budgetMs).map(GamesController::toGameStatusResponse);
+    }
+
+    /**
+     * The search runs on the hint pool, the event loop only waits for its answer.
+     */
+    @GetMapping(path = "/{gameId}/hint", produces = "application/json")
+    public Mono<HintResponseDto> getHint(@PathVariable("gameId") @NotBlank String gameId) {
+        return kalahGameService.getGame(gameId).flatMap(game -> {
+            try {
+                return Mono.fromFuture(kalahHintService.hint(game))
+                        .map(hint -> GamesController.toHintResponse(game, hint));
+            } catch (InvalidMoveException | HintUnavailableException e) {
+                return Mono.error(e);
+            }
+        });
+    }
+
+    /**
+     * Same stream as {@link GamesController#streamGameEvents}. A client that falls behind skips to the newest
+     * version of the game, changes wait for it one at a time.
+     */
+    @GetMapping(path = "/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<GameStatusResponseDto>> streamGameEvents(@PathVariable("gameId") @NotBlank String gameId) {
+        return Flux.defer(() -> {
+            final long[] lastSentVersion = {-1};
+            return Flux.<Game>create(sink -> {
+                        GameEventBus.Subscription subscription = gameEventBus.subscribe(gameId, sink::next);
+                        sink.onDispose(subscription::close);
+                        kalahGameService.getGame(gameId).subscribe(sink::next, sink::error);
+                    }, FluxSink.OverflowStrategy.LATEST)
+                    // subscribing to the Redis channel blocks
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .filter(game -> {
+                        if (version(game) <= lastSentVersion[0]) {
+                            return false;
+                        }
+                        lastSentVersion[0] = version(game);
+                        return true;
+                    })
+                    .takeUntil(Game::isGameOver)
+                    .map(game -> ServerSentEvent.builder(GamesController.toGameStatusResponse(game))
+                            .event(GameEventStream.EVENT_NAME)
+                            .id(String.valueOf(version(game)))
+                            .build());
+        });
+    }
+
+    @GetMapping(path = "/{gameId}/legal-moves", produces = "application/json")
+    public Mono<LegalMovesResponseDto> getLegalMoves(@PathVariable("gameId") @NotBlank String gameId) {
+        return kalahGameService.getGame(gameId).map(GamesController::toLegalMovesResponse);
+    }
+
+    private static long version(Game game) {
+        return game.getVersion() == null ? 0 : game.getVersion();
+    }
+}
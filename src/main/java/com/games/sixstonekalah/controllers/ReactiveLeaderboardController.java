@@ -0,0 +1,38 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.model.PlayerStatsDto;
+import com.games.sixstonekalah.repository.Leaderboard;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+
+/**
+ * Same endpoints as {@link LeaderboardController} served by WebFlux, read off the event loop.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLeaderboardController {
+
+    private Leaderboard leaderboard;
+
+    public ReactiveLeaderboardController(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @GetMapping(path = "/leaderboard", produces = "application/json")
+    public Mono<List<PlayerStatsDto>> getLeaderboard(@RequestParam(value = "count", defaultValue = "10") int count) {
+        return Mono.fromCallable(() -> leaderboard.top(Math.min(count, LeaderboardController.MAX_LEADERBOARD_SIZE)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping(path = "/players/{playerId}", produces = "application/json")
+    public Mono<PlayerStatsDto> getPlayer(@PathVariable("playerId") @NotBlank String playerId) {
+        return Mono.fromCallable(() -> leaderboard.findPlayer(playerId).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.error(LeaderboardController::playerNotFound));
+    }
+}
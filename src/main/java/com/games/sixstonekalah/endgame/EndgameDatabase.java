@@ -0,0 +1,128 @@
+package com.games.sixstonekalah.endgame;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Read only, memory mapped endgame database answering perfect play questions in O(1).
+ * <pre>
+ * int     magic "KLHE"
+ * int     format (1)
+ * int     pits per side
+ * int     max seeds in pits
+ * byte[]  value of every position, by {@link EndgameIndex}
+ * </pre>
+ * Lookups only read the mapped buffer, so one instance is shared by all threads.
+ */
+public class EndgameDatabase {
+
+    public static final int NOT_COVERED = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x4B4C4845;
+    private static final int FORMAT = 1;
+    private static final int HEADER_LENGTH = 4 * Integer.BYTES;
+
+    private final EndgameIndex index;
+    private final MappedByteBuffer values;
+
+    private EndgameDatabase(EndgameIndex index, MappedByteBuffer values) {
+        this.index = index;
+        this.values = values;
+    }
+
+    public static EndgameDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH) {
+                throw new IOException(file + " is not an endgame database");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT) {
+                throw new IOException(file + " is not an endgame database");
+            }
+            if (header.getInt() != KalahBoard.NUMBER_OF_PITS) {
+                throw new IOException(file + " was built for another number of pits");
+            }
+            EndgameIndex index = new EndgameIndex(header.getInt());
+            if (channel.size() != HEADER_LENGTH + index.size()) {
+                throw new IOException(file + " is truncated");
+            }
+            return new EndgameDatabase(index, channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, index.size()));
+        }
+    }
+
+    public static void write(EndgameIndex index, byte[] values, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeInt(KalahBoard.NUMBER_OF_PITS);
+        out.writeInt(index.getMaxSeeds());
+        out.write(values);
+        out.flush();
+    }
+
+    public static void write(EndgameIndex index, byte[] values, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(index, values, out);
+        }
+    }
+
+    /**
+     * @return kalah difference the side to move still gains with perfect play, {@link #NOT_COVERED} when the
+     * position has more seeds in its pits than the database holds
+     */
+    public int value(int[] pits, int player) {
+        final int seeds = EndgameIndex.seedsInPits(pits);
+        if (seeds > index.getMaxSeeds()) {
+            return NOT_COVERED;
+        }
+        return values.get((int) index.index(pits, seeds, player));
+    }
+
+    public boolean covers(int[] pits) {
+        return EndgameIndex.seedsInPits(pits) <= index.getMaxSeeds();
+    }
+
+    /**
+     * @return pit id of a perfect move, 0 when the position is not covered or the player cannot move
+     */
+    public int bestMove(int[] pits, int player) {
+        if (!covers(pits) || KalahBoard.isGameOver(pits)) {
+            return 0;
+        }
+        final int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        final int[] child = new int[SIZE];
+        final int count = KalahBoard.getLegalMoves(pits, player, moves);
+        final int kalah = KalahBoard.getKalahIndex(player) - 1;
+        int bestMove = 0;
+        int bestValue = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(pits, 0, child, 0, SIZE);
+            final boolean bonusMove = (KalahBoard.sow(child, player, moves[i]) & BONUS_MOVE) != 0;
+            final int gained = child[kalah] - pits[kalah];
+            final int value = bonusMove
+                    ? gained + value(child, player)
+                    : gained - value(child, KalahBoard.opponent(player));
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    public int getMaxSeeds() {
+        return index.getMaxSeeds();
+    }
+}
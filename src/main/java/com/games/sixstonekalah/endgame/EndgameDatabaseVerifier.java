@@ -0,0 +1,93 @@
+package com.games.sixstonekalah.endgame;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Checks an endgame database against a plain brute force minimax of every position with up to the given seeds.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.games.sixstonekalah.endgame.EndgameDatabaseVerifier \
+ *     -Dexec.args="endgame.db 7"
+ * </pre>
+ * Brute force grows exponentially with the seeds, keep the seed count small.
+ */
+public final class EndgameDatabaseVerifier {
+
+    private final EndgameDatabase database;
+    private long positions;
+    private long mismatches;
+
+    public EndgameDatabaseVerifier(EndgameDatabase database) {
+        this.database = database;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: EndgameDatabaseVerifier <file> <max seeds to verify>");
+            System.exit(1);
+        }
+        EndgameDatabaseVerifier verifier = new EndgameDatabaseVerifier(EndgameDatabase.open(Paths.get(args[0])));
+        final long mismatches = verifier.verify(Integer.parseInt(args[1]));
+        System.out.printf("%d positions verified, %d mismatches%n", verifier.positions, mismatches);
+        System.exit(mismatches == 0 ? 0 : 2);
+    }
+
+    /**
+     * @return number of positions where the database disagrees with brute force
+     */
+    public long verify(int maxSeeds) {
+        positions = 0;
+        mismatches = 0;
+        final int[] pits = new int[SIZE];
+        for (int seeds = 0; seeds <= Math.min(maxSeeds, database.getMaxSeeds()); seeds++) {
+            verifyDistributions(pits, 0, seeds);
+        }
+        return mismatches;
+    }
+
+    private void verifyDistributions(int[] pits, int slot, int remaining) {
+        if (slot == EndgameIndex.PITS - 1) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = remaining;
+            for (int player = PLAYER_1; player <= PLAYER_2; player++) {
+                positions++;
+                if (database.value(pits, player) != bruteForce(pits, player)) {
+                    mismatches++;
+                }
+            }
+            return;
+        }
+        for (int value = 0; value <= remaining; value++) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = value;
+            verifyDistributions(pits, slot + 1, remaining - value);
+        }
+    }
+
+    /**
+     * Kalah difference still gained by the side to move, searched to the end of the game without any table.
+     */
+    static int bruteForce(int[] pits, int player) {
+        final int opponent = KalahBoard.opponent(player);
+        if (KalahBoard.isGameOver(pits)) {
+            return KalahBoard.getSumOfSeedsInPits(pits, player) - KalahBoard.getSumOfSeedsInPits(pits, opponent);
+        }
+        final int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        final int count = KalahBoard.getLegalMoves(pits, player, moves);
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            final int[] child = pits.clone();
+            final boolean bonusMove = (KalahBoard.sow(child, player, moves[i]) & BONUS_MOVE) != 0;
+            final int gained = KalahBoard.getStoreValue(child, player) - KalahBoard.getStoreValue(pits, player);
+            best = Math.max(best, bonusMove
+                    ? gained + bruteForce(child, player)
+                    : gained - bruteForce(child, opponent));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,78 @@
+package com.games.sixstonekalah.endgame;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+/**
+ * Dense index of every seed distribution over the twelve pits, kalahs excluded, and the side to move.
+ * <p>
+ * Distributions are ranked by their number of seeds first and then lexicographically pit by pit
+ * (combinatorial number system), so all positions with up to {@code n} seeds fill
+ * {@code 2 * C(n + 12, 12)} consecutive slots.
+ */
+public final class EndgameIndex {
+
+    public static final int PITS = KalahBoard.NUMBER_OF_PITS * 2;
+
+    /**
+     * Array slots of the pits, player 1 pits first
+     */
+    static final int[] PIT_SLOTS = new int[PITS];
+
+    static {
+        int slot = 0;
+        for (int pitId = KalahBoard.FIRST_PIT_INDEX; pitId <= KalahBoard.LAST_PIT_INDEX; pitId++) {
+            if (!KalahBoard.isKalah(pitId)) {
+                PIT_SLOTS[slot++] = pitId - 1;
+            }
+        }
+    }
+
+    private final int maxSeeds;
+    private final long[][] binomials;
+
+    public EndgameIndex(int maxSeeds) {
+        this.maxSeeds = maxSeeds;
+        final int n = maxSeeds + PITS + 1;
+        binomials = new long[n][PITS + 1];
+        for (int i = 0; i < n; i++) {
+            binomials[i][0] = 1;
+            for (int r = 1; r <= Math.min(i, PITS); r++) {
+                binomials[i][r] = binomials[i - 1][r - 1] + (r <= i - 1 ? binomials[i - 1][r] : 0);
+            }
+        }
+    }
+
+    /**
+     * @return number of slots, both sides to move, of all positions with up to {@code maxSeeds} seeds
+     */
+    public long size() {
+        return 2 * binomial(maxSeeds + PITS, PITS);
+    }
+
+    /**
+     * @param seeds number of seeds in the pits of the board, at most {@code maxSeeds}
+     */
+    public long index(int[] pits, int seeds, int player) {
+        long rank = binomial(seeds + PITS - 1, PITS);
+        int remaining = seeds;
+        for (int i = 0; i < PITS - 1; i++) {
+            final int slots = PITS - i;
+            final int value = pits[PIT_SLOTS[i]];
+            rank += binomial(remaining + slots - 1, slots - 1) - binomial(remaining - value + slots - 1, slots - 1);
+            remaining -= value;
+        }
+        return rank * 2 + (player == KalahBoard.PLAYER_2 ? 1 : 0);
+    }
+
+    public int getMaxSeeds() {
+        return maxSeeds;
+    }
+
+    public static int seedsInPits(int[] pits) {
+        return KalahBoard.getSumOfSeedsInPits(pits, KalahBoard.PLAYER_1) + KalahBoard.getSumOfSeedsInPits(pits, KalahBoard.PLAYER_2);
+    }
+
+    private long binomial(int n, int r) {
+        return n < r || n < 0 ? 0 : binomials[n][r];
+    }
+}
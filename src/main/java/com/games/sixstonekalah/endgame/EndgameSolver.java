@@ -0,0 +1,111 @@
+package com.games.sixstonekalah.endgame;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.util.Arrays;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Solves every position with up to {@code maxSeeds} seeds left in the pits.
+ * <p>
+ * Seeds never come back out of a kalah, so what is left of a game only depends on the pits and the side to move,
+ * not on the kalahs. The value of a position is the difference between what the side to move and the opponent
+ * still add to their kalahs with perfect play, the seeds collected at the end included.
+ * <p>
+ * A move either drops seeds into a kalah, lowering the seeds in pits, or only moves seeds further along the own
+ * side. So every position only depends on positions with fewer seeds or with seeds closer to the kalah,
+ * positions are solved from the empty board up, the values of the smaller positions are reused when a
+ * bigger position is reached.
+ */
+public class EndgameSolver {
+
+    public static final byte UNSOLVED = Byte.MIN_VALUE;
+
+    private final EndgameIndex index;
+    private final byte[] values;
+    private final int[][] boards;
+    private final int[][] moves;
+
+    public EndgameSolver(int maxSeeds) {
+        if (maxSeeds > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Values of more than " + Byte.MAX_VALUE + " seeds do not fit in a byte");
+        }
+        index = new EndgameIndex(maxSeeds);
+        final long size = index.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many positions for " + maxSeeds + " seeds: " + size);
+        }
+        values = new byte[(int) size];
+        Arrays.fill(values, UNSOLVED);
+        // same side moves move seeds towards the kalah, at most 5 pits per seed, a seed count can only drop maxSeeds times
+        final int maxDepth = maxSeeds * (maxSeeds + 1) * 5 / 2 + maxSeeds + 2;
+        boards = new int[maxDepth][SIZE];
+        moves = new int[maxDepth][KalahBoard.NUMBER_OF_PITS];
+    }
+
+    /**
+     * @return values of all positions by {@link EndgameIndex#index(int[], int, int)}
+     */
+    public byte[] solve() {
+        final int[] pits = new int[SIZE];
+        for (int seeds = 0; seeds <= index.getMaxSeeds(); seeds++) {
+            solveDistributions(pits, 0, seeds, seeds);
+        }
+        return values;
+    }
+
+    public EndgameIndex getIndex() {
+        return index;
+    }
+
+    private void solveDistributions(int[] pits, int slot, int remaining, int seeds) {
+        if (slot == EndgameIndex.PITS - 1) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = remaining;
+            System.arraycopy(pits, 0, boards[0], 0, SIZE);
+            value(0, PLAYER_1, seeds);
+            value(0, PLAYER_2, seeds);
+            return;
+        }
+        for (int value = 0; value <= remaining; value++) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = value;
+            solveDistributions(pits, slot + 1, remaining - value, seeds);
+        }
+    }
+
+    private int value(int depth, int player, int seeds) {
+        final int[] board = boards[depth];
+        final int slot = (int) index.index(board, seeds, player);
+        if (values[slot] != UNSOLVED) {
+            return values[slot];
+        }
+        final int opponent = KalahBoard.opponent(player);
+        int best;
+        if (KalahBoard.isGameOver(board)) {
+            best = KalahBoard.getSumOfSeedsInPits(board, player) - KalahBoard.getSumOfSeedsInPits(board, opponent);
+        } else {
+            best = Integer.MIN_VALUE;
+            final int[] child = boards[depth + 1];
+            final int kalah = KalahBoard.getKalahIndex(player) - 1;
+            final int[] legalMoves = moves[depth];
+            final int count = KalahBoard.getLegalMoves(board, player, legalMoves);
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(board, 0, child, 0, SIZE);
+                child[kalah] = 0;
+                final boolean bonusMove = (KalahBoard.sow(child, player, legalMoves[i]) & BONUS_MOVE) != 0;
+                final int gained = child[kalah];
+                child[kalah] = 0;
+                final int childSeeds = seeds - gained;
+                final int value = bonusMove
+                        ? gained + value(depth + 1, player, childSeeds)
+                        : gained - value(depth + 1, opponent, childSeeds);
+                best = Math.max(best, value);
+            }
+        }
+        values[slot] = (byte) best;
+        return best;
+    }
+}
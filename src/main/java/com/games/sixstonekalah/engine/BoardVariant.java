@@ -0,0 +1,240 @@
+package com.games.sixstonekalah.engine;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+import static com.games.sixstonekalah.engine.KalahBoard.EMPTY;
+import static com.games.sixstonekalah.engine.KalahBoard.NONE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+
+/**
+ * Board size and rules of a game, with the move, capture and end of game logic driven by tables built once per variant.
+ * <p>
+ * A board of {@code n} pits per side has {@code 2n + 2} slots, pit ids are {@code 1..2n+2} as in {@link KalahBoard}:
+ * player 1 owns pits {@code 1..n} and kalah {@code n+1}, player 2 pits {@code n+2..2n+1} and kalah {@code 2n+2}.
+ * Instances are shared and immutable, {@link #of} never allocates.
+ */
+public final class BoardVariant {
+
+    public static final int MIN_PITS_PER_SIDE = 3;
+    public static final int MAX_PITS_PER_SIDE = 12;
+    public static final int MIN_SEEDS_PER_PIT = 1;
+    public static final int MAX_SEEDS_PER_PIT = 12;
+
+    private static final BoardVariant[][][][] VARIANTS =
+            new BoardVariant[MAX_PITS_PER_SIDE + 1][MAX_SEEDS_PER_PIT + 1][CaptureRule.values().length][SeedCollection.values().length];
+
+    static {
+        for (int pits = MIN_PITS_PER_SIDE; pits <= MAX_PITS_PER_SIDE; pits++) {
+            for (int seeds = MIN_SEEDS_PER_PIT; seeds <= MAX_SEEDS_PER_PIT; seeds++) {
+                for (CaptureRule captureRule : CaptureRule.values()) {
+                    for (SeedCollection seedCollection : SeedCollection.values()) {
+                        VARIANTS[pits][seeds][captureRule.ordinal()][seedCollection.ordinal()] =
+                                new BoardVariant(pits, seeds, captureRule, seedCollection);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The board of {@link KalahBoard}: 6 pits of 6 seeds, empty captures, every player collects his own seeds.
+     */
+    public static final BoardVariant STANDARD = of(KalahBoard.NUMBER_OF_PITS, KalahBoard.NUMBER_OF_SEEDS_PER_PIT,
+            CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER);
+
+    @Getter
+    private final int pitsPerSide;
+    @Getter
+    private final int seedsPerPit;
+    @Getter
+    private final CaptureRule captureRule;
+    @Getter
+    private final SeedCollection seedCollection;
+    /**
+     * Number of slots, pits and kalahs of both players.
+     */
+    @Getter
+    private final int size;
+
+    private final boolean emptyCapture;
+    private final boolean ownerCollects;
+    private final int player1Kalah;
+    private final int player2Kalah;
+    /**
+     * Slot following each slot for a move of player 1 and of player 2, the kalah of the opponent is skipped.
+     */
+    private final int[] nextForPlayer1;
+    private final int[] nextForPlayer2;
+    /**
+     * Slot across the board of every pit slot.
+     */
+    private final int[] opposite;
+    /**
+     * Player owning each pit slot, 0 for the kalahs.
+     */
+    private final int[] owner;
+
+    private BoardVariant(int pitsPerSide, int seedsPerPit, CaptureRule captureRule, SeedCollection seedCollection) {
+        this.pitsPerSide = pitsPerSide;
+        this.seedsPerPit = seedsPerPit;
+        this.captureRule = captureRule;
+        this.seedCollection = seedCollection;
+        this.size = (pitsPerSide + 1) * 2;
+        this.emptyCapture = captureRule == CaptureRule.EMPTY_CAPTURE;
+        this.ownerCollects = seedCollection == SeedCollection.OWNER;
+        this.player1Kalah = pitsPerSide;
+        this.player2Kalah = size - 1;
+        this.nextForPlayer1 = new int[size];
+        this.nextForPlayer2 = new int[size];
+        this.opposite = new int[size];
+        this.owner = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            final int next = (slot + 1) % size;
+            nextForPlayer1[slot] = next == player2Kalah ? 0 : next;
+            nextForPlayer2[slot] = next == player1Kalah ? next + 1 : next;
+            if (slot != player1Kalah && slot != player2Kalah) {
+                opposite[slot] = size - 2 - slot;
+                owner[slot] = slot < player1Kalah ? PLAYER_1 : PLAYER_2;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when the board is outside of the supported sizes
+     */
+    public static BoardVariant of(int pitsPerSide, int seedsPerPit, CaptureRule captureRule, SeedCollection seedCollection) {
+        if (pitsPerSide < MIN_PITS_PER_SIDE || pitsPerSide > MAX_PITS_PER_SIDE) {
+            throw new IllegalArgumentException("Pits per side must be between " + MIN_PITS_PER_SIDE + " and " + MAX_PITS_PER_SIDE);
+        }
+        if (seedsPerPit < MIN_SEEDS_PER_PIT || seedsPerPit > MAX_SEEDS_PER_PIT) {
+            throw new IllegalArgumentException("Seeds per pit must be between " + MIN_SEEDS_PER_PIT + " and " + MAX_SEEDS_PER_PIT);
+        }
+        return VARIANTS[pitsPerSide][seedsPerPit][captureRule.ordinal()][seedCollection.ordinal()];
+    }
+
+    /**
+     * Same as {@link #of(int, int, CaptureRule, SeedCollection)} with the values of the standard board for the ones not given.
+     */
+    public static BoardVariant orStandard(@Nullable Integer pitsPerSide, @Nullable Integer seedsPerPit,
+                                          @Nullable CaptureRule captureRule, @Nullable SeedCollection seedCollection) {
+        if (pitsPerSide == null && seedsPerPit == null && captureRule == null && seedCollection == null) {
+            return STANDARD;
+        }
+        return of(pitsPerSide == null ? STANDARD.pitsPerSide : pitsPerSide,
+                seedsPerPit == null ? STANDARD.seedsPerPit : seedsPerPit,
+                captureRule == null ? STANDARD.captureRule : captureRule,
+                seedCollection == null ? STANDARD.seedCollection : seedCollection);
+    }
+
+    public boolean isStandard() {
+        return this == STANDARD;
+    }
+
+    public int[] newBoard() {
+        int[] pits = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            pits[slot] = owner[slot] == 0 ? EMPTY : seedsPerPit;
+        }
+        return pits;
+    }
+
+    /**
+     * Sows the seeds of the given pit for the player, applying the bonus move and capture rules of the variant.
+     * The move is expected to be valid, see {@link #isPlayersPit(int, int)}.
+     *
+     * @return {@link KalahBoard#BONUS_MOVE} and/or {@link KalahBoard#CAPTURE} flags, {@link KalahBoard#NONE} otherwise
+     */
+    public int sow(int[] pits, int player, int pitId) {
+        final int[] next = player == PLAYER_1 ? nextForPlayer1 : nextForPlayer2;
+        final int ownKalah = player == PLAYER_1 ? player1Kalah : player2Kalah;
+
+        int slot = pitId - 1;
+        int seeds = pits[slot];
+        pits[slot] = EMPTY;
+        while (seeds != EMPTY) {
+            slot = next[slot];
+            pits[slot]++;
+            seeds--;
+        }
+        if (slot == ownKalah) {
+            return BONUS_MOVE;
+        }
+        if (pits[slot] == 1 && owner[slot] == player) {
+            final int across = opposite[slot];
+            if (pits[across] != EMPTY || emptyCapture) {
+                pits[ownKalah] += pits[across] + 1;
+                pits[across] = EMPTY;
+                pits[slot] = EMPTY;
+                return CAPTURE;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return true when one of the players has no seeds left in his pits
+     */
+    public boolean isGameOver(int[] pits) {
+        return getSumOfSeedsInPits(pits, PLAYER_1) == 0 || getSumOfSeedsInPits(pits, PLAYER_2) == 0;
+    }
+
+    /**
+     * Moves the seeds left in the pits into the kalahs, as the seed collection rule says.
+     */
+    public void collectRemainingSeeds(int[] pits) {
+        final int player1Seeds = getSumOfSeedsInPits(pits, PLAYER_1);
+        final int player2Seeds = getSumOfSeedsInPits(pits, PLAYER_2);
+        for (int slot = 0; slot < size; slot++) {
+            if (owner[slot] != 0) {
+                pits[slot] = EMPTY;
+            }
+        }
+        pits[player1Kalah] += ownerCollects ? player1Seeds : player2Seeds;
+        pits[player2Kalah] += ownerCollects ? player2Seeds : player1Seeds;
+    }
+
+    /**
+     * Player 2 wins ties, same as {@link KalahBoard#getWinner(int[])}.
+     */
+    public int getWinner(int[] pits) {
+        return pits[player1Kalah] > pits[player2Kalah] ? PLAYER_1 : PLAYER_2;
+    }
+
+    public int getSumOfSeedsInPits(int[] pits, int player) {
+        final int first = player == PLAYER_1 ? 0 : player1Kalah + 1;
+        int sum = 0;
+        for (int slot = first; slot < first + pitsPerSide; slot++) {
+            sum += pits[slot];
+        }
+        return sum;
+    }
+
+    public int getStoreValue(int[] pits, int player) {
+        return pits[player == PLAYER_1 ? player1Kalah : player2Kalah];
+    }
+
+    public boolean isKalah(int pitId) {
+        return pitId == player1Kalah + 1 || pitId == player2Kalah + 1;
+    }
+
+    public boolean isPit(int pitId) {
+        return pitId >= 1 && pitId <= size && owner[pitId - 1] != 0;
+    }
+
+    public boolean isPlayersPit(int pitId, int player) {
+        return isPit(pitId) && owner[pitId - 1] == player;
+    }
+
+    public int getFirstPitIndex(int player) {
+        return player == PLAYER_1 ? 1 : player1Kalah + 2;
+    }
+
+    @Override
+    public String toString() {
+        return pitsPerSide + "x" + seedsPerPit + " " + captureRule + " " + seedCollection;
+    }
+}
@@ -0,0 +1,15 @@
+package com.games.sixstonekalah.engine;
+
+/**
+ * What happens when the last seed of a move lands in an empty pit of the player who moved.
+ */
+public enum CaptureRule {
+    /**
+     * The seed and the opposite pit go to the kalah, even when the opposite pit is empty.
+     */
+    EMPTY_CAPTURE,
+    /**
+     * Only captures when the opposite pit has seeds, otherwise the seed stays in the pit.
+     */
+    NO_EMPTY_CAPTURE
+}
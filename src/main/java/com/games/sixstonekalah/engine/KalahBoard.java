@@ -0,0 +1,203 @@
+package com.games.sixstonekalah.engine;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Allocation free Kalah rules working on a compact int[14] board.
+ * <p>
+ * Pit ids are the ones used by the API (1..14, kalahs at 7 and 14), the array slot of a pit is {@code pitId - 1}.
+ */
+public final class KalahBoard {
+
+    public static final int EMPTY = 0;
+
+    public static final int PLAYER_1 = 1;
+    public static final int PLAYER_2 = 2;
+
+    public static final int NUMBER_OF_PITS = 6;
+    public static final int NUMBER_OF_SEEDS_PER_PIT = 6;
+
+    public static final int FIRST_PIT_INDEX = 1;
+    public static final int LAST_PIT_INDEX = (NUMBER_OF_PITS + 1) * 2;
+
+    public static final int PLAYER_1_KALAH_INDEX = NUMBER_OF_PITS + 1;
+    public static final int PLAYER_2_KALAH_INDEX = LAST_PIT_INDEX;
+
+    public static final int SIZE = LAST_PIT_INDEX;
+    public static final int TOTAL_SEEDS = NUMBER_OF_PITS * NUMBER_OF_SEEDS_PER_PIT * 2;
+
+    /**
+     * Flags returned by {@link #sow(int[], int, int)}
+     */
+    public static final int NONE = 0;
+    public static final int BONUS_MOVE = 1;
+    public static final int CAPTURE = 1 << 1;
+
+    private KalahBoard() {
+    }
+
+    public static int[] newBoard() {
+        int[] pits = new int[SIZE];
+        reset(pits);
+        return pits;
+    }
+
+    public static void reset(int[] pits) {
+        for (int pitId = FIRST_PIT_INDEX; pitId <= LAST_PIT_INDEX; pitId++) {
+            pits[pitId - 1] = isKalah(pitId) ? EMPTY : NUMBER_OF_SEEDS_PER_PIT;
+        }
+    }
+
+    /**
+     * Sows the seeds of the given pit for the player, applying the bonus move and capture rules.
+     * The move is expected to be valid, see {@link #isLegalMove(int[], int, int)}.
+     *
+     * @return {@link #BONUS_MOVE} and/or {@link #CAPTURE} flags, {@link #NONE} otherwise
+     */
+    public static int sow(int[] pits, int player, int pitId) {
+        final int opponentKalah = getKalahIndex(opponent(player)) - 1;
+        final int ownKalah = getKalahIndex(player) - 1;
+        final int firstOwnPit = getFirstPitIndex(player) - 1;
+        final int lastOwnPit = ownKalah - 1;
+
+        int index = pitId - 1;
+        int seeds = pits[index];
+        pits[index] = EMPTY;
+        while (seeds != EMPTY) {
+            index = index == SIZE - 1 ? 0 : index + 1;
+            if (index == opponentKalah) {
+                continue;
+            }
+            seeds--;
+            if (seeds == EMPTY) {
+                if (index == ownKalah) {
+                    pits[index]++;
+                    return BONUS_MOVE;
+                }
+                if (pits[index] == EMPTY && index >= firstOwnPit && index <= lastOwnPit) {
+                    final int opposite = SIZE - 2 - index;
+                    pits[ownKalah] += pits[opposite] + 1;
+                    pits[opposite] = EMPTY;
+                    return CAPTURE;
+                }
+            }
+            pits[index]++;
+        }
+        return NONE;
+    }
+
+    /**
+     * @return true when one of the players has no seeds left in his pits
+     */
+    public static boolean isGameOver(int[] pits) {
+        return getSumOfSeedsInPits(pits, PLAYER_1) == 0 || getSumOfSeedsInPits(pits, PLAYER_2) == 0;
+    }
+
+    /**
+     * Moves the seeds left in the pits of both players into their own kalah.
+     */
+    public static void collectRemainingSeeds(int[] pits) {
+        collectRemainingSeeds(pits, PLAYER_1);
+        collectRemainingSeeds(pits, PLAYER_2);
+    }
+
+    private static void collectRemainingSeeds(int[] pits, int player) {
+        final int kalah = getKalahIndex(player) - 1;
+        for (int index = getFirstPitIndex(player) - 1; index < kalah; index++) {
+            pits[kalah] += pits[index];
+            pits[index] = EMPTY;
+        }
+    }
+
+    /**
+     * Player 2 wins ties, same as the original map based implementation.
+     */
+    public static int getWinner(int[] pits) {
+        return getStoreValue(pits, PLAYER_1) > getStoreValue(pits, PLAYER_2) ? PLAYER_1 : PLAYER_2;
+    }
+
+    public static boolean isLegalMove(int[] pits, int player, int pitId) {
+        return isPlayersPit(pitId, player) && pits[pitId - 1] != EMPTY;
+    }
+
+    /**
+     * Writes the pit ids the player can move from into {@code moves}, which must hold {@link #NUMBER_OF_PITS} entries.
+     *
+     * @return the number of legal moves written
+     */
+    public static int getLegalMoves(int[] pits, int player, int[] moves) {
+        final int firstPit = getFirstPitIndex(player);
+        int count = 0;
+        for (int pitId = firstPit; pitId < firstPit + NUMBER_OF_PITS; pitId++) {
+            if (pits[pitId - 1] != EMPTY) {
+                moves[count++] = pitId;
+            }
+        }
+        return count;
+    }
+
+    public static int getSumOfSeedsInPits(int[] pits, int player) {
+        final int kalah = getKalahIndex(player) - 1;
+        int sum = 0;
+        for (int index = getFirstPitIndex(player) - 1; index < kalah; index++) {
+            sum += pits[index];
+        }
+        return sum;
+    }
+
+    public static int getStoreValue(int[] pits, int player) {
+        return pits[getKalahIndex(player) - 1];
+    }
+
+    public static int getSeeds(int[] pits, int pitId) {
+        return pits[pitId - 1];
+    }
+
+    public static boolean isKalah(int pitId) {
+        return pitId == PLAYER_1_KALAH_INDEX || pitId == PLAYER_2_KALAH_INDEX;
+    }
+
+    public static boolean isPit(int pitId) {
+        return pitId >= FIRST_PIT_INDEX && pitId <= LAST_PIT_INDEX && !isKalah(pitId);
+    }
+
+    public static boolean isPlayersPit(int pitId, int player) {
+        final int firstPit = getFirstPitIndex(player);
+        return pitId >= firstPit && pitId < firstPit + NUMBER_OF_PITS;
+    }
+
+    public static int getFirstPitIndex(int player) {
+        return player == PLAYER_1 ? FIRST_PIT_INDEX : PLAYER_1_KALAH_INDEX + 1;
+    }
+
+    public static int getKalahIndex(int player) {
+        return player == PLAYER_1 ? PLAYER_1_KALAH_INDEX : PLAYER_2_KALAH_INDEX;
+    }
+
+    public static int opponent(int player) {
+        return player == PLAYER_1 ? PLAYER_2 : PLAYER_1;
+    }
+
+    /**
+     * Works for every board size, the map holds one entry per pit id.
+     */
+    public static int[] fromPitsSeedsMap(Map<String, Integer> pitsSeedsMap) {
+        int[] pits = new int[Math.max(SIZE, pitsSeedsMap.size())];
+        for (int pitId = FIRST_PIT_INDEX; pitId <= pits.length; pitId++) {
+            pits[pitId - 1] = pitsSeedsMap.getOrDefault(String.valueOf(pitId), EMPTY);
+        }
+        return pits;
+    }
+
+    /**
+     * Works for every board size.
+     */
+    public static Map<String, Integer> toPitsSeedsMap(int[] pits) {
+        Map<String, Integer> pitsSeedsMap = new TreeMap<>();
+        for (int pitId = FIRST_PIT_INDEX; pitId <= pits.length; pitId++) {
+            pitsSeedsMap.put(String.valueOf(pitId), pits[pitId - 1]);
+        }
+        return pitsSeedsMap;
+    }
+}
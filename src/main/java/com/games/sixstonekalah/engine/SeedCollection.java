@@ -0,0 +1,15 @@
+package com.games.sixstonekalah.engine;
+
+/**
+ * Who gets the seeds left in the pits once one side of the board is empty.
+ */
+public enum SeedCollection {
+    /**
+     * Every player moves the seeds of his own pits into his kalah.
+     */
+    OWNER,
+    /**
+     * The seeds left go to the kalah of the player who ran out of seeds.
+     */
+    OPPONENT
+}
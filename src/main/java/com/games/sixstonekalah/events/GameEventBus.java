@@ -0,0 +1,158 @@
+package com.games.sixstonekalah.events;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Fans game changes out to every node through Redis pub/sub, one {@code GameEvents:{id}} channel per game.
+ * <p>
+ * The packed {@link GameCodec} game is published, a node only subscribes to the channels of the games it has
+ * local listeners for and decodes each message once for all of them.
+ * Without Redis, in the embedded profile, changes only go to the listeners of this node.
+ */
+@Component
+public class GameEventBus implements GameEventPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GameEventBus.class);
+
+    private static final String CHANNEL_PREFIX = "GameEvents:";
+
+    @Nullable
+    private final RedisTemplate<String, Object> redisTemplate;
+    @Nullable
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Map<String, GameChannel> channels = new ConcurrentHashMap<>();
+
+    public GameEventBus(@Nullable RedisTemplate<String, Object> redisTemplate,
+                        @Nullable RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    /**
+     * Publishes the saved game. The move is already stored, so a failed publish is only logged.
+     * Without Redis the local listeners get a copy of the game right away, on the thread that saved it.
+     */
+    @Override
+    public void gameChanged(Game game) {
+        if (redisTemplate == null) {
+            final GameChannel channel = channels.get(game.getId());
+            if (channel != null) {
+                channel.deliver(GameCodec.decode(GameCodec.encode(game)));
+            }
+            return;
+        }
+        final byte[] channel = (CHANNEL_PREFIX + game.getId()).getBytes(StandardCharsets.UTF_8);
+        final byte[] message = GameCodec.encode(game);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, message));
+        } catch (DataAccessException e) {
+            LOG.warn("Could not publish the change of game {}", game.getId(), e);
+        }
+    }
+
+    /**
+     * Calls the listener with every change of the game published by any node, until the returned subscription is closed.
+     * The Redis channel is subscribed to before this returns, outside the lock of the channel map.
+     */
+    public Subscription subscribe(String gameId, Consumer<Game> listener) {
+        final GameChannel channel = channels.compute(gameId, (id, existing) -> {
+            GameChannel gameChannel = existing == null ? new GameChannel(id) : existing;
+            gameChannel.listeners.add(listener);
+            return gameChannel;
+        });
+        channel.subscribe();
+        return () -> {
+            final GameChannel[] removed = new GameChannel[1];
+            channels.computeIfPresent(gameId, (id, existing) -> {
+                existing.listeners.remove(listener);
+                if (existing.listeners.isEmpty()) {
+                    removed[0] = existing;
+                    return null;
+                }
+                return existing;
+            });
+            if (removed[0] != null) {
+                removed[0].unsubscribe();
+            }
+        };
+    }
+
+    /**
+     * @return the number of games this node is subscribed to
+     */
+    public int getSubscribedGames() {
+        return channels.size();
+    }
+
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class GameChannel implements MessageListener {
+
+        private final ChannelTopic topic;
+        private final Set<Consumer<Game>> listeners = new CopyOnWriteArraySet<>();
+
+        private boolean subscribed;
+
+        private GameChannel(String gameId) {
+            this.topic = new ChannelTopic(CHANNEL_PREFIX + gameId);
+        }
+
+        /**
+         * Every listener of the channel waits here until the first one has subscribed it.
+         */
+        private synchronized void subscribe() {
+            if (!subscribed && listenerContainer != null) {
+                listenerContainer.addMessageListener(this, topic);
+            }
+            subscribed = true;
+        }
+
+        /**
+         * Only called once the channel left the map, a new listener of the game gets a channel of its own.
+         */
+        private synchronized void unsubscribe() {
+            if (subscribed && listenerContainer != null) {
+                listenerContainer.removeMessageListener(this, topic);
+            }
+            subscribed = false;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            deliver(GameCodec.decode(message.getBody()));
+        }
+
+        private void deliver(Game game) {
+            for (Consumer<Game> listener : listeners) {
+                try {
+                    listener.accept(game);
+                } catch (RuntimeException e) {
+                    LOG.debug("Listener of game {} failed", game.getId(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.games.sixstonekalah.events;
+
+import com.games.sixstonekalah.model.Game;
+
+/**
+ * Told about every game state that was saved after a move.
+ */
+@FunctionalInterface
+public interface GameEventPublisher {
+
+    GameEventPublisher NONE = game -> {
+    };
+
+    void gameChanged(Game game);
+}
@@ -0,0 +1,12 @@
+package com.games.sixstonekalah.exceptions;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class GameConflictException extends OptimisticLockingFailureException {
+    public GameConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.games.sixstonekalah.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class HintUnavailableException extends Exception {
+    public HintUnavailableException(String message) {
+        super(message);
+    }
+}
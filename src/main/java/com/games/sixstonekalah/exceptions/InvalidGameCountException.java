@@ -0,0 +1,11 @@
+package com.games.sixstonekalah.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidGameCountException extends Exception {
+    public InvalidGameCountException(String message) {
+        super(message);
+    }
+}
@@ -3,9 +3,13 @@ package com.games.sixstonekalah.exceptions;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * A move the rules do not allow. Rejected moves are part of the normal traffic,
+ * so the exception carries no stack trace, only the reason sent back to the client.
+ */
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
 public class InvalidMoveException extends Exception {
     public InvalidMoveException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package com.games.sixstonekalah.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class PlayerNotFoundException extends Exception {
+    public PlayerNotFoundException(String message) {
+        super(message);
+    }
+}
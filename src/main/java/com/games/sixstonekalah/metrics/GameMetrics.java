@@ -0,0 +1,174 @@
+package com.games.sixstonekalah.metrics;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+
+/**
+ * Meters of the game hot paths. Every meter is registered up front and durations are passed in as
+ * {@link System#nanoTime()} differences, so recording does not allocate.
+ * <ul>
+ * <li>{@code games.operation} create, bulk create, get, move and batch moves latency, including the Redis round trips,
+ * and hint latency from admission to answer</li>
+ * <li>{@code games.store} load and save time of the game store</li>
+ * <li>{@code games.rules} time spent applying the rules on the loaded game</li>
+ * <li>{@code games.started}, {@code games.finished} by winner</li>
+ * <li>{@code games.sows}, {@code games.bonus.moves}, {@code games.captures}, rates are taken against the sows</li>
+ * <li>{@code games.invalid.moves} by reason, the {@code InvalidMoveException} message</li>
+ * <li>{@code games.hints.rejected} hints turned away with the hint pool full</li>
+ * </ul>
+ */
+@Component
+public class GameMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer create;
+    private final Timer createAll;
+    private final Timer get;
+    private final Timer move;
+    private final Timer moves;
+    private final Timer hint;
+    private final Timer load;
+    private final Timer save;
+    private final Timer rules;
+    private final Counter started;
+    private final Counter player1Won;
+    private final Counter player2Won;
+    private final Counter sows;
+    private final Counter bonusMoves;
+    private final Counter captures;
+    private final Counter hintsRejected;
+    private final Map<String, Counter> invalidMoves = new ConcurrentHashMap<>();
+
+    public GameMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        create = operation("create");
+        createAll = operation("create-all");
+        get = operation("get");
+        move = operation("move");
+        moves = operation("moves");
+        hint = operation("hint");
+        load = store("load");
+        save = store("save");
+        rules = Timer.builder("games.rules")
+                .description("Time spent applying the rules on a loaded game")
+                .register(meterRegistry);
+        started = Counter.builder("games.started").register(meterRegistry);
+        player1Won = finished(KalahBoard.PLAYER_1);
+        player2Won = finished(KalahBoard.PLAYER_2);
+        sows = Counter.builder("games.sows").description("Moves played").register(meterRegistry);
+        bonusMoves = Counter.builder("games.bonus.moves").description("Moves ending in the own kalah").register(meterRegistry);
+        captures = Counter.builder("games.captures").description("Moves capturing the opposite pit").register(meterRegistry);
+        hintsRejected = Counter.builder("games.hints.rejected").description("Hints turned away with the hint pool full")
+                .register(meterRegistry);
+    }
+
+    public void recordCreate(long nanos) {
+        create.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCreateAll(long nanos) {
+        createAll.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordGet(long nanos) {
+        get.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMove(long nanos) {
+        move.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMoves(long nanos) {
+        moves.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHint(long nanos) {
+        hint.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void hintRejected() {
+        hintsRejected.increment();
+    }
+
+    public void recordLoad(long nanos) {
+        load.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSave(long nanos) {
+        save.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRules(long nanos) {
+        rules.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gameStarted() {
+        started.increment();
+    }
+
+    public void gamesStarted(int count) {
+        started.increment(count);
+    }
+
+    public void gameFinished(int winner) {
+        (winner == KalahBoard.PLAYER_1 ? player1Won : player2Won).increment();
+    }
+
+    /**
+     * @param flags the {@link KalahBoard#sow(int[], int, int)} result
+     */
+    public void sown(int flags) {
+        sows.increment();
+        if ((flags & BONUS_MOVE) != 0) {
+            bonusMoves.increment();
+        }
+        if ((flags & CAPTURE) != 0) {
+            captures.increment();
+        }
+    }
+
+    public void invalidMove(String reason) {
+        Counter counter = invalidMoves.get(reason);
+        if (counter == null) {
+            counter = invalidMoves.computeIfAbsent(reason, this::invalidMoveCounter);
+        }
+        counter.increment();
+    }
+
+    private Counter invalidMoveCounter(String reason) {
+        return Counter.builder("games.invalid.moves")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private Timer operation(String operation) {
+        return Timer.builder("games.operation")
+                .description("Game service latency, Redis round trips included")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private Timer store(String operation) {
+        return Timer.builder("games.store")
+                .description("Game store latency")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private Counter finished(int winner) {
+        return Counter.builder("games.finished")
+                .tag("winner", "player" + winner)
+                .register(meterRegistry);
+    }
+}
@@ -1,8 +1,13 @@
 package com.games.sixstonekalah.model;
 
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.engine.SeedCollection;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.lang.Nullable;
 
@@ -11,16 +16,83 @@ import java.util.Map;
 @RedisHash("Game")
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 public class Game {
     private String id;
     private String uri;
     @Nullable
-    private Map<String, Integer> pitsSeedsMap;
+    private int[] pits;
     @Nullable
     private Integer lastPlayedBy;
     private Integer nextToPlay;
     private boolean bonusMove;
     private int playerWon;
     private boolean gameOver;
+    /**
+     * Incremented on every move, used to detect concurrent moves on the same game.
+     */
+    @Nullable
+    private Long version;
+    /**
+     * Board variant, all null for the standard board so games created before variants keep loading as they were.
+     */
+    @Nullable
+    private Integer pitsPerSide;
+    @Nullable
+    private Integer seedsPerPit;
+    @Nullable
+    private CaptureRule captureRule;
+    @Nullable
+    private SeedCollection seedCollection;
+    /**
+     * Who plays each side, only games created with both are ranked on the leaderboard.
+     */
+    @Nullable
+    private String player1Id;
+    @Nullable
+    private String player2Id;
+
+    /**
+     * @return the shared rule tables of the board this game is played on
+     */
+    @Transient
+    public BoardVariant getVariant() {
+        return BoardVariant.orStandard(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+    }
+
+    /**
+     * Map view of the board keyed by pit id, only meant to be built at the API boundary.
+     */
+    @Transient
+    @Nullable
+    public Map<String, Integer> getPitsSeedsMap() {
+        return pits == null ? null : KalahBoard.toPitsSeedsMap(pits);
+    }
+
+    /**
+     * @return a copy that does not share the board with this game
+     */
+    public Game copy() {
+        return toBuilder().pits(pits == null ? null : pits.clone()).build();
+    }
+
+    public static class GameBuilder {
+        /**
+         * Only keeps the variant fields when they differ from the standard board.
+         */
+        public GameBuilder variant(BoardVariant variant) {
+            if (variant.isStandard()) {
+                return pitsPerSide(null).seedsPerPit(null).captureRule(null).seedCollection(null);
+            }
+            return pitsPerSide(variant.getPitsPerSide())
+                    .seedsPerPit(variant.getSeedsPerPit())
+                    .captureRule(variant.getCaptureRule())
+                    .seedCollection(variant.getSeedCollection());
+        }
+
+        public GameBuilder pitsSeedsMap(Map<String, Integer> pitsSeedsMap) {
+            this.pits = KalahBoard.fromPitsSeedsMap(pitsSeedsMap);
+            return this;
+        }
+    }
 }
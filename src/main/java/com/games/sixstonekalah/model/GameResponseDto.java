@@ -1,5 +1,6 @@
 package com.games.sixstonekalah.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter
@@ -10,4 +11,8 @@ import lombok.*;
 public class GameResponseDto {
     private String id;
     private String uri;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String player1Id;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String player2Id;
 }
@@ -1,5 +1,6 @@
 package com.games.sixstonekalah.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.Map;
@@ -16,4 +17,13 @@ public class GameStatusResponseDto {
     private String nextHand;
     private String lastHand;
     private String playerWon;
+    /**
+     * Only set for batch moves.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer movesApplied;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer failedMoveIndex;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String failureReason;
 }
@@ -0,0 +1,21 @@
+package com.games.sixstonekalah.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HintResponseDto {
+    private String id;
+    private String uri;
+    private String nextHand;
+    private int pitId;
+    private int score;
+    private int depth;
+    private List<Integer> principalVariation;
+    private boolean cached;
+}
@@ -0,0 +1,21 @@
+package com.games.sixstonekalah.model;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LegalMoveDto {
+    private int pitId;
+    private boolean bonusMove;
+    private boolean capture;
+    /**
+     * Board after the move.
+     */
+    private Map<String, Integer> status;
+    private String nextHand;
+}
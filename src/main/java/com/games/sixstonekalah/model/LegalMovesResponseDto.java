@@ -0,0 +1,17 @@
+package com.games.sixstonekalah.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LegalMovesResponseDto {
+    private String id;
+    private String uri;
+    private String nextHand;
+    private List<LegalMoveDto> moves;
+}
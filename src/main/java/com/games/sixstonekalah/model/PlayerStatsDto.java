@@ -0,0 +1,24 @@
+package com.games.sixstonekalah.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerStatsDto {
+    private String playerId;
+    /**
+     * 1 for the highest rated player.
+     */
+    private long rank;
+    private double rating;
+    private long wins;
+    private long losses;
+    private long draws;
+    /**
+     * Own store minus the opponent store at the end of the game, averaged over the games played.
+     */
+    private double averageMargin;
+}
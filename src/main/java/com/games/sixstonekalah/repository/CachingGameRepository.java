@@ -0,0 +1,177 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-process cache of active games in front of the Redis backed repository, writes go through to Redis.
+ * <p>
+ * Cached games are copied in and out so a move that fails half way never leaks into the cache,
+ * a version conflict on save drops the entry so the retry reads the game from Redis again.
+ * When other nodes play the games too they may have moved a cached game, the service then {@link #evictIfStale evicts}
+ * it to check a rejected move on Redis. A node alone on its games rejects moves on the cached copy.
+ * Hit, miss and eviction counts are published as the {@code games} cache metrics.
+ */
+public class CachingGameRepository implements GameRepository {
+
+    private final GameRepository gameRepository;
+    private final Cache<String, Game> games;
+    private final boolean sharedWithOtherNodes;
+
+    public CachingGameRepository(GameRepository gameRepository,
+                                 MeterRegistry meterRegistry,
+                                 long maximumSize,
+                                 Duration expireAfterAccess,
+                                 boolean sharedWithOtherNodes) {
+        this.gameRepository = gameRepository;
+        this.sharedWithOtherNodes = sharedWithOtherNodes;
+        this.games = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, games, "games");
+    }
+
+    @Override
+    public String newId() {
+        return gameRepository.newId();
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        Game game = games.getIfPresent(id);
+        if (game == null) {
+            Optional<Game> stored = gameRepository.findById(id);
+            stored.ifPresent(this::cache);
+            return stored;
+        }
+        return Optional.of(game.copy());
+    }
+
+    @Override
+    public boolean evictIfStale(String id) {
+        return sharedWithOtherNodes && games.asMap().remove(id) != null;
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return games.getIfPresent(id) != null || gameRepository.existsById(id);
+    }
+
+    @Override
+    public <S extends Game> S save(S entity) {
+        S saved = gameRepository.save(entity);
+        cache(entity);
+        return saved;
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        try {
+            gameRepository.saveIfUnchanged(game, expectedVersion);
+        } catch (GameConflictException e) {
+            games.invalidate(game.getId());
+            throw e;
+        }
+        cache(game);
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion, List<Integer> pitIds) throws GameConflictException {
+        try {
+            gameRepository.saveIfUnchanged(game, expectedVersion, pitIds);
+        } catch (GameConflictException e) {
+            games.invalidate(game.getId());
+            throw e;
+        }
+        cache(game);
+    }
+
+    /**
+     * New games are only cached once read, a bulk of them would push the games being played out of the cache.
+     */
+    @Override
+    public void createAll(List<Game> games) {
+        gameRepository.createAll(games);
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        Iterable<S> saved = gameRepository.saveAll(entities);
+        entities.forEach(this::cache);
+        return saved;
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        return gameRepository.findAll();
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        return gameRepository.findAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return gameRepository.count();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        gameRepository.deleteById(id);
+        games.invalidate(id);
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        boolean deleted = gameRepository.deleteIfUnchanged(id, version);
+        games.invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        gameRepository.scanIds(batchSize, batches);
+    }
+
+    @Override
+    public void delete(Game entity) {
+        gameRepository.delete(entity);
+        games.invalidate(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        gameRepository.deleteAllById(ids);
+        games.invalidateAll(ids);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        gameRepository.deleteAll(entities);
+        entities.forEach(game -> games.invalidate(game.getId()));
+    }
+
+    @Override
+    public void deleteAll() {
+        gameRepository.deleteAll();
+        games.invalidateAll();
+    }
+
+    private void cache(Game game) {
+        games.put(game.getId(), game.copy());
+    }
+}
@@ -0,0 +1,383 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps the games in this process instead of Redis, for a single node: one {@link GameCodec} value per game in a
+ * concurrent map, every read decodes a copy of its own as it would from Redis.
+ * <p>
+ * Each write is appended to the {@link GameJournal} of the current generation before it returns. A snapshot starts
+ * the next generation and writes every game to {@code games-<generation>.snapshot}, the journals before it are then
+ * deleted. At startup the latest snapshot is loaded and the journals since replayed in order.
+ */
+public class EmbeddedGameRepository implements GameRepository, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedGameRepository.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x4B534E50;
+    private static final String SNAPSHOT_PREFIX = "games-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final Path directory;
+    private final int journalRegionSize;
+    private final Map<String, byte[]> games = new ConcurrentHashMap<>();
+    /**
+     * Shared by the writers from their map update to their journal append, held alone to switch generations.
+     */
+    private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+    private long generation;
+    private GameJournal journal;
+
+    /**
+     * Recovers the games persisted in the directory and snapshots them as the start of a new generation.
+     */
+    public EmbeddedGameRepository(Path directory, int journalRegionSize) throws IOException {
+        this.directory = directory;
+        this.journalRegionSize = journalRegionSize;
+        Files.createDirectories(directory);
+        generation = recover() + 1;
+        journal = new GameJournal(file(JOURNAL_PREFIX, generation, JOURNAL_SUFFIX), journalRegionSize);
+        writeSnapshot(generation);
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        final byte[] value = games.get(id);
+        return value == null ? Optional.empty() : Optional.of(GameCodec.decode(value));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return games.containsKey(id);
+    }
+
+    @Override
+    public <S extends Game> S save(S entity) {
+        write(entity, false, null);
+        return entity;
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        if (!write(game, true, expectedVersion)) {
+            throw new GameConflictException("Game was changed by another move");
+        }
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public void createAll(List<Game> games) {
+        games.forEach(this::save);
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        List<Game> found = new ArrayList<>(games.size());
+        games.values().forEach(value -> found.add(GameCodec.decode(value)));
+        return found;
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        List<Game> found = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return games.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        generationLock.readLock().lock();
+        try {
+            games.computeIfPresent(id, (key, current) -> {
+                journal.append(GameJournal.DELETE, key.getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        final boolean[] kept = {false};
+        generationLock.readLock().lock();
+        try {
+            games.computeIfPresent(id, (key, current) -> {
+                if (!Objects.equals(GameCodec.decodeVersion(current), version)) {
+                    kept[0] = true;
+                    return current;
+                }
+                journal.append(GameJournal.DELETE, key.getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+        return !kept[0];
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        List<String> batch = new ArrayList<>(batchSize);
+        for (String id : games.keySet()) {
+            batch.add(id);
+            if (batch.size() == batchSize) {
+                batches.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.accept(batch);
+        }
+    }
+
+    @Override
+    public void delete(Game entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        entities.forEach(this::delete);
+    }
+
+    /**
+     * Holds off every other write while the map is emptied, so none is journaled before the clear it came after.
+     */
+    @Override
+    public void deleteAll() {
+        generationLock.writeLock().lock();
+        try {
+            games.clear();
+            journal.append(GameJournal.CLEAR, NO_PAYLOAD);
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${games.embedded.snapshot-interval:PT1M}",
+            fixedDelayString = "${games.embedded.snapshot-interval:PT1M}")
+    public void snapshotGames() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Snapshot of the games failed, the journal keeps growing until the next one", e);
+        }
+    }
+
+    /**
+     * Starts the next generation and writes the snapshot of its start, unless nothing was written since the last one.
+     * Writes keep going while the games are written out, those that make it into the snapshot are replayed again
+     * from the new journal at recovery, to the same result.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (journal.isEmpty()) {
+            return;
+        }
+        final long next;
+        generationLock.writeLock().lock();
+        try {
+            next = generation + 1;
+            GameJournal previous = journal;
+            journal = new GameJournal(file(JOURNAL_PREFIX, next, JOURNAL_SUFFIX), journalRegionSize);
+            generation = next;
+            previous.close();
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+        writeSnapshot(next);
+    }
+
+    /**
+     * Takes a last snapshot, recovery then has no journal to replay.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        snapshot();
+        journal.close();
+    }
+
+    private boolean write(Game game, boolean compareVersions, @Nullable Long expectedVersion) {
+        final byte[] value = GameCodec.encode(game);
+        final boolean[] written = {false};
+        generationLock.readLock().lock();
+        try {
+            games.compute(game.getId(), (id, current) -> {
+                if (compareVersions
+                        && !Objects.equals(current == null ? null : GameCodec.decodeVersion(current), expectedVersion)) {
+                    return current;
+                }
+                journal.append(GameJournal.PUT, value);
+                written[0] = true;
+                return value;
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+        return written[0];
+    }
+
+    /**
+     * Writes the snapshot next to the journals and moves it in place once complete, then deletes the files
+     * of the generations before it.
+     * <pre>
+     * int     magic
+     * long    generation
+     * n * (int length, length bytes {@link GameCodec} game)
+     * int     0
+     * int     crc32 of everything before it
+     * </pre>
+     */
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        final Path snapshot = file(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX);
+        final Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+            final DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            for (byte[] value : games.values()) {
+                out.writeInt(value.length);
+                out.write(value);
+            }
+            out.writeInt(0);
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Map.Entry<Long, Path> older : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(snapshotGeneration).entrySet()) {
+            Files.deleteIfExists(older.getValue());
+        }
+        for (Map.Entry<Long, Path> older : generations(JOURNAL_PREFIX, JOURNAL_SUFFIX).headMap(snapshotGeneration).entrySet()) {
+            Files.deleteIfExists(older.getValue());
+        }
+    }
+
+    /**
+     * @return the last generation found in the directory, 0 when empty
+     */
+    private long recover() throws IOException {
+        long last = 0;
+        final TreeMap<Long, Path> snapshots = generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            last = snapshots.lastKey();
+            readSnapshot(snapshots.lastEntry().getValue());
+        }
+        for (Map.Entry<Long, Path> journalFile : generations(JOURNAL_PREFIX, JOURNAL_SUFFIX).tailMap(last).entrySet()) {
+            if (!GameJournal.replay(journalFile.getValue(), this::replay)) {
+                LOG.warn("Journal {} ends with a torn record, recovered up to it", journalFile.getValue());
+            }
+            last = journalFile.getKey();
+        }
+        LOG.info("Recovered {} games from {} at generation {}", games.size(), directory, last);
+        return last;
+    }
+
+    private void readSnapshot(Path snapshot) throws IOException {
+        try (InputStream file = Files.newInputStream(snapshot)) {
+            final CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), new CRC32());
+            final DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a games snapshot: " + snapshot);
+            }
+            in.readLong();
+            int length;
+            while ((length = in.readInt()) != 0) {
+                final byte[] value = in.readNBytes(length);
+                if (value.length != length) {
+                    throw new IOException("Truncated games snapshot: " + snapshot);
+                }
+                games.put(GameCodec.decode(value).getId(), value);
+            }
+            final int checksum = (int) checked.getChecksum().getValue();
+            if (in.readInt() != checksum) {
+                throw new IOException("Corrupt games snapshot: " + snapshot);
+            }
+        }
+    }
+
+    private void replay(byte type, byte[] payload) {
+        switch (type) {
+            case GameJournal.PUT -> games.put(GameCodec.decode(payload).getId(), payload);
+            case GameJournal.DELETE -> games.remove(new String(payload, StandardCharsets.UTF_8));
+            case GameJournal.CLEAR -> games.clear();
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private Path file(String prefix, long fileGeneration, String suffix) {
+        return directory.resolve(prefix + fileGeneration + suffix);
+    }
+
+    private TreeMap<Long, Path> generations(String prefix, String suffix) throws IOException {
+        final TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path path : stream) {
+                final String name = path.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), path);
+                } catch (NumberFormatException e) {
+                    LOG.debug("Ignoring {}", path);
+                }
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,336 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Keeps every game as an append-only log of the pit ids played plus periodic snapshots of the game,
+ * a move only appends one byte per pit id instead of rewriting the game.
+ * <pre>
+ * GameLog:{id}            list, one pit id per move
+ * GameSnapshots:{id}      list, 4 byte big endian number of logged moves followed by the {@link GameCodec} game
+ * GameLogVersion:{id}     version of the game
+ * GameLog                 set of the game ids
+ * </pre>
+ * A game is rebuilt from its latest snapshot plus the moves logged after it, replayed with the game rules.
+ * A snapshot is appended whenever the log crosses a multiple of the snapshot interval, and on saves that
+ * come without their moves.
+ */
+public class EventSourcedGameRepository implements GameRepository, GameHistoryRepository {
+
+    private static final String KEYSPACE = "GameLog";
+    private static final String SNAPSHOTS = "GameSnapshots";
+    private static final String VERSION = "GameLogVersion";
+    private static final int SNAPSHOT_INDEX_LENGTH = Integer.BYTES;
+    private static final byte[] NO_VALUE = new byte[0];
+    private static final byte[] RESET = bytes("reset");
+    private static final byte[] COMPARE = bytes("compare");
+
+    /**
+     * KEYS[1] log, KEYS[2] snapshots, KEYS[3] version, KEYS[4] keyspace set
+     * ARGV[1] id, ARGV[2] 'reset' to start a new log or 'compare' to check the version, ARGV[3] expected version
+     * ('' when none), ARGV[4] new version, ARGV[5] snapshot to append after the moves ('' when none), ARGV[6..] pit ids
+     */
+    private static final LuaScript SAVE_SCRIPT = new LuaScript("if ARGV[2] == 'reset' then\n" +
+            "  redis.call('DEL', KEYS[1], KEYS[2])\n" +
+            "elseif ARGV[2] == 'compare' and (redis.call('GET', KEYS[3]) or '') ~= ARGV[3] then\n" +
+            "  return -1\n" +
+            "end\n" +
+            "local length\n" +
+            "if #ARGV > 5 then length = redis.call('RPUSH', KEYS[1], unpack(ARGV, 6)) else length = redis.call('LLEN', KEYS[1]) end\n" +
+            "if ARGV[5] ~= '' then\n" +
+            "  redis.call('RPUSH', KEYS[2], string.char(math.floor(length / 16777216) % 256, math.floor(length / 65536) % 256," +
+            " math.floor(length / 256) % 256, length % 256) .. ARGV[5])\n" +
+            "end\n" +
+            "redis.call('SET', KEYS[3], ARGV[4])\n" +
+            "if ARGV[3] == '' then redis.call('SADD', KEYS[4], ARGV[1]) end\n" +
+            "return length");
+
+    /**
+     * KEYS[1] log, KEYS[2] snapshots, KEYS[3] version. Returns the latest snapshot, the version and the moves after it.
+     */
+    private static final LuaScript LOAD_SCRIPT = new LuaScript("local snapshot = redis.call('LINDEX', KEYS[2], -1)\n" +
+            "if not snapshot then return false end\n" +
+            "local from = ((string.byte(snapshot, 1) * 256 + string.byte(snapshot, 2)) * 256 + string.byte(snapshot, 3)) * 256" +
+            " + string.byte(snapshot, 4)\n" +
+            "return {snapshot, redis.call('GET', KEYS[3]), redis.call('LRANGE', KEYS[1], from, -1)}");
+
+    /**
+     * KEYS as {@link #SAVE_SCRIPT}, ARGV[1] id, ARGV[2] version ('' when none)
+     */
+    private static final LuaScript DELETE_IF_UNCHANGED_SCRIPT = new LuaScript("local current = redis.call('GET', KEYS[3])\n" +
+            "if (current or ARGV[2]) ~= ARGV[2] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])\n" +
+            "redis.call('SREM', KEYS[4], ARGV[1])\n" +
+            "return 1");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjIntConsumer<Game> moveReplayer;
+    private final int snapshotInterval;
+
+    /**
+     * @param moveReplayer plays a logged move on a game, see {@code KalahGameRules#replay}
+     */
+    public EventSourcedGameRepository(RedisTemplate<String, Object> redisTemplate, ObjIntConsumer<Game> moveReplayer, int snapshotInterval) {
+        this.redisTemplate = redisTemplate;
+        this.moveReplayer = moveReplayer;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        List<?> loaded = redisTemplate.execute((RedisCallback<List<?>>) connection ->
+                LOAD_SCRIPT.<List<?>>eval(connection, ReturnType.MULTI, 3, logKey(id), snapshotsKey(id), versionKey(id)));
+        if (loaded == null || loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        Game game = decodeSnapshot((byte[]) loaded.get(0));
+        for (Object move : (List<?>) loaded.get(2)) {
+            moveReplayer.accept(game, ((byte[]) move)[0]);
+        }
+        byte[] version = (byte[]) loaded.get(1);
+        game.setVersion(version == null ? null : Long.valueOf(new String(version, StandardCharsets.UTF_8)));
+        return Optional.of(game);
+    }
+
+    @Override
+    public Optional<Game> findByIdAfterMoves(String id, int moves) {
+        List<byte[]> snapshots = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.listCommands().lRange(snapshotsKey(id), 0, -1));
+        if (moves < 0 || snapshots == null || snapshots.isEmpty() || countMoves(id) < moves) {
+            return Optional.empty();
+        }
+        byte[] latest = null;
+        for (byte[] snapshot : snapshots) {
+            int index = snapshotIndex(snapshot);
+            if (index <= moves && (latest == null || index > snapshotIndex(latest))) {
+                latest = snapshot;
+            }
+        }
+        if (latest == null) {
+            return Optional.empty();
+        }
+        final int from = snapshotIndex(latest);
+        Game game = decodeSnapshot(latest);
+        if (moves > from) {
+            List<byte[]> tail = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.listCommands().lRange(logKey(id), from, moves - 1));
+            for (byte[] move : tail == null ? Collections.<byte[]>emptyList() : tail) {
+                moveReplayer.accept(game, move[0]);
+            }
+        }
+        game.setVersion(null);
+        return Optional.of(game);
+    }
+
+    @Override
+    public long countMoves(String id) {
+        Long length = redisTemplate.execute((RedisCallback<Long>) connection -> connection.listCommands().lLen(logKey(id)));
+        return length == null ? 0 : length;
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        Boolean exists = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.keyCommands().exists(snapshotsKey(id)));
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Starts a new log with the game as its first snapshot.
+     */
+    @Override
+    public <S extends Game> S save(S entity) {
+        write(entity, RESET, null, true, Collections.emptyList());
+        return entity;
+    }
+
+    /**
+     * The moves are not known, the whole game is appended as a snapshot.
+     */
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        if (write(game, COMPARE, expectedVersion, true, Collections.emptyList()) < 0) {
+            throw new GameConflictException("Game was changed by another move");
+        }
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion, List<Integer> pitIds) throws GameConflictException {
+        final long length = write(game, COMPARE, expectedVersion, false, pitIds);
+        if (length < 0) {
+            throw new GameConflictException("Game was changed by another move");
+        }
+        if ((length - pitIds.size()) / snapshotInterval != length / snapshotInterval) {
+            final byte[] snapshot = snapshot(length, game);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.listCommands().rPush(snapshotsKey(game.getId()), snapshot));
+        }
+    }
+
+    /**
+     * The first snapshot and the version of every game plus one SADD of their ids, pipelined.
+     */
+    @Override
+    public void createAll(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        final byte[][] ids = new byte[games.size()][];
+        redisTemplate.executePipelined((RedisCallback<Void>) connection -> {
+            for (int i = 0; i < games.size(); i++) {
+                Game game = games.get(i);
+                connection.listCommands().rPush(snapshotsKey(game.getId()), snapshot(0, game));
+                if (game.getVersion() != null) {
+                    connection.stringCommands().set(versionKey(game.getId()), bytes(game.getVersion().toString()));
+                }
+                ids[i] = bytes(game.getId());
+            }
+            connection.setCommands().sAdd(bytes(KEYSPACE), ids);
+            return null;
+        });
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        return findAllById(ids());
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        List<Game> games = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(games::add);
+        }
+        return games;
+    }
+
+    @Override
+    public long count() {
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection -> connection.setCommands().sCard(bytes(KEYSPACE)));
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.keyCommands().del(logKey(id), snapshotsKey(id), versionKey(id));
+            connection.setCommands().sRem(bytes(KEYSPACE), bytes(id));
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                DELETE_IF_UNCHANGED_SCRIPT.eval(connection, ReturnType.INTEGER, 4, logKey(id), snapshotsKey(id), versionKey(id),
+                        bytes(KEYSPACE), bytes(id), bytes(version == null ? "" : version.toString())));
+        return deleted != null && deleted == 1;
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        KeyspaceScan.scan(redisTemplate, KEYSPACE, batchSize, batches);
+    }
+
+    @Override
+    public void delete(Game entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        ids().forEach(this::deleteById);
+    }
+
+    /**
+     * @return the length of the log after the write, -1 when the version did not match
+     */
+    private long write(Game game, byte[] mode, @Nullable Long expectedVersion, boolean withSnapshot, List<Integer> pitIds) {
+        final byte[][] keysAndArgs = new byte[9 + pitIds.size()][];
+        keysAndArgs[0] = logKey(game.getId());
+        keysAndArgs[1] = snapshotsKey(game.getId());
+        keysAndArgs[2] = versionKey(game.getId());
+        keysAndArgs[3] = bytes(KEYSPACE);
+        keysAndArgs[4] = bytes(game.getId());
+        keysAndArgs[5] = mode;
+        keysAndArgs[6] = expectedVersion == null ? NO_VALUE : bytes(expectedVersion.toString());
+        keysAndArgs[7] = game.getVersion() == null ? NO_VALUE : bytes(game.getVersion().toString());
+        keysAndArgs[8] = withSnapshot ? GameCodec.encode(game) : NO_VALUE;
+        for (int i = 0; i < pitIds.size(); i++) {
+            keysAndArgs[9 + i] = new byte[]{pitIds.get(i).byteValue()};
+        }
+        Long length = redisTemplate.execute((RedisCallback<Long>) connection ->
+                SAVE_SCRIPT.eval(connection, ReturnType.INTEGER, 4, keysAndArgs));
+        return length == null ? -1 : length;
+    }
+
+    private Set<String> ids() {
+        Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection -> connection.setCommands().sMembers(bytes(KEYSPACE)));
+        Set<String> ids = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> ids.add(new String(member, StandardCharsets.UTF_8)));
+        }
+        return ids;
+    }
+
+    private static byte[] snapshot(long length, Game game) {
+        byte[] encoded = GameCodec.encode(game);
+        return ByteBuffer.allocate(SNAPSHOT_INDEX_LENGTH + encoded.length).putInt((int) length).put(encoded).array();
+    }
+
+    private static int snapshotIndex(byte[] snapshot) {
+        return ByteBuffer.wrap(snapshot).getInt();
+    }
+
+    private static Game decodeSnapshot(byte[] snapshot) {
+        byte[] encoded = new byte[snapshot.length - SNAPSHOT_INDEX_LENGTH];
+        System.arraycopy(snapshot, SNAPSHOT_INDEX_LENGTH, encoded, 0, encoded.length);
+        return GameCodec.decode(encoded);
+    }
+
+    private static byte[] logKey(String id) {
+        return bytes(KEYSPACE + ":" + id);
+    }
+
+    private static byte[] snapshotsKey(String id) {
+        return bytes(SNAPSHOTS + ":" + id);
+    }
+
+    private static byte[] versionKey(String id) {
+        return bytes(VERSION + ":" + id);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
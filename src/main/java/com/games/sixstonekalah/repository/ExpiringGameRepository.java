@@ -0,0 +1,133 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Moves the {@link GameExpiry} deadline of every game saved through the repository, whatever its storage layout.
+ */
+public class ExpiringGameRepository implements GameRepository {
+
+    private final GameRepository gameRepository;
+    private final GameExpiry gameExpiry;
+
+    public ExpiringGameRepository(GameRepository gameRepository, GameExpiry gameExpiry) {
+        this.gameRepository = gameRepository;
+        this.gameExpiry = gameExpiry;
+    }
+
+    @Override
+    public String newId() {
+        return gameRepository.newId();
+    }
+
+    @Override
+    public boolean evictIfStale(String id) {
+        return gameRepository.evictIfStale(id);
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        return gameRepository.findById(id);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return gameRepository.existsById(id);
+    }
+
+    @Override
+    public <S extends Game> S save(S entity) {
+        S saved = gameRepository.save(entity);
+        gameExpiry.touch(entity);
+        return saved;
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        gameRepository.saveIfUnchanged(game, expectedVersion);
+        gameExpiry.touch(game);
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion, List<Integer> pitIds) throws GameConflictException {
+        gameRepository.saveIfUnchanged(game, expectedVersion, pitIds);
+        gameExpiry.touch(game);
+    }
+
+    @Override
+    public void createAll(List<Game> games) {
+        gameRepository.createAll(games);
+        games.forEach(gameExpiry::touch);
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        Iterable<S> saved = gameRepository.saveAll(entities);
+        entities.forEach(gameExpiry::touch);
+        return saved;
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        return gameRepository.findAll();
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        return gameRepository.findAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return gameRepository.count();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        gameRepository.deleteById(id);
+        gameExpiry.forget(id);
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        if (!gameRepository.deleteIfUnchanged(id, version)) {
+            return false;
+        }
+        gameExpiry.forget(id);
+        return true;
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        gameRepository.scanIds(batchSize, batches);
+    }
+
+    @Override
+    public void delete(Game entity) {
+        gameRepository.delete(entity);
+        gameExpiry.forget(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        gameRepository.deleteAllById(ids);
+        gameExpiry.forget(ids);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        gameRepository.deleteAll(entities);
+        entities.forEach(game -> gameExpiry.forget(game.getId()));
+    }
+
+    @Override
+    public void deleteAll() {
+        gameRepository.deleteAll();
+    }
+}
@@ -0,0 +1,188 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.SeedCollection;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packs a {@link Game} into a single compact value.
+ * <pre>
+ * byte    format (1 for the standard board, 2 when the variant follows the pits)
+ * long    version, -1 when the game has none
+ * byte    flags: bit 0 bonus move, bit 1 game over, bits 2-3 last played by, bits 4-5 next to play, bits 6-7 player won
+ * byte    number of pits
+ * byte    bytes per pit (1 or 2)
+ * n * w   pit seeds, unsigned
+ * byte    format 2 only: pits per side
+ * byte    format 2 only: seeds per pit
+ * byte    format 2 only: capture rule ordinal in bits 0-3, seed collection ordinal in bits 4-7
+ * short   id length, id utf-8
+ * short   uri length, uri utf-8
+ * short   only when the game has players: player 1 id length, id utf-8, empty when none
+ * short   only when the game has players: player 2 id length, id utf-8, empty when none
+ * </pre>
+ * The version always sits at offset {@link #VERSION_OFFSET} so it can be compared on the Redis side.
+ */
+public final class GameCodec {
+
+    public static final byte FORMAT = 1;
+    public static final byte VARIANT_FORMAT = 2;
+    public static final int VERSION_OFFSET = 1;
+    public static final int VERSION_LENGTH = Long.BYTES;
+
+    private static final int NO_VERSION = -1;
+    private static final int BONUS_MOVE = 1;
+    private static final int GAME_OVER = 1 << 1;
+    private static final int LAST_PLAYED_BY_SHIFT = 2;
+    private static final int NEXT_TO_PLAY_SHIFT = 4;
+    private static final int PLAYER_WON_SHIFT = 6;
+    private static final int PLAYER_MASK = 0b11;
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(Game game) {
+        final int[] pits = game.getPits() == null ? new int[0] : game.getPits();
+        final int pitWidth = maxSeeds(pits) > 0xFF ? Short.BYTES : Byte.BYTES;
+        final byte[] id = bytes(game.getId());
+        final byte[] uri = bytes(game.getUri());
+        final boolean players = game.getPlayer1Id() != null || game.getPlayer2Id() != null;
+        final byte[] player1Id = bytes(game.getPlayer1Id());
+        final byte[] player2Id = bytes(game.getPlayer2Id());
+
+        final BoardVariant variant = game.getVariant();
+        final boolean standard = variant.isStandard();
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + VERSION_LENGTH + 3 + pits.length * pitWidth + (standard ? 0 : 3)
+                + Short.BYTES + id.length + Short.BYTES + uri.length
+                + (players ? Short.BYTES + player1Id.length + Short.BYTES + player2Id.length : 0));
+        buffer.put(standard ? FORMAT : VARIANT_FORMAT);
+        buffer.putLong(game.getVersion() == null ? NO_VERSION : game.getVersion());
+        buffer.put((byte) flags(game));
+        buffer.put((byte) pits.length);
+        buffer.put((byte) pitWidth);
+        for (int seeds : pits) {
+            if (pitWidth == Byte.BYTES) {
+                buffer.put((byte) seeds);
+            } else {
+                buffer.putShort((short) seeds);
+            }
+        }
+        if (!standard) {
+            buffer.put((byte) variant.getPitsPerSide());
+            buffer.put((byte) variant.getSeedsPerPit());
+            buffer.put((byte) (variant.getCaptureRule().ordinal() | variant.getSeedCollection().ordinal() << 4));
+        }
+        buffer.putShort((short) id.length).put(id);
+        buffer.putShort((short) uri.length).put(uri);
+        if (players) {
+            buffer.putShort((short) player1Id.length).put(player1Id);
+            buffer.putShort((short) player2Id.length).put(player2Id);
+        }
+        return buffer.array();
+    }
+
+    public static Game decode(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        final byte format = buffer.get();
+        if (format != FORMAT && format != VARIANT_FORMAT) {
+            throw new IllegalArgumentException("Unknown game format " + format);
+        }
+        final long version = buffer.getLong();
+        final int flags = buffer.get() & 0xFF;
+        final int[] pits = new int[buffer.get() & 0xFF];
+        final int pitWidth = buffer.get();
+        for (int i = 0; i < pits.length; i++) {
+            pits[i] = pitWidth == Byte.BYTES ? buffer.get() & 0xFF : buffer.getShort() & 0xFFFF;
+        }
+        BoardVariant variant = BoardVariant.STANDARD;
+        if (format == VARIANT_FORMAT) {
+            final int pitsPerSide = buffer.get();
+            final int seedsPerPit = buffer.get();
+            final int rules = buffer.get();
+            variant = BoardVariant.of(pitsPerSide, seedsPerPit,
+                    CaptureRule.values()[rules & 0xF], SeedCollection.values()[(rules >>> 4) & 0xF]);
+        }
+        final String id = string(buffer);
+        final String uri = string(buffer);
+        final String player1Id = buffer.hasRemaining() ? playerId(buffer) : null;
+        final String player2Id = buffer.hasRemaining() ? playerId(buffer) : null;
+        return Game.builder()
+                .variant(variant)
+                .version(version == NO_VERSION ? null : version)
+                .bonusMove((flags & BONUS_MOVE) != 0)
+                .gameOver((flags & GAME_OVER) != 0)
+                .lastPlayedBy(player(flags >>> LAST_PLAYED_BY_SHIFT))
+                .nextToPlay(player(flags >>> NEXT_TO_PLAY_SHIFT))
+                .playerWon((flags >>> PLAYER_WON_SHIFT) & PLAYER_MASK)
+                .pits(pits)
+                .id(id)
+                .uri(uri)
+                .player1Id(player1Id)
+                .player2Id(player2Id)
+                .build();
+    }
+
+    /**
+     * @return the version field exactly as {@link #encode(Game)} writes it
+     */
+    public static byte[] encodeVersion(long version) {
+        return ByteBuffer.allocate(VERSION_LENGTH).putLong(version).array();
+    }
+
+    /**
+     * @return the version of an encoded game without decoding the rest of it, null when the game has none
+     */
+    @Nullable
+    public static Long decodeVersion(byte[] value) {
+        final long version = ByteBuffer.wrap(value).getLong(VERSION_OFFSET);
+        return version == NO_VERSION ? null : version;
+    }
+
+    private static int flags(Game game) {
+        int flags = game.isBonusMove() ? BONUS_MOVE : 0;
+        flags |= game.isGameOver() ? GAME_OVER : 0;
+        flags |= player(game.getLastPlayedBy()) << LAST_PLAYED_BY_SHIFT;
+        flags |= player(game.getNextToPlay()) << NEXT_TO_PLAY_SHIFT;
+        flags |= (game.getPlayerWon() & PLAYER_MASK) << PLAYER_WON_SHIFT;
+        return flags;
+    }
+
+    private static int player(Integer player) {
+        return player == null ? 0 : player & PLAYER_MASK;
+    }
+
+    private static Integer player(int bits) {
+        final int player = bits & PLAYER_MASK;
+        return player == 0 ? null : player;
+    }
+
+    private static int maxSeeds(int[] pits) {
+        int max = 0;
+        for (int seeds : pits) {
+            max = Math.max(max, seeds);
+        }
+        return max;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private static String playerId(ByteBuffer buffer) {
+        final String playerId = string(buffer);
+        return playerId.isEmpty() ? null : playerId;
+    }
+}
@@ -0,0 +1,201 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.model.Game;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deadline of every stored game, kept in the {@code GameExpiry} sorted set scored by epoch millis.
+ * A save moves the deadline of the game to the idle time to live from now, or the finished one once the game is over.
+ * <p>
+ * Saves only note the new deadline in memory, {@link #flush()} sends the deadlines noted since the last flush
+ * in a single ZADD, so expiry adds no round trip to a move. Games stored before expiry was turned on, and games
+ * whose deadline was still in the memory of a node that went down, are given one by {@link #backfill(List)}.
+ */
+public class GameExpiry {
+
+    static final String KEY = "GameExpiry";
+    private static final byte[] KEY_BYTES = bytes(KEY);
+    private static final int MAX_FLUSH_SIZE = 1000;
+
+    /**
+     * KEYS[1] expiry set, ARGV[1] epoch millis, ARGV[2..] game ids.
+     * Removes the games still due at that time and returns their ids, a game saved again in between is left alone.
+     */
+    private static final LuaScript REMOVE_EXPIRED_SCRIPT = new LuaScript("local removed = {}\n" +
+            "local now = tonumber(ARGV[1])\n" +
+            "for i = 2, #ARGV do\n" +
+            "  local deadline = redis.call('ZSCORE', KEYS[1], ARGV[i])\n" +
+            "  if deadline and tonumber(deadline) <= now then\n" +
+            "    redis.call('ZREM', KEYS[1], ARGV[i])\n" +
+            "    removed[#removed + 1] = ARGV[i]\n" +
+            "  end\n" +
+            "end\n" +
+            "return removed");
+
+    /**
+     * KEYS[1] expiry set, ARGV[1] deadline, ARGV[2..] game ids. Adds the deadline to the games that have none.
+     */
+    private static final LuaScript BACKFILL_SCRIPT = new LuaScript("local added = 0\n" +
+            "for i = 2, #ARGV do\n" +
+            "  if not redis.call('ZSCORE', KEYS[1], ARGV[i]) then\n" +
+            "    redis.call('ZADD', KEYS[1], ARGV[1], ARGV[i])\n" +
+            "    added = added + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return added");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long idleTtlMillis;
+    private final long finishedTtlMillis;
+    private final Clock clock;
+    private final Map<String, Long> pendingDeadlines = new ConcurrentHashMap<>();
+
+    public GameExpiry(RedisTemplate<String, Object> redisTemplate, Duration idleTtl, Duration finishedTtl, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.finishedTtlMillis = finishedTtl.toMillis();
+        this.clock = clock;
+    }
+
+    public long now() {
+        return clock.millis();
+    }
+
+    /**
+     * Notes the new deadline of a saved game, sent on the next {@link #flush()}.
+     */
+    public void touch(Game game) {
+        pendingDeadlines.put(game.getId(), now() + (game.isGameOver() ? finishedTtlMillis : idleTtlMillis));
+    }
+
+    /**
+     * Drops the deadline of a deleted game.
+     */
+    public void forget(String id) {
+        forget(Collections.singletonList(id));
+    }
+
+    /**
+     * Drops the deadlines of deleted games, in a single ZREM.
+     */
+    public void forget(Iterable<? extends String> ids) {
+        List<byte[]> members = new ArrayList<>();
+        for (String id : ids) {
+            pendingDeadlines.remove(id);
+            members.add(bytes(id));
+        }
+        if (!members.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.zSetCommands().zRem(KEY_BYTES, members.toArray(new byte[0][])));
+        }
+    }
+
+    /**
+     * Sends the deadlines noted since the last flush.
+     *
+     * @return the number of deadlines sent
+     */
+    public int flush() {
+        int flushed = 0;
+        Set<Tuple> deadlines = new HashSet<>();
+        Iterator<Map.Entry<String, Long>> pending = pendingDeadlines.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, Long> deadline = pending.next();
+            // a deadline noted again meanwhile stays pending for the next flush
+            if (pendingDeadlines.remove(deadline.getKey(), deadline.getValue())) {
+                deadlines.add(new DefaultTuple(bytes(deadline.getKey()), deadline.getValue().doubleValue()));
+            }
+            if (deadlines.size() == MAX_FLUSH_SIZE || !pending.hasNext()) {
+                flushed += add(deadlines);
+                deadlines = new HashSet<>();
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * @return up to {@code limit} ids of the games due at the given time, earliest deadline first
+     */
+    public List<String> findExpired(long now, int limit) {
+        Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByScore(KEY_BYTES, 0, now, 0, limit));
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        List<String> ids = new ArrayList<>(members.size());
+        members.forEach(member -> ids.add(new String(member, StandardCharsets.UTF_8)));
+        return ids;
+    }
+
+    /**
+     * Takes the given games off the expiry set when they are still due at the given time.
+     *
+     * @return the ids of the games taken off, the ones to evict
+     */
+    public List<String> removeExpired(List<String> ids, long now) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final byte[][] keysAndArgs = new byte[ids.size() + 2][];
+        keysAndArgs[0] = KEY_BYTES;
+        keysAndArgs[1] = bytes(Long.toString(now));
+        for (int i = 0; i < ids.size(); i++) {
+            keysAndArgs[i + 2] = bytes(ids.get(i));
+        }
+        List<byte[]> removed = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                REMOVE_EXPIRED_SCRIPT.eval(connection, ReturnType.MULTI, 1, keysAndArgs));
+        if (removed == null) {
+            return Collections.emptyList();
+        }
+        List<String> removedIds = new ArrayList<>(removed.size());
+        removed.forEach(id -> removedIds.add(new String(id, StandardCharsets.UTF_8)));
+        return removedIds;
+    }
+
+    /**
+     * Gives the games of the list that have no deadline the idle time to live from now, whether or not they are over.
+     *
+     * @return the number of deadlines added
+     */
+    public long backfill(List<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        final byte[][] keysAndArgs = new byte[ids.size() + 2][];
+        keysAndArgs[0] = KEY_BYTES;
+        keysAndArgs[1] = bytes(Long.toString(now() + idleTtlMillis));
+        for (int i = 0; i < ids.size(); i++) {
+            keysAndArgs[i + 2] = bytes(ids.get(i));
+        }
+        Long added = redisTemplate.execute((RedisCallback<Long>) connection ->
+                BACKFILL_SCRIPT.eval(connection, ReturnType.INTEGER, 1, keysAndArgs));
+        return added == null ? 0 : added;
+    }
+
+    private int add(Set<Tuple> deadlines) {
+        if (!deadlines.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zAdd(KEY_BYTES, deadlines));
+        }
+        return deadlines.size();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.model.Game;
+
+import java.util.Optional;
+
+/**
+ * Past states of games, kept by stores logging every move.
+ */
+public interface GameHistoryRepository {
+
+    /**
+     * @return the game as it was after its first {@code moves} moves, empty when the game has no such move
+     */
+    Optional<Game> findByIdAfterMoves(String id, int moves);
+
+    /**
+     * @return the number of moves logged for the game, 0 when it does not exist
+     */
+    long countMoves(String id);
+}
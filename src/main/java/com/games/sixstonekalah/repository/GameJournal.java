@@ -0,0 +1,162 @@
+package com.games.sixstonekalah.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the writes of {@link EmbeddedGameRepository}, in a memory-mapped file.
+ * <pre>
+ * int     magic, int region size    once, at the start of the file
+ * int     length of type and payload, 0 after the last record
+ * int     crc32 of type and payload
+ * byte    type: {@link #PUT} a {@link GameCodec} game, {@link #DELETE} the utf-8 id, {@link #CLEAR} no payload
+ * n       payload
+ * </pre>
+ * The file is mapped one region at a time. A record never spans two regions, when it does not fit in the rest of
+ * the current region it starts the next one. The length of a record is written last, a record cut short by a crash
+ * reads as the end of the journal.
+ * <p>
+ * Appended records are in the page cache, they survive the process but only survive the machine once {@link #force()}d.
+ */
+final class GameJournal implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte CLEAR = 3;
+
+    private static final int MAGIC = 0x4B4A524E;
+    private static final int FILE_HEADER = Integer.BYTES * 2;
+    private static final int RECORD_HEADER = Integer.BYTES * 2 + 1;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean empty = true;
+
+    /**
+     * Starts a new journal, replacing any file already there.
+     */
+    GameJournal(Path file, int regionSize) throws IOException {
+        if (regionSize < FILE_HEADER + RECORD_HEADER) {
+            throw new IllegalArgumentException("Journal region size too small: " + regionSize);
+        }
+        this.regionSize = regionSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+        region.putInt(MAGIC).putInt(regionSize);
+    }
+
+    synchronized void append(byte type, byte[] payload) {
+        final int size = RECORD_HEADER + payload.length;
+        if (size > regionSize - FILE_HEADER) {
+            throw new IllegalArgumentException("Journal record of " + size + " bytes larger than a region");
+        }
+        if (region.remaining() < size) {
+            nextRegion();
+        }
+        crc.reset();
+        crc.update(type);
+        crc.update(payload);
+        final int start = region.position();
+        region.position(start + Integer.BYTES);
+        region.putInt((int) crc.getValue()).put(type).put(payload);
+        region.putInt(start, 1 + payload.length);
+        empty = false;
+    }
+
+    /**
+     * @return true while nothing was appended
+     */
+    synchronized boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Writes the appended records through to the disk.
+     */
+    synchronized void force() {
+        region.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        region.force();
+        channel.close();
+    }
+
+    private void nextRegion() {
+        region.force();
+        regionStart += regionSize;
+        try {
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hands every complete record of the journal file to the reader, in the order they were appended.
+     *
+     * @return false when the journal ends with a torn or corrupt record, which is skipped along with the rest
+     */
+    static boolean replay(Path file, Reader reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < FILE_HEADER) {
+                return size == 0;
+            }
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER);
+            if (region.getInt() != MAGIC) {
+                throw new IOException("Not a game journal: " + file);
+            }
+            final int regionSize = region.getInt();
+            final CRC32 crc = new CRC32();
+            for (long start = 0; start < size; start += regionSize) {
+                region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+                if (start == 0) {
+                    region.position(FILE_HEADER);
+                }
+                boolean read = false;
+                while (region.remaining() >= RECORD_HEADER) {
+                    final int length = region.getInt();
+                    if (length == 0) {
+                        break;
+                    }
+                    if (length < 1 || length > region.remaining() - Integer.BYTES) {
+                        return false;
+                    }
+                    final int checksum = region.getInt();
+                    final byte type = region.get();
+                    final byte[] payload = new byte[length - 1];
+                    region.get(payload);
+                    crc.reset();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        return false;
+                    }
+                    reader.read(type, payload);
+                    read = true;
+                }
+                if (!read) {
+                    return true;
+                }
+            }
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    interface Reader {
+        void read(byte type, byte[] payload);
+    }
+}
@@ -4,6 +4,17 @@ import com.games.sixstonekalah.model.Game;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
-public interface GameRepository extends CrudRepository<Game, String> {
+public interface GameRepository extends CrudRepository<Game, String>, GameRepositoryCustom {
+
+    /**
+     * Declared by both parents, the Redis repository uses the one of {@link GameRepositoryCustom}.
+     */
+    @Override
+    Optional<Game> findById(String id);
+
+    @Override
+    Iterable<Game> findAllById(Iterable<String> ids);
 }
@@ -0,0 +1,75 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface GameRepositoryCustom {
+
+    /**
+     * Id for a game about to be created, stores spreading games over several nodes tell in it where the game lives.
+     */
+    default String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Also reads games saved before the board became an {@code int[]}, their hash keeps it in
+     * {@code pitsSeedsMap.[pit id]} fields. The next save of such a game writes the current layout.
+     */
+    Optional<Game> findById(String id);
+
+    /**
+     * Same as {@link #findById(String)} for each id, games not found are left out.
+     */
+    Iterable<Game> findAllById(Iterable<String> ids);
+
+    /**
+     * Drops the copy of the game kept in memory when other nodes may have changed the game since, so the next read
+     * goes to Redis.
+     *
+     * @return true when a copy was dropped
+     */
+    default boolean evictIfStale(String id) {
+        return false;
+    }
+
+    /**
+     * Saves the game only if the stored version is still {@code expectedVersion}, compare-and-set style.
+     *
+     * @throws GameConflictException when the game was changed since it was read
+     */
+    void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException;
+
+    /**
+     * Same as {@link #saveIfUnchanged(Game, Long)} for a game changed by the given moves since it was read.
+     * Stores keeping the whole game ignore the moves, a move log only appends them.
+     */
+    default void saveIfUnchanged(Game game, @Nullable Long expectedVersion, List<Integer> pitIds) throws GameConflictException {
+        saveIfUnchanged(game, expectedVersion);
+    }
+
+    /**
+     * Deletes the game only if the stored version is still {@code version}, so a game saved again since it was read
+     * is kept.
+     *
+     * @return true when the game was deleted or was not stored any more
+     */
+    boolean deleteIfUnchanged(String id, @Nullable Long version);
+
+    /**
+     * Hands the ids of every stored game to {@code batches}, at most {@code batchSize} at a time and without keeping
+     * them all in memory. An id may come more than once.
+     */
+    void scanIds(int batchSize, Consumer<List<String>> batches);
+
+    /**
+     * Saves games created together, none of them stored yet, pipelined in a single round trip.
+     */
+    void createAll(List<Game> games);
+}
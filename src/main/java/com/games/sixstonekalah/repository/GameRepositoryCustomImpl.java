@@ -0,0 +1,206 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Compare-and-set save of a {@link Game}, done atomically on the Redis side with a Lua script.
+ * The entity is written with the same hash layout the repository uses.
+ * Reads map the board fields of games saved before the board became an {@code int[]} to the current ones.
+ */
+public class GameRepositoryCustomImpl implements GameRepositoryCustom {
+
+    private static final String KEYSPACE = "Game";
+    private static final String VERSION_FIELD = "version";
+    private static final String LEGACY_BOARD_PREFIX = "pitsSeedsMap.[";
+    private static final String BOARD_PREFIX = "pits.[";
+    private static final byte[] ID_FIELD = toBytes("id");
+    private static final byte[] URI_FIELD = toBytes("uri");
+
+    /**
+     * KEYS[1] game hash, KEYS[2] keyspace set
+     * ARGV[1] id, ARGV[2] expected version ('' when the game has none yet), ARGV[3..] hash field/value pairs
+     */
+    private static final LuaScript COMPARE_AND_SET_SCRIPT = new LuaScript("local current = redis.call('HGET', KEYS[1], '" + VERSION_FIELD + "')\n" +
+            "if (current or '') ~= ARGV[2] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "redis.call('HMSET', KEYS[1], unpack(ARGV, 3))\n" +
+            "redis.call('SADD', KEYS[2], ARGV[1])\n" +
+            "return 1");
+    private static final LuaScript DELETE_IF_UNCHANGED_SCRIPT = new LuaScript("local current = redis.call('HGET', KEYS[1], '" + VERSION_FIELD + "')\n" +
+            "if (current or ARGV[2]) ~= ARGV[2] then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "redis.call('SREM', KEYS[2], ARGV[1])\n" +
+            "return 1");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisConverter redisConverter;
+
+    public GameRepositoryCustomImpl(RedisTemplate<String, Object> redisTemplate,
+                                    @Qualifier("redisConverter") RedisConverter redisConverter) {
+        this.redisTemplate = redisTemplate;
+        this.redisConverter = redisConverter;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        Map<byte[], byte[]> fields = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(toBytes(KEYSPACE + ":" + id)));
+        if (fields == null || fields.isEmpty()) {
+            return Optional.empty();
+        }
+        RedisData redisData = new RedisData(Bucket.newBucketFromRawMap(withBoardFields(fields)));
+        redisData.setId(id);
+        redisData.setKeyspace(KEYSPACE);
+        return Optional.ofNullable(redisConverter.read(Game.class, redisData));
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        List<Game> games = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(games::add);
+        }
+        return games;
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        RedisData redisData = new RedisData();
+        redisConverter.write(game, redisData);
+        Map<byte[], byte[]> fields = redisData.getBucket().rawMap();
+
+        byte[][] keysAndArgs = new byte[4 + fields.size() * 2][];
+        keysAndArgs[0] = toBytes(redisData.getKeyspace() + ":" + redisData.getId());
+        keysAndArgs[1] = toBytes(redisData.getKeyspace());
+        keysAndArgs[2] = toBytes(redisData.getId());
+        keysAndArgs[3] = toBytes(expectedVersion == null ? "" : expectedVersion.toString());
+        int index = 4;
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            keysAndArgs[index++] = field.getKey();
+            keysAndArgs[index++] = field.getValue();
+        }
+
+        Long saved = redisTemplate.execute((RedisCallback<Long>) connection ->
+                COMPARE_AND_SET_SCRIPT.eval(connection, ReturnType.INTEGER, 2, keysAndArgs));
+        if (saved == null || saved == 0) {
+            throw new GameConflictException("Game was changed by another move");
+        }
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                DELETE_IF_UNCHANGED_SCRIPT.eval(connection, ReturnType.INTEGER, 2, toBytes(KEYSPACE + ":" + id),
+                        toBytes(KEYSPACE), toBytes(id), toBytes(version == null ? "" : version.toString())));
+        return deleted != null && deleted == 1;
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        KeyspaceScan.scan(redisTemplate, KEYSPACE, batchSize, batches);
+    }
+
+    /**
+     * Same hash layout as a save, the hashes are written without the delete a save starts with.
+     * The converter is slow, games only differing from the first one by id and uri reuse its fields.
+     */
+    @Override
+    public void createAll(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        final Game template = games.get(0);
+        final RedisData templateData = new RedisData();
+        redisConverter.write(template, templateData);
+        final Map<byte[], byte[]> templateFields = templateData.getBucket().rawMap();
+        final String keyspace = templateData.getKeyspace();
+
+        final byte[][] ids = new byte[games.size()][];
+        redisTemplate.executePipelined((RedisCallback<Void>) connection -> {
+            for (int i = 0; i < games.size(); i++) {
+                Game game = games.get(i);
+                Map<byte[], byte[]> fields;
+                if (differsOnlyByIdAndUri(game, template)) {
+                    fields = new HashMap<>(templateFields.size() * 2);
+                    for (Map.Entry<byte[], byte[]> field : templateFields.entrySet()) {
+                        // the raw map is keyed by array identity, the fields are matched by content
+                        byte[] value = Arrays.equals(field.getKey(), ID_FIELD) ? toBytes(game.getId())
+                                : Arrays.equals(field.getKey(), URI_FIELD) ? toBytes(game.getUri()) : field.getValue();
+                        fields.put(field.getKey(), value);
+                    }
+                } else {
+                    RedisData redisData = new RedisData();
+                    redisConverter.write(game, redisData);
+                    fields = redisData.getBucket().rawMap();
+                }
+                connection.hashCommands().hMSet(toBytes(keyspace + ":" + game.getId()), fields);
+                ids[i] = toBytes(game.getId());
+            }
+            connection.setCommands().sAdd(toBytes(keyspace), ids);
+            return null;
+        });
+    }
+
+    /**
+     * Renames the {@code pitsSeedsMap.[pit id]} fields of a game saved before the board became an {@code int[]}
+     * to the {@code pits.[index]} fields of the current layout.
+     */
+    static Map<byte[], byte[]> withBoardFields(Map<byte[], byte[]> fields) {
+        Map<byte[], byte[]> renamed = null;
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            String name = new String(field.getKey(), StandardCharsets.UTF_8);
+            if (name.startsWith(LEGACY_BOARD_PREFIX) && name.endsWith("]")) {
+                if (renamed == null) {
+                    renamed = new HashMap<>(fields);
+                }
+                renamed.remove(field.getKey());
+                int pitId = Integer.parseInt(name.substring(LEGACY_BOARD_PREFIX.length(), name.length() - 1));
+                renamed.put(toBytes(BOARD_PREFIX + (pitId - 1) + "]"), field.getValue());
+            }
+        }
+        return renamed == null ? fields : renamed;
+    }
+
+    /**
+     * Field by field over what the hash keeps, the variant as stored so a standard board is not taken for an unset one.
+     */
+    private static boolean differsOnlyByIdAndUri(Game game, Game template) {
+        return game.getUri() != null && template.getUri() != null
+                && Objects.equals(game.getVersion(), template.getVersion())
+                && Objects.equals(game.getNextToPlay(), template.getNextToPlay())
+                && Arrays.equals(game.getPits(), template.getPits())
+                && Objects.equals(game.getPitsPerSide(), template.getPitsPerSide())
+                && Objects.equals(game.getSeedsPerPit(), template.getSeedsPerPit())
+                && game.getCaptureRule() == template.getCaptureRule()
+                && game.getSeedCollection() == template.getSeedCollection()
+                && Objects.equals(game.getLastPlayedBy(), template.getLastPlayedBy())
+                && game.isBonusMove() == template.isBonusMove()
+                && game.getPlayerWon() == template.getPlayerWon()
+                && game.isGameOver() == template.isGameOver()
+                && Objects.equals(game.getPlayer1Id(), template.getPlayer1Id())
+                && Objects.equals(game.getPlayer2Id(), template.getPlayer2Id());
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.games.sixstonekalah.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisKeyValueAdapter;
+import org.springframework.data.redis.core.RedisKeyValueTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.data.redis.repository.support.RedisRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connections to the Redis nodes the games are sharded over, one per node in the order of {@code games.shards}.
+ * The order gives the shard numbers embedded in the game ids, nodes can be appended but never reordered.
+ */
+public class GameShards implements DisposableBean {
+
+    private final List<JedisConnectionFactory> connectionFactories = new ArrayList<>();
+    private final List<RedisKeyValueAdapter> keyValueAdapters = new ArrayList<>();
+    private final List<RedisTemplate<String, Object>> templates = new ArrayList<>();
+    private final List<GameRepository> hashRepositories = new ArrayList<>();
+
+    /**
+     * @param nodes {@code host:port} of every node
+     */
+    public GameShards(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        final RedisMappingContext mappingContext = new RedisMappingContext();
+        for (String node : nodes) {
+            final int colon = node.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Shard " + node + " is not host:port");
+            }
+            JedisConnectionFactory connectionFactory = new JedisConnectionFactory(
+                    new RedisStandaloneConfiguration(node.substring(0, colon).trim(), Integer.parseInt(node.substring(colon + 1).trim())));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            connectionFactories.add(connectionFactory);
+
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.afterPropertiesSet();
+            templates.add(template);
+
+            RedisKeyValueAdapter keyValueAdapter = new RedisKeyValueAdapter(template, mappingContext);
+            keyValueAdapter.afterPropertiesSet();
+            keyValueAdapters.add(keyValueAdapter);
+            hashRepositories.add(new RedisRepositoryFactory(new RedisKeyValueTemplate(keyValueAdapter, mappingContext))
+                    .getRepository(GameRepository.class,
+                            RepositoryFragments.just(new GameRepositoryCustomImpl(template, keyValueAdapter.getConverter()))));
+        }
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public RedisTemplate<String, Object> template(int shard) {
+        return templates.get(shard);
+    }
+
+    /**
+     * Hash layout of the node, the same repository Spring Data builds for the primary Redis.
+     */
+    public GameRepository hashRepository(int shard) {
+        return hashRepositories.get(shard);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (RedisKeyValueAdapter keyValueAdapter : keyValueAdapters) {
+            keyValueAdapter.destroy();
+        }
+        for (JedisConnectionFactory connectionFactory : connectionFactories) {
+            connectionFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.games.sixstonekalah.repository;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * SSCAN over the set of game ids a store keeps per keyspace, so the ids are never all in memory at once.
+ */
+final class KeyspaceScan {
+
+    private KeyspaceScan() {
+    }
+
+    /**
+     * Hands the ids to {@code batches} at most {@code batchSize} at a time, an id may come more than once.
+     */
+    static void scan(RedisTemplate<String, Object> redisTemplate, String keyspace, int batchSize, Consumer<List<String>> batches) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            try (Cursor<byte[]> cursor = connection.setCommands().sScan(keyspace.getBytes(StandardCharsets.UTF_8),
+                    ScanOptions.scanOptions().count(batchSize).build())) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (cursor.hasNext()) {
+                    batch.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                    if (batch.size() == batchSize) {
+                        batches.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    batches.accept(batch);
+                }
+            }
+            return null;
+        });
+    }
+}
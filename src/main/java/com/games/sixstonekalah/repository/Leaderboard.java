@@ -0,0 +1,48 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.model.PlayerStatsDto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rating and results of every player, updated as each of their games finishes instead of recomputed from the games.
+ */
+public interface Leaderboard {
+
+    Leaderboard NONE = new Leaderboard() {
+        @Override
+        public boolean gameOver(Game game) {
+            return false;
+        }
+
+        @Override
+        public List<PlayerStatsDto> top(int count) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Optional<PlayerStatsDto> findPlayer(String playerId) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Counts the result of a game that just finished for both its players, once per game.
+     *
+     * @return false when the game is not ranked, it has no two different players, or was already counted
+     */
+    boolean gameOver(Game game);
+
+    /**
+     * @return up to {@code count} players, highest rated first
+     */
+    List<PlayerStatsDto> top(int count);
+
+    /**
+     * @return the player with its rank, empty when none of its games finished yet
+     */
+    Optional<PlayerStatsDto> findPlayer(String playerId);
+}
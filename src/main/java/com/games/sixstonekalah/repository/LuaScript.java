@@ -0,0 +1,50 @@
+package com.games.sixstonekalah.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lua script run with EVALSHA, so only its sha1 goes over the wire once Redis has cached it.
+ * Falls back to EVAL when Redis does not know the script yet, e.g. after a restart or SCRIPT FLUSH.
+ */
+final class LuaScript {
+
+    private final byte[] script;
+    private final String sha1;
+
+    LuaScript(String script) {
+        this.script = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = DigestUtils.sha1DigestAsHex(script);
+    }
+
+    /**
+     * @return the script source, for clients that send it themselves
+     */
+    byte[] getScript() {
+        return script.clone();
+    }
+
+    <T> T eval(RedisConnection connection, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return connection.scriptingCommands().evalSha(sha1, returnType, numKeys, keysAndArgs);
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            return connection.scriptingCommands().eval(script, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,256 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Stores every game as a single {@link GameCodec} value instead of a Redis hash.
+ * <p>
+ * Games still stored in the hash layout are read through the hash repository, and moved over to the
+ * packed layout the first time they are saved again.
+ */
+public class PackedGameRepository implements GameRepository {
+
+    static final String KEYSPACE = "PackedGame";
+    static final String HASH_KEYSPACE = "Game";
+    private static final byte[] NO_VERSION = new byte[0];
+
+    /**
+     * KEYS[1] packed game, KEYS[2] packed keyspace set, KEYS[3] hash layout game, KEYS[4] hash keyspace set
+     * ARGV[1] packed game, ARGV[2] id, ARGV[3] '1' to compare versions,
+     * ARGV[4] expected packed version, ARGV[5] expected hash version ('' when none)
+     */
+    static final LuaScript SAVE_SCRIPT = new LuaScript("local current = redis.call('GET', KEYS[1])\n" +
+            "if ARGV[3] == '1' then\n" +
+            "  if current then\n" +
+            "    if string.sub(current, " + (GameCodec.VERSION_OFFSET + 1) + ", "
+            + (GameCodec.VERSION_OFFSET + GameCodec.VERSION_LENGTH) + ") ~= ARGV[4] then return 0 end\n" +
+            "  elseif (redis.call('HGET', KEYS[3], 'version') or '') ~= ARGV[5] then\n" +
+            "    return 0\n" +
+            "  end\n" +
+            "end\n" +
+            "if not current then\n" +
+            "  redis.call('DEL', KEYS[3])\n" +
+            "  redis.call('SREM', KEYS[4], ARGV[2])\n" +
+            "end\n" +
+            "redis.call('SET', KEYS[1], ARGV[1])\n" +
+            "redis.call('SADD', KEYS[2], ARGV[2])\n" +
+            "return 1");
+    static final int SAVE_SCRIPT_KEYS = 4;
+    /**
+     * Same keys as {@link #SAVE_SCRIPT}, ARGV[1] id, ARGV[2] packed version, ARGV[3] hash version ('' when none)
+     */
+    private static final LuaScript DELETE_IF_UNCHANGED_SCRIPT = new LuaScript("local current = redis.call('GET', KEYS[1])\n" +
+            "if current then\n" +
+            "  if string.sub(current, " + (GameCodec.VERSION_OFFSET + 1) + ", "
+            + (GameCodec.VERSION_OFFSET + GameCodec.VERSION_LENGTH) + ") ~= ARGV[2] then return 0 end\n" +
+            "  redis.call('DEL', KEYS[1])\n" +
+            "  redis.call('SREM', KEYS[2], ARGV[1])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "local hashVersion = redis.call('HGET', KEYS[3], 'version')\n" +
+            "if (hashVersion or ARGV[3]) ~= ARGV[3] then return 0 end\n" +
+            "redis.call('DEL', KEYS[3])\n" +
+            "redis.call('SREM', KEYS[4], ARGV[1])\n" +
+            "return 1");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final GameRepository hashGameRepository;
+
+    public PackedGameRepository(RedisTemplate<String, Object> redisTemplate, GameRepository hashGameRepository) {
+        this.redisTemplate = redisTemplate;
+        this.hashGameRepository = hashGameRepository;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key(id)));
+        return value == null ? hashGameRepository.findById(id) : Optional.of(GameCodec.decode(value));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        Boolean exists = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.keyCommands().exists(key(id)));
+        return Boolean.TRUE.equals(exists) || hashGameRepository.existsById(id);
+    }
+
+    @Override
+    public <S extends Game> S save(S entity) {
+        write(entity, false, null);
+        return entity;
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        if (!write(game, true, expectedVersion)) {
+            throw new GameConflictException("Game was changed by another move");
+        }
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    /**
+     * One MSET of the packed games and one SADD of their ids, pipelined.
+     */
+    @Override
+    public void createAll(List<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        final Map<byte[], byte[]> values = new HashMap<>(games.size() * 2);
+        final byte[][] ids = new byte[games.size()][];
+        for (int i = 0; i < games.size(); i++) {
+            Game game = games.get(i);
+            values.put(key(game.getId()), GameCodec.encode(game));
+            ids[i] = bytes(game.getId());
+        }
+        redisTemplate.executePipelined((RedisCallback<Void>) connection -> {
+            connection.stringCommands().mSet(values);
+            connection.setCommands().sAdd(bytes(KEYSPACE), ids);
+            return null;
+        });
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        List<Game> games = new ArrayList<>();
+        for (String id : ids()) {
+            findById(id).ifPresent(games::add);
+        }
+        hashGameRepository.findAll().forEach(games::add);
+        return games;
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        List<Game> games = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(games::add);
+        }
+        return games;
+    }
+
+    @Override
+    public long count() {
+        Long packed = redisTemplate.execute((RedisCallback<Long>) connection -> connection.setCommands().sCard(bytes(KEYSPACE)));
+        return (packed == null ? 0 : packed) + hashGameRepository.count();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.keyCommands().del(key(id));
+            connection.setCommands().sRem(bytes(KEYSPACE), bytes(id));
+            return null;
+        });
+        hashGameRepository.deleteById(id);
+    }
+
+    /**
+     * Compares the version of whichever layout the game is stored in.
+     */
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        final byte[][] keysAndArgs = {
+                key(id),
+                bytes(KEYSPACE),
+                bytes(HASH_KEYSPACE + ":" + id),
+                bytes(HASH_KEYSPACE),
+                bytes(id),
+                version == null ? NO_VERSION : GameCodec.encodeVersion(version),
+                bytes(version == null ? "" : version.toString())
+        };
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                DELETE_IF_UNCHANGED_SCRIPT.eval(connection, ReturnType.INTEGER, SAVE_SCRIPT_KEYS, keysAndArgs));
+        return deleted != null && deleted == 1;
+    }
+
+    /**
+     * Packed games, then the games still in the hash layout.
+     */
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        KeyspaceScan.scan(redisTemplate, KEYSPACE, batchSize, batches);
+        hashGameRepository.scanIds(batchSize, batches);
+    }
+
+    @Override
+    public void delete(Game entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        ids().forEach(this::deleteById);
+        hashGameRepository.deleteAll();
+    }
+
+    private boolean write(Game game, boolean compareVersions, @Nullable Long expectedVersion) {
+        final byte[][] keysAndArgs = saveKeysAndArgs(game, compareVersions, expectedVersion);
+        Long saved = redisTemplate.execute((RedisCallback<Long>) connection ->
+                SAVE_SCRIPT.eval(connection, ReturnType.INTEGER, SAVE_SCRIPT_KEYS, keysAndArgs));
+        return saved != null && saved == 1;
+    }
+
+    /**
+     * Keys and arguments of {@link #SAVE_SCRIPT}.
+     */
+    static byte[][] saveKeysAndArgs(Game game, boolean compareVersions, @Nullable Long expectedVersion) {
+        return new byte[][]{
+                key(game.getId()),
+                bytes(KEYSPACE),
+                bytes(HASH_KEYSPACE + ":" + game.getId()),
+                bytes(HASH_KEYSPACE),
+                GameCodec.encode(game),
+                bytes(game.getId()),
+                bytes(compareVersions ? "1" : "0"),
+                expectedVersion == null ? NO_VERSION : GameCodec.encodeVersion(expectedVersion),
+                bytes(expectedVersion == null ? "" : expectedVersion.toString())
+        };
+    }
+
+    private Set<String> ids() {
+        Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection -> connection.setCommands().sMembers(bytes(KEYSPACE)));
+        Set<String> ids = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> ids.add(new String(member, StandardCharsets.UTF_8)));
+        }
+        return ids;
+    }
+
+    static byte[] key(String id) {
+        return bytes(KEYSPACE + ":" + id);
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
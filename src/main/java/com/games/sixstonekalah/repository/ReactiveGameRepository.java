@@ -0,0 +1,123 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non blocking store of games for the reactive deployment, writing the {@link PackedGameRepository} layout.
+ * Games still stored in the hash layout are read from their hash and moved over on their next save,
+ * the same way as {@link GameRepositoryCustomImpl} for games saved before the board became an {@code int[]}.
+ * Saved games get their {@link GameExpiry} deadline moved when expiry is enabled.
+ */
+public class ReactiveGameRepository {
+
+    private final ReactiveRedisTemplate<?, ?> reactiveRedisTemplate;
+    private final RedisConverter redisConverter;
+    @Nullable
+    private final GameExpiry gameExpiry;
+    private final ByteBuffer saveScript = ByteBuffer.wrap(PackedGameRepository.SAVE_SCRIPT.getScript()).asReadOnlyBuffer();
+
+    public ReactiveGameRepository(ReactiveRedisTemplate<?, ?> reactiveRedisTemplate, RedisConverter redisConverter,
+                                  @Nullable GameExpiry gameExpiry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.redisConverter = redisConverter;
+        this.gameExpiry = gameExpiry;
+    }
+
+    public Mono<Game> findById(String id) {
+        return reactiveRedisTemplate
+                .execute(connection -> connection.stringCommands().get(ByteBuffer.wrap(PackedGameRepository.key(id))))
+                .next()
+                .map(value -> GameCodec.decode(toBytes(value)))
+                .switchIfEmpty(Mono.defer(() -> findHashById(id)));
+    }
+
+    public Mono<Game> save(Game game) {
+        return write(game, false, null).doOnSuccess(saved -> touch(game)).thenReturn(game);
+    }
+
+    /**
+     * Completes with a {@link GameConflictException} when the stored game no longer has the expected version.
+     */
+    public Mono<Void> saveIfUnchanged(Game game, @Nullable Long expectedVersion) {
+        return write(game, true, expectedVersion)
+                .flatMap(saved -> saved
+                        ? Mono.<Void>empty()
+                        : Mono.error(new GameConflictException("Game was changed by another move")))
+                .doOnSuccess(saved -> touch(game));
+    }
+
+    /**
+     * Same as {@link PackedGameRepository#createAll(List)}, both commands are sent without waiting for the first reply.
+     */
+    public Mono<Void> createAll(List<Game> games) {
+        if (games.isEmpty()) {
+            return Mono.empty();
+        }
+        final Map<ByteBuffer, ByteBuffer> values = new HashMap<>(games.size() * 2);
+        final List<ByteBuffer> ids = new ArrayList<>(games.size());
+        for (Game game : games) {
+            values.put(ByteBuffer.wrap(PackedGameRepository.key(game.getId())), ByteBuffer.wrap(GameCodec.encode(game)));
+            ids.add(ByteBuffer.wrap(PackedGameRepository.bytes(game.getId())));
+        }
+        final ByteBuffer keyspace = ByteBuffer.wrap(PackedGameRepository.bytes(PackedGameRepository.KEYSPACE));
+        return reactiveRedisTemplate
+                .execute(connection -> Mono.when(connection.stringCommands().mSet(values),
+                        connection.setCommands().sAdd(keyspace, ids)))
+                .then(Mono.fromRunnable(() -> games.forEach(this::touch)));
+    }
+
+    private void touch(Game game) {
+        if (gameExpiry != null) {
+            gameExpiry.touch(game);
+        }
+    }
+
+    private Mono<Boolean> write(Game game, boolean compareVersions, @Nullable Long expectedVersion) {
+        final byte[][] keysAndArgs = PackedGameRepository.saveKeysAndArgs(game, compareVersions, expectedVersion);
+        final ByteBuffer[] buffers = new ByteBuffer[keysAndArgs.length];
+        for (int i = 0; i < keysAndArgs.length; i++) {
+            buffers[i] = ByteBuffer.wrap(keysAndArgs[i]);
+        }
+        return reactiveRedisTemplate
+                .execute(connection -> connection.scriptingCommands().<Long>eval(saveScript.duplicate(),
+                        ReturnType.INTEGER, PackedGameRepository.SAVE_SCRIPT_KEYS, buffers))
+                .next()
+                .map(saved -> saved == 1);
+    }
+
+    private Mono<Game> findHashById(String id) {
+        final ByteBuffer key = ByteBuffer.wrap(PackedGameRepository.bytes(PackedGameRepository.HASH_KEYSPACE + ":" + id));
+        return reactiveRedisTemplate
+                .execute(connection -> connection.hashCommands().hGetAll(key))
+                .collect(HashMap<byte[], byte[]>::new, (fields, field) -> fields.put(toBytes(field.getKey()), toBytes(field.getValue())))
+                .filter(fields -> !fields.isEmpty())
+                .map(fields -> readHash(id, fields));
+    }
+
+    private Game readHash(String id, Map<byte[], byte[]> fields) {
+        RedisData redisData = new RedisData(Bucket.newBucketFromRawMap(GameRepositoryCustomImpl.withBoardFields(fields)));
+        redisData.setId(id);
+        redisData.setKeyspace(PackedGameRepository.HASH_KEYSPACE);
+        return redisConverter.read(Game.class, redisData);
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
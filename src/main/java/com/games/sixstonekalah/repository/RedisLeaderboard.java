@@ -0,0 +1,186 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.model.PlayerStatsDto;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+
+/**
+ * Elo ratings in the {@code Leaderboard} sorted set, so the top players and the rank of one are read in O(log n),
+ * next to a {@code Player:<id>} hash of wins, losses, draws and the summed store margin of each player.
+ * A draw scores half a win in the rating update.
+ * <p>
+ * A finished game updates both players in one script, guarded by a {@code LeaderboardGame:<game id>} key so a game
+ * is never counted twice. All of it lives on the primary Redis, games sharded over other nodes included.
+ */
+public class RedisLeaderboard implements Leaderboard {
+
+    static final String RATINGS_KEY = "Leaderboard";
+    static final String PLAYER_PREFIX = "Player:";
+    static final String COUNTED_PREFIX = "LeaderboardGame:";
+    private static final byte[] RATINGS_KEY_BYTES = bytes(RATINGS_KEY);
+    /**
+     * Only has to outlive the retries of the move that finished the game.
+     */
+    private static final Duration COUNTED_TTL = Duration.ofDays(1);
+    private static final int STATS_FIELDS = 6;
+
+    /**
+     * KEYS[1] counted marker, KEYS[2] ratings, KEYS[3] player 1 stats, KEYS[4] player 2 stats,
+     * ARGV[1] player 1 id, ARGV[2] player 2 id, ARGV[3] sign of the margin: '1' player 1 won, '-1' player 2 won,
+     * '0' a draw, ARGV[4] player 1 store minus player 2 store,
+     * ARGV[5] K factor, ARGV[6] initial rating, ARGV[7] marker time to live in seconds.
+     */
+    private static final LuaScript GAME_OVER_SCRIPT = new LuaScript(
+            "if not redis.call('SET', KEYS[1], '1', 'NX', 'EX', ARGV[7]) then return 0 end\n" +
+            "local rating1 = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1]) or ARGV[6])\n" +
+            "local rating2 = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[2]) or ARGV[6])\n" +
+            "local score1 = (tonumber(ARGV[3]) + 1) / 2\n" +
+            "local expected1 = 1 / (1 + 10 ^ ((rating2 - rating1) / 400))\n" +
+            "local change = tonumber(ARGV[5]) * (score1 - expected1)\n" +
+            "redis.call('ZADD', KEYS[2], rating1 + change, ARGV[1])\n" +
+            "redis.call('ZADD', KEYS[2], rating2 - change, ARGV[2])\n" +
+            "if ARGV[3] == '0' then\n" +
+            "  redis.call('HINCRBY', KEYS[3], 'draws', 1)\n" +
+            "  redis.call('HINCRBY', KEYS[4], 'draws', 1)\n" +
+            "else\n" +
+            "  redis.call('HINCRBY', KEYS[3], ARGV[3] == '1' and 'wins' or 'losses', 1)\n" +
+            "  redis.call('HINCRBY', KEYS[4], ARGV[3] == '1' and 'losses' or 'wins', 1)\n" +
+            "end\n" +
+            "redis.call('HINCRBY', KEYS[3], 'margin', ARGV[4])\n" +
+            "redis.call('HINCRBY', KEYS[4], 'margin', 0 - tonumber(ARGV[4]))\n" +
+            "return 1");
+
+    /**
+     * KEYS[1] ratings, KEYS[2] player stats, ARGV[1] player id.
+     * Returns rank, rating, wins, losses, draws and margin, nothing when the player has no rating.
+     */
+    private static final LuaScript PLAYER_SCRIPT = new LuaScript(
+            "local rating = redis.call('ZSCORE', KEYS[1], ARGV[1])\n" +
+            "if not rating then return {} end\n" +
+            "local stats = redis.call('HMGET', KEYS[2], 'wins', 'losses', 'draws', 'margin')\n" +
+            "return {tostring(redis.call('ZREVRANK', KEYS[1], ARGV[1])), rating, stats[1] or '0', stats[2] or '0', stats[3] or '0'," +
+            " stats[4] or '0'}");
+
+    /**
+     * KEYS[1] ratings, ARGV[1] count, ARGV[2] prefix of the player stats keys.
+     * Returns player id, rating, wins, losses, draws and margin of each player, highest rated first.
+     */
+    private static final LuaScript TOP_SCRIPT = new LuaScript(
+            "local top = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1, 'WITHSCORES')\n" +
+            "local players = {}\n" +
+            "for i = 1, #top, 2 do\n" +
+            "  local stats = redis.call('HMGET', ARGV[2] .. top[i], 'wins', 'losses', 'draws', 'margin')\n" +
+            "  players[#players + 1] = top[i]\n" +
+            "  players[#players + 1] = top[i + 1]\n" +
+            "  players[#players + 1] = stats[1] or '0'\n" +
+            "  players[#players + 1] = stats[2] or '0'\n" +
+            "  players[#players + 1] = stats[3] or '0'\n" +
+            "  players[#players + 1] = stats[4] or '0'\n" +
+            "end\n" +
+            "return players");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final byte[] kFactor;
+    private final byte[] initialRating;
+
+    public RedisLeaderboard(RedisTemplate<String, Object> redisTemplate, int kFactor, int initialRating) {
+        this.redisTemplate = redisTemplate;
+        this.kFactor = bytes(Integer.toString(kFactor));
+        this.initialRating = bytes(Integer.toString(initialRating));
+    }
+
+    @Override
+    public boolean gameOver(Game game) {
+        final String player1Id = game.getPlayer1Id();
+        final String player2Id = game.getPlayer2Id();
+        if (!game.isGameOver() || player1Id == null || player2Id == null || player1Id.equals(player2Id)) {
+            return false;
+        }
+        final BoardVariant variant = game.getVariant();
+        final int margin = variant.getStoreValue(game.getPits(), PLAYER_1) - variant.getStoreValue(game.getPits(), PLAYER_2);
+        Long counted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                GAME_OVER_SCRIPT.eval(connection, ReturnType.INTEGER, 4,
+                        bytes(COUNTED_PREFIX + game.getId()),
+                        RATINGS_KEY_BYTES,
+                        bytes(PLAYER_PREFIX + player1Id),
+                        bytes(PLAYER_PREFIX + player2Id),
+                        bytes(player1Id),
+                        bytes(player2Id),
+                        bytes(Integer.toString(Integer.signum(margin))),
+                        bytes(Integer.toString(margin)),
+                        kFactor,
+                        initialRating,
+                        bytes(Long.toString(COUNTED_TTL.toSeconds()))));
+        return counted != null && counted == 1L;
+    }
+
+    @Override
+    public List<PlayerStatsDto> top(int count) {
+        if (count < 1) {
+            return Collections.emptyList();
+        }
+        List<byte[]> top = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                TOP_SCRIPT.eval(connection, ReturnType.MULTI, 1,
+                        RATINGS_KEY_BYTES, bytes(Integer.toString(count)), bytes(PLAYER_PREFIX)));
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        List<PlayerStatsDto> players = new ArrayList<>(top.size() / STATS_FIELDS);
+        for (int i = 0; i < top.size(); i += STATS_FIELDS) {
+            players.add(playerStats(string(top.get(i)), players.size(), top.subList(i + 1, i + STATS_FIELDS)));
+        }
+        return players;
+    }
+
+    @Override
+    public Optional<PlayerStatsDto> findPlayer(String playerId) {
+        List<byte[]> player = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                PLAYER_SCRIPT.eval(connection, ReturnType.MULTI, 2,
+                        RATINGS_KEY_BYTES, bytes(PLAYER_PREFIX + playerId), bytes(playerId)));
+        if (player == null || player.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(playerStats(playerId, Long.parseLong(string(player.get(0))), player.subList(1, STATS_FIELDS)));
+    }
+
+    /**
+     * @param stats rating, wins, losses, draws and margin as the scripts return them
+     */
+    private static PlayerStatsDto playerStats(String playerId, long zeroBasedRank, List<byte[]> stats) {
+        final long wins = Long.parseLong(string(stats.get(1)));
+        final long losses = Long.parseLong(string(stats.get(2)));
+        final long draws = Long.parseLong(string(stats.get(3)));
+        final long margin = Long.parseLong(string(stats.get(4)));
+        final long games = wins + losses + draws;
+        return PlayerStatsDto.builder()
+                .playerId(playerId)
+                .rank(zeroBasedRank + 1)
+                .rating(Double.parseDouble(string(stats.get(0))))
+                .wins(wins)
+                .losses(losses)
+                .draws(draws)
+                .averageMargin(games == 0 ? 0 : (double) margin / games)
+                .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Spreads the games over the stores of several Redis nodes.
+ * <p>
+ * The shard of a game is part of its id, {@code s<shard>-<uuid>}, picked from the hash of the uuid when the id is made
+ * by {@link #newId()}. A game never moves once created, adding shards later only spreads the new games.
+ * Ids without a shard, games created before sharding was turned on, stay in the store of the primary Redis.
+ */
+public class ShardedGameRepository implements GameRepository {
+
+    static final String SHARD_PREFIX = "s";
+    static final char SHARD_SEPARATOR = '-';
+    private static final int NO_SHARD = -1;
+
+    private final GameRepository primary;
+    private final List<GameRepository> shards;
+
+    public ShardedGameRepository(GameRepository primary, List<GameRepository> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.primary = primary;
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public String newId() {
+        final String uuid = UUID.randomUUID().toString();
+        return SHARD_PREFIX + Math.floorMod(uuid.hashCode(), shards.size()) + SHARD_SEPARATOR + uuid;
+    }
+
+    /**
+     * @return the shard embedded in the id, -1 when there is none
+     */
+    public static int shardOf(String id) {
+        if (!id.startsWith(SHARD_PREFIX)) {
+            return NO_SHARD;
+        }
+        int shard = 0;
+        for (int index = SHARD_PREFIX.length(); index < id.length(); index++) {
+            final char c = id.charAt(index);
+            if (c == SHARD_SEPARATOR) {
+                return index == SHARD_PREFIX.length() ? NO_SHARD : shard;
+            }
+            if (c < '0' || c > '9' || shard > Integer.MAX_VALUE / 10 - 1) {
+                return NO_SHARD;
+            }
+            shard = shard * 10 + (c - '0');
+        }
+        return NO_SHARD;
+    }
+
+    /**
+     * Store holding the game, the primary one for ids without a shard or with a shard this node does not know of.
+     */
+    GameRepository storeOf(String id) {
+        final int shard = shardOf(id);
+        return shard == NO_SHARD || shard >= shards.size() ? primary : shards.get(shard);
+    }
+
+    /**
+     * Past states of the games, read from the store holding each game when it logs the moves.
+     */
+    public GameHistoryRepository history() {
+        return new GameHistoryRepository() {
+            @Override
+            public Optional<Game> findByIdAfterMoves(String id, int moves) {
+                return storeOf(id) instanceof GameHistoryRepository history
+                        ? history.findByIdAfterMoves(id, moves)
+                        : Optional.empty();
+            }
+
+            @Override
+            public long countMoves(String id) {
+                return storeOf(id) instanceof GameHistoryRepository history ? history.countMoves(id) : 0;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        return storeOf(id).findById(id);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return storeOf(id).existsById(id);
+    }
+
+    @Override
+    public <S extends Game> S save(S entity) {
+        return storeOf(entity.getId()).save(entity);
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion) throws GameConflictException {
+        storeOf(game.getId()).saveIfUnchanged(game, expectedVersion);
+    }
+
+    @Override
+    public void saveIfUnchanged(Game game, @Nullable Long expectedVersion, List<Integer> pitIds) throws GameConflictException {
+        storeOf(game.getId()).saveIfUnchanged(game, expectedVersion, pitIds);
+    }
+
+    /**
+     * One pipelined round trip per store holding some of the games.
+     */
+    @Override
+    public void createAll(List<Game> games) {
+        final List<List<Game>> byStore = new ArrayList<>(shards.size() + 1);
+        for (int store = 0; store <= shards.size(); store++) {
+            byStore.add(new ArrayList<>());
+        }
+        for (Game game : games) {
+            final int shard = shardOf(game.getId());
+            byStore.get(shard == NO_SHARD || shard >= shards.size() ? shards.size() : shard).add(game);
+        }
+        for (int store = 0; store <= shards.size(); store++) {
+            if (!byStore.get(store).isEmpty()) {
+                (store == shards.size() ? primary : shards.get(store)).createAll(byStore.get(store));
+            }
+        }
+    }
+
+    @Override
+    public <S extends Game> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Iterable<Game> findAll() {
+        List<Game> games = new ArrayList<>();
+        primary.findAll().forEach(games::add);
+        shards.forEach(shard -> shard.findAll().forEach(games::add));
+        return games;
+    }
+
+    @Override
+    public Iterable<Game> findAllById(Iterable<String> ids) {
+        List<Game> games = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(games::add);
+        }
+        return games;
+    }
+
+    @Override
+    public long count() {
+        long count = primary.count();
+        for (GameRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        storeOf(id).deleteById(id);
+    }
+
+    @Override
+    public boolean deleteIfUnchanged(String id, @Nullable Long version) {
+        return storeOf(id).deleteIfUnchanged(id, version);
+    }
+
+    @Override
+    public void scanIds(int batchSize, Consumer<List<String>> batches) {
+        primary.scanIds(batchSize, batches);
+        shards.forEach(shard -> shard.scanIds(batchSize, batches));
+    }
+
+    @Override
+    public void delete(Game entity) {
+        storeOf(entity.getId()).delete(entity);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Game> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        primary.deleteAll();
+        shards.forEach(GameRepository::deleteAll);
+    }
+}
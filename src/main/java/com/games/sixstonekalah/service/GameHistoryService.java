@@ -0,0 +1,32 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameHistoryRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replays games up to any of their past moves, available when the moves are logged ({@code games.storage=events}).
+ */
+@Service
+public class GameHistoryService {
+
+    private final ObjectProvider<GameHistoryRepository> gameHistoryRepository;
+
+    public GameHistoryService(ObjectProvider<GameHistoryRepository> gameHistoryRepository) {
+        this.gameHistoryRepository = gameHistoryRepository;
+    }
+
+    /**
+     * @param moves number of moves played since the game was created, 0 for the new game
+     */
+    public Game getGameAfterMoves(String gameId, int moves) throws GameNotFoundException {
+        GameHistoryRepository history = gameHistoryRepository.getIfAvailable();
+        if (history == null) {
+            throw new GameNotFoundException("Game history is only kept with games.storage=events");
+        }
+        return history.findByIdAfterMoves(gameId, moves)
+                .orElseThrow(() -> new GameNotFoundException("Game with id doesnt exist or has less moves"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.games.sixstonekalah.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Move suggested to the player whose turn it is, see {@link KalahHintService}.
+ */
+@Getter
+@AllArgsConstructor
+public class Hint {
+    private final int pitId;
+    /**
+     * Final store difference expected for the player, when both sides follow the principal variation.
+     */
+    private final int score;
+    /**
+     * Deepest iteration completed before the deadline, 0 when the move only settles the final score.
+     */
+    private final int depth;
+    /**
+     * Pit ids of the expected line of play, starting with {@link #pitId}.
+     */
+    private final int[] principalVariation;
+    /**
+     * Answered from the positions searched before, without searching.
+     */
+    private final boolean cached;
+}
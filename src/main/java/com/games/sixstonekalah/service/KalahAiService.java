@@ -0,0 +1,107 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.ai.AlphaBetaSearch;
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.PositionCache;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.model.Game;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computer opponent playing Player 2, searches the current position of a game and plays the best move found
+ * within the time budget.
+ */
+@Service
+public class KalahAiService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KalahAiService.class);
+
+    private final KalahGameService kalahGameService;
+    private final ParallelSearch parallelSearch;
+    private final PositionCache positionCache;
+    private final long defaultBudgetMillis;
+    private final long maxBudgetMillis;
+
+    public KalahAiService(KalahGameService kalahGameService,
+                          ParallelSearch parallelSearch,
+                          PositionCache positionCache,
+                          @Value("${games.ai.default-budget-ms:200}") long defaultBudgetMillis,
+                          @Value("${games.ai.max-budget-ms:2000}") long maxBudgetMillis) {
+        this.kalahGameService = kalahGameService;
+        this.parallelSearch = parallelSearch;
+        this.positionCache = positionCache;
+        this.defaultBudgetMillis = defaultBudgetMillis;
+        this.maxBudgetMillis = maxBudgetMillis;
+    }
+
+    /**
+     * Plays the move of Player 2, rejected while Player 1 is to move.
+     */
+    public Game move(String gameId, @Nullable Long budgetMillis) throws InvalidMoveException, GameNotFoundException {
+        Game game = kalahGameService.getGame(gameId);
+        if (game.isGameOver()) {
+            return game;
+        }
+        if (!game.getVariant().isStandard()) {
+            throw variantNotSupported();
+        }
+        if (game.getNextToPlay() != KalahBoard.PLAYER_2) {
+            throw notItsTurn();
+        }
+        final int player = game.getNextToPlay();
+        final int[] pits = game.getPits();
+        if (KalahBoard.isGameOver(pits)) {
+            // the move only settles the final score, any pit does
+            return kalahGameService.move(gameId, KalahBoard.getFirstPitIndex(player));
+        }
+        SearchResult result = search(pits, player, budgetMillis);
+        LOG.debug("AI move for game {}: {}, {} nodes/s on {} threads",
+                gameId, result, result.getNodesPerSecond(), parallelSearch.getParallelism());
+        return kalahGameService.move(gameId, result.getBestMove());
+    }
+
+    /**
+     * Answers from the positions shared by all games when this one was searched before and no more than the default
+     * budget is asked for, a cached search being as deep as a search of the default budget. Searches within the budget
+     * otherwise, starting with the cached best move, and answers with the deeper of the two.
+     */
+    public SearchResult search(int[] pits, int player, @Nullable Long budgetMillis) {
+        final SearchResult cached = positionCache.get(pits, player);
+        final long budget = budgetMillis == null ? defaultBudgetMillis : Math.max(0, Math.min(budgetMillis, maxBudgetMillis));
+        if (cached != null && budget <= defaultBudgetMillis) {
+            return cached;
+        }
+        if (cached != null) {
+            parallelSearch.seed(pits, player, cached);
+        }
+        final SearchResult result = parallelSearch.search(pits, player, TimeUnit.MILLISECONDS.toNanos(budget), AlphaBetaSearch.MAX_DEPTH);
+        if (cached != null && cached.getDepth() > result.getDepth()) {
+            return cached;
+        }
+        positionCache.put(pits, player, result);
+        return result;
+    }
+
+    /**
+     * The search and its evaluation only know the standard board.
+     */
+    static InvalidMoveException variantNotSupported() {
+        return new InvalidMoveException("The computer opponent only plays the standard board");
+    }
+
+    /**
+     * The computer opponent never moves for the client playing Player 1.
+     */
+    static InvalidMoveException notItsTurn() {
+        return new InvalidMoveException("The computer opponent plays Player 2 and it is Player 1's turn");
+    }
+}
@@ -0,0 +1,189 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.engine.SeedCollection;
+import com.games.sixstonekalah.exceptions.InvalidGameVariantException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
+import com.games.sixstonekalah.model.Game;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.EMPTY;
+
+/**
+ * Plays moves on a loaded {@link Game} in memory, shared by the blocking and the reactive service.
+ * Saving the game is left to the caller, the rule outcomes are counted in {@link GameMetrics}.
+ */
+public final class KalahGameRules {
+
+    private static final String INVALID_PIT_ID = "Enter a valid pit id";
+    private static final String GAME_IS_OVER = "Game is over";
+    private static final GameMetrics NOT_RECORDED = new GameMetrics(new CompositeMeterRegistry());
+
+    private KalahGameRules() {
+    }
+
+    /**
+     * Board variant asked for when creating a game, the standard board for the values not given.
+     */
+    public static BoardVariant variant(@Nullable Integer pitsPerSide, @Nullable Integer seedsPerPit,
+                                       @Nullable CaptureRule captureRule, @Nullable SeedCollection seedCollection)
+            throws InvalidGameVariantException {
+        try {
+            return BoardVariant.orStandard(pitsPerSide, seedsPerPit, captureRule, seedCollection);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidGameVariantException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return false when the game was already over and nothing changed
+     */
+    static boolean applyMove(Game game, int pitId, GameMetrics metrics) throws InvalidMoveException {
+        if (game.isGameOver()) {
+            return false;
+        }
+        final String rejection = play(game, pitId, metrics);
+        if (rejection != null) {
+            throw new InvalidMoveException(rejection);
+        }
+        return true;
+    }
+
+    /**
+     * Applies the pit ids in order, stopping at the first invalid move. Moves after the one finishing the game are
+     * invalid, so only the moves played are counted and logged.
+     */
+    static MovesResult applyMoves(Game game, List<Integer> pitIds, GameMetrics metrics) {
+        boolean changed = false;
+        for (int index = 0; index < pitIds.size(); index++) {
+            final Integer pitId = pitIds.get(index);
+            String rejection = null;
+            if (pitId == null) {
+                metrics.invalidMove(INVALID_PIT_ID);
+                rejection = INVALID_PIT_ID;
+            } else if (game.isGameOver()) {
+                metrics.invalidMove(GAME_IS_OVER);
+                rejection = GAME_IS_OVER;
+            } else {
+                rejection = play(game, pitId, metrics);
+                changed |= rejection == null;
+            }
+            if (rejection != null) {
+                return new MovesResult(game, index, index, rejection, changed);
+            }
+        }
+        return new MovesResult(game, pitIds.size(), null, null, changed);
+    }
+
+    /**
+     * Every move the player whose turn it is can make, with the board it leads to.
+     * Empty once the game is over, or when the next move only settles the final score.
+     */
+    public static List<LegalMove> legalMoves(Game game) {
+        final BoardVariant variant = game.getVariant();
+        final int[] pits = game.getPits();
+        if (game.isGameOver() || variant.isGameOver(pits)) {
+            return Collections.emptyList();
+        }
+        final int player = game.getNextToPlay();
+        final int firstPit = variant.getFirstPitIndex(player);
+        final List<LegalMove> moves = new ArrayList<>(variant.getPitsPerSide());
+        for (int pitId = firstPit; pitId < firstPit + variant.getPitsPerSide(); pitId++) {
+            if (KalahBoard.getSeeds(pits, pitId) != EMPTY) {
+                final int[] board = pits.clone();
+                final int flags = variant.sow(board, player, pitId);
+                moves.add(new LegalMove(pitId, flags, board,
+                        (flags & BONUS_MOVE) != 0 ? player : KalahBoard.opponent(player)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Plays a move read back from a move log, without counting it again in the metrics.
+     *
+     * @throws IllegalStateException when the logged move is not valid on the game
+     */
+    public static void replay(Game game, int pitId) {
+        try {
+            applyMove(game, pitId, NOT_RECORDED);
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("Logged move " + pitId + " of game " + game.getId() + " is not valid: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Bumps the version of the game before it is saved.
+     *
+     * @return the version the stored game is expected to have
+     */
+    @Nullable
+    static Long nextVersion(Game game) {
+        final Long expectedVersion = game.getVersion();
+        game.setVersion(expectedVersion == null ? 1L : expectedVersion + 1);
+        return expectedVersion;
+    }
+
+    /**
+     * Plays the move on a game that is not over yet.
+     *
+     * @return why the move is not valid, null once it is played
+     */
+    @Nullable
+    private static String play(Game game, int pitId, GameMetrics metrics) {
+        final int activePlayer = game.getNextToPlay();
+        final int[] pits = game.getPits();
+        final BoardVariant variant = game.getVariant();
+
+        if (variant.isGameOver(pits)) {
+            //calculate the kalah points
+            variant.collectRemainingSeeds(pits);
+            game.setPlayerWon(variant.getWinner(pits));
+            game.setLastPlayedBy(activePlayer);
+            game.setBonusMove(false);
+            game.setGameOver(true);
+            metrics.gameFinished(game.getPlayerWon());
+            return null;
+        }
+
+        final String rejection = rejection(variant, pits, pitId, activePlayer);
+        if (rejection != null) {
+            metrics.invalidMove(rejection);
+            return rejection;
+        }
+
+        final int flags = variant.sow(pits, activePlayer, pitId);
+        metrics.sown(flags);
+        final boolean bonusMove = (flags & BONUS_MOVE) != 0;
+        game.setLastPlayedBy(activePlayer);
+        game.setBonusMove(bonusMove);
+        game.setNextToPlay(bonusMove ? activePlayer : KalahBoard.opponent(activePlayer));
+        return null;
+    }
+
+    @Nullable
+    private static String rejection(BoardVariant variant, int[] pits, int pitId, int activePlayer) {
+        if (variant.isKalah(pitId)) {
+            return "Move cannot be done from the house";
+        }
+        if (!variant.isPit(pitId)) {
+            return INVALID_PIT_ID;
+        }
+        if (KalahBoard.getSeeds(pits, pitId) == EMPTY) {
+            return "Move cannot be started from an empty pit";
+        }
+        if (!variant.isPlayersPit(pitId, activePlayer)) {
+            return "Move from other players pit is not possible";
+        }
+        return null;
+    }
+}
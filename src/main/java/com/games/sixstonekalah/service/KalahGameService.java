@@ -1,19 +1,34 @@
 package com.games.sixstonekalah.service;
 
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.events.GameEventPublisher;
 import com.games.sixstonekalah.model.Game;
-import com.google.common.collect.Range;
 import com.games.sixstonekalah.controllers.GamesController;
+import com.games.sixstonekalah.exceptions.GameConflictException;
 import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidGameCountException;
 import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
 import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.repository.Leaderboard;
+import com.google.common.util.concurrent.Striped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.stream.IntStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.locks.Lock;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
 
 /**
  * Kalah Game service for Two Players and 6 Stone per pit
@@ -23,226 +38,255 @@ public class KalahGameService {
 
     private static final Logger LOG = LoggerFactory.getLogger(GamesController.class);
 
-    private static final int EMPTY = 0;
-    private static final int LAST_SEED = 1;
-
-    private static final int PLAYER_1 = 1;
-    private static final int PLAYER_2 = 2;
-
-    private static final int NUMBER_OF_PLAYERS = 2;
-    private static final int NUMBER_OF_KALAHS = NUMBER_OF_PLAYERS;
-
-    private static final int NUMBER_OF_PITS = 6;
-    private static final int NUMBER_OF_SEEDS_PER_PIT = 6;
-
-    private static final int FIRST_PIT_INDEX = 1;
-    private static final int LAST_PIT_INDEX = (NUMBER_OF_PITS * NUMBER_OF_PLAYERS) + NUMBER_OF_KALAHS;
-
-    private static final int PLAYER_1_KALAH_INDEX = NUMBER_OF_PITS + 1;
-    private static final int PLAYER_2_KALAH_INDEX = LAST_PIT_INDEX;
-
-    private static final Range<Integer> PLAYER_1_PIT_RANGE = Range.closed(FIRST_PIT_INDEX, PLAYER_1_KALAH_INDEX - 1);
-    private static final Range<Integer> PLAYER_2_PIT_RANGE = Range.closed(PLAYER_1_KALAH_INDEX + 1, PLAYER_2_KALAH_INDEX - 1);
+    private static final int MOVE_LOCK_STRIPES = 1024;
+    private static final int MAX_MOVE_ATTEMPTS = 3;
+    public static final int MAX_GAMES_PER_BULK = 10_000;
 
     private GameRepository gameRepository;
-
-    public KalahGameService(GameRepository gameRepository) {
+    private GameMetrics gameMetrics;
+    private GameEventPublisher gameEventPublisher;
+    private GameArchive gameArchive;
+    private Leaderboard leaderboard;
+
+    /**
+     * Serializes moves on the same game within this node, other nodes are caught by the versioned save.
+     */
+    private final Striped<Lock> moveLocks = Striped.lock(MOVE_LOCK_STRIPES);
+
+    public KalahGameService(GameRepository gameRepository, GameMetrics gameMetrics, GameEventPublisher gameEventPublisher,
+                            GameArchive gameArchive, Leaderboard leaderboard) {
         this.gameRepository = gameRepository;
+        this.gameMetrics = gameMetrics;
+        this.gameEventPublisher = gameEventPublisher;
+        this.gameArchive = gameArchive;
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Id for a new game, telling which Redis node the game lives on when games are sharded.
+     */
+    public String newGameId() {
+        return gameRepository.newId();
     }
 
     public Game creteNewGame(String id, String location) {
-        HashMap<String, Integer> pitsSeedsMap = initializePitsWithSeeds();
+        return creteNewGame(id, location, BoardVariant.STANDARD);
+    }
+
+    public Game creteNewGame(String id, String location, BoardVariant variant) {
+        return creteNewGame(id, location, variant, null, null);
+    }
+
+    /**
+     * @param player1Id who plays player 1, the game is only ranked on the leaderboard with both players
+     */
+    public Game creteNewGame(String id, String location, BoardVariant variant,
+                             @Nullable String player1Id, @Nullable String player2Id) {
         Game newGame = Game.builder()
                 .id(id)
                 .uri(location)
-                .pitsSeedsMap(new TreeMap<>(pitsSeedsMap))
-                .nextToPlay(1)
+                .variant(variant)
+                .player1Id(player1Id)
+                .player2Id(player2Id)
+                .pits(variant.newBoard())
+                .nextToPlay(PLAYER_1)
+                .version(0L)
                 .build();
-        return gameRepository.save(newGame);
+        final long start = System.nanoTime();
+        Game game = gameRepository.save(newGame);
+        gameMetrics.recordCreate(System.nanoTime() - start);
+        gameMetrics.gameStarted();
+        return game;
     }
 
-
-    public Game getGame(String gameId) throws GameNotFoundException {
-        return gameRepository.findById(gameId).orElseThrow(() -> new GameNotFoundException("Game with id doesnt exist"));
+    /**
+     * Creates games on the same board, copied from one initial board, and stores them in a single round trip.
+     *
+     * @param location builds the location of a game from its id
+     */
+    public List<Game> creteNewGames(int count, UnaryOperator<String> location, BoardVariant variant)
+            throws InvalidGameCountException {
+        final long start = System.nanoTime();
+        List<Game> games = newGames(count, gameRepository::newId, location, variant);
+        gameRepository.createAll(games);
+        gameMetrics.recordCreateAll(System.nanoTime() - start);
+        gameMetrics.gamesStarted(games.size());
+        return games;
     }
 
-    public Game move(String gameId, int pitId) throws InvalidMoveException, GameNotFoundException {
-        Game game = this.getGame(gameId);
-        final int activePlayer = game.getNextToPlay();
-        Map<String, Integer> pitSeedMap = game.getPitsSeedsMap();
-
-        if (game.isGameOver()) {
-            return game;
+    static List<Game> newGames(int count, Supplier<String> ids, UnaryOperator<String> location, BoardVariant variant)
+            throws InvalidGameCountException {
+        if (count < 1 || count > MAX_GAMES_PER_BULK) {
+            throw new InvalidGameCountException("Between 1 and " + MAX_GAMES_PER_BULK + " games can be created at once");
         }
-        if (checkIfTheGameEnded(game.getPitsSeedsMap())) {
-            //calculate the kalah points
-            HashMap<String, Integer> player1Moved = movePlayerSeedsToHisHouse(game.getPitsSeedsMap(), PLAYER_1);
-            HashMap<String, Integer> player2Moved = movePlayerSeedsToHisHouse(player1Moved, PLAYER_2);
-            game.setPitsSeedsMap(player2Moved);
-            game.setPlayerWon(getPlayerStoreValue(PLAYER_1, player2Moved) > getPlayerStoreValue(PLAYER_2, player2Moved) ? PLAYER_1 : PLAYER_2);
-            game.setLastPlayedBy(activePlayer);
-            game.setBonusMove(false);
-            game.setGameOver(true);
-            gameRepository.save(game);
-            return game;
+        final int[] board = variant.newBoard();
+        final List<Game> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String id = ids.get();
+            games.add(Game.builder()
+                    .id(id)
+                    .uri(location.apply(id))
+                    .variant(variant)
+                    .pits(board.clone())
+                    .nextToPlay(PLAYER_1)
+                    .version(0L)
+                    .build());
         }
-
-        checkIfMoveIsValidForThePitId(pitId, pitSeedMap);
-        checkIfMoveIsValidForActivePlayer(pitId, activePlayer);
-
-        int numberOfSeedsToSow = pitSeedMap.getOrDefault(String.valueOf(pitId), 0);
-        int moveIndex = pitId;
-        pitSeedMap.put(String.valueOf(moveIndex), EMPTY);
-        boolean bonusMove = false;
-        while (numberOfSeedsToSow != EMPTY) {
-            moveIndex++;
-            if (moveIndex == LAST_PIT_INDEX + 1) {
-                moveIndex = FIRST_PIT_INDEX;
-            }
-            if (moveIndex != getOpponentKalaIndex(activePlayer)) {
-                Integer currentPitValue = pitSeedMap.get(String.valueOf(moveIndex));
-                if (numberOfSeedsToSow == LAST_SEED) {
-                    //GET A BONUS MOVE
-                    if (moveIndex == getActivePlayersStoreIndex(activePlayer)) {
-                        bonusMove = true;
-                        pitSeedMap.put(String.valueOf(moveIndex), ++currentPitValue);
-                    } else if (currentPitValue == 0 && isCurrentIndexOnActivePlayersSide(moveIndex, activePlayer)) {
-                        // CAPTURE OPPONENTS SEEDS
-                        pitSeedMap = capturesOppositePitsSeedIntoOwnKalah(activePlayer, pitSeedMap, numberOfSeedsToSow, moveIndex);
-                    } else {
-                        pitSeedMap.put(String.valueOf(moveIndex), ++currentPitValue);
-                    }
-                } else {
-                    pitSeedMap.put(String.valueOf(moveIndex), ++currentPitValue);
-                }
-                numberOfSeedsToSow--;
-            }
-        }
-        game.setPitsSeedsMap(new TreeMap<>(pitSeedMap));
-        game.setLastPlayedBy(activePlayer);
-        game.setBonusMove(bonusMove);
-        game.setNextToPlay(getNextToPlay(bonusMove, activePlayer));
-        gameRepository.save(game);
-        return game;
+        return games;
     }
 
-    private Integer getNextToPlay(boolean bonusMove, int activePlayer) {
-        Integer nextPlayer = null;
-        if (activePlayer == PLAYER_1) {
-            nextPlayer = PLAYER_2;
-        }
-        if (activePlayer == PLAYER_2) {
-            nextPlayer = PLAYER_1;
+    /**
+     * Falls back to the archive for games evicted once expired, those can be read but no longer played.
+     */
+    public Game getGame(String gameId) throws GameNotFoundException {
+        final long start = System.nanoTime();
+        try {
+            Optional<Game> game = gameRepository.findById(gameId);
+            gameMetrics.recordLoad(System.nanoTime() - start);
+            return game.or(() -> gameArchive.findById(gameId)).orElseThrow(KalahGameService::gameNotFound);
+        } finally {
+            gameMetrics.recordGet(System.nanoTime() - start);
         }
-        return bonusMove ? activePlayer : nextPlayer;
-    }
-
-    private Map<String, Integer> capturesOppositePitsSeedIntoOwnKalah(int activePlayer,
-                                                                      Map<String, Integer> pitsSeedsMap,
-                                                                      int numberOfSeeds,
-                                                                      int moveIndex) {
-        Map<String, Integer> result = new HashMap<>(pitsSeedsMap);
-        final int oppositePitId = LAST_PIT_INDEX - moveIndex;
-        final int opponentsHouseSeedsCount = result.get(String.valueOf(oppositePitId));
-        //remove the seeds from the opponents pit
-        result.put(String.valueOf(oppositePitId), EMPTY);
-        final int activePlayersStoreIndex = getActivePlayersStoreIndex(activePlayer);
-        final int activePlayersKalahSeedsCount = result.get(String.valueOf(activePlayersStoreIndex));
-        // put the seeds in to the players Kalah
-        result.put(String.valueOf(activePlayersStoreIndex), opponentsHouseSeedsCount + numberOfSeeds + activePlayersKalahSeedsCount);
-        return result;
     }
 
-    private HashMap<String, Integer> movePlayerSeedsToHisHouse(Map<String, Integer> pitsSeedMap, int playerId) {
-        HashMap<String, Integer> result = new HashMap<>(pitsSeedMap);
-        Integer totalNumberOfSeedsInPits = getSumOfSeedsInPlayersPit(result, playerId);
-        final int activePlayersStoreIndex = getActivePlayersStoreIndex(playerId);
-        final int numberOfSeedsInKalah = result.get(String.valueOf(activePlayersStoreIndex));
-        final int numberOfSeedsTobePlacedInKalah = totalNumberOfSeedsInPits + numberOfSeedsInKalah;
-        result.put(String.valueOf(activePlayersStoreIndex), numberOfSeedsTobePlacedInKalah);
-        return cleanSeedsInThePit(playerId, result);
-    }
-
-    private int getPlayerStoreValue(int activePlayer, Map<String, Integer> pitsSeedMap) {
-        return pitsSeedMap.get(String.valueOf(getActivePlayersStoreIndex(activePlayer)));
-    }
-
-    private int getSumOfSeedsInPlayersPit(Map<String, Integer> pitsSeedMap, int getSumOfSeedsInPlayersPit) {
-        Range<Integer> playerPitRange = getPlayerPitsRange(getSumOfSeedsInPlayersPit);
-        return pitsSeedMap.keySet()
-                .stream()
-                .filter(s -> playerPitRange.contains(Integer.valueOf(s)))
-                .map(pitsSeedMap::get)
-                .reduce(0, Integer::sum);
-    }
-
-    private HashMap<String, Integer> cleanSeedsInThePit(int activePlayer, Map<String, Integer> pitsSeedMap) {
-        HashMap<String, Integer> result = new HashMap<>(pitsSeedMap);
-        result.keySet()
-                .stream()
-                .filter(s -> getPlayerPitsRange(activePlayer).contains(Integer.valueOf(s)))
-                .forEach(s -> result.put(s, EMPTY));
-        return result;
-    }
-
-    private boolean checkIfTheGameEnded(Map<String, Integer> pitsSeedsMap) {
-        return getSumOfSeedsInPlayerPit(PLAYER_1, pitsSeedsMap) == 0
-                || getSumOfSeedsInPlayerPit(PLAYER_2, pitsSeedsMap) == 0;
+    public Game move(String gameId, int pitId) throws InvalidMoveException, GameNotFoundException {
+        final long start = System.nanoTime();
+        try {
+            return withMoveLock(gameId, () -> tryMove(gameId, pitId), game -> false);
+        } finally {
+            gameMetrics.recordMove(System.nanoTime() - start);
+        }
     }
 
-    private int getSumOfSeedsInPlayerPit(int playerId, Map<String, Integer> pitsSeedsMap) {
-        return pitsSeedsMap.keySet()
-                .stream()
-                .filter(s -> getPlayerPitsRange(playerId).contains(Integer.valueOf(s)))
-                .map(pitsSeedsMap::get)
-                .reduce(0, Integer::sum);
+    /**
+     * Applies the pit ids in order on one loaded copy of the game and saves it once.
+     * Stops at the first invalid move, the moves before it are kept.
+     */
+    public MovesResult move(String gameId, List<Integer> pitIds) throws InvalidMoveException, GameNotFoundException {
+        final long start = System.nanoTime();
+        try {
+            return withMoveLock(gameId, () -> tryMoves(gameId, pitIds), KalahGameService::isRejected);
+        } finally {
+            gameMetrics.recordMoves(System.nanoTime() - start);
+        }
     }
 
-    private Range<Integer> getPlayerPitsRange(int playerId) {
-        return playerId == PLAYER_1 ? PLAYER_1_PIT_RANGE : PLAYER_2_PIT_RANGE;
+    /**
+     * Retries on version conflicts, and once a move is rejected on a cached copy of the game that may be stale
+     * because other nodes play the game too, checks it again on the game read from Redis.
+     */
+    private <T> T withMoveLock(String gameId, MoveAttempt<T> moveAttempt, Predicate<T> rejected)
+            throws InvalidMoveException, GameNotFoundException {
+        Lock lock = moveLocks.get(gameId);
+        lock.lock();
+        try {
+            boolean evicted = false;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = moveAttempt.run();
+                    if (rejected.test(result) && !evicted && gameRepository.evictIfStale(gameId)) {
+                        evicted = true;
+                        continue;
+                    }
+                    return result;
+                } catch (GameConflictException e) {
+                    if (attempt == MAX_MOVE_ATTEMPTS) {
+                        throw e;
+                    }
+                    LOG.debug("Concurrent move on game {}, retrying", gameId);
+                } catch (InvalidMoveException e) {
+                    if (evicted || !gameRepository.evictIfStale(gameId)) {
+                        throw e;
+                    }
+                    evicted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private int getActivePlayersStoreIndex(int activePlayer) {
-        return activePlayer == PLAYER_1 ? PLAYER_1_KALAH_INDEX : PLAYER_2_KALAH_INDEX;
+    /**
+     * The first move of the batch was rejected, nothing was saved.
+     */
+    private static boolean isRejected(MovesResult result) {
+        return !result.isChanged() && result.getFailedMoveIndex() != null;
     }
 
-    private boolean isCurrentIndexOnActivePlayersSide(int index, int activePlayer) {
-        return getPlayerPitsRange(activePlayer).contains(index);
+    /*
+     * Each timestamp closes one phase and opens the next, the clock is read once per phase boundary.
+     */
+    private Game tryMove(String gameId, int pitId) throws InvalidMoveException, GameNotFoundException {
+        final long start = System.nanoTime();
+        Optional<Game> found = gameRepository.findById(gameId);
+        final long loaded = System.nanoTime();
+        gameMetrics.recordLoad(loaded - start);
+        Game game = found.orElseThrow(KalahGameService::gameNotFound);
+
+        final boolean changed;
+        final long applied;
+        try {
+            changed = KalahGameRules.applyMove(game, pitId, gameMetrics);
+        } finally {
+            applied = System.nanoTime();
+            gameMetrics.recordRules(applied - loaded);
+        }
+        if (changed) {
+            save(game, applied, Collections.singletonList(pitId));
+        }
+        return game;
     }
 
-    private int getOpponentKalaIndex(int activePlayer) {
-        return activePlayer == PLAYER_1 ? PLAYER_2_KALAH_INDEX : PLAYER_1_KALAH_INDEX;
+    private MovesResult tryMoves(String gameId, List<Integer> pitIds) throws GameNotFoundException {
+        final long start = System.nanoTime();
+        Optional<Game> found = gameRepository.findById(gameId);
+        final long loaded = System.nanoTime();
+        gameMetrics.recordLoad(loaded - start);
+        Game game = found.orElseThrow(KalahGameService::gameNotFound);
+
+        MovesResult result = KalahGameRules.applyMoves(game, pitIds, gameMetrics);
+        final long applied = System.nanoTime();
+        gameMetrics.recordRules(applied - loaded);
+        if (result.isChanged()) {
+            save(game, applied, pitIds.subList(0, result.getMovesApplied()));
+        }
+        return result;
     }
 
-    private void checkIfMoveIsValidForThePitId(int pitIndex, Map<String, Integer> pitsSeedsMap) throws InvalidMoveException {
-        if (pitIndex == PLAYER_1_KALAH_INDEX || pitIndex == PLAYER_2_KALAH_INDEX) {
-            throw new InvalidMoveException("Move cannot be done from the house");
-        }
-        if (!PLAYER_1_PIT_RANGE.contains(pitIndex) && !PLAYER_2_PIT_RANGE.contains(pitIndex)) {
-            throw new InvalidMoveException("Enter a valid pit id");
+    /**
+     * Saves the moved game and publishes it, still under the move lock so changes go out in version order.
+     * The save that finishes the game is the only one that can, so its result goes to the leaderboard from there.
+     */
+    private void save(Game game, long start, List<Integer> pitIds) throws GameConflictException {
+        final Long expectedVersion = KalahGameRules.nextVersion(game);
+        try {
+            gameRepository.saveIfUnchanged(game, expectedVersion, pitIds);
+        } finally {
+            gameMetrics.recordSave(System.nanoTime() - start);
         }
-        final int pitValue = pitsSeedsMap.get(String.valueOf(pitIndex));
-        if (pitValue == EMPTY) {
-            throw new InvalidMoveException("Move cannot be started from an empty pit");
+        gameEventPublisher.gameChanged(game);
+        if (game.isGameOver()) {
+            countResult(game);
         }
     }
 
-    private void checkIfMoveIsValidForActivePlayer(int pitId, int activePlayer) throws InvalidMoveException {
-        if (!getPlayerPitsRange(activePlayer).contains(pitId)) {
-            throw new InvalidMoveException("Move from other players pit is not possible");
+    /**
+     * The game is saved already, a leaderboard out of reach does not fail the move.
+     */
+    private void countResult(Game game) {
+        try {
+            leaderboard.gameOver(game);
+        } catch (DataAccessException e) {
+            LOG.warn("Result of game {} not counted on the leaderboard", game.getId(), e);
         }
     }
 
-    private static HashMap<String, Integer> initializePitsWithSeeds() {
-        HashMap<String, Integer> pitsSeedsMap = new HashMap<>();
-        IntStream.rangeClosed(FIRST_PIT_INDEX, LAST_PIT_INDEX).forEach(value -> {
-                    if (value == PLAYER_1_KALAH_INDEX || value == PLAYER_2_KALAH_INDEX) {
-                        pitsSeedsMap.put(String.valueOf(value), EMPTY);
-                    } else {
-                        pitsSeedsMap.put(String.valueOf(value), NUMBER_OF_SEEDS_PER_PIT);
-                    }
-                }
-        );
-        return pitsSeedsMap;
+    private static GameNotFoundException gameNotFound() {
+        return new GameNotFoundException("Game with id doesnt exist");
+    }
+
+    @FunctionalInterface
+    private interface MoveAttempt<T> {
+        T run() throws InvalidMoveException, GameNotFoundException;
     }
 }
@@ -0,0 +1,122 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.ai.AlphaBetaSearch;
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.PositionCache;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.HintUnavailableException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
+import com.games.sixstonekalah.model.Game;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move suggestions, each searched within {@code games.hint.budget-ms} of being asked for.
+ * <p>
+ * Hints are searched on a fixed pool of {@code games.hint.threads} platform threads, one thread per hint, with at
+ * most {@code games.hint.queue-size} hints waiting. Any more are turned away at once with
+ * {@link HintUnavailableException}, so a burst of hints neither piles up latency nor takes the cores and the request
+ * threads the moves are served on. The deadline runs from admission: the search deepens until the time left
+ * is used up and answers with the deepest iteration it completed, a hint that waited in the queue searches less.
+ * With a queue as long as the pool, a hint is answered within about two budgets.
+ * Positions searched deep enough before are answered from the {@link PositionCache} without queueing.
+ */
+@Service
+public class KalahHintService implements DisposableBean {
+
+    private final ParallelSearch search;
+    private final PositionCache positionCache;
+    private final GameMetrics gameMetrics;
+    private final long budgetNanos;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads   0 for one per two available processors
+     * @param queueSize 0 for as many as threads
+     */
+    public KalahHintService(ParallelSearch parallelSearch, PositionCache positionCache, GameMetrics gameMetrics,
+                            @Value("${games.hint.budget-ms:8}") long budgetMillis,
+                            @Value("${games.hint.threads:0}") int threads,
+                            @Value("${games.hint.queue-size:0}") int queueSize) {
+        this.search = parallelSearch.withParallelism(1);
+        this.positionCache = positionCache;
+        this.gameMetrics = gameMetrics;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        final int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : poolSize),
+                new CustomizableThreadFactory("game-hints-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @throws InvalidMoveException     when the game is over or not played on the standard board
+     * @throws HintUnavailableException when the hint pool and its queue are full
+     */
+    public CompletableFuture<Hint> hint(Game game) throws InvalidMoveException, HintUnavailableException {
+        final long start = System.nanoTime();
+        if (game.isGameOver()) {
+            throw new InvalidMoveException("Game is over, there is no move to hint");
+        }
+        if (!game.getVariant().isStandard()) {
+            throw KalahAiService.variantNotSupported();
+        }
+        final int player = game.getNextToPlay();
+        final int[] pits = game.getPits();
+        if (KalahBoard.isGameOver(pits)) {
+            return completed(start, settlingHint(pits, player));
+        }
+        final SearchResult cached = positionCache.get(pits, player);
+        if (cached != null) {
+            return completed(start, toHint(pits, player, cached, true));
+        }
+        final long deadline = start + budgetNanos;
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                SearchResult result = search.search(pits, player, Math.max(0, deadline - System.nanoTime()), AlphaBetaSearch.MAX_DEPTH);
+                positionCache.put(pits, player, result);
+                Hint hint = toHint(pits, player, result, false);
+                gameMetrics.recordHint(System.nanoTime() - start);
+                return hint;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            gameMetrics.hintRejected();
+            throw new HintUnavailableException("Too many hints asked for, try again shortly");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Hint> completed(long start, Hint hint) {
+        gameMetrics.recordHint(System.nanoTime() - start);
+        return CompletableFuture.completedFuture(hint);
+    }
+
+    private Hint toHint(int[] pits, int player, SearchResult result, boolean cached) {
+        return new Hint(result.getBestMove(), result.getScore(), result.getDepth(),
+                search.principalVariation(pits, player, result.getBestMove(), result.getDepth()), cached);
+    }
+
+    /**
+     * The player to move has no seeds left, any pit ends the game and the seeds left go to the opponent.
+     */
+    private static Hint settlingHint(int[] pits, int player) {
+        final int opponent = KalahBoard.opponent(player);
+        final int pitId = KalahBoard.getFirstPitIndex(player);
+        final int score = KalahBoard.getStoreValue(pits, player) + KalahBoard.getSumOfSeedsInPits(pits, player)
+                - KalahBoard.getStoreValue(pits, opponent) - KalahBoard.getSumOfSeedsInPits(pits, opponent);
+        return new Hint(pitId, score, 0, new int[]{pitId}, false);
+    }
+}
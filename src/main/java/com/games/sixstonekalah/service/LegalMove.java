@@ -0,0 +1,33 @@
+package com.games.sixstonekalah.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+
+/**
+ * A move the player whose turn it is can make and what it leads to, see {@link KalahGameRules#legalMoves}.
+ */
+@Getter
+@AllArgsConstructor
+public class LegalMove {
+    private final int pitId;
+    /**
+     * {@link com.games.sixstonekalah.engine.KalahBoard#BONUS_MOVE} and/or {@link com.games.sixstonekalah.engine.KalahBoard#CAPTURE}.
+     */
+    private final int flags;
+    /**
+     * Board once the seeds are sown, the remaining seeds are only collected on the move after the last one.
+     */
+    private final int[] pits;
+    private final int nextToPlay;
+
+    public boolean isBonusMove() {
+        return (flags & BONUS_MOVE) != 0;
+    }
+
+    public boolean isCapture() {
+        return (flags & CAPTURE) != 0;
+    }
+}
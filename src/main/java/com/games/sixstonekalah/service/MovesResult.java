@@ -0,0 +1,27 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.model.Game;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+/**
+ * Outcome of a batch of moves, see {@link KalahGameService#move(String, java.util.List)}.
+ */
+@Getter
+@AllArgsConstructor
+public class MovesResult {
+    private final Game game;
+    private final int movesApplied;
+    /**
+     * Position in the batch of the first invalid move, null when every move was applied.
+     */
+    @Nullable
+    private final Integer failedMoveIndex;
+    @Nullable
+    private final String failureReason;
+    /**
+     * Whether any move changed the game, i.e. it has to be saved.
+     */
+    private final boolean changed;
+}
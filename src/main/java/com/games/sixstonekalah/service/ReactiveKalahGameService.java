@@ -0,0 +1,209 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.events.GameEventPublisher;
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidGameCountException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.Leaderboard;
+import com.games.sixstonekalah.repository.ReactiveGameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.function.LongConsumer;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+
+/**
+ * Non blocking counterpart of {@link KalahGameService} for the reactive deployment, same rules and messages.
+ * <p>
+ * Concurrent moves on a game are only caught by the versioned save and retried, no thread waits on a lock.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveKalahGameService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveKalahGameService.class);
+
+    private static final int MAX_MOVE_ATTEMPTS = 3;
+
+    private final ReactiveGameRepository gameRepository;
+    private final KalahAiService kalahAiService;
+    private final GameMetrics gameMetrics;
+    private final GameArchive gameArchive;
+    private final Leaderboard leaderboard;
+    private final GameEventPublisher gameEventPublisher;
+
+    public ReactiveKalahGameService(ReactiveGameRepository gameRepository, KalahAiService kalahAiService, GameMetrics gameMetrics,
+                                    GameArchive gameArchive, Leaderboard leaderboard, GameEventPublisher gameEventPublisher) {
+        this.gameRepository = gameRepository;
+        this.kalahAiService = kalahAiService;
+        this.gameMetrics = gameMetrics;
+        this.gameArchive = gameArchive;
+        this.leaderboard = leaderboard;
+        this.gameEventPublisher = gameEventPublisher;
+    }
+
+    public Mono<Game> creteNewGame(String id, String location, BoardVariant variant,
+                                   @Nullable String player1Id, @Nullable String player2Id) {
+        Game newGame = Game.builder()
+                .id(id)
+                .uri(location)
+                .variant(variant)
+                .player1Id(player1Id)
+                .player2Id(player2Id)
+                .pits(variant.newBoard())
+                .nextToPlay(PLAYER_1)
+                .version(0L)
+                .build();
+        return timed(gameRepository.save(newGame), gameMetrics::recordCreate)
+                .doOnSuccess(game -> gameMetrics.gameStarted());
+    }
+
+    /**
+     * Creates games on the same board in a single round trip, see {@link KalahGameService#creteNewGames}.
+     */
+    public Mono<List<Game>> creteNewGames(int count, UnaryOperator<String> location, BoardVariant variant) {
+        final List<Game> games;
+        try {
+            games = KalahGameService.newGames(count, () -> UUID.randomUUID().toString(), location, variant);
+        } catch (InvalidGameCountException e) {
+            return Mono.error(e);
+        }
+        return timed(gameRepository.createAll(games), gameMetrics::recordCreateAll)
+                .then(Mono.fromRunnable(() -> gameMetrics.gamesStarted(games.size())))
+                .thenReturn(games);
+    }
+
+    /**
+     * Falls back to the archive for games evicted once expired, read off the event loop.
+     */
+    public Mono<Game> getGame(String gameId) {
+        Mono<Game> archived = Mono.fromCallable(() -> gameArchive.findById(gameId).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+        return timed(timed(gameRepository.findById(gameId), gameMetrics::recordLoad)
+                .switchIfEmpty(archived)
+                .switchIfEmpty(Mono.error(() -> new GameNotFoundException("Game with id doesnt exist"))), gameMetrics::recordGet);
+    }
+
+    public Mono<Game> move(String gameId, int pitId) {
+        return timed(withRetries(gameId, game -> {
+            final long start = System.nanoTime();
+            try {
+                return KalahGameRules.applyMove(game, pitId, gameMetrics) ? save(game) : Mono.just(game);
+            } catch (InvalidMoveException e) {
+                return Mono.error(e);
+            } finally {
+                gameMetrics.recordRules(System.nanoTime() - start);
+            }
+        }), gameMetrics::recordMove);
+    }
+
+    /**
+     * Applies the pit ids in order and saves the game once, see {@link KalahGameService#move(String, List)}.
+     */
+    public Mono<MovesResult> move(String gameId, List<Integer> pitIds) {
+        return timed(withRetries(gameId, game -> {
+            final long start = System.nanoTime();
+            MovesResult result = KalahGameRules.applyMoves(game, pitIds, gameMetrics);
+            gameMetrics.recordRules(System.nanoTime() - start);
+            return result.isChanged() ? save(game).thenReturn(result) : Mono.just(result);
+        }), gameMetrics::recordMoves);
+    }
+
+    /**
+     * Plays the move of Player 2 like {@link KalahAiService#move}, the search runs off the event loop.
+     */
+    public Mono<Game> aiMove(String gameId, @Nullable Long budgetMillis) {
+        return getGame(gameId).flatMap(game -> {
+            if (game.isGameOver()) {
+                return Mono.just(game);
+            }
+            if (!game.getVariant().isStandard()) {
+                return Mono.error(KalahAiService.variantNotSupported());
+            }
+            if (game.getNextToPlay() != KalahBoard.PLAYER_2) {
+                return Mono.error(KalahAiService.notItsTurn());
+            }
+            final int player = game.getNextToPlay();
+            final int[] pits = game.getPits();
+            if (KalahBoard.isGameOver(pits)) {
+                // the move only settles the final score, any pit does
+                return move(gameId, KalahBoard.getFirstPitIndex(player));
+            }
+            return Mono.fromCallable(() -> kalahAiService.search(pits, player, budgetMillis))
+                    .subscribeOn(Schedulers.parallel())
+                    .flatMap((SearchResult result) -> move(gameId, result.getBestMove()));
+        });
+    }
+
+    private <T> Mono<T> withRetries(String gameId, Function<Game, Mono<T>> moveAttempt) {
+        return Mono.defer(() -> load(gameId).flatMap(moveAttempt))
+                .doOnError(GameConflictException.class, e -> LOG.debug("Concurrent move on game {}, retrying", gameId))
+                .retryWhen(Retry.max(MAX_MOVE_ATTEMPTS - 1).filter(GameConflictException.class::isInstance));
+    }
+
+    private Mono<Game> load(String gameId) {
+        return timed(gameRepository.findById(gameId), gameMetrics::recordLoad)
+                .switchIfEmpty(Mono.error(() -> new GameNotFoundException("Game with id doesnt exist")));
+    }
+
+    /**
+     * The saved game is published before the move completes, and the save that finishes the game counts its result
+     * on the leaderboard, see {@link KalahGameService}.
+     */
+    private Mono<Game> save(Game game) {
+        final Long expectedVersion = KalahGameRules.nextVersion(game);
+        return timed(gameRepository.saveIfUnchanged(game, expectedVersion), gameMetrics::recordSave)
+                .then(publish(game))
+                .then(game.isGameOver() ? countResult(game) : Mono.empty())
+                .thenReturn(game);
+    }
+
+    /**
+     * Published off the event loop. Concurrent moves are not published under a lock as on the servlet stack,
+     * the listeners drop versions older than the last one they got.
+     */
+    private Mono<Void> publish(Game game) {
+        return Mono.fromRunnable(() -> gameEventPublisher.gameChanged(game))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    /**
+     * Counted off the event loop, a leaderboard out of reach does not fail the move.
+     */
+    private Mono<Void> countResult(Game game) {
+        return Mono.fromRunnable(() -> leaderboard.gameOver(game))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(DataAccessException.class, e -> {
+                    LOG.warn("Result of game {} not counted on the leaderboard", game.getId(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static <T> Mono<T> timed(Mono<T> mono, LongConsumer recorder) {
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            return mono.doFinally(signal -> recorder.accept(System.nanoTime() - start));
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.ai.AlphaBetaSearch;
+import com.games.sixstonekalah.ai.EvaluationWeights;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An AI engine entered in a {@link Tournament}: search depth, time budget per move and evaluation weights.
+ */
+@Getter
+@Builder
+public final class EngineConfig {
+
+    private final String name;
+    private final int depth;
+    /**
+     * Time per move, 0 to always search to the full depth. A budget makes the moves depend on the machine and its load.
+     */
+    private final long budgetMillis;
+    @Builder.Default
+    private final EvaluationWeights weights = EvaluationWeights.STORES;
+
+    /**
+     * @param engine {@code <name>:<depth>[:<budget ms>[:<store>,<seeds>,<mobility>]]}
+     */
+    public static EngineConfig parse(String engine) {
+        final String[] parts = engine.split(":");
+        if (parts.length < 2 || parts.length > 4 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("Expected <name>:<depth>[:<budget ms>[:<store>,<seeds>,<mobility>]], got " + engine);
+        }
+        final int depth = Integer.parseInt(parts[1]);
+        if (depth < 1 || depth > AlphaBetaSearch.MAX_DEPTH) {
+            throw new IllegalArgumentException("Search depth must be between 1 and " + AlphaBetaSearch.MAX_DEPTH);
+        }
+        final long budgetMillis = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("Time budget must not be negative");
+        }
+        return EngineConfig.builder()
+                .name(parts[0])
+                .depth(depth)
+                .budgetMillis(budgetMillis)
+                .weights(parts.length > 3 ? EvaluationWeights.parse(parts[3]) : EvaluationWeights.STORES)
+                .build();
+    }
+
+    Policy policy(TranspositionTable transpositionTable, Zobrist zobrist) {
+        return Policies.search(transpositionTable, zobrist, depth, TimeUnit.MILLISECONDS.toNanos(budgetMillis), weights);
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + depth + ":" + budgetMillis + ":" + weights;
+    }
+}
@@ -0,0 +1,91 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.nio.ByteBuffer;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+
+/**
+ * Compact binary record of a simulated game, records are written one after the other.
+ * <pre>
+ * short        number of moves n
+ * byte         final store of player 1
+ * byte         final store of player 2
+ * (n + 1) / 2  the moves, two per byte, high nibble first: the pit of the player to move counted from his first pit (0..5)
+ * </pre>
+ * Whose move it is follows from replaying the game, a move ending in the own kalah keeps the turn.
+ */
+public final class GameRecords {
+
+    static final int HEADER_LENGTH = Short.BYTES + 2;
+
+    private GameRecords() {
+    }
+
+    /**
+     * @return the length of the record of a game with that many moves
+     */
+    public static int length(int moves) {
+        return HEADER_LENGTH + (moves + 1) / 2;
+    }
+
+    static void putMove(byte[] record, int index, int slot) {
+        final int position = HEADER_LENGTH + index / 2;
+        if ((index & 1) == 0) {
+            record[position] = (byte) (slot << 4);
+        } else {
+            record[position] |= (byte) slot;
+        }
+    }
+
+    /**
+     * Writes the header in front of the moves put so far.
+     *
+     * @return the length of the record
+     */
+    static int finish(byte[] record, int moves, int player1Store, int player2Store) {
+        record[0] = (byte) (moves >>> 8);
+        record[1] = (byte) moves;
+        record[2] = (byte) player1Store;
+        record[3] = (byte) player2Store;
+        return length(moves);
+    }
+
+    /**
+     * Reads the next record of the buffer and replays it.
+     *
+     * @return the pit ids played, in order
+     * @throws IllegalArgumentException when a move is not legal or the final stores do not match
+     */
+    public static int[] read(ByteBuffer buffer) {
+        final int moves = buffer.getShort() & 0xFFFF;
+        final int player1Store = buffer.get() & 0xFF;
+        final int player2Store = buffer.get() & 0xFF;
+        final int[] pitIds = new int[moves];
+        final int[] pits = KalahBoard.newBoard();
+        int player = PLAYER_1;
+        int packed = 0;
+        for (int i = 0; i < moves; i++) {
+            if ((i & 1) == 0) {
+                packed = buffer.get() & 0xFF;
+            }
+            final int slot = (i & 1) == 0 ? packed >>> 4 : packed & 0xF;
+            final int pitId = KalahBoard.getFirstPitIndex(player) + slot;
+            if (!KalahBoard.isLegalMove(pits, player, pitId)) {
+                throw new IllegalArgumentException("Move " + i + " of the record is not legal");
+            }
+            pitIds[i] = pitId;
+            if ((KalahBoard.sow(pits, player, pitId) & BONUS_MOVE) == 0) {
+                player = KalahBoard.opponent(player);
+            }
+        }
+        KalahBoard.collectRemainingSeeds(pits);
+        if (KalahBoard.getStoreValue(pits, PLAYER_1) != player1Store || KalahBoard.getStoreValue(pits, PLAYER_2) != player2Store) {
+            throw new IllegalArgumentException("Final stores of the record do not match its moves");
+        }
+        return pitIds;
+    }
+}
@@ -0,0 +1,101 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.util.SplittableRandom;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Plays whole games on one reused board with the rules of {@link KalahBoard}, the same ones the game service applies:
+ * a move ending in the own kalah plays again, one ending in an own empty pit captures the opposite pit, and once a
+ * side has no seeds left every remaining seed goes to the kalah of its side.
+ * <p>
+ * Not thread safe, a simulating thread keeps its own instance. Playing a game allocates nothing.
+ */
+public final class GameSimulator {
+
+    /**
+     * Games are far shorter, a longer one means a policy or rule bug.
+     */
+    static final int MAX_MOVES = 4096;
+
+    private final int[] pits = new int[SIZE];
+    private final int[] legalMoves = new int[NUMBER_OF_PITS];
+    private final byte[] record = new byte[GameRecords.length(MAX_MOVES)];
+    private int recordLength;
+    private int player1Store;
+    private int player2Store;
+
+    /**
+     * Plays a game from the initial position and adds it to the statistics, its record is kept until the next game.
+     */
+    public void play(Policy player1, Policy player2, SplittableRandom random, SimulationStatistics statistics) {
+        play(player1, player2, random, 0, statistics);
+    }
+
+    /**
+     * @param randomMoves the first moves are drawn uniformly from the legal ones before the policies take over,
+     *                    so games between deterministic policies start from different positions
+     */
+    public void play(Policy player1, Policy player2, SplittableRandom random, int randomMoves, SimulationStatistics statistics) {
+        KalahBoard.reset(pits);
+        int player = PLAYER_1;
+        int moves = 0;
+        int bonusMoves = 0;
+        int captures = 0;
+        while (!KalahBoard.isGameOver(pits)) {
+            if (moves == MAX_MOVES) {
+                throw new IllegalStateException("Game did not end within " + MAX_MOVES + " moves");
+            }
+            final int count = KalahBoard.getLegalMoves(pits, player, legalMoves);
+            final int pitId = moves < randomMoves ? legalMoves[random.nextInt(count)]
+                    : (player == PLAYER_1 ? player1 : player2).choose(pits, player, legalMoves, count, random);
+            if (!KalahBoard.isLegalMove(pits, player, pitId)) {
+                throw new IllegalStateException("Policy of player " + player + " chose the illegal pit " + pitId);
+            }
+            GameRecords.putMove(record, moves++, pitId - KalahBoard.getFirstPitIndex(player));
+            final int flags = KalahBoard.sow(pits, player, pitId);
+            if ((flags & BONUS_MOVE) != 0) {
+                bonusMoves++;
+            } else {
+                player = KalahBoard.opponent(player);
+            }
+            if ((flags & CAPTURE) != 0) {
+                captures++;
+            }
+        }
+        KalahBoard.collectRemainingSeeds(pits);
+        player1Store = KalahBoard.getStoreValue(pits, PLAYER_1);
+        player2Store = KalahBoard.getStoreValue(pits, PLAYER_2);
+        recordLength = GameRecords.finish(record, moves, player1Store, player2Store);
+        statistics.addGame(moves, bonusMoves, captures, player1Store, player2Store);
+    }
+
+    /**
+     * @return the {@link GameRecords} record of the last game, valid up to {@link #getRecordLength()}
+     */
+    byte[] getRecord() {
+        return record;
+    }
+
+    int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * @return the final store of player 1 in the last game
+     */
+    int getPlayer1Store() {
+        return player1Store;
+    }
+
+    int getPlayer2Store() {
+        return player2Store;
+    }
+}
@@ -0,0 +1,95 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.ai.AlphaBetaSearch;
+import com.games.sixstonekalah.ai.EvaluationWeights;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.util.function.Supplier;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * The built in policies, each supplier creates one instance per simulating thread.
+ */
+public final class Policies {
+
+    private static final String SEARCH_PREFIX = "search:";
+    private static final int SEARCH_TRANSPOSITION_TABLE_SIZE = 1 << 16;
+
+    private Policies() {
+    }
+
+    /**
+     * @param name {@code random}, {@code greedy} or {@code search:<depth>}
+     */
+    public static Supplier<Policy> named(String name) {
+        if ("random".equals(name)) {
+            return Policies::random;
+        }
+        if ("greedy".equals(name)) {
+            return Policies::greedy;
+        }
+        if (name.startsWith(SEARCH_PREFIX)) {
+            final int depth = Integer.parseInt(name.substring(SEARCH_PREFIX.length()));
+            if (depth < 1 || depth > AlphaBetaSearch.MAX_DEPTH) {
+                throw new IllegalArgumentException("Search depth must be between 1 and " + AlphaBetaSearch.MAX_DEPTH);
+            }
+            return () -> search(depth);
+        }
+        throw new IllegalArgumentException("Unknown policy " + name + ", expected random, greedy or search:<depth>");
+    }
+
+    /**
+     * Any legal move, uniformly.
+     */
+    public static Policy random() {
+        return (pits, player, moves, count, random) -> moves[random.nextInt(count)];
+    }
+
+    /**
+     * The move that gains the most seeds in the own kalah right away, a bonus move wins a tie, then the first pit.
+     */
+    public static Policy greedy() {
+        final int[] scratch = new int[SIZE];
+        return (pits, player, moves, count, random) -> {
+            final int before = KalahBoard.getStoreValue(pits, player);
+            int bestMove = moves[0];
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(pits, 0, scratch, 0, SIZE);
+                final int flags = KalahBoard.sow(scratch, player, moves[i]);
+                final int score = (KalahBoard.getStoreValue(scratch, player) - before) * 2 + (flags & BONUS_MOVE);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = moves[i];
+                }
+            }
+            return bestMove;
+        };
+    }
+
+    /**
+     * Fixed depth alpha-beta search of the AI, without a time budget so results do not depend on the machine.
+     */
+    public static Policy search(int depth) {
+        return search(new TranspositionTable(SEARCH_TRANSPOSITION_TABLE_SIZE), new Zobrist(SIZE, KalahBoard.TOTAL_SEEDS),
+                depth, 0, EvaluationWeights.STORES);
+    }
+
+    /**
+     * Alpha-beta search up to {@code depth}, stopped earlier once {@code budgetNanos} are used up unless 0.
+     *
+     * @param transpositionTable only used by this policy, clearing it between games makes a fixed depth search
+     *                           pick the same moves whatever it searched before
+     */
+    public static Policy search(TranspositionTable transpositionTable, Zobrist zobrist, int depth, long budgetNanos,
+                                EvaluationWeights weights) {
+        final AlphaBetaSearch search = new AlphaBetaSearch(transpositionTable, zobrist, null, weights);
+        final long budget = budgetNanos == 0 ? Long.MAX_VALUE : budgetNanos;
+        return (pits, player, moves, count, random) ->
+                count == 1 ? moves[0] : search.search(pits, player, budget, depth).getBestMove();
+    }
+}
@@ -0,0 +1,18 @@
+package com.games.sixstonekalah.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks the move of a simulated player. An instance is only used by one thread, so it can keep scratch state.
+ */
+@FunctionalInterface
+public interface Policy {
+
+    /**
+     * @param pits   board, must not be modified
+     * @param player side to move
+     * @param moves  the legal pit ids in the first {@code count} entries, {@code count} is at least 1
+     * @return one of the legal pit ids
+     */
+    int choose(int[] pits, int player, int[] moves, int count, SplittableRandom random);
+}
@@ -0,0 +1,173 @@
+package com.games.sixstonekalah.simulation;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Headless self-play: plays a number of games between two policies on all threads of a fork join pool,
+ * no Redis and no Spring context involved.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.games.sixstonekalah.simulation.SimulationRunner \
+ *     -Dexec.args="1000000 random greedy [records file] [seed]"
+ * </pre>
+ * Games are played in chunks, each chunk with its own random generator seeded from the run seed and the chunk index,
+ * so with policies that pick the same move for the same position the statistics of a run only depend on its seed,
+ * not on the number of threads.
+ */
+public final class SimulationRunner {
+
+    static final int GAMES_PER_CHUNK = 4096;
+
+    private static final int RECORD_BUFFER_SIZE = 1 << 16;
+    private static final long CHUNK_SEED_STEP = 0x9E3779B97F4A7C15L;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Supplier<Policy> player1;
+    private final Supplier<Policy> player2;
+    private final ForkJoinPool pool;
+
+    public SimulationRunner(Supplier<Policy> player1, Supplier<Policy> player2, ForkJoinPool pool) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.pool = pool;
+    }
+
+    /**
+     * @param records  receives the {@link GameRecords} of every game when not null, in no particular order
+     * @param progress called with the running totals after every chunk, under a lock, the totals must not be kept
+     * @return the totals of all games
+     */
+    public SimulationStatistics run(long games, long seed, @Nullable WritableByteChannel records,
+                                    Consumer<SimulationStatistics> progress) throws IOException {
+        final SimulationStatistics total = new SimulationStatistics();
+        final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+        final ThreadLocal<Worker> threadWorker = ThreadLocal.withInitial(() -> {
+            Worker worker = new Worker(records);
+            workers.add(worker);
+            return worker;
+        });
+        final long chunks = (games + GAMES_PER_CHUNK - 1) / GAMES_PER_CHUNK;
+        try {
+            pool.submit(() -> LongStream.range(0, chunks).parallel().forEach(chunk -> {
+                final Worker worker = threadWorker.get();
+                worker.play(Math.min(GAMES_PER_CHUNK, games - chunk * GAMES_PER_CHUNK), seed + chunk * CHUNK_SEED_STEP);
+                synchronized (total) {
+                    total.merge(worker.statistics);
+                    progress.accept(total);
+                }
+            })).get();
+            for (Worker worker : workers) {
+                worker.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 5) {
+            System.err.println("usage: SimulationRunner <games> <player 1 policy> <player 2 policy> [records file] [seed]");
+            System.err.println("policies: random, greedy, search:<depth>");
+            System.exit(1);
+        }
+        final long games = Long.parseLong(args[0]);
+        final long seed = args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime();
+        final long start = System.nanoTime();
+        final long[] nextReport = {start + PROGRESS_INTERVAL_NANOS};
+        final Consumer<SimulationStatistics> progress = statistics -> {
+            final long now = System.nanoTime();
+            if (now >= nextReport[0]) {
+                nextReport[0] = now + PROGRESS_INTERVAL_NANOS;
+                System.out.println(statistics);
+            }
+        };
+
+        final SimulationStatistics total;
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+             FileChannel records = args.length >= 4 ? FileChannel.open(Paths.get(args[3]), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING) : null) {
+            SimulationRunner runner = new SimulationRunner(Policies.named(args[1]), Policies.named(args[2]), pool);
+            total = runner.run(games, seed, records, progress);
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+        System.out.println(total);
+        System.out.printf("%s vs %s, seed %d: %d games in %d ms, %.0f games/s on %d threads%n", args[1], args[2], seed,
+                total.getGames(), elapsedNanos / 1_000_000, total.getGames() * 1e9 / elapsedNanos,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * State of one simulating thread, reused for all of its chunks.
+     */
+    private final class Worker {
+
+        private final GameSimulator simulator = new GameSimulator();
+        private final Policy player1Policy = player1.get();
+        private final Policy player2Policy = player2.get();
+        private final SimulationStatistics statistics = new SimulationStatistics();
+        @Nullable
+        private final WritableByteChannel records;
+        @Nullable
+        private final ByteBuffer recordBuffer;
+
+        private Worker(@Nullable WritableByteChannel records) {
+            this.records = records;
+            this.recordBuffer = records == null ? null : ByteBuffer.allocate(RECORD_BUFFER_SIZE);
+        }
+
+        private void play(long games, long seed) {
+            final SplittableRandom random = new SplittableRandom(seed);
+            statistics.reset();
+            for (long game = 0; game < games; game++) {
+                simulator.play(player1Policy, player2Policy, random, statistics);
+                if (recordBuffer != null) {
+                    if (recordBuffer.remaining() < simulator.getRecordLength()) {
+                        flush();
+                    }
+                    recordBuffer.put(simulator.getRecord(), 0, simulator.getRecordLength());
+                }
+            }
+        }
+
+        private void flush() {
+            if (recordBuffer == null || records == null) {
+                return;
+            }
+            recordBuffer.flip();
+            try {
+                synchronized (records) {
+                    while (recordBuffer.hasRemaining()) {
+                        records.write(recordBuffer);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            recordBuffer.clear();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.games.sixstonekalah.simulation;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Aggregates of simulated games, one instance per thread merged into the total, so adding a game allocates nothing.
+ * <p>
+ * Draws are counted on their own, the service gives them to player 2.
+ */
+@Getter
+public final class SimulationStatistics {
+
+    private static final double Z_95 = 1.96;
+
+    private long games;
+    private long player1Wins;
+    private long player2Wins;
+    private long draws;
+    private long moves;
+    private int shortestGame = Integer.MAX_VALUE;
+    private int longestGame;
+    private long bonusMoves;
+    private long captures;
+    /**
+     * Sum over all games of the final store of player 1 minus the one of player 2.
+     */
+    private long player1Margin;
+
+    void addGame(int gameMoves, int gameBonusMoves, int gameCaptures, int player1Store, int player2Store) {
+        games++;
+        if (player1Store > player2Store) {
+            player1Wins++;
+        } else if (player2Store > player1Store) {
+            player2Wins++;
+        } else {
+            draws++;
+        }
+        moves += gameMoves;
+        shortestGame = Math.min(shortestGame, gameMoves);
+        longestGame = Math.max(longestGame, gameMoves);
+        bonusMoves += gameBonusMoves;
+        captures += gameCaptures;
+        player1Margin += player1Store - player2Store;
+    }
+
+    public void merge(SimulationStatistics other) {
+        games += other.games;
+        player1Wins += other.player1Wins;
+        player2Wins += other.player2Wins;
+        draws += other.draws;
+        moves += other.moves;
+        shortestGame = Math.min(shortestGame, other.shortestGame);
+        longestGame = Math.max(longestGame, other.longestGame);
+        bonusMoves += other.bonusMoves;
+        captures += other.captures;
+        player1Margin += other.player1Margin;
+    }
+
+    public void reset() {
+        games = player1Wins = player2Wins = draws = moves = bonusMoves = captures = player1Margin = 0;
+        shortestGame = Integer.MAX_VALUE;
+        longestGame = 0;
+    }
+
+    public SimulationStatistics copy() {
+        SimulationStatistics copy = new SimulationStatistics();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Score of player 1, a draw counting half a win.
+     */
+    public double getPlayer1Score() {
+        return games == 0 ? 0 : (player1Wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Half width of the 95% confidence interval of {@link #getPlayer1Score()}.
+     */
+    public double getPlayer1ScoreMargin() {
+        if (games == 0) {
+            return 0;
+        }
+        final double score = getPlayer1Score();
+        return Z_95 * Math.sqrt(score * (1 - score) / games);
+    }
+
+    public double getAverageMoves() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    public double getCapturesPerGame() {
+        return games == 0 ? 0 : (double) captures / games;
+    }
+
+    public double getAverageMargin() {
+        return games == 0 ? 0 : (double) player1Margin / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d games: player 1 %d, player 2 %d, draws %d, player 1 score %.4f +- %.4f,"
+                        + " moves %.2f (%d..%d), bonus moves %.2f, captures %.2f per game, margin %.2f",
+                games, player1Wins, player2Wins, draws, getPlayer1Score(), getPlayer1ScoreMargin(),
+                getAverageMoves(), games == 0 ? 0 : shortestGame, longestGame,
+                games == 0 ? 0 : (double) bonusMoves / games, getCapturesPerGame(), getAverageMargin());
+    }
+}
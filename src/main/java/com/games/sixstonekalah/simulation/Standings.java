@@ -0,0 +1,189 @@
+package com.games.sixstonekalah.simulation;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of every engine of a {@link Tournament} so far, a draw counting half a win.
+ * Only updated by one thread at a time, {@link #ranked()} takes a snapshot.
+ */
+public final class Standings {
+
+    private static final double Z_95 = 1.96;
+    private static final int PAIR_OUTCOMES = 5;
+    /**
+     * Scores closer to 0 or 1 are taken as this far from them, a perfect score has no finite Elo difference.
+     */
+    private static final double ELO_SCORE_LIMIT = 0.001;
+
+    private final List<EngineConfig> engines;
+    private final long[] wins;
+    private final long[] draws;
+    private final long[] losses;
+    private final long[] margins;
+    /**
+     * Game pairs of each engine by the half points it scored in them, 0 to 4.
+     */
+    private final long[][] pairs;
+    private long games;
+
+    public Standings(List<EngineConfig> engines) {
+        this.engines = engines;
+        this.wins = new long[engines.size()];
+        this.draws = new long[engines.size()];
+        this.losses = new long[engines.size()];
+        this.margins = new long[engines.size()];
+        this.pairs = new long[engines.size()][PAIR_OUTCOMES];
+    }
+
+    /**
+     * The two games of a pair, {@code first} being Player 1 in the first game and {@code second} in the second one.
+     */
+    void addGamePair(int first, int second, int firstPlayer1Store, int firstPlayer2Store,
+                     int secondPlayer1Store, int secondPlayer2Store) {
+        addGame(first, second, firstPlayer1Store, firstPlayer2Store);
+        addGame(second, first, secondPlayer1Store, secondPlayer2Store);
+        final int halfPoints = halfPoints(firstPlayer1Store, firstPlayer2Store) + halfPoints(secondPlayer2Store, secondPlayer1Store);
+        pairs[first][halfPoints]++;
+        pairs[second][PAIR_OUTCOMES - 1 - halfPoints]++;
+    }
+
+    private static int halfPoints(int ownStore, int opponentStore) {
+        return Integer.compare(ownStore, opponentStore) + 1;
+    }
+
+    void addGame(int player1, int player2, int player1Store, int player2Store) {
+        games++;
+        if (player1Store > player2Store) {
+            wins[player1]++;
+            losses[player2]++;
+        } else if (player2Store > player1Store) {
+            wins[player2]++;
+            losses[player1]++;
+        } else {
+            draws[player1]++;
+            draws[player2]++;
+        }
+        margins[player1] += player1Store - player2Store;
+        margins[player2] += player2Store - player1Store;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public Standing get(int engine) {
+        return new Standing(engines.get(engine), wins[engine], draws[engine], losses[engine], margins[engine], pairs[engine]);
+    }
+
+    /**
+     * @return every engine, the best score first
+     */
+    public List<Standing> ranked() {
+        List<Standing> standings = new ArrayList<>(engines.size());
+        for (int engine = 0; engine < engines.size(); engine++) {
+            standings.add(get(engine));
+        }
+        standings.sort(Comparator.comparingDouble(Standing::getScore).reversed()
+                .thenComparing(standing -> standing.getEngine().getName()));
+        return standings;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%-4s %-16s %7s %6s %6s %6s %16s %22s %8s%n",
+                "rank", "engine", "games", "wins", "draws", "losses", "score (95%)", "elo (95%)", "margin"));
+        int rank = 1;
+        for (Standing standing : ranked()) {
+            table.append(String.format(Locale.ROOT, "%-4d %-16s %7d %6d %6d %6d %7.3f +- %.3f %6.0f [%5.0f, %5.0f] %8.2f%n",
+                    rank++, standing.getEngine().getName(), standing.getGames(), standing.getWins(), standing.getDraws(),
+                    standing.getLosses(), standing.getScore(), standing.getScoreMargin(), standing.getElo(),
+                    standing.getEloLow(), standing.getEloHigh(), standing.getAverageMargin()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Results of one engine against the engines it met.
+     */
+    @Getter
+    public static final class Standing {
+
+        private final EngineConfig engine;
+        private final long games;
+        private final long wins;
+        private final long draws;
+        private final long losses;
+        /**
+         * Share of the points of its games, 0.5 when it played none.
+         */
+        private final double score;
+        /**
+         * Half width of the 95% confidence interval of the score. The two games of a pair share their opening and are
+         * not independent, so the spread is taken over the scores of the game pairs (pentanomial), and over the single
+         * games only when the engine played them outside pairs.
+         */
+        private final double scoreMargin;
+        /**
+         * Own store minus the opponent store at the end of the game, averaged over its games.
+         */
+        private final double averageMargin;
+
+        private Standing(EngineConfig engine, long wins, long draws, long losses, long margin, long[] pairs) {
+            this.engine = engine;
+            this.games = wins + draws + losses;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            if (games == 0) {
+                this.score = 0.5;
+                this.scoreMargin = 0;
+                this.averageMargin = 0;
+                return;
+            }
+            this.score = (wins + draws / 2.0) / games;
+            long pairCount = 0;
+            double pairVariance = 0;
+            for (int halfPoints = 0; halfPoints < pairs.length; halfPoints++) {
+                pairCount += pairs[halfPoints];
+                pairVariance += pairs[halfPoints] * square(halfPoints / 4.0 - score);
+            }
+            if (pairCount * 2 == games) {
+                this.scoreMargin = Z_95 * Math.sqrt(pairVariance / pairCount / pairCount);
+            } else {
+                final double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+                this.scoreMargin = Z_95 * Math.sqrt(variance / games);
+            }
+            this.averageMargin = (double) margin / games;
+        }
+
+        /**
+         * Elo difference to the average opponent met that the score stands for.
+         */
+        public double getElo() {
+            return elo(score);
+        }
+
+        public double getEloLow() {
+            return elo(score - scoreMargin);
+        }
+
+        public double getEloHigh() {
+            return elo(score + scoreMargin);
+        }
+
+        private static double elo(double score) {
+            final double bounded = Math.max(ELO_SCORE_LIMIT, Math.min(1 - ELO_SCORE_LIMIT, score));
+            return -400 * Math.log10(1 / bounded - 1);
+        }
+
+        private static double square(double value) {
+            return value * value;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.games.sixstonekalah.engine.KalahBoard.SIZE;
+
+/**
+ * Plays AI engines against each other on the standard board, every game with the rules of {@link GameSimulator}.
+ * <p>
+ * Two engines meet in game pairs: both games of a pair open with the same random moves, then each engine moves first
+ * in one of them. The game pairs of a round are the tasks of the fork join pool, they share nothing but the standings,
+ * updated once per game pair, and the results file, written once per game, so a tournament keeps every thread busy.
+ * <p>
+ * Every thread searches with a transposition table per side, cleared before each game, and the openings only depend
+ * on the seed, the round and the game pair. With engines that have no time budget the results of a tournament only
+ * depend on its seed, not on the number of threads.
+ */
+public final class Tournament {
+
+    public static final int DEFAULT_RANDOM_OPENING_MOVES = 4;
+    static final String RESULTS_HEADER = "round,player1,player2,player1_store,player2_store,moves,opening_seed";
+
+    private static final int TRANSPOSITION_TABLE_SIZE = 1 << 16;
+    private static final long OPENING_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final List<EngineConfig> engines;
+    private final ForkJoinPool pool;
+    private final int gamePairs;
+    private final int randomOpeningMoves;
+    private final Zobrist zobrist = new Zobrist(SIZE, KalahBoard.TOTAL_SEEDS);
+
+    /**
+     * @param gamePairs game pairs every pairing of two engines plays
+     */
+    public Tournament(List<EngineConfig> engines, ForkJoinPool pool, int gamePairs, int randomOpeningMoves) {
+        if (engines.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two engines");
+        }
+        if (gamePairs < 1) {
+            throw new IllegalArgumentException("Engines must play at least one game pair");
+        }
+        this.engines = engines;
+        this.pool = pool;
+        this.gamePairs = gamePairs;
+        this.randomOpeningMoves = randomOpeningMoves;
+    }
+
+    /**
+     * Every engine meets every other one, all games in a single round.
+     *
+     * @param results receives a {@link #RESULTS_HEADER} line and then one line per game as it ends, flushed
+     *                after every line
+     */
+    public Standings roundRobin(long seed, Writer results) throws IOException {
+        final Standings standings = new Standings(engines);
+        results.write(RESULTS_HEADER + "\n");
+        playRound(1, roundRobinPairings(engines.size()), seed, standings, results);
+        return standings;
+    }
+
+    /**
+     * Each round pairs the engines of close scores that did not meet yet, with an odd number of engines the lowest
+     * ranked one that sat out the least sits the round out.
+     *
+     * @param results receives a {@link #RESULTS_HEADER} line and then one line per game as it ends, flushed
+     *                after every line
+     */
+    public Standings swiss(int rounds, long seed, Writer results) throws IOException {
+        final Standings standings = new Standings(engines);
+        final boolean[][] met = new boolean[engines.size()][engines.size()];
+        final int[] byes = new int[engines.size()];
+        results.write(RESULTS_HEADER + "\n");
+        for (int round = 1; round <= rounds; round++) {
+            final List<int[]> pairings = swissPairings(standings, met, byes);
+            for (int[] pairing : pairings) {
+                met[pairing[0]][pairing[1]] = met[pairing[1]][pairing[0]] = true;
+            }
+            playRound(round, pairings, seed, standings, results);
+        }
+        return standings;
+    }
+
+    static List<int[]> roundRobinPairings(int engines) {
+        final List<int[]> pairings = new ArrayList<>(engines * (engines - 1) / 2);
+        for (int first = 0; first < engines; first++) {
+            for (int second = first + 1; second < engines; second++) {
+                pairings.add(new int[]{first, second});
+            }
+        }
+        return pairings;
+    }
+
+    static List<int[]> swissPairings(Standings standings, boolean[][] met, int[] byes) {
+        final List<Integer> order = new ArrayList<>(met.length);
+        for (int engine = 0; engine < met.length; engine++) {
+            order.add(engine);
+        }
+        order.sort(Comparator.comparingDouble((Integer engine) -> -standings.get(engine).getScore())
+                .thenComparingInt(engine -> engine));
+        if (order.size() % 2 == 1) {
+            int bye = order.size() - 1;
+            for (int i = order.size() - 2; i >= 0; i--) {
+                if (byes[order.get(i)] < byes[order.get(bye)]) {
+                    bye = i;
+                }
+            }
+            byes[order.remove(bye)]++;
+        }
+        final List<int[]> pairings = new ArrayList<>(order.size() / 2);
+        while (!order.isEmpty()) {
+            final int engine = order.remove(0);
+            int opponent = 0;
+            while (opponent < order.size() - 1 && met[engine][order.get(opponent)]) {
+                opponent++;
+            }
+            pairings.add(new int[]{engine, order.remove(opponent)});
+        }
+        return pairings;
+    }
+
+    private void playRound(int round, List<int[]> pairings, long seed, Standings standings, Writer results)
+            throws IOException {
+        final ThreadLocal<Worker> threadWorker = ThreadLocal.withInitial(Worker::new);
+        try {
+            pool.submit(() -> IntStream.range(0, pairings.size() * gamePairs).parallel().forEach(task -> {
+                final int[] pairing = pairings.get(task / gamePairs);
+                final long openingSeed = seed + (((long) round << 32) + task) * OPENING_SEED_STEP;
+                final Worker worker = threadWorker.get();
+                worker.playPair(round, pairing[0], pairing[1], openingSeed, standings, results);
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Tournament failed", e.getCause());
+        }
+    }
+
+    /**
+     * Search state of one playing thread, the engines of each side share the transposition table of the side.
+     */
+    private final class Worker {
+
+        private final GameSimulator simulator = new GameSimulator();
+        private final SimulationStatistics statistics = new SimulationStatistics();
+        private final TranspositionTable[] tables = {
+                new TranspositionTable(TRANSPOSITION_TABLE_SIZE), new TranspositionTable(TRANSPOSITION_TABLE_SIZE)};
+        private final Policy[][] policies = new Policy[2][engines.size()];
+
+        private Worker() {
+            for (int side = 0; side < 2; side++) {
+                for (int engine = 0; engine < engines.size(); engine++) {
+                    policies[side][engine] = engines.get(engine).policy(tables[side], zobrist);
+                }
+            }
+        }
+
+        /**
+         * Both games of a pair, counted together in the standings.
+         */
+        private void playPair(int round, int first, int second, long openingSeed, Standings standings, Writer results) {
+            final int[] firstGame = play(round, first, second, openingSeed, results);
+            final int[] secondGame = play(round, second, first, openingSeed, results);
+            synchronized (standings) {
+                standings.addGamePair(first, second, firstGame[0], firstGame[1], secondGame[0], secondGame[1]);
+            }
+        }
+
+        /**
+         * @return the stores of Player 1 and Player 2 at the end of the game
+         */
+        private int[] play(int round, int player1, int player2, long openingSeed, Writer results) {
+            tables[0].clear();
+            tables[1].clear();
+            statistics.reset();
+            simulator.play(policies[0][player1], policies[1][player2], new SplittableRandom(openingSeed),
+                    randomOpeningMoves, statistics);
+            final int player1Store = simulator.getPlayer1Store();
+            final int player2Store = simulator.getPlayer2Store();
+            final String line = round + "," + engines.get(player1).getName() + "," + engines.get(player2).getName() + ","
+                    + player1Store + "," + player2Store + "," + statistics.getMoves() + "," + openingSeed + "\n";
+            try {
+                synchronized (results) {
+                    results.write(line);
+                    results.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new int[]{player1Store, player2Store};
+        }
+    }
+}
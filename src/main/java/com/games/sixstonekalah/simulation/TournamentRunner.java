@@ -0,0 +1,58 @@
+package com.games.sixstonekalah.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless AI tournament on all threads of a fork join pool, no Redis and no Spring context involved.
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.games.sixstonekalah.simulation.TournamentRunner \
+ *     -Dexec.args="results.csv swiss:7 50 42 shallow:4 deep:8 seeds:8:0:1,1,0 fast:12:5"
+ * </pre>
+ * Prints the standings once all games are played, the result of every game is in the results file.
+ */
+public final class TournamentRunner {
+
+    private TournamentRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.err.println("usage: TournamentRunner <results file> <round-robin|swiss:<rounds>> <game pairs per pairing> "
+                    + "<seed> <engine> <engine> [engine...]");
+            System.err.println("engines: <name>:<depth>[:<budget ms>[:<store>,<seeds>,<mobility>]]");
+            System.exit(1);
+        }
+        final int gamePairs = Integer.parseInt(args[2]);
+        final long seed = Long.parseLong(args[3]);
+        final List<EngineConfig> engines = new ArrayList<>();
+        for (int i = 4; i < args.length; i++) {
+            engines.add(EngineConfig.parse(args[i]));
+        }
+        final long start = System.nanoTime();
+
+        final Standings standings;
+        try (ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+             Writer results = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            Tournament tournament = new Tournament(engines, pool, gamePairs, Tournament.DEFAULT_RANDOM_OPENING_MOVES);
+            if (args[1].equals("round-robin")) {
+                standings = tournament.roundRobin(seed, results);
+            } else if (args[1].startsWith("swiss:")) {
+                standings = tournament.swiss(Integer.parseInt(args[1].substring("swiss:".length())), seed, results);
+            } else {
+                throw new IllegalArgumentException("Unknown tournament format " + args[1]);
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+        System.out.print(standings);
+        System.out.printf("%s, seed %d: %d games in %d ms, %.1f games/s on %d threads%n", args[1], seed,
+                standings.getGames(), elapsedNanos / 1_000_000, standings.getGames() * 1e9 / elapsedNanos,
+                Runtime.getRuntime().availableProcessors());
+    }
+}
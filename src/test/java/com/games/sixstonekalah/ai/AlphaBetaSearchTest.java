@@ -0,0 +1,101 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.NUMBER_OF_PITS;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AlphaBetaSearchTest {
+
+    private AlphaBetaSearch search;
+
+    @Before
+    public void setUp() {
+        search = new AlphaBetaSearch(new TranspositionTable(1 << 16), new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS));
+    }
+
+    @Test
+    public void testSolvedEndgamesMatchExhaustiveMinimax() {
+        Random random = new Random(11);
+        for (int position = 0; position < 200; position++) {
+            int[] pits = randomEndgame(random, 10);
+            int player = random.nextBoolean() ? PLAYER_1 : PLAYER_2;
+            if (KalahBoard.isGameOver(pits)) {
+                continue;
+            }
+            SearchResult result = search.search(pits, player, Long.MAX_VALUE, AlphaBetaSearch.MAX_DEPTH);
+
+            assertThat(result.getScore(), is(minimax(pits, player)));
+            int[] child = pits.clone();
+            int score = (KalahBoard.sow(child, player, result.getBestMove()) & BONUS_MOVE) != 0
+                    ? minimax(child, player)
+                    : -minimax(child, KalahBoard.opponent(player));
+            assertThat(score, is(result.getScore()));
+        }
+    }
+
+    @Test
+    public void testPrefersTheCaptureOfAFullPit() {
+        int[] pits = {0, 0, 0, 0, 1, 0, 20, 1, 1, 1, 1, 1, 1, 20};
+        pits[0] = 1;
+        pits[12] = 0;
+        pits[7] = 9;
+        // pit 5 lands in the empty pit 6, capturing the 9 seeds of pit 8
+
+        SearchResult result = search.search(pits, PLAYER_1, Long.MAX_VALUE, 1);
+
+        assertThat(result.getBestMove(), is(5));
+    }
+
+    @Test
+    public void testZeroBudgetStillReturnsALegalMove() {
+        int[] pits = KalahBoard.newBoard();
+
+        SearchResult result = search.search(pits, PLAYER_2, 0, AlphaBetaSearch.MAX_DEPTH);
+
+        assertTrue(KalahBoard.isLegalMove(pits, PLAYER_2, result.getBestMove()));
+        assertThat(result.getDepth() < AlphaBetaSearch.MAX_DEPTH, is(true));
+    }
+
+    private static int minimax(int[] pits, int player) {
+        if (KalahBoard.isGameOver(pits)) {
+            return AlphaBetaSearch.finalScore(pits, player);
+        }
+        int[] moves = new int[NUMBER_OF_PITS];
+        int count = KalahBoard.getLegalMoves(pits, player, moves);
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int[] child = pits.clone();
+            int score = (KalahBoard.sow(child, player, moves[i]) & BONUS_MOVE) != 0
+                    ? minimax(child, player)
+                    : -minimax(child, KalahBoard.opponent(player));
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    private static int[] randomEndgame(Random random, int seedsInPits) {
+        int[] pits = new int[KalahBoard.SIZE];
+        for (int seed = 0; seed < seedsInPits; seed++) {
+            int pitId;
+            do {
+                pitId = 1 + random.nextInt(KalahBoard.SIZE);
+            } while (KalahBoard.isKalah(pitId));
+            pits[pitId - 1]++;
+        }
+        int inKalahs = KalahBoard.TOTAL_SEEDS - seedsInPits;
+        int player1Kalah = random.nextInt(inKalahs + 1);
+        pits[KalahBoard.PLAYER_1_KALAH_INDEX - 1] = player1Kalah;
+        pits[KalahBoard.PLAYER_2_KALAH_INDEX - 1] = inKalahs - player1Kalah;
+        return pits;
+    }
+}
@@ -0,0 +1,54 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelSearchTest {
+
+    private ForkJoinPool pool;
+    private Zobrist zobrist;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(3);
+        zobrist = new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testParallelSearchFindsTheSameValueAsTheSequentialSearch() {
+        int[] pits = {2, 0, 1, 0, 3, 1, 30, 1, 0, 2, 1, 0, 1, 30};
+        SearchResult sequential = new AlphaBetaSearch(new TranspositionTable(1 << 16), zobrist)
+                .search(pits, PLAYER_1, Long.MAX_VALUE, AlphaBetaSearch.MAX_DEPTH);
+
+        SearchResult parallel = new ParallelSearch(new TranspositionTable(1 << 16), zobrist, pool, 4)
+                .search(pits, PLAYER_1, Long.MAX_VALUE, AlphaBetaSearch.MAX_DEPTH);
+
+        assertThat(parallel.getScore(), is(sequential.getScore()));
+        assertTrue(KalahBoard.isLegalMove(pits, PLAYER_1, parallel.getBestMove()));
+        assertTrue(parallel.getNodes() >= parallel.getDepth());
+    }
+
+    @Test
+    public void testBudgetIsHonouredWithHelpersRunning() {
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(1 << 16), zobrist, pool, 4);
+
+        SearchResult result = search.search(KalahBoard.newBoard(), PLAYER_1, 20_000_000L, AlphaBetaSearch.MAX_DEPTH);
+
+        assertTrue(result.getElapsedNanos() < 1_000_000_000L);
+        assertTrue(KalahBoard.isLegalMove(KalahBoard.newBoard(), PLAYER_1, result.getBestMove()));
+    }
+}
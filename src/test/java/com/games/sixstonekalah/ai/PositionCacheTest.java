@@ -0,0 +1,90 @@
+package com.games.sixstonekalah.ai;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PositionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeyIgnoresTheStoresButNotThePitsOrTheSideToMove() {
+        int[] pits = {2, 0, 1, 0, 3, 1, 30, 1, 0, 2, 1, 0, 1, 30};
+        int[] otherStores = {2, 0, 1, 0, 3, 1, 20, 1, 0, 2, 1, 0, 1, 40};
+        int[] otherPits = {2, 0, 1, 0, 3, 1, 30, 1, 0, 2, 1, 0, 2, 29};
+        int[] full = {72, 72, 72, 72, 72, 72, 0, 72, 72, 72, 72, 72, 72, 0};
+
+        assertThat(PositionKey.of(pits, PLAYER_1), is(PositionKey.of(otherStores, PLAYER_1)));
+        assertThat(PositionKey.of(pits, PLAYER_1).hashCode(), is(PositionKey.of(otherStores, PLAYER_1).hashCode()));
+        assertThat(PositionKey.of(pits, PLAYER_1), not(PositionKey.of(pits, PLAYER_2)));
+        assertThat(PositionKey.of(pits, PLAYER_1), not(PositionKey.of(otherPits, PLAYER_1)));
+        assertThat(PositionKey.of(full, PLAYER_2), not(PositionKey.of(full, PLAYER_1)));
+    }
+
+    @Test
+    public void testScoresFollowTheStoresOfThePositionLookedUp() {
+        PositionCache cache = new PositionCache(new SimpleMeterRegistry(), 100, 10);
+        int[] pits = {2, 0, 1, 0, 3, 1, 30, 1, 0, 2, 1, 0, 1, 30};
+        SearchResult searched = new AlphaBetaSearch(new TranspositionTable(1 << 16), new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS))
+                .search(pits, PLAYER_1, Long.MAX_VALUE, 12);
+        cache.put(pits, PLAYER_1, searched);
+
+        int[] otherStores = {2, 0, 1, 0, 3, 1, 25, 1, 0, 2, 1, 0, 1, 35};
+        SearchResult cached = cache.get(otherStores, PLAYER_1);
+        assertThat(cached.getBestMove(), is(searched.getBestMove()));
+        assertThat(cached.getScore(), is(searched.getScore() - 10));
+        assertThat(cached.getDepth(), is(12));
+        assertThat(cached.getNodes(), is(0L));
+        assertThat(cache.get(pits, PLAYER_2), nullValue());
+    }
+
+    @Test
+    public void testOnlyDeepEnoughSearchesAreKeptAndDeeperOnesReplaceThem() {
+        PositionCache cache = new PositionCache(new SimpleMeterRegistry(), 100, 10);
+        int[] pits = KalahBoard.newBoard();
+        cache.put(pits, PLAYER_1, SearchResult.builder().bestMove(3).score(1).depth(9).build());
+        assertThat(cache.get(pits, PLAYER_1), nullValue());
+
+        cache.put(pits, PLAYER_1, SearchResult.builder().bestMove(1).score(2).depth(12).build());
+        cache.put(pits, PLAYER_1, SearchResult.builder().bestMove(2).score(4).depth(11).build());
+        assertThat(cache.get(pits, PLAYER_1).getBestMove(), is(1));
+        cache.put(pits, PLAYER_1, SearchResult.builder().bestMove(4).score(5).depth(14).build());
+        assertThat(cache.get(pits, PLAYER_1).getBestMove(), is(4));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void testOpeningBookIsReadBackAndPreWarmsTheCache() throws Exception {
+        Zobrist zobrist = new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS);
+        OpeningBook book = OpeningBook.generate(2, 6, new TranspositionTable(1 << 16), zobrist);
+        assertThat(book.getPositions().size(), is(42));
+        Path file = folder.newFile("opening.book").toPath();
+        book.write(file);
+
+        OpeningBook read = OpeningBook.read(file);
+        assertThat(read.getPositions().keySet(), is(book.getPositions().keySet()));
+        PositionCache cache = new PositionCache(new SimpleMeterRegistry(), 100, 12);
+        cache.preload(read.getPositions());
+
+        int[] pits = KalahBoard.newBoard();
+        SearchResult searched = new AlphaBetaSearch(new TranspositionTable(1 << 16), zobrist)
+                .search(pits, PLAYER_1, Long.MAX_VALUE, 6);
+        SearchResult cached = cache.get(pits, PLAYER_1);
+        assertThat(cached.getBestMove(), is(searched.getBestMove()));
+        assertThat(cached.getScore(), is(searched.getScore()));
+        assertThat(cached.getDepth(), is(6));
+    }
+}
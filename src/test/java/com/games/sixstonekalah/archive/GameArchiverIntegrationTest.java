@@ -0,0 +1,172 @@
+package com.games.sixstonekalah.archive;
+
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.repository.GameExpiry;
+import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.service.KalahGameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"games.expiry.idle-ttl=1s", "games.expiry.finished-ttl=1s", "games.archive.interval=PT1H",
+        "games.archive.directory=target/game-archive-test"})
+public class GameArchiverIntegrationTest {
+
+    @Autowired
+    KalahGameService kalahGameService;
+
+    @Autowired
+    GameRepository gameStore;
+
+    @Autowired
+    GameExpiry gameExpiry;
+
+    @Autowired
+    GameArchiver gameArchiver;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    SegmentGameArchive gameArchive;
+
+    @Test
+    public void testExpiredGameIsArchivedAndStillReadable() throws InvalidMoveException, GameNotFoundException, IOException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+        Game played = kalahGameService.move(id, 3);
+        final long due = gameExpiry.now() + 1000;
+
+        assertThat(gameArchiver.archiveGamesDueAt(due) >= 1, is(true));
+
+        assertThat(gameStore.existsById(id), is(false));
+        Game archived = kalahGameService.getGame(id);
+        assertThat(archived.getPits(), is(played.getPits()));
+        assertThat(archived.getVersion(), is(1L));
+        catchException(() -> kalahGameService.move(id, 8));
+        assertThat(caughtException(), instanceOf(GameNotFoundException.class));
+        try (Stream<Path> segments = Files.list(Paths.get("target/game-archive-test"))) {
+            assertThat(segments.anyMatch(segment -> segment.toString().endsWith(SegmentGameArchive.SEGMENT_SUFFIX)), is(true));
+        }
+    }
+
+    @Test
+    public void testGameSavedAgainWhileDueIsKept() throws InvalidMoveException, GameNotFoundException, InterruptedException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+        final long due = gameExpiry.now() + 1000;
+        gameExpiry.flush();
+        List<String> expired = gameExpiry.findExpired(due, Integer.MAX_VALUE);
+        assertThat(expired, hasItem(id));
+
+        Thread.sleep(5);
+        kalahGameService.move(id, 1);
+        gameExpiry.flush();
+
+        assertThat(gameExpiry.removeExpired(Collections.singletonList(id), due).isEmpty(), is(true));
+        assertThat(gameStore.existsById(id), is(true));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testGameWithoutADeadlineIsGivenOne() throws GameNotFoundException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+        gameExpiry.flush();
+        // stored before expiry was turned on, or its deadline was lost with the node
+        gameExpiry.forget(id);
+        assertThat(gameExpiry.findExpired(Long.MAX_VALUE, Integer.MAX_VALUE).contains(id), is(false));
+
+        assertThat(gameArchiver.backfillDeadlines() >= 1, is(true));
+
+        assertThat(gameExpiry.findExpired(gameExpiry.now() + 1000, Integer.MAX_VALUE), hasItem(id));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testGameFinishedWhileBeingArchivedKeepsTheFinishedDeadline() throws InvalidMoveException, GameNotFoundException, IOException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+        kalahGameService.move(id, 3);
+        GameRepository finishingStore = Mockito.mock(GameRepository.class, AdditionalAnswers.delegatesTo(gameStore));
+        Mockito.doAnswer(invocation -> {
+            Game finished = gameStore.findById(id).get();
+            finished.setGameOver(true);
+            finished.setVersion(finished.getVersion() + 1);
+            gameStore.save(finished);
+            return gameStore.deleteIfUnchanged(id, invocation.getArgument(1));
+        }).when(finishingStore).deleteIfUnchanged(ArgumentMatchers.eq(id), ArgumentMatchers.any());
+        GameExpiry weekIdleDayFinished = new GameExpiry(redisTemplate, Duration.ofDays(7), Duration.ofDays(1), Clock.systemUTC());
+        GameArchiver archiver = new GameArchiver(finishingStore, weekIdleDayFinished, gameArchive, redisTemplate,
+                new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1), Duration.ZERO);
+        gameExpiry.flush();
+
+        archiver.archiveGamesDueAt(gameExpiry.now() + 1000);
+
+        assertThat(gameStore.findById(id).get().isGameOver(), is(true));
+        assertThat(gameExpiry.findExpired(gameExpiry.now() + Duration.ofDays(3).toMillis(), Integer.MAX_VALUE), hasItem(id));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testGameIsOnlyDeletedAtTheVersionArchived() throws InvalidMoveException, GameNotFoundException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+        kalahGameService.move(id, 3);
+
+        assertThat(gameStore.deleteIfUnchanged(id, 0L), is(false));
+        assertThat(gameStore.existsById(id), is(true));
+        assertThat(gameStore.deleteIfUnchanged(id, 1L), is(true));
+        assertThat(gameStore.existsById(id), is(false));
+    }
+
+    @Test
+    public void testSegmentsPastTheRetentionAreDeletedWithTheirIndex() throws GameNotFoundException, IOException, InterruptedException {
+        String rearchivedId = UUID.randomUUID().toString();
+        String onlyOldId = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(rearchivedId, "URI");
+        kalahGameService.creteNewGame(onlyOldId, "URI");
+        Game rearchived = kalahGameService.getGame(rearchivedId);
+        Game onlyOld = kalahGameService.getGame(onlyOldId);
+        Path old = gameArchive.write(List.of(rearchived, onlyOld));
+        Thread.sleep(5);
+        Path recent = gameArchive.write(List.of(rearchived));
+        gameStore.deleteById(rearchivedId);
+        gameStore.deleteById(onlyOldId);
+
+        assertThat(gameArchive.prune(SegmentGameArchive.writtenAt(recent.getFileName().toString())) >= 1, is(true));
+
+        assertThat(Files.exists(old), is(false));
+        assertThat(Files.exists(recent), is(true));
+        assertThat(gameArchive.findById(onlyOldId).isPresent(), is(false));
+        assertThat(gameArchive.findById(rearchivedId).isPresent(), is(true));
+    }
+}
@@ -0,0 +1,39 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.config.EmbeddedStoreConfig;
+import com.games.sixstonekalah.model.PlayerStatsDto;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The same requests against the games kept in process, with Redis pointed at a port nothing listens on.
+ */
+@ActiveProfiles(EmbeddedStoreConfig.PROFILE)
+@TestPropertySource(properties = {"spring.data.redis.port=1", "games.embedded.directory=target/embedded-games-test"})
+public class EmbeddedGamesControllerIntegrationTest extends GamesControllerIntegrationTest {
+
+    /**
+     * Games still finish with their players, there is no leaderboard to count them on.
+     */
+    @Test
+    @Override
+    public void testFinishedGameCountsOnTheLeaderboardOfItsPlayers() {
+        String player1 = "player-" + UUID.randomUUID();
+        playToTheEnd(player1, "player-" + UUID.randomUUID());
+        try {
+            template.getForObject("http://localhost:" + port + "/players/" + player1, PlayerStatsDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.NOT_FOUND.value()));
+        }
+    }
+}
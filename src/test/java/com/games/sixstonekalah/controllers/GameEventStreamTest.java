@@ -0,0 +1,65 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.model.Game;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GameEventStreamTest {
+
+    @Test
+    public void testSlowClientDoesNotHoldUpTheSenderAndSkipsToTheNewestVersion() throws Exception {
+        CountDownLatch firstEventStarted = new CountDownLatch(1);
+        CountDownLatch clientReads = new CountDownLatch(1);
+        List<String> sentVersions = new CopyOnWriteArrayList<>();
+        SseEmitter slowClient = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                firstEventStarted.countDown();
+                try {
+                    clientReads.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String event = builder.build().iterator().next().getData().toString();
+                sentVersions.add(event.substring(event.indexOf("id:") + 3, event.indexOf('\n', event.indexOf("id:"))));
+            }
+        };
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        GameEventStream stream = new GameEventStream(slowClient, sender);
+
+        stream.send(game(0));
+        assertThat(firstEventStarted.await(5, TimeUnit.SECONDS), is(true));
+        for (long version = 1; version <= 3; version++) {
+            // returns while the client is still busy with the first event
+            stream.send(game(version));
+        }
+        stream.send(game(2));
+        clientReads.countDown();
+        sender.shutdown();
+        assertThat(sender.awaitTermination(5, TimeUnit.SECONDS), is(true));
+
+        assertThat(sentVersions, is(List.of("0", "3")));
+    }
+
+    private static Game game(long version) {
+        return Game.builder()
+                .id("game")
+                .uri("URI")
+                .pits(KalahBoard.newBoard())
+                .nextToPlay(1)
+                .version(version)
+                .build();
+    }
+}
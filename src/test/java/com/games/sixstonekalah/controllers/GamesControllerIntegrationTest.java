@@ -2,25 +2,40 @@ package com.games.sixstonekalah.controllers;
 
 import com.games.sixstonekalah.model.GameResponseDto;
 import com.games.sixstonekalah.model.GameStatusResponseDto;
+import com.games.sixstonekalah.model.HintResponseDto;
+import com.games.sixstonekalah.model.LegalMoveDto;
+import com.games.sixstonekalah.model.LegalMovesResponseDto;
+import com.games.sixstonekalah.model.PlayerStatsDto;
 import org.hamcrest.core.Is;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
 public class GamesControllerIntegrationTest {
 
     @Value("${local.server.port}")
@@ -88,4 +103,240 @@ public class GamesControllerIntegrationTest {
             assertThat(resultedValue, Is.is(expectedResponse[i]));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchOfMovesReportsTheFirstInvalidMove() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String moves = gamesEndpoint + "/" + newGame.getBody().getId() + "/moves";
+        ResponseEntity<GameStatusResponseDto> movesResponse = template.postForEntity(moves, Arrays.asList(1, 2, 2), GameStatusResponseDto.class);
+        assertThat(movesResponse.getStatusCode(), is(HttpStatus.OK));
+        assertThat(movesResponse.getBody().getMovesApplied(), is(2));
+        assertThat(movesResponse.getBody().getFailedMoveIndex(), is(2));
+        assertThat(movesResponse.getBody().getNextHand(), is("Player 2"));
+
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.exchange(gamesEndpoint + "/" + newGame.getBody().getId() + "/pits/8",
+                HttpMethod.PUT, null, GameStatusResponseDto.class);
+        assertThat(moveResponse.getBody().getLastHand(), is("Player 2"));
+        assertThat(moveResponse.getBody().getMovesApplied(), is(nullValue()));
+    }
+
+    @Test
+    public void testLegalMovesPredictTheBoardOfEachMove() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String game = gamesEndpoint + "/" + newGame.getBody().getId();
+        template.exchange(game + "/pits/1", HttpMethod.PUT, null, GameStatusResponseDto.class);
+
+        LegalMovesResponseDto legalMoves = template.getForObject(game + "/legal-moves", LegalMovesResponseDto.class);
+        assertThat(legalMoves.getNextHand(), is("Player 1"));
+        assertThat(legalMoves.getMoves().size(), is(5));
+        LegalMoveDto move = legalMoves.getMoves().get(0);
+        assertThat(move.getPitId(), is(2));
+        assertThat(move.isBonusMove(), is(false));
+        assertThat(move.getNextHand(), is("Player 2"));
+
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.exchange(game + "/pits/2", HttpMethod.PUT, null, GameStatusResponseDto.class);
+        assertThat(moveResponse.getBody().getStatus(), is(move.getStatus()));
+        assertThat(moveResponse.getBody().getNextHand(), is(move.getNextHand()));
+
+        try {
+            template.getForObject(game + "1234/legal-moves", LegalMovesResponseDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.NOT_FOUND.value()));
+        }
+    }
+
+    @Test
+    public void testHintSuggestsAMoveOfThePlayerToMove() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String game = gamesEndpoint + "/" + newGame.getBody().getId();
+        template.exchange(game + "/pits/3", HttpMethod.PUT, null, GameStatusResponseDto.class);
+
+        HintResponseDto hint = template.getForObject(game + "/hint", HintResponseDto.class);
+        assertThat(hint.getId(), is(newGame.getBody().getId()));
+        assertThat(hint.getNextHand(), is("Player 2"));
+        assertTrue(hint.getPitId() >= 8 && hint.getPitId() <= 13);
+        assertThat(hint.getPrincipalVariation().get(0), is(hint.getPitId()));
+
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.exchange(game + "/pits/" + hint.getPitId(), HttpMethod.PUT,
+                null, GameStatusResponseDto.class);
+        assertThat(moveResponse.getStatusCode(), is(HttpStatus.OK));
+
+        try {
+            template.getForObject(game + "1234/hint", HintResponseDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.NOT_FOUND.value()));
+        }
+    }
+
+    @Test
+    public void testCreateAGameOnASmallerBoard() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint + "?pitsPerSide=4&seedsPerPit=4&captureRule=NO_EMPTY_CAPTURE",
+                null, GameResponseDto.class);
+        assertThat(newGame.getBody().getUri(), is(gamesEndpoint + "/" + newGame.getBody().getId()));
+        String makeMoveOnPit = gamesEndpoint + "/" + newGame.getBody().getId() + "/pits/" + 1;
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.exchange(makeMoveOnPit, HttpMethod.PUT, null, GameStatusResponseDto.class);
+        Map<String, Integer> gameStatus = moveResponse.getBody().getStatus();
+        assertThat(gameStatus.size(), is(10));
+        assertThat(gameStatus.get("5"), is(1));
+        assertThat(moveResponse.getBody().getNextHand(), is("Player 1"));
+
+        try {
+            template.postForEntity(gamesEndpoint + "/" + newGame.getBody().getId() + "/ai-move", null, GameStatusResponseDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.BAD_REQUEST.value()));
+        }
+    }
+
+    @Test
+    public void testCreateAGameOnAnUnsupportedBoardReturnsABadRequest() {
+        try {
+            template.postForEntity("http://localhost:" + port + "/games?pitsPerSide=20", null, GameResponseDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.BAD_REQUEST.value()));
+        }
+    }
+
+    @Test
+    public void testBulkCreateReturnsPlayableGames() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto[]> newGames = template.postForEntity(gamesEndpoint + "/bulk?count=" + 10_000,
+                null, GameResponseDto[].class);
+        assertThat(newGames.getStatusCode(), is(HttpStatus.OK));
+        assertThat(newGames.getBody().length, is(10_000));
+        assertThat(Arrays.stream(newGames.getBody()).map(GameResponseDto::getId).distinct().count(), is(10_000L));
+
+        GameResponseDto last = newGames.getBody()[9_999];
+        assertThat(last.getUri(), is(gamesEndpoint + "/" + last.getId()));
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.exchange(last.getUri() + "/pits/1",
+                HttpMethod.PUT, null, GameStatusResponseDto.class);
+        assertThat(moveResponse.getBody().getStatus().get("7"), is(1));
+
+        try {
+            template.postForEntity(gamesEndpoint + "/bulk?count=" + 10_001, null, GameResponseDto[].class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.BAD_REQUEST.value()));
+        }
+    }
+
+    @Test
+    public void testGameMetricsAreExportedForPrometheus() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String metrics = template.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+        assertThat(metrics.contains("games_started_total"), is(true));
+        assertThat(metrics.contains("games_operation_seconds_count{operation=\"create\""), is(true));
+    }
+
+    @Test
+    public void testAiMovePlaysPlayer2Only() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String aiMove = gamesEndpoint + "/" + newGame.getBody().getId() + "/ai-move?budgetMs=50";
+        try {
+            template.postForEntity(aiMove, null, GameStatusResponseDto.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.BAD_REQUEST.value()));
+        }
+
+        template.exchange(newGame.getBody().getUri() + "/pits/2", HttpMethod.PUT, null, GameStatusResponseDto.class);
+        ResponseEntity<GameStatusResponseDto> moveResponse = template.postForEntity(aiMove, null, GameStatusResponseDto.class);
+        assertThat(moveResponse.getStatusCode(), is(HttpStatus.OK));
+        assertThat(moveResponse.getBody().getLastHand(), is("Player 2"));
+        int seeds = moveResponse.getBody().getStatus().values().stream().mapToInt(Integer::intValue).sum();
+        assertThat(seeds, is(72));
+    }
+
+    @Test
+    public void testEventsStreamTheCurrentGameAndThenEveryMove() {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        ResponseEntity<GameResponseDto> newGame = template.postForEntity(gamesEndpoint, null, GameResponseDto.class);
+        String gameEndpoint = gamesEndpoint + "/" + newGame.getBody().getId();
+
+        List<ServerSentEvent<GameStatusResponseDto>> events = WebClient.create(gameEndpoint + "/events").get()
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<GameStatusResponseDto>>() {
+                })
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(event -> {
+                    if ("0".equals(event.id())) {
+                        template.exchange(gameEndpoint + "/pits/1", HttpMethod.PUT, null, GameStatusResponseDto.class);
+                    }
+                })
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events.get(0).event(), is("game"));
+        assertThat(events.get(0).data().getStatus().get("1"), is(6));
+        assertThat(events.get(1).id(), is("1"));
+        assertThat(events.get(1).data().getStatus().get("1"), is(0));
+        assertThat(events.get(1).data().getLastHand(), is("Player 1"));
+        assertThat(events.get(1).data().getNextHand(), is("Player 1"));
+    }
+
+    @Test
+    public void testFinishedGameCountsOnTheLeaderboardOfItsPlayers() {
+        String player1 = "player-" + UUID.randomUUID();
+        String player2 = "player-" + UUID.randomUUID();
+        GameResponseDto newGame = playToTheEnd(player1, player2);
+        assertThat(template.getForObject(newGame.getUri(), GameResponseDto.class).getPlayer2Id(), is(player2));
+
+        PlayerStatsDto first = template.getForObject("http://localhost:" + port + "/players/" + player1, PlayerStatsDto.class);
+        PlayerStatsDto second = template.getForObject("http://localhost:" + port + "/players/" + player2, PlayerStatsDto.class);
+        assertThat(first.getWins() + first.getLosses(), is(1L));
+        assertThat(second.getWins(), is(first.getLosses()));
+        assertThat(first.getAverageMargin(), is(-second.getAverageMargin()));
+        assertThat(first.getRating() + second.getRating(), is(3000.0));
+
+        PlayerStatsDto[] top = template.getForObject("http://localhost:" + port + "/leaderboard?count=1", PlayerStatsDto[].class);
+        assertThat(top.length, is(1));
+        assertThat(top[0].getRank(), is(1L));
+    }
+
+    /**
+     * Plays the first pit with seeds for Player 1 and has the AI answer as Player 2 until the game is over.
+     */
+    GameResponseDto playToTheEnd(String player1, String player2) {
+        String gamesEndpoint = "http://localhost:" + port + "/games";
+        GameResponseDto newGame = template.postForObject(gamesEndpoint + "?player1=" + player1 + "&player2=" + player2,
+                null, GameResponseDto.class);
+        assertThat(newGame.getPlayer1Id(), is(player1));
+        String aiMove = gamesEndpoint + "/" + newGame.getId() + "/ai-move?budgetMs=1";
+        GameStatusResponseDto status = template.exchange(newGame.getUri() + "/pits/1", HttpMethod.PUT, null,
+                GameStatusResponseDto.class).getBody();
+        for (int move = 0; move < 200 && status.getPlayerWon().isEmpty(); move++) {
+            if (status.getNextHand().equals("Player 2")) {
+                status = template.postForObject(aiMove, null, GameStatusResponseDto.class);
+            } else {
+                int pitId = 1;
+                while (pitId < 6 && status.getStatus().get(String.valueOf(pitId)) == 0) {
+                    pitId++;
+                }
+                status = template.exchange(newGame.getUri() + "/pits/" + pitId, HttpMethod.PUT, null,
+                        GameStatusResponseDto.class).getBody();
+            }
+        }
+        assertThat(status.getPlayerWon().isEmpty(), is(false));
+        return newGame;
+    }
+
+    @Test
+    public void testEventsOfAnUnknownGameReturnNotFound() {
+        try {
+            template.getForEntity("http://localhost:" + port + "/games/unknown/events", String.class);
+            assertTrue(false);
+        } catch (HttpClientErrorException e) {
+            assertThat(e.getRawStatusCode(), is(HttpStatus.NOT_FOUND.value()));
+        }
+    }
+}
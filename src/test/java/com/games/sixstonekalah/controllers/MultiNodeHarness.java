@@ -0,0 +1,83 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.SixStoneKalahApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Several nodes of the application in this JVM, each on a random port, with the games sharded over embedded Redis
+ * servers standing in for the Redis nodes. The Redis of {@code spring.data.redis} is shared as in a real deployment.
+ * Node {@code i} is named {@code node-i} in the routing header.
+ */
+final class MultiNodeHarness implements AutoCloseable {
+
+    private final List<RedisServer> shards = new ArrayList<>();
+    private final List<Integer> shardPorts = new ArrayList<>();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private MultiNodeHarness() {
+    }
+
+    /**
+     * @param properties extra {@code key=value} properties of every node, over the ones of application.properties
+     */
+    static MultiNodeHarness start(int shardCount, int nodeCount, String... properties) {
+        MultiNodeHarness harness = new MultiNodeHarness();
+        try {
+            StringJoiner shardNodes = new StringJoiner(",");
+            for (int shard = 0; shard < shardCount; shard++) {
+                int port = freePort();
+                RedisServer server = RedisServer.builder().port(port).setting("bind 127.0.0.1").build();
+                server.start();
+                harness.shards.add(server);
+                harness.shardPorts.add(port);
+                shardNodes.add("localhost:" + port);
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                List<String> args = new ArrayList<>();
+                for (String property : properties) {
+                    args.add("--" + property);
+                }
+                args.add("--server.port=0");
+                args.add("--games.shards=" + shardNodes);
+                args.add("--games.routing.node-id=node-" + node);
+                harness.nodes.add(new SpringApplicationBuilder(SixStoneKalahApplication.class).run(args.toArray(new String[0])));
+            }
+            return harness;
+        } catch (RuntimeException e) {
+            harness.close();
+            throw e;
+        }
+    }
+
+    String url(int node) {
+        return "http://localhost:" + ((WebServerApplicationContext) nodes.get(node)).getWebServer().getPort();
+    }
+
+    int shardPort(int shard) {
+        return shardPorts.get(shard);
+    }
+
+    @Override
+    public void close() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        shards.forEach(RedisServer::stop);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.model.GameResponseDto;
+import com.games.sixstonekalah.model.GameStatusResponseDto;
+import com.games.sixstonekalah.model.HintResponseDto;
+import com.games.sixstonekalah.model.LegalMovesResponseDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveGamesControllerIntegrationTest {
+
+    @Value("${local.server.port}")
+    int port;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    @Test
+    public void testCreateAndGetGame() {
+        GameResponseDto newGame = createGame();
+        assertThat(newGame.getUri(), is("http://localhost:" + port + "/games/" + newGame.getId()));
+
+        GameResponseDto game = client.get().uri("/games/{gameId}", newGame.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(GameResponseDto.class).returnResult().getResponseBody();
+        assertThat(game.getId(), is(newGame.getId()));
+    }
+
+    @Test
+    public void testGetGameWithInvalidIdReturnsNotFound() {
+        client.get().uri("/games/{gameId}", "unknown").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testMovesFollowTheSameRulesAsTheServletStack() {
+        GameResponseDto newGame = createGame();
+        GameStatusResponseDto moveResponse = client.put().uri("/games/{gameId}/pits/1", newGame.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(GameStatusResponseDto.class).returnResult().getResponseBody();
+        int[] expectedResponse = {0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0};
+        for (int i = 0; i < expectedResponse.length; i++) {
+            assertThat(moveResponse.getStatus().get(String.valueOf(i + 1)), is(expectedResponse[i]));
+        }
+        assertThat(moveResponse.getNextHand(), is("Player 1"));
+
+        client.put().uri("/games/{gameId}/pits/15", newGame.getId()).exchange().expectStatus().isBadRequest();
+
+        GameStatusResponseDto movesResponse = client.post().uri("/games/{gameId}/moves", newGame.getId())
+                .bodyValue(Arrays.asList(2, 2)).exchange()
+                .expectStatus().isOk()
+                .expectBody(GameStatusResponseDto.class).returnResult().getResponseBody();
+        assertThat(movesResponse.getMovesApplied(), is(1));
+        assertThat(movesResponse.getFailedMoveIndex(), is(1));
+        assertThat(movesResponse.getNextHand(), is("Player 2"));
+    }
+
+    @Test
+    public void testAiMovePlaysPlayer2Only() {
+        GameResponseDto newGame = createGame();
+        client.post().uri("/games/{gameId}/ai-move?budgetMs=50", newGame.getId()).exchange().expectStatus().isBadRequest();
+
+        client.put().uri("/games/{gameId}/pits/2", newGame.getId()).exchange().expectStatus().isOk();
+        GameStatusResponseDto moveResponse = client.post().uri("/games/{gameId}/ai-move?budgetMs=50", newGame.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GameStatusResponseDto.class).returnResult().getResponseBody();
+        assertThat(moveResponse.getLastHand(), is("Player 2"));
+    }
+
+    @Test
+    public void testGameSavedWithThePitsSeedsMapLayoutStillLoads() {
+        String id = UUID.randomUUID().toString();
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", id);
+        fields.put("uri", "URI");
+        fields.put("nextToPlay", "1");
+        fields.put("bonusMove", "0");
+        fields.put("playerWon", "0");
+        fields.put("gameOver", "0");
+        for (int pitId = 1; pitId <= 14; pitId++) {
+            fields.put("pitsSeedsMap.[" + pitId + "]", pitId == 7 || pitId == 14 ? "0" : "6");
+        }
+        fields.put("pitsSeedsMap.[1]", "0");
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            Map<byte[], byte[]> raw = new HashMap<>();
+            fields.forEach((field, value) -> raw.put(field.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8)));
+            connection.hashCommands().hMSet(("Game:" + id).getBytes(StandardCharsets.UTF_8), raw);
+            return null;
+        });
+
+        LegalMovesResponseDto legalMoves = client.get().uri("/games/{gameId}/legal-moves", id).exchange()
+                .expectStatus().isOk()
+                .expectBody(LegalMovesResponseDto.class).returnResult().getResponseBody();
+        assertThat(legalMoves.getMoves().size(), is(5));
+        redisTemplate.delete("Game:" + id);
+    }
+
+    @Test
+    public void testLegalMovesOfANewGame() {
+        GameResponseDto newGame = createGame();
+        LegalMovesResponseDto legalMoves = client.get().uri("/games/{gameId}/legal-moves", newGame.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(LegalMovesResponseDto.class).returnResult().getResponseBody();
+        assertThat(legalMoves.getMoves().size(), is(6));
+        assertThat(legalMoves.getMoves().get(0).isBonusMove(), is(true));
+        assertThat(legalMoves.getMoves().get(0).getStatus().get("7"), is(1));
+
+        client.get().uri("/games/{gameId}/legal-moves", "unknown").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testHintOfANewGame() {
+        GameResponseDto newGame = createGame();
+        HintResponseDto hint = client.get().uri("/games/{gameId}/hint", newGame.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(HintResponseDto.class).returnResult().getResponseBody();
+        assertThat(hint.getNextHand(), is("Player 1"));
+        assertThat(hint.getPrincipalVariation().get(0), is(hint.getPitId()));
+
+        client.get().uri("/games/{gameId}/hint", "unknown").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testEventsStreamTheCurrentGameAndThenEveryMove() {
+        GameResponseDto newGame = createGame();
+        List<ServerSentEvent<GameStatusResponseDto>> events = client.get().uri("/games/{gameId}/events", newGame.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<GameStatusResponseDto>>() {
+                })
+                .getResponseBody()
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(event -> {
+                    if ("0".equals(event.id())) {
+                        client.put().uri("/games/{gameId}/pits/1", newGame.getId()).exchange().expectStatus().isOk();
+                    }
+                })
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events.get(0).event(), is("game"));
+        assertThat(events.get(0).data().getStatus().get("1"), is(6));
+        assertThat(events.get(1).id(), is("1"));
+        assertThat(events.get(1).data().getStatus().get("1"), is(0));
+
+        client.get().uri("/games/{gameId}/events", "unknown").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testPlayersAreKeptAndOnlyRankedOnceTheyFinishAGame() {
+        GameResponseDto newGame = client.post().uri("/games?player1=alice&player2=bob").exchange()
+                .expectStatus().isOk()
+                .expectBody(GameResponseDto.class).returnResult().getResponseBody();
+        assertThat(newGame.getPlayer1Id(), is("alice"));
+
+        GameResponseDto game = client.get().uri("/games/{gameId}", newGame.getId()).exchange()
+                .expectBody(GameResponseDto.class).returnResult().getResponseBody();
+        assertThat(game.getPlayer2Id(), is("bob"));
+        client.get().uri("/players/{playerId}", "player-" + UUID.randomUUID()).exchange().expectStatus().isNotFound();
+        client.get().uri("/leaderboard").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    public void testBulkCreateReturnsPlayableGames() {
+        GameResponseDto[] newGames = client.post().uri("/games/bulk?count=3&pitsPerSide=4").exchange()
+                .expectStatus().isOk()
+                .expectBody(GameResponseDto[].class).returnResult().getResponseBody();
+        assertThat(newGames.length, is(3));
+        assertThat(newGames[2].getUri(), is("http://localhost:" + port + "/games/" + newGames[2].getId()));
+
+        GameStatusResponseDto moveResponse = client.put().uri("/games/{gameId}/pits/1", newGames[2].getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(GameStatusResponseDto.class).returnResult().getResponseBody();
+        assertThat(moveResponse.getStatus().size(), is(10));
+
+        client.post().uri("/games/bulk?count=0").exchange().expectStatus().isBadRequest();
+    }
+
+    private GameResponseDto createGame() {
+        return client.post().uri("/games").exchange()
+                .expectStatus().isOk()
+                .expectBody(GameResponseDto.class).returnResult().getResponseBody();
+    }
+}
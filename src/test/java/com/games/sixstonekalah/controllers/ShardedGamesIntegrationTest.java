@@ -0,0 +1,87 @@
+package com.games.sixstonekalah.controllers;
+
+import com.games.sixstonekalah.model.GameResponseDto;
+import com.games.sixstonekalah.model.GameStatusResponseDto;
+import com.games.sixstonekalah.repository.ShardedGameRepository;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import redis.clients.jedis.Jedis;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Two nodes sharing two Redis shards, games are created on one node and played on both.
+ */
+public class ShardedGamesIntegrationTest {
+
+    private static MultiNodeHarness harness;
+
+    final RestTemplate template = new RestTemplate();
+
+    @BeforeClass
+    public static void startNodes() {
+        harness = MultiNodeHarness.start(2, 2, "games.storage=packed", "games.archive.directory=target/game-archive-test");
+    }
+
+    @AfterClass
+    public static void stopNodes() {
+        harness.close();
+    }
+
+    @Test
+    public void testGamesAreSpreadOverTheShardsTheirIdsName() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ResponseEntity<GameResponseDto> newGame = template.postForEntity(harness.url(0) + "/games", null, GameResponseDto.class);
+            assertThat(newGame.getHeaders().getFirst(GameRoutingFilter.NODE_HEADER), is("node-0"));
+            String id = newGame.getBody().getId();
+            int shard = ShardedGameRepository.shardOf(id);
+            shards.add(shard);
+            try (Jedis own = new Jedis("localhost", harness.shardPort(shard));
+                 Jedis other = new Jedis("localhost", harness.shardPort(1 - shard))) {
+                assertThat(own.exists("PackedGame:" + id), is(true));
+                assertThat(other.exists("PackedGame:" + id), is(false));
+            }
+        }
+        assertThat(shards.size(), is(2));
+
+        GameResponseDto[] bulk = template.postForObject(harness.url(1) + "/games/bulk?count=50", null, GameResponseDto[].class);
+        for (GameResponseDto game : bulk) {
+            try (Jedis own = new Jedis("localhost", harness.shardPort(ShardedGameRepository.shardOf(game.getId())))) {
+                assertThat(own.exists("PackedGame:" + game.getId()), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testAGameCanBePlayedOnEveryNode() {
+        GameResponseDto newGame = template.postForObject(harness.url(0) + "/games", null, GameResponseDto.class);
+
+        // node 0 caches the game on creation, the moves made on node 1 make its copy stale
+        ResponseEntity<GameStatusResponseDto> first = move(1, newGame.getId(), 1);
+        assertThat(first.getHeaders().getFirst(GameRoutingFilter.NODE_HEADER), is("node-1"));
+        assertThat(first.getBody().getNextHand(), is("Player 1"));
+        ResponseEntity<GameStatusResponseDto> second = move(0, newGame.getId(), 2);
+        assertThat(second.getHeaders().getFirst(GameRoutingFilter.NODE_HEADER), is("node-0"));
+        assertThat(second.getBody().getStatus().get("1"), is(0));
+        assertThat(second.getBody().getStatus().get("2"), is(0));
+        assertThat(second.getBody().getNextHand(), is("Player 2"));
+
+        GameStatusResponseDto third = move(1, newGame.getId(), 8).getBody();
+        assertThat(third.getStatus().get("8"), is(0));
+        assertThat(third.getNextHand(), is("Player 1"));
+    }
+
+    private ResponseEntity<GameStatusResponseDto> move(int node, String gameId, int pitId) {
+        return template.exchange(harness.url(node) + "/games/" + gameId + "/pits/" + pitId, HttpMethod.PUT, null,
+                GameStatusResponseDto.class);
+    }
+}
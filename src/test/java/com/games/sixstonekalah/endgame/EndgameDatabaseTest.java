@@ -0,0 +1,92 @@
+package com.games.sixstonekalah.endgame;
+
+import com.games.sixstonekalah.ai.AlphaBetaSearch;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class EndgameDatabaseTest {
+
+    private static final int MAX_SEEDS = 8;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static EndgameDatabase database;
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        EndgameSolver solver = new EndgameSolver(MAX_SEEDS);
+        Path file = folder.newFile("endgame.db").toPath();
+        EndgameDatabase.write(solver.getIndex(), solver.solve(), file);
+        database = EndgameDatabase.open(file);
+    }
+
+    @Test
+    public void testIndexIsADenseNumberingOfAllPositions() {
+        EndgameIndex index = new EndgameIndex(4);
+        BitSet seen = new BitSet();
+        int[] pits = new int[KalahBoard.SIZE];
+        int positions = count(index, pits, 0, 4, seen, 0) + count(index, pits, 0, 3, seen, 0)
+                + count(index, pits, 0, 2, seen, 0) + count(index, pits, 0, 1, seen, 0) + count(index, pits, 0, 0, seen, 0);
+
+        assertThat((long) positions * 2, is(index.size()));
+        assertThat((long) seen.cardinality(), is(index.size()));
+        assertThat((long) seen.nextClearBit(0), is(index.size()));
+    }
+
+    @Test
+    public void testDatabaseAgreesWithBruteForce() {
+        assertThat(new EndgameDatabaseVerifier(database).verify(6), is(0L));
+    }
+
+    @Test
+    public void testPositionsWithMoreSeedsAreNotCovered() {
+        assertThat(database.value(KalahBoard.newBoard(), PLAYER_1), is(EndgameDatabase.NOT_COVERED));
+        assertThat(database.bestMove(KalahBoard.newBoard(), PLAYER_1), is(0));
+    }
+
+    @Test
+    public void testSearchWithTheDatabaseFindsTheSameScore() {
+        int[] pits = {2, 0, 1, 0, 0, 1, 34, 1, 0, 2, 1, 0, 0, 30};
+        Zobrist zobrist = new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS);
+        SearchResult withoutDatabase = new AlphaBetaSearch(new TranspositionTable(1 << 12), zobrist)
+                .search(pits, PLAYER_2, Long.MAX_VALUE, AlphaBetaSearch.MAX_DEPTH);
+        SearchResult withDatabase = new AlphaBetaSearch(new TranspositionTable(1 << 12), zobrist, database)
+                .search(pits, PLAYER_2, Long.MAX_VALUE, AlphaBetaSearch.MAX_DEPTH);
+
+        assertThat(withDatabase.getScore(), is(withoutDatabase.getScore()));
+        assertThat(withDatabase.getNodes() < withoutDatabase.getNodes(), is(true));
+        assertThat(database.value(pits, PLAYER_2) + 30 - 34, is(withoutDatabase.getScore()));
+    }
+
+    private static int count(EndgameIndex index, int[] pits, int slot, int remaining, BitSet seen, int seeds) {
+        if (slot == EndgameIndex.PITS - 1) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = remaining;
+            int total = seeds + remaining;
+            seen.set((int) index.index(pits, total, PLAYER_1));
+            seen.set((int) index.index(pits, total, PLAYER_2));
+            return 1;
+        }
+        int positions = 0;
+        for (int value = 0; value <= remaining; value++) {
+            pits[EndgameIndex.PIT_SLOTS[slot]] = value;
+            positions += count(index, pits, slot + 1, remaining - value, seen, seeds + value);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,107 @@
+package com.games.sixstonekalah.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+import static com.games.sixstonekalah.engine.KalahBoard.NONE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BoardVariantTest {
+
+    @Test
+    public void testStandardVariantPlaysLikeKalahBoard() {
+        SplittableRandom random = new SplittableRandom(16);
+        int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        for (int game = 0; game < 1_000; game++) {
+            int[] expected = KalahBoard.newBoard();
+            int[] pits = BoardVariant.STANDARD.newBoard();
+            assertThat(pits, is(expected));
+            int player = PLAYER_1;
+            while (!KalahBoard.isGameOver(expected)) {
+                int pitId = moves[random.nextInt(KalahBoard.getLegalMoves(expected, player, moves))];
+                assertThat(BoardVariant.STANDARD.isPlayersPit(pitId, player), is(true));
+                int flags = KalahBoard.sow(expected, player, pitId);
+                assertThat(BoardVariant.STANDARD.sow(pits, player, pitId), is(flags));
+                assertThat(pits, is(expected));
+                player = (flags & BONUS_MOVE) != 0 ? player : 3 - player;
+            }
+            assertThat(BoardVariant.STANDARD.isGameOver(pits), is(true));
+            KalahBoard.collectRemainingSeeds(expected);
+            BoardVariant.STANDARD.collectRemainingSeeds(pits);
+            assertThat(pits, is(expected));
+            assertThat(BoardVariant.STANDARD.getWinner(pits), is(KalahBoard.getWinner(expected)));
+        }
+    }
+
+    @Test
+    public void testSmallerBoardSkipsTheOpponentKalah() {
+        BoardVariant variant = BoardVariant.of(4, 4, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER);
+        int[] pits = variant.newBoard();
+        assertThat(pits, is(new int[]{4, 4, 4, 4, 0, 4, 4, 4, 4, 0}));
+        assertThat(variant.isKalah(5), is(true));
+        assertThat(variant.isPlayersPit(6, PLAYER_2), is(true));
+
+        assertThat(variant.sow(pits, PLAYER_1, 1), is(BONUS_MOVE));
+        assertThat(pits, is(new int[]{0, 5, 5, 5, 1, 4, 4, 4, 4, 0}));
+        assertThat(variant.sow(pits, PLAYER_1, 4), is(NONE));
+        assertThat(pits, is(new int[]{0, 5, 5, 0, 2, 5, 5, 5, 5, 0}));
+        pits = new int[]{0, 5, 5, 0, 2, 5, 5, 5, 5, 7};
+        assertThat(variant.sow(pits, PLAYER_2, 9), is(NONE));
+        assertThat(pits, is(new int[]{1, 6, 6, 1, 2, 5, 5, 5, 0, 8}));
+    }
+
+    @Test
+    public void testEmptyCaptureRule() {
+        int[] pits = {1, 0, 4, 4, 0, 4, 4, 0, 4, 0};
+        BoardVariant emptyCapture = BoardVariant.of(4, 4, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER);
+        assertThat(emptyCapture.sow(pits, PLAYER_1, 1), is(CAPTURE));
+        assertThat(pits, is(new int[]{0, 0, 4, 4, 1, 4, 4, 0, 4, 0}));
+
+        pits = new int[]{1, 0, 4, 4, 0, 4, 4, 0, 4, 0};
+        BoardVariant noEmptyCapture = BoardVariant.of(4, 4, CaptureRule.NO_EMPTY_CAPTURE, SeedCollection.OWNER);
+        assertThat(noEmptyCapture.sow(pits, PLAYER_1, 1), is(NONE));
+        assertThat(pits, is(new int[]{0, 1, 4, 4, 0, 4, 4, 0, 4, 0}));
+
+        pits = new int[]{1, 0, 4, 4, 0, 4, 4, 3, 4, 0};
+        assertThat(noEmptyCapture.sow(pits, PLAYER_1, 1), is(CAPTURE));
+        assertThat(pits, is(new int[]{0, 0, 4, 4, 4, 4, 4, 0, 4, 0}));
+    }
+
+    @Test
+    public void testSeedCollectionRule() {
+        int[] pits = {0, 0, 0, 0, 10, 3, 3, 3, 3, 10};
+        BoardVariant owner = BoardVariant.of(4, 4, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER);
+        assertThat(owner.isGameOver(pits), is(true));
+        owner.collectRemainingSeeds(pits);
+        assertThat(pits, is(new int[]{0, 0, 0, 0, 10, 0, 0, 0, 0, 22}));
+        assertThat(owner.getWinner(pits), is(PLAYER_2));
+
+        pits = new int[]{0, 0, 0, 0, 10, 3, 3, 3, 3, 10};
+        BoardVariant opponent = BoardVariant.of(4, 4, CaptureRule.EMPTY_CAPTURE, SeedCollection.OPPONENT);
+        opponent.collectRemainingSeeds(pits);
+        assertThat(pits, is(new int[]{0, 0, 0, 0, 22, 0, 0, 0, 0, 10}));
+        assertThat(opponent.getWinner(pits), is(PLAYER_1));
+    }
+
+    @Test
+    public void testVariantsAreSharedAndDefaultToTheStandardBoard() {
+        assertThat(BoardVariant.orStandard(null, null, null, null), is(sameInstance(BoardVariant.STANDARD)));
+        assertThat(BoardVariant.orStandard(6, 6, null, SeedCollection.OWNER).isStandard(), is(true));
+        assertThat(BoardVariant.orStandard(4, null, null, null),
+                is(sameInstance(BoardVariant.of(4, 6, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER))));
+        assertThat(Arrays.stream(BoardVariant.of(12, 12, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER).newBoard()).sum(), is(288));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedBoardSizeIsRejected() {
+        BoardVariant.of(BoardVariant.MAX_PITS_PER_SIDE + 1, 4, CaptureRule.EMPTY_CAPTURE, SeedCollection.OWNER);
+    }
+}
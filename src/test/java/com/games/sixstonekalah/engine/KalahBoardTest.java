@@ -0,0 +1,60 @@
+package com.games.sixstonekalah.engine;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.games.sixstonekalah.engine.KalahBoard.BONUS_MOVE;
+import static com.games.sixstonekalah.engine.KalahBoard.CAPTURE;
+import static com.games.sixstonekalah.engine.KalahBoard.NONE;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class KalahBoardTest {
+
+    @Test
+    public void testNewBoardHasSixSeedsInEveryPitAndEmptyKalahs() {
+        assertThat(KalahBoard.newBoard(), is(new int[]{6, 6, 6, 6, 6, 6, 0, 6, 6, 6, 6, 6, 6, 0}));
+    }
+
+    @Test
+    public void testSowEndingInOwnKalahGivesABonusMove() {
+        int[] pits = KalahBoard.newBoard();
+        assertThat(KalahBoard.sow(pits, PLAYER_1, 1), is(BONUS_MOVE));
+        assertThat(pits, is(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}));
+    }
+
+    @Test
+    public void testSowSkipsOpponentKalah() {
+        int[] pits = {7, 6, 6, 0, 1, 9, 3, 0, 6, 10, 9, 9, 9, 1};
+        assertThat(KalahBoard.sow(pits, PLAYER_1, 6), is(NONE));
+        assertThat(pits, is(new int[]{8, 7, 6, 0, 1, 0, 4, 1, 7, 11, 10, 10, 10, 1}));
+    }
+
+    @Test
+    public void testSowEndingInOwnEmptyPitCapturesOppositeSeeds() {
+        int[] pits = {8, 7, 7, 1, 1, 2, 4, 0, 14, 10, 9, 10, 8, 2};
+        assertThat(KalahBoard.sow(pits, PLAYER_2, 13), is(CAPTURE));
+        assertThat(pits, is(new int[]{9, 8, 8, 2, 2, 0, 4, 0, 14, 10, 9, 10, 0, 7}));
+    }
+
+    @Test
+    public void testCollectRemainingSeedsAndWinner() {
+        int[] pits = {0, 0, 0, 0, 0, 0, 10, 6, 6, 6, 6, 6, 6, 26};
+        assertThat(KalahBoard.isGameOver(pits), is(true));
+        KalahBoard.collectRemainingSeeds(pits);
+        assertThat(pits, is(new int[]{0, 0, 0, 0, 0, 0, 10, 0, 0, 0, 0, 0, 0, 62}));
+        assertThat(KalahBoard.getWinner(pits), is(PLAYER_2));
+    }
+
+    @Test
+    public void testPitsSeedsMapRoundTrip() {
+        int[] pits = {0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0};
+        Map<String, Integer> pitsSeedsMap = KalahBoard.toPitsSeedsMap(pits);
+        assertThat(pitsSeedsMap.size(), is(14));
+        assertThat(pitsSeedsMap.get("7"), is(1));
+        assertThat(KalahBoard.fromPitsSeedsMap(pitsSeedsMap), is(pits));
+    }
+}
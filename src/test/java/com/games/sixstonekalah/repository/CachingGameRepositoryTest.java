@@ -0,0 +1,101 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CachingGameRepositoryTest {
+
+    private GameRepository gameRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingGameRepository cachingGameRepository;
+
+    @Before
+    public void setUp() {
+        gameRepository = Mockito.mock(GameRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cachingGameRepository = new CachingGameRepository(gameRepository, meterRegistry, 100, Duration.ofMinutes(1), true);
+    }
+
+    @Test
+    public void testSecondReadIsServedFromMemory() {
+        Game game = newGame();
+        Mockito.when(gameRepository.findById("gameId")).thenReturn(Optional.of(game));
+
+        Game first = cachingGameRepository.findById("gameId").get();
+        Game second = cachingGameRepository.findById("gameId").get();
+
+        Mockito.verify(gameRepository, Mockito.times(1)).findById("gameId");
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.getPits(), is(first.getPits()));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), is(1.0));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    public void testSaveWritesThroughAndCachesACopy() {
+        Game game = newGame();
+        cachingGameRepository.saveIfUnchanged(game, 0L);
+        game.getPits()[0] = 0;
+
+        Game cached = cachingGameRepository.findById("gameId").get();
+
+        Mockito.verify(gameRepository).saveIfUnchanged(game, 0L);
+        Mockito.verify(gameRepository, Mockito.never()).findById(ArgumentMatchers.anyString());
+        assertThat(cached.getPits()[0], is(6));
+    }
+
+    @Test
+    public void testConflictOnSaveDropsTheCachedGame() {
+        Game game = newGame();
+        cachingGameRepository.save(game);
+        Mockito.doThrow(new GameConflictException("Game was changed by another move"))
+                .when(gameRepository).saveIfUnchanged(game, 0L);
+        Mockito.when(gameRepository.findById("gameId")).thenReturn(Optional.of(newGame()));
+
+        catchException(() -> cachingGameRepository.saveIfUnchanged(game, 0L));
+        cachingGameRepository.findById("gameId");
+
+        assertThat(caughtException(), instanceOf(GameConflictException.class));
+        Mockito.verify(gameRepository).findById("gameId");
+    }
+
+    @Test
+    public void testCachedGameIsOnlyEvictedWhenOtherNodesMayChangeIt() {
+        CachingGameRepository alone = new CachingGameRepository(gameRepository, new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(1), false);
+        alone.save(newGame());
+        cachingGameRepository.save(newGame());
+
+        assertThat(alone.evictIfStale("gameId"), is(false));
+        assertThat(cachingGameRepository.evictIfStale("gameId"), is(true));
+        alone.findById("gameId");
+        Mockito.verify(gameRepository, Mockito.never()).findById("gameId");
+    }
+
+    private static Game newGame() {
+        return Game.builder()
+                .id("gameId")
+                .uri("URI")
+                .pits(KalahBoard.newBoard())
+                .nextToPlay(1)
+                .version(0L)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddedGameRepositoryTest {
+
+    /**
+     * A few games per region, so the journals span several of them.
+     */
+    private static final int REGION_SIZE = 256;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGamesAreRecoveredFromTheSnapshotAndTheJournalWrittenSince() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        EmbeddedGameRepository repository = new EmbeddedGameRepository(directory, REGION_SIZE);
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            games.add(newGame("game-" + i, 0L));
+        }
+        repository.createAll(games);
+        repository.snapshot();
+
+        repository.saveIfUnchanged(newGame("game-1", 1L), 0L);
+        repository.deleteById("game-2");
+        repository.save(newGame("game-20", 0L));
+
+        // not closed, as when the process dies: the journal has the writes since the snapshot
+        EmbeddedGameRepository recovered = new EmbeddedGameRepository(directory, REGION_SIZE);
+        assertThat(recovered.count(), is(20L));
+        assertThat(recovered.findById("game-1").get().getVersion(), is(1L));
+        assertThat(recovered.existsById("game-2"), is(false));
+        assertThat(recovered.findById("game-20").get().getPits(), is(KalahBoard.newBoard()));
+
+        recovered.saveIfUnchanged(newGame("game-1", 2L), 1L);
+        recovered.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count(), is(2L));
+        }
+        EmbeddedGameRepository reopened = new EmbeddedGameRepository(directory, REGION_SIZE);
+        assertThat(reopened.count(), is(20L));
+        assertThat(reopened.findById("game-1").get().getVersion(), is(2L));
+        reopened.close();
+    }
+
+    @Test
+    public void testRecoveryStopsAtATornRecord() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        EmbeddedGameRepository repository = new EmbeddedGameRepository(directory, REGION_SIZE);
+        repository.save(newGame("kept", 0L));
+        repository.save(newGame("torn", 0L));
+
+        Path journal;
+        try (Stream<Path> files = Files.list(directory)) {
+            journal = files.filter(file -> file.getFileName().toString().startsWith("journal-")).findFirst().get();
+        }
+        byte[] content = Files.readAllBytes(journal);
+        byte[] id = "torn".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i + id.length <= content.length; i++) {
+            if (Arrays.equals(content, i, i + id.length, id, 0, id.length)) {
+                content[i] ^= 1;
+            }
+        }
+        Files.write(journal, content);
+
+        EmbeddedGameRepository recovered = new EmbeddedGameRepository(directory, REGION_SIZE);
+        assertThat(recovered.existsById("kept"), is(true));
+        assertThat(recovered.count(), is(1L));
+        recovered.close();
+    }
+
+    @Test
+    public void testSaveIfUnchangedRejectsAStaleVersion() throws IOException {
+        EmbeddedGameRepository repository = new EmbeddedGameRepository(folder.getRoot().toPath(), REGION_SIZE);
+        repository.saveIfUnchanged(newGame("game", 0L), null);
+        repository.saveIfUnchanged(newGame("game", 1L), 0L);
+        try {
+            repository.saveIfUnchanged(newGame("game", 2L), 0L);
+            assertTrue(false);
+        } catch (GameConflictException e) {
+            assertThat(e.getMessage(), is("Game was changed by another move"));
+        }
+        try {
+            repository.saveIfUnchanged(newGame("missing", 1L), 0L);
+            assertTrue(false);
+        } catch (GameConflictException e) {
+            assertThat(repository.existsById("missing"), is(false));
+        }
+        assertThat(repository.findById("game").get().getVersion(), is(1L));
+        repository.close();
+    }
+
+    private static Game newGame(String id, Long version) {
+        return Game.builder()
+                .id(id)
+                .uri("URI")
+                .pits(KalahBoard.newBoard())
+                .nextToPlay(KalahBoard.PLAYER_1)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.service.GameHistoryService;
+import com.games.sixstonekalah.service.KalahGameService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"games.storage=events", "games.events.snapshot-interval=4", "games.cache.enabled=false"})
+public class EventSourcedGameRepositoryIntegrationTest {
+
+    @Autowired
+    GameRepository gameStore;
+
+    @Autowired
+    EventSourcedGameRepository eventSourcedGameRepository;
+
+    @Autowired
+    KalahGameService kalahGameService;
+
+    @Autowired
+    GameHistoryService gameHistoryService;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    @Test
+    public void testGameIsRebuiltFromSnapshotsAndLoggedMovesAndCanBeReplayedToAnyMove() throws InvalidMoveException, GameNotFoundException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+
+        List<int[]> states = new ArrayList<>();
+        states.add(KalahBoard.newBoard());
+        int[] pits = KalahBoard.newBoard();
+        int player = KalahBoard.PLAYER_1;
+        int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        for (int move = 0; move < 11; move++) {
+            KalahBoard.getLegalMoves(pits, player, moves);
+            Game game = kalahGameService.move(id, moves[0]);
+            pits = game.getPits();
+            player = game.getNextToPlay();
+            states.add(pits.clone());
+        }
+
+        Game game = gameStore.findById(id).get();
+        assertThat(game.getPits(), is(pits));
+        assertThat(game.getNextToPlay(), is(player));
+        assertThat(game.getVersion(), is(11L));
+        assertThat(eventSourcedGameRepository.countMoves(id), is(11L));
+        assertThat(redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.lLen(("GameSnapshots:" + id).getBytes())), is(3L));
+
+        for (int move = 0; move < states.size(); move++) {
+            assertThat(gameHistoryService.getGameAfterMoves(id, move).getPits(), is(states.get(move)));
+        }
+        try {
+            gameHistoryService.getGameAfterMoves(id, 12);
+            assertTrue(false);
+        } catch (GameNotFoundException e) {
+            assertThat(e.getMessage(), is("Game with id doesnt exist or has less moves"));
+        }
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testBatchOfMovesIsAppendedInOneWrite() throws InvalidMoveException, GameNotFoundException {
+        String id = UUID.randomUUID().toString();
+        kalahGameService.creteNewGame(id, "URI");
+
+        kalahGameService.move(id, Arrays.asList(1, 2, 8, 3));
+
+        assertThat(eventSourcedGameRepository.countMoves(id), is(4L));
+        assertThat(gameStore.findById(id).get().getVersion(), is(1L));
+        assertThat(gameHistoryService.getGameAfterMoves(id, 1).getPits(), is(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testGamesCreatedTogetherAreLoggedLikeASingleNewGame() throws InvalidMoveException, GameNotFoundException {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        gameStore.createAll(Arrays.asList(
+                Game.builder().id(first).uri("URI").pits(KalahBoard.newBoard()).nextToPlay(1).version(0L).build(),
+                Game.builder().id(second).uri("URI").pits(KalahBoard.newBoard()).nextToPlay(1).version(0L).build()));
+
+        kalahGameService.move(first, 1);
+
+        assertThat(gameStore.findById(first).get().getVersion(), is(1L));
+        assertThat(gameStore.findById(second).get().getPits(), is(KalahBoard.newBoard()));
+        assertThat(gameHistoryService.getGameAfterMoves(first, 0).getPits(), is(KalahBoard.newBoard()));
+        gameStore.deleteAllById(Arrays.asList(first, second));
+    }
+
+    @Test
+    public void testAppendWithAStaleVersionIsRejected() {
+        String id = UUID.randomUUID().toString();
+        Game game = Game.builder().id(id).uri("URI").pits(KalahBoard.newBoard()).nextToPlay(1).version(1L).build();
+        gameStore.save(game);
+
+        try {
+            gameStore.saveIfUnchanged(game.toBuilder().version(2L).build(), 0L, Collections.singletonList(1));
+            assertTrue(false);
+        } catch (GameConflictException e) {
+            assertThat(e.getMessage(), is("Game was changed by another move"));
+        }
+        assertThat(eventSourcedGameRepository.countMoves(id), is(0L));
+        assertThat(gameStore.findById(id).get().getVersion(), is(1L));
+        gameStore.deleteById(id);
+    }
+}
@@ -0,0 +1,106 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.BoardVariant;
+import com.games.sixstonekalah.engine.CaptureRule;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.engine.SeedCollection;
+import com.games.sixstonekalah.model.Game;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GameCodecTest {
+
+    @Test
+    public void testEncodedGameDecodesToTheSameGame() {
+        Game game = Game.builder()
+                .id("0f5b8a4e-3d4c-4a8e-9d3e-2b1f6c7a8d90")
+                .uri("http://localhost:8080/games/0f5b8a4e-3d4c-4a8e-9d3e-2b1f6c7a8d90")
+                .pits(new int[]{0, 0, 0, 0, 0, 0, 10, 0, 0, 0, 0, 0, 0, 62})
+                .lastPlayedBy(1)
+                .nextToPlay(2)
+                .bonusMove(true)
+                .gameOver(true)
+                .playerWon(2)
+                .version(42L)
+                .build();
+
+        Game decoded = GameCodec.decode(GameCodec.encode(game));
+
+        assertThat(decoded.getId(), is(game.getId()));
+        assertThat(decoded.getUri(), is(game.getUri()));
+        assertThat(decoded.getPits(), is(game.getPits()));
+        assertThat(decoded.getLastPlayedBy(), is(1));
+        assertThat(decoded.getNextToPlay(), is(2));
+        assertThat(decoded.isBonusMove(), is(true));
+        assertThat(decoded.isGameOver(), is(true));
+        assertThat(decoded.getPlayerWon(), is(2));
+        assertThat(decoded.getVersion(), is(42L));
+    }
+
+    @Test
+    public void testNewGameIsStoredInOneByteSeedsAndKeepsMissingValues() {
+        Game game = Game.builder().id("id").uri("uri").pits(KalahBoard.newBoard()).nextToPlay(1).build();
+
+        byte[] encoded = GameCodec.encode(game);
+        Game decoded = GameCodec.decode(encoded);
+
+        assertThat(encoded.length, is(1 + 8 + 3 + 14 + 2 + 2 + 2 + 3));
+        assertThat(decoded.getLastPlayedBy(), nullValue());
+        assertThat(decoded.getVersion(), nullValue());
+    }
+
+    @Test
+    public void testPitsWithMoreThan255SeedsAreStoredInTwoBytes() {
+        int[] pits = new int[KalahBoard.SIZE];
+        pits[KalahBoard.PLAYER_2_KALAH_INDEX - 1] = 300;
+        Game game = Game.builder().id("id").uri("uri").pits(pits).nextToPlay(1).build();
+
+        assertThat(GameCodec.decode(GameCodec.encode(game)).getPits(), is(pits));
+    }
+
+    @Test
+    public void testBoardVariantIsKept() {
+        BoardVariant variant = BoardVariant.of(4, 3, CaptureRule.NO_EMPTY_CAPTURE, SeedCollection.OPPONENT);
+        Game game = Game.builder().id("id").uri("uri").variant(variant).pits(variant.newBoard()).nextToPlay(1).build();
+
+        byte[] encoded = GameCodec.encode(game);
+        Game decoded = GameCodec.decode(encoded);
+
+        assertThat(encoded.length, is(1 + 8 + 3 + 10 + 3 + 2 + 2 + 2 + 3));
+        assertThat(decoded.getVariant(), is(sameInstance(variant)));
+        assertThat(decoded.getPits(), is(game.getPits()));
+        assertThat(GameCodec.decode(GameCodec.encode(decoded)).getVariant(), is(sameInstance(variant)));
+    }
+
+    @Test
+    public void testStandardGameHasNoVariant() {
+        Game game = Game.builder().id("id").uri("uri").variant(BoardVariant.STANDARD).pits(KalahBoard.newBoard()).nextToPlay(1).build();
+
+        assertThat(game.getPitsPerSide() == null, is(true));
+        assertThat(GameCodec.decode(GameCodec.encode(game)).getVariant(), is(sameInstance(BoardVariant.STANDARD)));
+    }
+
+    @Test
+    public void testPlayersFollowTheUriAndAreLeftOutWhenThereAreNone() {
+        Game game = Game.builder().id("id").uri("uri").pits(KalahBoard.newBoard()).nextToPlay(1)
+                .player1Id("alice").player2Id("bob").build();
+
+        byte[] encoded = GameCodec.encode(game);
+        Game decoded = GameCodec.decode(encoded);
+
+        assertThat(encoded.length, is(1 + 8 + 3 + 14 + 2 + 2 + 2 + 3 + 2 + 5 + 2 + 3));
+        assertThat(decoded.getUri(), is("uri"));
+        assertThat(decoded.getPlayer1Id(), is("alice"));
+        assertThat(decoded.getPlayer2Id(), is("bob"));
+
+        Game onlyPlayer2 = GameCodec.decode(GameCodec.encode(game.toBuilder().player1Id(null).build()));
+        assertThat(onlyPlayer2.getPlayer1Id(), nullValue());
+        assertThat(onlyPlayer2.getPlayer2Id(), is("bob"));
+        assertThat(GameCodec.decode(GameCodec.encode(game.toBuilder().player1Id(null).player2Id(null).build())).getPlayer2Id(),
+                nullValue());
+    }
+}
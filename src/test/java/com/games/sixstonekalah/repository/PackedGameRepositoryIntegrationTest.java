@@ -0,0 +1,129 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.GameConflictException;
+import com.games.sixstonekalah.model.Game;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"games.storage=packed", "games.cache.enabled=false"})
+public class PackedGameRepositoryIntegrationTest {
+
+    @Autowired
+    GameRepository gameStore;
+
+    @Autowired
+    @Qualifier("gameRepository")
+    GameRepository hashGameRepository;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    @Test
+    public void testGameStoredInTheHashLayoutIsReadAndMovedToThePackedLayout() {
+        String id = UUID.randomUUID().toString();
+        hashGameRepository.save(newGame(id, 3L));
+
+        Game game = gameStore.findById(id).get();
+        assertThat(game.getVersion(), is(3L));
+
+        game.setVersion(4L);
+        gameStore.saveIfUnchanged(game, 3L);
+
+        assertThat(hashGameRepository.existsById(id), is(false));
+        assertThat(redisTemplate.hasKey("Game:" + id), is(false));
+        assertThat(gameStore.findById(id).get().getVersion(), is(4L));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testSaveWithAStaleVersionIsRejected() {
+        String id = UUID.randomUUID().toString();
+        gameStore.save(newGame(id, 1L));
+
+        try {
+            gameStore.saveIfUnchanged(newGame(id, 2L), 0L);
+            assertTrue(false);
+        } catch (GameConflictException e) {
+            assertThat(e.getMessage(), is("Game was changed by another move"));
+        }
+        assertThat(gameStore.findById(id).get().getVersion(), is(1L));
+        gameStore.deleteById(id);
+    }
+
+    @Test
+    public void testGamesCreatedTogetherAreStoredPacked() {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        gameStore.createAll(Arrays.asList(newGame(first, 0L), newGame(second, 0L)));
+
+        assertThat(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.keyCommands()
+                .exists(PackedGameRepository.key(first))), is(true));
+        assertThat(gameStore.findById(second).get().getVersion(), is(0L));
+        gameStore.saveIfUnchanged(newGame(first, 1L), 0L);
+        assertThat(gameStore.findById(first).get().getVersion(), is(1L));
+        gameStore.deleteAllById(Arrays.asList(first, second));
+    }
+
+    @Test
+    public void testGameSavedWithThePitsSeedsMapLayoutStillLoads() {
+        String id = UUID.randomUUID().toString();
+        Map<byte[], byte[]> fields = new HashMap<>();
+        fields.put(bytes("_class"), bytes(Game.class.getName()));
+        fields.put(bytes("id"), bytes(id));
+        fields.put(bytes("uri"), bytes("URI"));
+        fields.put(bytes("nextToPlay"), bytes("2"));
+        fields.put(bytes("bonusMove"), bytes("0"));
+        fields.put(bytes("playerWon"), bytes("0"));
+        fields.put(bytes("gameOver"), bytes("0"));
+        for (int pitId = 1; pitId <= KalahBoard.SIZE; pitId++) {
+            fields.put(bytes("pitsSeedsMap.[" + pitId + "]"), bytes(String.valueOf(pitId)));
+        }
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.hashCommands().hMSet(bytes("Game:" + id), fields);
+            connection.setCommands().sAdd(bytes("Game"), bytes(id));
+            return null;
+        });
+
+        Game game = gameStore.findById(id).get();
+        assertThat(game.getPits(), is(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14}));
+        assertThat(game.getNextToPlay(), is(2));
+        assertThat(hashGameRepository.findAllById(Arrays.asList(id, UUID.randomUUID().toString())).iterator().next()
+                .getPits()[KalahBoard.SIZE - 1], is(14));
+
+        gameStore.saveIfUnchanged(game, null);
+        assertThat(gameStore.findById(id).get().getPits()[0], is(1));
+        gameStore.deleteById(id);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Game newGame(String id, Long version) {
+        return Game.builder()
+                .id(id)
+                .uri("URI")
+                .pits(KalahBoard.newBoard())
+                .nextToPlay(1)
+                .version(version)
+                .build();
+    }
+}
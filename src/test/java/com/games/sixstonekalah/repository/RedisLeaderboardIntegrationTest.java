@@ -0,0 +1,147 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.model.Game;
+import com.games.sixstonekalah.model.PlayerStatsDto;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "games.cache.enabled=false")
+public class RedisLeaderboardIntegrationTest {
+
+    @Autowired
+    Leaderboard leaderboard;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> players = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        redisTemplate.execute((RedisCallback<Long>) connection -> {
+            for (String player : players) {
+                connection.zSetCommands().zRem(RedisLeaderboard.RATINGS_KEY.getBytes(StandardCharsets.UTF_8),
+                        player.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        redisTemplate.delete(keys);
+    }
+
+    @Test
+    public void testFinishedGameIsCountedOnceForBothPlayers() {
+        String alice = player();
+        String bob = player();
+        Game game = finishedGame(alice, bob, 1, new int[]{0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32});
+
+        assertThat(leaderboard.gameOver(game), is(true));
+        assertThat(leaderboard.gameOver(game), is(false));
+
+        PlayerStatsDto winner = leaderboard.findPlayer(alice).get();
+        PlayerStatsDto loser = leaderboard.findPlayer(bob).get();
+        assertThat(winner.getRating(), closeTo(1516, 1e-9));
+        assertThat(loser.getRating(), closeTo(1484, 1e-9));
+        assertThat(winner.getWins(), is(1L));
+        assertThat(winner.getLosses(), is(0L));
+        assertThat(loser.getLosses(), is(1L));
+        assertThat(winner.getAverageMargin(), is(8.0));
+        assertThat(loser.getAverageMargin(), is(-8.0));
+        assertThat(winner.getRank(), lessThan(loser.getRank()));
+
+        // losing as the favourite costs more than the first win brought
+        Game rematch = finishedGame(alice, bob, 2, new int[]{0, 0, 0, 0, 0, 0, 35, 0, 0, 0, 0, 0, 0, 37});
+        leaderboard.gameOver(rematch);
+        PlayerStatsDto afterRematch = leaderboard.findPlayer(alice).get();
+        assertThat(afterRematch.getRating(), lessThan(1500.0));
+        assertThat(afterRematch.getAverageMargin(), is(3.0));
+        assertThat(leaderboard.findPlayer(player()).isPresent(), is(false));
+    }
+
+    @Test
+    public void testDrawScoresHalfAWin() {
+        String alice = player();
+        String bob = player();
+        // the game rules hand a tie to Player 2, the leaderboard counts it as a draw
+        Game game = finishedGame(alice, bob, 2, new int[]{0, 0, 0, 0, 0, 0, 36, 0, 0, 0, 0, 0, 0, 36});
+
+        assertThat(leaderboard.gameOver(game), is(true));
+
+        PlayerStatsDto player1 = leaderboard.findPlayer(alice).get();
+        PlayerStatsDto player2 = leaderboard.findPlayer(bob).get();
+        assertThat(player1.getRating(), closeTo(1500, 1e-9));
+        assertThat(player2.getRating(), closeTo(1500, 1e-9));
+        assertThat(player1.getDraws(), is(1L));
+        assertThat(player2.getDraws(), is(1L));
+        assertThat(player1.getWins() + player1.getLosses(), is(0L));
+        assertThat(player2.getWins() + player2.getLosses(), is(0L));
+        assertThat(player2.getAverageMargin(), is(0.0));
+    }
+
+    @Test
+    public void testGamesWithoutTwoPlayersAreNotCounted() {
+        String alice = player();
+        int[] pits = {0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32};
+
+        assertThat(leaderboard.gameOver(finishedGame(alice, null, 1, pits)), is(false));
+        assertThat(leaderboard.gameOver(finishedGame(alice, alice, 1, pits)), is(false));
+        assertThat(leaderboard.findPlayer(alice).isPresent(), is(false));
+    }
+
+    @Test
+    public void testTopPlayersAreRankedByRating() {
+        for (int i = 0; i < 3; i++) {
+            leaderboard.gameOver(finishedGame(player(), player(), 1, new int[]{0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32}));
+        }
+
+        List<PlayerStatsDto> top = leaderboard.top(5);
+        assertThat(top.size(), is(5));
+        for (int i = 0; i < top.size(); i++) {
+            assertThat(top.get(i).getRank(), is(i + 1L));
+            if (i > 0) {
+                assertThat(top.get(i - 1).getRating(), greaterThanOrEqualTo(top.get(i).getRating()));
+            }
+            assertThat(leaderboard.findPlayer(top.get(i).getPlayerId()).get().getRank(), is(i + 1L));
+        }
+    }
+
+    private String player() {
+        String player = "player-" + UUID.randomUUID();
+        players.add(player);
+        keys.add(RedisLeaderboard.PLAYER_PREFIX + player);
+        return player;
+    }
+
+    private Game finishedGame(String player1Id, String player2Id, int playerWon, int[] pits) {
+        String id = UUID.randomUUID().toString();
+        keys.add(RedisLeaderboard.COUNTED_PREFIX + id);
+        return Game.builder()
+                .id(id)
+                .uri("URI")
+                .pits(pits)
+                .nextToPlay(1)
+                .gameOver(true)
+                .playerWon(playerWon)
+                .player1Id(player1Id)
+                .player2Id(player2Id)
+                .build();
+    }
+}
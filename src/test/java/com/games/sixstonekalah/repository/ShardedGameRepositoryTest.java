@@ -0,0 +1,101 @@
+package com.games.sixstonekalah.repository;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.model.Game;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ShardedGameRepositoryTest {
+
+    private GameRepository primary;
+    private GameRepository shard0;
+    private GameRepository shard1;
+    private ShardedGameRepository shardedGameRepository;
+
+    @Before
+    public void setUp() {
+        primary = Mockito.mock(GameRepository.class);
+        shard0 = Mockito.mock(GameRepository.class);
+        shard1 = Mockito.mock(GameRepository.class);
+        shardedGameRepository = new ShardedGameRepository(primary, Arrays.asList(shard0, shard1));
+    }
+
+    @Test
+    public void testNewIdsCarryTheirShardAndSpreadOverAllShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String id = shardedGameRepository.newId();
+            int shard = ShardedGameRepository.shardOf(id);
+            assertThat(id.startsWith("s" + shard + "-"), is(true));
+            shards.add(shard);
+        }
+        assertThat(shards, is(new HashSet<>(Arrays.asList(0, 1))));
+    }
+
+    @Test
+    public void testIdsWithoutAKnownShardStayOnThePrimaryStore() {
+        assertThat(ShardedGameRepository.shardOf("0f8fad5b-d9cb-469f-a165-70867728950e"), is(-1));
+        assertThat(ShardedGameRepository.shardOf("s-1234"), is(-1));
+        assertThat(ShardedGameRepository.shardOf("sx-1234"), is(-1));
+        assertThat(ShardedGameRepository.shardOf("s12"), is(-1));
+        assertThat(ShardedGameRepository.shardOf("s12-1234"), is(12));
+
+        assertThat(shardedGameRepository.storeOf("0f8fad5b-d9cb-469f-a165-70867728950e") == primary, is(true));
+        assertThat(shardedGameRepository.storeOf("s2-1234") == primary, is(true));
+        assertThat(shardedGameRepository.storeOf("s1-1234") == shard1, is(true));
+    }
+
+    @Test
+    public void testGamesAreReadAndSavedOnTheirShard() {
+        Game game = newGame("s1-1234");
+        Mockito.when(shard1.findById("s1-1234")).thenReturn(Optional.of(game));
+
+        assertThat(shardedGameRepository.findById("s1-1234").get() == game, is(true));
+        shardedGameRepository.saveIfUnchanged(game, 3L, Collections.singletonList(1));
+
+        Mockito.verify(shard1).saveIfUnchanged(game, 3L, Collections.singletonList(1));
+        Mockito.verifyNoInteractions(primary, shard0);
+    }
+
+    @Test
+    public void testGamesCreatedTogetherAreWrittenOncePerStore() {
+        Game first = newGame("s0-1");
+        Game second = newGame("s1-2");
+        Game third = newGame("s0-3");
+        Game legacy = newGame("4");
+
+        shardedGameRepository.createAll(Arrays.asList(first, second, third, legacy));
+
+        Mockito.verify(shard0).createAll(Arrays.asList(first, third));
+        Mockito.verify(shard1).createAll(Collections.singletonList(second));
+        Mockito.verify(primary).createAll(Collections.singletonList(legacy));
+    }
+
+    @Test
+    public void testCountAddsUpAllStores() {
+        Mockito.when(primary.count()).thenReturn(1L);
+        Mockito.when(shard0.count()).thenReturn(2L);
+        Mockito.when(shard1.count()).thenReturn(3L);
+
+        assertThat(shardedGameRepository.count(), is(6L));
+        shardedGameRepository.deleteAllById(Arrays.asList("s0-1", "s1-2"));
+        Mockito.verify(shard0).deleteById("s0-1");
+        Mockito.verify(shard1).deleteById("s1-2");
+        Mockito.verify(primary, Mockito.never()).deleteById(ArgumentMatchers.anyString());
+    }
+
+    private static Game newGame(String id) {
+        return Game.builder().id(id).uri("URI").pits(KalahBoard.newBoard()).nextToPlay(KalahBoard.PLAYER_1).version(0L).build();
+    }
+}
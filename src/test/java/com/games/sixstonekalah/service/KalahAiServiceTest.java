@@ -0,0 +1,57 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.PositionCache;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_2;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class KalahAiServiceTest {
+
+    private final int[] pits = {2, 0, 1, 0, 3, 1, 30, 1, 0, 2, 1, 0, 1, 30};
+    private PositionCache positionCache;
+    private KalahAiService kalahAiService;
+
+    @Before
+    public void setUp() {
+        positionCache = new PositionCache(new SimpleMeterRegistry(), 100, 1);
+        ParallelSearch parallelSearch = new ParallelSearch(new TranspositionTable(1 << 16),
+                new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS), ForkJoinPool.commonPool(), 1);
+        kalahAiService = new KalahAiService(Mockito.mock(KalahGameService.class), parallelSearch, positionCache, 20, 100);
+        positionCache.put(pits, PLAYER_2, SearchResult.builder()
+                .bestMove(KalahBoard.getFirstPitIndex(PLAYER_2))
+                .score(0)
+                .depth(3)
+                .build());
+    }
+
+    @Test
+    public void testCachedPositionAnswersTheDefaultBudget() {
+        SearchResult defaultBudget = kalahAiService.search(pits, PLAYER_2, null);
+        SearchResult smallerBudget = kalahAiService.search(pits, PLAYER_2, 5L);
+
+        assertThat(defaultBudget.getDepth(), is(3));
+        assertThat(defaultBudget.getNodes(), is(0L));
+        assertThat(smallerBudget.getNodes(), is(0L));
+    }
+
+    @Test
+    public void testLargerBudgetSearchesDeeperThanTheCachedPosition() {
+        SearchResult searched = kalahAiService.search(pits, PLAYER_2, 100L);
+
+        assertThat(searched.getNodes() > 0, is(true));
+        assertThat(searched.getDepth() > 3, is(true));
+        assertThat(positionCache.get(pits, PLAYER_2).getDepth(), is(searched.getDepth()));
+    }
+}
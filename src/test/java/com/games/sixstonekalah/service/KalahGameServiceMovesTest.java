@@ -1,9 +1,14 @@
 package com.games.sixstonekalah.service;
 
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.events.GameEventPublisher;
 import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.metrics.GameMetrics;
 import com.games.sixstonekalah.model.Game;
 import com.games.sixstonekalah.exceptions.InvalidMoveException;
 import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.repository.Leaderboard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -80,7 +85,8 @@ public class KalahGameServiceMovesTest {
     @Test
     public void testMoveWithExpectations() throws InvalidMoveException, GameNotFoundException {
         gameRepository = Mockito.mock(GameRepository.class);
-        kalahGameService = new KalahGameService(gameRepository);
+        kalahGameService = new KalahGameService(gameRepository, new GameMetrics(new SimpleMeterRegistry()), GameEventPublisher.NONE, GameArchive.NONE,
+                Leaderboard.NONE);
         Game game = Game.builder()
                 .id(UUID.randomUUID().toString())
                 .uri("URI")
@@ -1,35 +1,59 @@
 package com.games.sixstonekalah.service;
 
+import com.games.sixstonekalah.archive.GameArchive;
+import com.games.sixstonekalah.events.GameEventPublisher;
+import com.games.sixstonekalah.exceptions.GameConflictException;
 import com.games.sixstonekalah.exceptions.GameNotFoundException;
+import com.games.sixstonekalah.metrics.GameMetrics;
 import com.games.sixstonekalah.model.Game;
 import com.googlecode.catchexception.apis.CatchExceptionHamcrestMatchers;
 import com.games.sixstonekalah.exceptions.InvalidMoveException;
 import com.games.sixstonekalah.repository.GameRepository;
+import com.games.sixstonekalah.repository.Leaderboard;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.googlecode.catchexception.CatchException.catchException;
 import static com.googlecode.catchexception.CatchException.caughtException;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.AllOf.allOf;
+import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
 public class KalahGameServiceTest {
 
     private GameRepository gameRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private GameEventPublisher gameEventPublisher;
+    private GameArchive gameArchive;
+    private Leaderboard leaderboard;
     private KalahGameService kalahGameService;
 
     @Before
     public void setUp() {
-        gameRepository = Mockito.mock(GameRepository.class);
-        kalahGameService = new KalahGameService(gameRepository);
+        // the saves with moves fall through to saveIfUnchanged(game, version) like on the whole game stores
+        gameRepository = Mockito.mock(GameRepository.class, Mockito.CALLS_REAL_METHODS);
+        meterRegistry = new SimpleMeterRegistry();
+        gameEventPublisher = Mockito.mock(GameEventPublisher.class);
+        gameArchive = Mockito.mock(GameArchive.class);
+        leaderboard = Mockito.mock(Leaderboard.class);
+        kalahGameService = new KalahGameService(gameRepository, new GameMetrics(meterRegistry), gameEventPublisher, gameArchive,
+                leaderboard);
     }
 
     @Test
@@ -52,7 +76,7 @@ public class KalahGameServiceTest {
                 .thenReturn(Optional.of(game));
 
         int moveFromOpponentPits = 8;
-        catchException(kalahGameService).move(game.getId(), moveFromOpponentPits);
+        catchException(() -> kalahGameService.move(game.getId(), moveFromOpponentPits));
         assertThat(caughtException(), allOf(
                 instanceOf(InvalidMoveException.class),
                 CatchExceptionHamcrestMatchers.hasMessage("Move from other players pit is not possible")
@@ -79,7 +103,7 @@ public class KalahGameServiceTest {
                 .thenReturn(Optional.of(game));
 
         int moveFromAnEmptyPit = 1;
-        catchException(kalahGameService).move(game.getId(), moveFromAnEmptyPit);
+        catchException(() -> kalahGameService.move(game.getId(), moveFromAnEmptyPit));
         assertThat(caughtException(), allOf(
                 instanceOf(InvalidMoveException.class),
                 CatchExceptionHamcrestMatchers.hasMessage("Move cannot be started from an empty pit")
@@ -105,15 +129,15 @@ public class KalahGameServiceTest {
         Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
                 .thenReturn(Optional.of(game));
 
-        int startMovingFromKalah = 7;
-        catchException(kalahGameService).move(game.getId(), startMovingFromKalah);
+        int startMovingFromPlayer1Kalah = 7;
+        catchException(() -> kalahGameService.move(game.getId(), startMovingFromPlayer1Kalah));
         assertThat(caughtException(), allOf(
                 instanceOf(InvalidMoveException.class),
                 CatchExceptionHamcrestMatchers.hasMessage("Move cannot be done from the house")
         ));
 
-        startMovingFromKalah = 14;
-        catchException(kalahGameService).move(game.getId(), startMovingFromKalah);
+        int startMovingFromPlayer2Kalah = 14;
+        catchException(() -> kalahGameService.move(game.getId(), startMovingFromPlayer2Kalah));
         assertThat(caughtException(), allOf(
                 instanceOf(InvalidMoveException.class),
                 CatchExceptionHamcrestMatchers.hasMessage("Move cannot be done from the house")
@@ -140,11 +164,252 @@ public class KalahGameServiceTest {
                 .thenReturn(Optional.of(game));
 
         int invalidPitId = 15;
-        catchException(kalahGameService).move(game.getId(), invalidPitId);
+        catchException(() -> kalahGameService.move(game.getId(), invalidPitId));
         assertThat(caughtException(), allOf(
                 instanceOf(InvalidMoveException.class),
                 CatchExceptionHamcrestMatchers.hasMessage("Enter a valid pit id")
         ));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testConcurrentMoveIsRetriedOnAFreshCopyOfTheGame() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)));
+        Mockito.doThrow(new GameConflictException("Game was changed by another move"))
+                .doNothing()
+                .when(gameRepository).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(3L));
+
+        Game result = kalahGameService.move("gameId", 1);
+
+        Mockito.verify(gameRepository, Mockito.times(2)).findById("gameId");
+        assertThat(result.getVersion(), is(4L));
+        assertThat(result.getPitsSeedsMap().get("7"), is(1));
+    }
+
+    @Test
+    public void testWhenConflictsKeepHappeningThrowsConflictException() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)));
+        Mockito.doThrow(new GameConflictException("Game was changed by another move"))
+                .when(gameRepository).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(3L));
+
+        catchException(() -> kalahGameService.move("gameId", 1));
+        assertThat(caughtException(), allOf(
+                instanceOf(GameConflictException.class),
+                CatchExceptionHamcrestMatchers.hasMessage("Game was changed by another move")
+        ));
+        Mockito.verify(gameRepository, Mockito.times(3)).findById("gameId");
+    }
+
+    @Test
+    public void testBatchOfMovesIsSavedOnce() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.of(newGameWithVersion(3L)));
+
+        MovesResult result = kalahGameService.move("gameId", Arrays.asList(1, 2, 8));
+
+        Mockito.verify(gameRepository, Mockito.times(1)).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(3L));
+        assertThat(result.getMovesApplied(), is(3));
+        assertThat(result.getFailedMoveIndex(), is(nullValue()));
+        assertThat(result.getGame().getVersion(), is(4L));
+        assertThat(result.getGame().getPits(), is(new int[]{1, 0, 8, 8, 8, 8, 2, 0, 8, 7, 7, 7, 7, 1}));
+        assertThat(result.getGame().getNextToPlay(), is(1));
+    }
+
+    @Test
+    public void testBatchStopsAtTheFirstInvalidMoveAndKeepsTheMovesBeforeIt() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.of(newGameWithVersion(3L)));
+
+        MovesResult result = kalahGameService.move("gameId", Arrays.asList(1, 1, 2));
+
+        Mockito.verify(gameRepository, Mockito.times(1)).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(3L));
+        assertThat(result.getMovesApplied(), is(1));
+        assertThat(result.getFailedMoveIndex(), is(1));
+        assertThat(result.getFailureReason(), is("Move cannot be started from an empty pit"));
+        assertThat(result.getGame().getPitsSeedsMap().get("1"), is(0));
+        assertThat(result.getGame().getPitsSeedsMap().get("2"), is(7));
+    }
+
+    @Test
+    public void testBatchFailingOnTheFirstMoveIsNotSaved() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.of(newGameWithVersion(3L)));
+
+        MovesResult result = kalahGameService.move("gameId", Arrays.asList(8, 1));
+
+        Mockito.verify(gameRepository, Mockito.never()).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.any());
+        assertThat(result.getMovesApplied(), is(0));
+        assertThat(result.getFailedMoveIndex(), is(0));
+        assertThat(result.getFailureReason(), is("Move from other players pit is not possible"));
+    }
+
+    @Test
+    public void testBatchStopsAtTheMoveFinishingTheGame() throws InvalidMoveException, GameNotFoundException {
+        Game settled = newGameWithVersion(9L);
+        settled.setPits(new int[]{0, 0, 0, 0, 0, 0, 40, 6, 6, 0, 0, 0, 20, 0});
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString())).thenReturn(Optional.of(settled));
+
+        MovesResult result = kalahGameService.move("gameId", Arrays.asList(1, 2, 3));
+
+        assertThat(result.getGame().isGameOver(), is(true));
+        assertThat(result.getMovesApplied(), is(1));
+        assertThat(result.getFailedMoveIndex(), is(1));
+        assertThat(result.getFailureReason(), is("Game is over"));
+        Mockito.verify(gameRepository).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(9L),
+                ArgumentMatchers.eq(Collections.singletonList(1)));
+
+        MovesResult afterGameOver = kalahGameService.move("gameId", Arrays.asList(1, 2));
+        assertThat(afterGameOver.getMovesApplied(), is(0));
+        assertThat(afterGameOver.isChanged(), is(false));
+    }
+
+    @Test
+    public void testMovesAreRecordedInTheMetrics() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)));
+
+        kalahGameService.move("gameId", 1);
+        catchException(() -> kalahGameService.move("gameId", 8));
+
+        assertThat(meterRegistry.get("games.operation").tag("operation", "move").timer().count(), is(2L));
+        assertThat(meterRegistry.get("games.store").tag("operation", "load").timer().count(), is(2L));
+        assertThat(meterRegistry.get("games.store").tag("operation", "save").timer().count(), is(1L));
+        assertThat(meterRegistry.get("games.sows").counter().count(), is(1.0));
+        assertThat(meterRegistry.get("games.bonus.moves").counter().count(), is(1.0));
+        assertThat(meterRegistry.get("games.invalid.moves").tag("reason", "Move from other players pit is not possible")
+                .counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testOnlySavedMovesArePublished() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)));
+        Mockito.doThrow(new GameConflictException("Game was changed by another move"))
+                .doNothing()
+                .when(gameRepository).saveIfUnchanged(ArgumentMatchers.any(Game.class), ArgumentMatchers.eq(3L));
+
+        kalahGameService.move("gameId", 1);
+        catchException(() -> kalahGameService.move("gameId", 8));
+        kalahGameService.move("gameId", Arrays.asList(8, 1));
+
+        Mockito.verify(gameEventPublisher, Mockito.times(1)).gameChanged(ArgumentMatchers.argThat(game -> game.getVersion() == 4L));
+    }
+
+    @Test
+    public void testArchivedGameIsReadButNotPlayed() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameArchive.findById("gameId")).thenReturn(Optional.of(newGameWithVersion(7L)));
+
+        assertThat(kalahGameService.getGame("gameId").getVersion(), is(7L));
+        catchException(() -> kalahGameService.move("gameId", 1));
+        assertThat(caughtException(), instanceOf(GameNotFoundException.class));
+        catchException(() -> kalahGameService.getGame("unknown"));
+        assertThat(caughtException(), instanceOf(GameNotFoundException.class));
+    }
+
+    @Test
+    public void testGetIsTimedAcrossTheArchiveFallback() throws GameNotFoundException {
+        Mockito.when(gameArchive.findById("gameId")).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return Optional.of(newGameWithVersion(7L));
+        });
+
+        kalahGameService.getGame("gameId");
+        catchException(() -> kalahGameService.getGame("unknown"));
+
+        Timer get = meterRegistry.get("games.operation").tag("operation", "get").timer();
+        Timer load = meterRegistry.get("games.store").tag("operation", "load").timer();
+        assertThat(get.count(), is(2L));
+        assertThat(load.count(), is(2L));
+        assertThat(get.max(TimeUnit.MILLISECONDS) >= 50, is(true));
+        assertThat(load.max(TimeUnit.MILLISECONDS) < 50, is(true));
+    }
+
+    @Test
+    public void testRejectedMovesCarryNoStackTrace() throws InvalidMoveException, GameNotFoundException {
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)));
+
+        catchException(() -> kalahGameService.move("gameId", 7));
+
+        assertThat(caughtException(), instanceOf(InvalidMoveException.class));
+        assertThat(caughtException().getStackTrace().length, is(0));
+    }
+
+    @Test
+    public void testLegalMovesPredictTheOutcomeOfPlayingThem() throws InvalidMoveException {
+        Game game = newGameWithVersion(3L);
+        int[] before = game.getPits().clone();
+
+        List<LegalMove> moves = KalahGameRules.legalMoves(game);
+
+        assertThat(moves.size(), is(6));
+        assertThat(game.getPits(), is(before));
+        for (LegalMove move : moves) {
+            Game played = game.copy();
+            KalahGameRules.applyMove(played, move.getPitId(), new GameMetrics(meterRegistry));
+            assertThat(move.getPits(), is(played.getPits()));
+            assertThat(move.getNextToPlay(), is(played.getNextToPlay()));
+            assertThat(move.isBonusMove(), is(played.isBonusMove()));
+            assertThat(move.isCapture(), is(false));
+        }
+        assertThat(moves.get(0).getPitId(), is(1));
+        assertThat(moves.get(0).isBonusMove(), is(true));
+
+        game.setGameOver(true);
+        assertThat(KalahGameRules.legalMoves(game).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testMoveRejectedOnACachedCopyIsCheckedOnTheStoredGame() throws InvalidMoveException, GameNotFoundException {
+        Game stored = newGameWithVersion(4L);
+        stored.setNextToPlay(2);
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.of(newGameWithVersion(3L)), Optional.of(stored));
+        Mockito.when(gameRepository.evictIfStale("gameId")).thenReturn(true);
+
+        Game game = kalahGameService.move("gameId", 8);
+
+        assertThat(game.getVersion(), is(5L));
+        assertThat(game.getLastPlayedBy(), is(2));
+        Mockito.verify(gameRepository, Mockito.times(1)).evictIfStale("gameId");
+
+        catchException(() -> kalahGameService.move("gameId", 7));
+        assertThat(caughtException(), instanceOf(InvalidMoveException.class));
+        Mockito.verify(gameRepository, Mockito.times(2)).evictIfStale("gameId");
+    }
+
+    @Test
+    public void testOnlyTheMoveFinishingTheGameCountsItsResult() throws InvalidMoveException, GameNotFoundException {
+        Game settled = newGameWithVersion(9L);
+        settled.setPits(new int[]{0, 0, 0, 0, 0, 0, 40, 6, 6, 0, 0, 0, 20, 0});
+        Mockito.when(gameRepository.findById(ArgumentMatchers.anyString()))
+                .thenAnswer(invocation -> Optional.of(newGameWithVersion(3L)))
+                .thenAnswer(invocation -> Optional.of(settled));
+        Mockito.when(leaderboard.gameOver(ArgumentMatchers.any(Game.class)))
+                .thenThrow(new QueryTimeoutException("Redis command timed out"));
+
+        kalahGameService.move("gameId", 1);
+        Mockito.verifyNoInteractions(leaderboard);
+
+        Game finished = kalahGameService.move("gameId", 1);
+        assertThat(finished.isGameOver(), is(true));
+        assertThat(finished.getVersion(), is(10L));
+        Mockito.verify(leaderboard, Mockito.times(1)).gameOver(finished);
+    }
+
+    private static Game newGameWithVersion(Long version) {
+        Map<String, Integer> pitsSeedsMap = new HashMap<>();
+        for (int i = 1; i <= 14; i++) {
+            pitsSeedsMap.put(String.valueOf(i), i % 7 == 0 ? 0 : 6);
+        }
+        return Game.builder()
+                .id("gameId")
+                .uri("URI")
+                .pitsSeedsMap(pitsSeedsMap)
+                .nextToPlay(1)
+                .version(version)
+                .build();
+    }
+
+}
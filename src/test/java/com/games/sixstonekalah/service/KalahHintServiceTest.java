@@ -0,0 +1,121 @@
+package com.games.sixstonekalah.service;
+
+import com.games.sixstonekalah.ai.ParallelSearch;
+import com.games.sixstonekalah.ai.PositionCache;
+import com.games.sixstonekalah.ai.SearchResult;
+import com.games.sixstonekalah.ai.TranspositionTable;
+import com.games.sixstonekalah.ai.Zobrist;
+import com.games.sixstonekalah.engine.KalahBoard;
+import com.games.sixstonekalah.exceptions.HintUnavailableException;
+import com.games.sixstonekalah.exceptions.InvalidMoveException;
+import com.games.sixstonekalah.metrics.GameMetrics;
+import com.games.sixstonekalah.model.Game;
+import com.googlecode.catchexception.apis.CatchExceptionHamcrestMatchers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.AllOf.allOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class KalahHintServiceTest {
+
+    private ForkJoinPool pool;
+    private ParallelSearch parallelSearch;
+    private PositionCache positionCache;
+    private SimpleMeterRegistry meterRegistry;
+    private KalahHintService kalahHintService;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(1);
+        parallelSearch = new ParallelSearch(new TranspositionTable(1 << 16), new Zobrist(KalahBoard.SIZE, KalahBoard.TOTAL_SEEDS), pool, 1);
+        positionCache = new PositionCache(new SimpleMeterRegistry(), 100, 12);
+        meterRegistry = new SimpleMeterRegistry();
+        kalahHintService = new KalahHintService(parallelSearch, positionCache, new GameMetrics(meterRegistry), 20, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        kalahHintService.destroy();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testHintIsALegalMoveFollowedByAPlayableLine() throws Exception {
+        Game game = newGame(KalahBoard.newBoard(), KalahBoard.PLAYER_1);
+        final long start = System.nanoTime();
+        Hint hint = kalahHintService.hint(game).get();
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(hint.isCached(), is(false));
+        assertThat(hint.getDepth(), greaterThan(0));
+        assertThat(hint.getPrincipalVariation()[0], is(hint.getPitId()));
+        assertTrue(hint.getPrincipalVariation().length <= hint.getDepth());
+        int[] board = KalahBoard.newBoard();
+        int player = KalahBoard.PLAYER_1;
+        for (int pitId : hint.getPrincipalVariation()) {
+            assertTrue(KalahBoard.isLegalMove(board, player, pitId));
+            if ((KalahBoard.sow(board, player, pitId) & KalahBoard.BONUS_MOVE) == 0) {
+                player = KalahBoard.opponent(player);
+            }
+        }
+        assertThat(meterRegistry.get("games.operation").tag("operation", "hint").timer().count(), is(1L));
+    }
+
+    @Test
+    public void testPositionsSearchedDeepEnoughAreAnsweredFromTheCache() throws Exception {
+        int[] pits = KalahBoard.newBoard();
+        positionCache.put(pits, KalahBoard.PLAYER_1, SearchResult.builder().bestMove(3).score(4).depth(14).build());
+
+        CompletableFuture<Hint> hint = kalahHintService.hint(newGame(pits, KalahBoard.PLAYER_1));
+        assertThat(hint.isDone(), is(true));
+        assertThat(hint.get().isCached(), is(true));
+        assertThat(hint.get().getPitId(), is(3));
+        assertThat(hint.get().getScore(), is(4));
+    }
+
+    @Test
+    public void testHintsBeyondThePoolAndItsQueueAreTurnedAway() throws Exception {
+        KalahHintService slowHints = new KalahHintService(parallelSearch, positionCache, new GameMetrics(meterRegistry), 300, 1, 1);
+        try {
+            CompletableFuture<Hint> running = slowHints.hint(newGame(KalahBoard.newBoard(), KalahBoard.PLAYER_1));
+            CompletableFuture<Hint> queued = slowHints.hint(newGame(KalahBoard.newBoard(), KalahBoard.PLAYER_2));
+            catchException(() -> slowHints.hint(newGame(new int[]{5, 6, 6, 6, 6, 6, 0, 6, 6, 6, 6, 6, 6, 1}, KalahBoard.PLAYER_1)));
+            assertThat(caughtException(), instanceOf(HintUnavailableException.class));
+            assertThat(meterRegistry.get("games.hints.rejected").counter().count(), is(1.0));
+
+            // the deadline of the queued hint ran while it waited, it searches for what is left of it
+            assertTrue(KalahBoard.isLegalMove(KalahBoard.newBoard(), KalahBoard.PLAYER_1, running.get().getPitId()));
+            assertTrue(KalahBoard.isLegalMove(KalahBoard.newBoard(), KalahBoard.PLAYER_2, queued.get().getPitId()));
+        } finally {
+            slowHints.destroy();
+        }
+    }
+
+    @Test
+    public void testNoHintOnceTheGameIsOver() {
+        Game game = newGame(new int[]{0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32}, KalahBoard.PLAYER_1);
+        game.setGameOver(true);
+        catchException(() -> kalahHintService.hint(game));
+        assertThat(caughtException(), allOf(
+                instanceOf(InvalidMoveException.class),
+                CatchExceptionHamcrestMatchers.hasMessage("Game is over, there is no move to hint")
+        ));
+    }
+
+    private static Game newGame(int[] pits, int nextToPlay) {
+        return Game.builder().id("game").uri("URI").pits(pits).nextToPlay(nextToPlay).build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.engine.KalahBoard;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.games.sixstonekalah.engine.KalahBoard.PLAYER_1;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SimulationRunnerTest {
+
+    @Test
+    public void testRecordOfASimulatedGameReplaysToTheSameResult() {
+        GameSimulator simulator = new GameSimulator();
+        SimulationStatistics statistics = new SimulationStatistics();
+        simulator.play(Policies.random(), Policies.greedy(), new SplittableRandom(7), statistics);
+
+        ByteBuffer record = ByteBuffer.wrap(simulator.getRecord(), 0, simulator.getRecordLength());
+        int[] pitIds = GameRecords.read(record);
+        assertThat(record.hasRemaining(), is(false));
+        assertThat((long) pitIds.length, is(statistics.getMoves()));
+        assertThat(statistics.getGames(), is(1L));
+        assertThat(Math.abs(statistics.getPlayer1Margin()) <= KalahBoard.TOTAL_SEEDS, is(true));
+    }
+
+    @Test
+    public void testStatisticsOnlyDependOnTheSeed() throws IOException {
+        SimulationStatistics single = run(1, 10_000, 42L);
+        SimulationStatistics parallel = run(3, 10_000, 42L);
+
+        assertThat(single.getGames(), is(10_000L));
+        assertThat(single.getPlayer1Wins() + single.getPlayer2Wins() + single.getDraws(), is(10_000L));
+        assertThat(parallel.toString(), is(single.toString()));
+        assertThat(single.getCaptures(), greaterThan(0L));
+    }
+
+    @Test
+    public void testEveryGameIsRecorded() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SimulationStatistics statistics;
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            statistics = new SimulationRunner(Policies::random, Policies::random, pool)
+                    .run(SimulationRunner.GAMES_PER_CHUNK + 100, 1L, Channels.newChannel(out), total -> {
+                    });
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(out.toByteArray());
+        long games = 0;
+        long moves = 0;
+        while (records.hasRemaining()) {
+            moves += GameRecords.read(records).length;
+            games++;
+        }
+        assertThat(games, is(statistics.getGames()));
+        assertThat(moves, is(statistics.getMoves()));
+    }
+
+    @Test
+    public void testGreedyTakesTheBonusMove() {
+        int[] moves = new int[KalahBoard.NUMBER_OF_PITS];
+        int[] pits = KalahBoard.newBoard();
+        int count = KalahBoard.getLegalMoves(pits, PLAYER_1, moves);
+        assertThat(Policies.greedy().choose(pits, PLAYER_1, moves, count, new SplittableRandom(1)), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPolicyIsRejected() {
+        Policies.named("minimax");
+    }
+
+    private static SimulationStatistics run(int parallelism, long games, long seed) throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            return new SimulationRunner(Policies::random, Policies.named("greedy"), pool).run(games, seed, null, total -> {
+            });
+        }
+    }
+}
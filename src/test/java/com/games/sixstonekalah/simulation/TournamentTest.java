@@ -0,0 +1,135 @@
+package com.games.sixstonekalah.simulation;
+
+import com.games.sixstonekalah.ai.EvaluationWeights;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TournamentTest {
+
+    private final List<EngineConfig> engines = Arrays.asList(
+            EngineConfig.parse("shallow:1"),
+            EngineConfig.parse("deep:4"),
+            EngineConfig.parse("seeds:2:0:1,1,0"),
+            EngineConfig.parse("mobile:3:0:1,0,2"));
+
+    @Test
+    public void testRoundRobinPlaysEveryPairingWithBothColours() throws IOException {
+        StringWriter results = new StringWriter();
+        Standings standings;
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            standings = new Tournament(engines, pool, 2, Tournament.DEFAULT_RANDOM_OPENING_MOVES).roundRobin(1L, results);
+        }
+
+        String[] lines = results.toString().split("\n");
+        assertThat(lines[0], is(Tournament.RESULTS_HEADER));
+        assertThat(lines.length, is(1 + 6 * 2 * 2));
+        assertThat(standings.getGames(), is(24L));
+        long points = 0;
+        for (Standings.Standing standing : standings.ranked()) {
+            assertThat(standing.getGames(), is(12L));
+            points += 2 * standing.getWins() + standing.getDraws();
+        }
+        assertThat(points, is(2 * 24L));
+        long deepFirst = Arrays.stream(lines).filter(line -> line.startsWith("1,deep,shallow,")).count();
+        long deepSecond = Arrays.stream(lines).filter(line -> line.startsWith("1,shallow,deep,")).count();
+        assertThat(deepFirst, is(2L));
+        assertThat(deepSecond, is(2L));
+    }
+
+    @Test
+    public void testResultsOnlyDependOnTheSeed() throws IOException {
+        Standings single;
+        Standings parallel;
+        try (ForkJoinPool one = new ForkJoinPool(1); ForkJoinPool three = new ForkJoinPool(3)) {
+            single = new Tournament(engines, one, 3, Tournament.DEFAULT_RANDOM_OPENING_MOVES).swiss(2, 9L, new StringWriter());
+            parallel = new Tournament(engines, three, 3, Tournament.DEFAULT_RANDOM_OPENING_MOVES).swiss(2, 9L, new StringWriter());
+        }
+
+        assertThat(parallel.toString(), is(single.toString()));
+    }
+
+    @Test
+    public void testSwissPairsCloseScoresWithoutRematchesAndRotatesTheBye() {
+        List<EngineConfig> five = Arrays.asList(engines.get(0), engines.get(1), engines.get(2), engines.get(3),
+                EngineConfig.parse("extra:2"));
+        Standings standings = new Standings(five);
+        standings.addGame(1, 0, 40, 32);
+        standings.addGame(3, 2, 40, 32);
+        boolean[][] met = new boolean[5][5];
+        met[0][1] = met[1][0] = met[1][3] = met[3][1] = true;
+        int[] byes = {0, 0, 1, 0, 0};
+
+        List<int[]> pairings = Tournament.swissPairings(standings, met, byes);
+
+        assertThat(pairings.size(), is(2));
+        // ranked 1, 3, 4, 0, 2: engine 2 already sat out so engine 0 does, and the winners already met
+        assertThat(pairings.get(0), is(new int[]{1, 4}));
+        assertThat(pairings.get(1), is(new int[]{3, 2}));
+        assertThat(byes, is(new int[]{1, 0, 1, 0, 0}));
+    }
+
+    @Test
+    public void testRoundRobinFlushesEveryResult() throws IOException {
+        AtomicInteger flushes = new AtomicInteger();
+        Writer results = new StringWriter() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            new Tournament(engines.subList(0, 2), pool, 2, Tournament.DEFAULT_RANDOM_OPENING_MOVES).roundRobin(1L, results);
+        }
+
+        assertThat(flushes.get(), is(2 * 2));
+    }
+
+    @Test
+    public void testScoreIntervalIsTakenOverGamePairs() {
+        Standings standings = new Standings(engines.subList(0, 2));
+        for (int pair = 0; pair < 10; pair++) {
+            // each engine wins the game it moves first in
+            standings.addGamePair(0, 1, 40, 32, 40, 32);
+        }
+
+        Standings.Standing first = standings.get(0);
+        assertThat(first.getScore(), is(0.5));
+        assertThat(first.getWins(), is(10L));
+        assertThat(first.getScoreMargin(), is(0.0));
+
+        Standings unpaired = new Standings(engines.subList(0, 2));
+        for (int game = 0; game < 10; game++) {
+            unpaired.addGame(0, 1, 40, 32);
+            unpaired.addGame(1, 0, 40, 32);
+        }
+        assertThat(unpaired.get(0).getScoreMargin() > 0.2, is(true));
+    }
+
+    @Test
+    public void testEngineConfigIsParsedAndChecked() {
+        EngineConfig engine = EngineConfig.parse("weighted:6:25:2,1,-1");
+
+        assertThat(engine.getName(), is("weighted"));
+        assertThat(engine.getDepth(), is(6));
+        assertThat(engine.getBudgetMillis(), is(25L));
+        assertThat(engine.getWeights().toString(), is("2,1,-1"));
+        assertThat(EngineConfig.parse("plain:3").getWeights(), is(EvaluationWeights.STORES));
+        catchException(() -> EngineConfig.parse("nodepth"));
+        assertThat(caughtException(), instanceOf(IllegalArgumentException.class));
+        catchException(() -> EngineConfig.parse("heavy:3:0:1000,0,0"));
+        assertThat(caughtException(), instanceOf(IllegalArgumentException.class));
+    }
+}